@@ -0,0 +1,41 @@
+package com.quadrago.backend.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Escolhe o custo (log rounds) do BCrypt medindo este hardware no startup.
+ *
+ * Mede o custo mínimo (melhor de algumas rodadas, após aquecer o JIT) e sobe enquanto o tempo
+ * estimado couber no alvo; cada +1 no custo dobra o trabalho.
+ */
+final class BCryptCostCalibrator {
+
+    private static final int ROUNDS = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    record Result(int strength, Duration estimated) {}
+
+    static Result calibrate(Duration target, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("warmup");
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            probe.encode("calibration");
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+
+        int strength = minStrength;
+        long estimated = best;
+        while (strength < maxStrength && estimated * 2 <= target.toNanos()) {
+            estimated *= 2;
+            strength++;
+        }
+        return new Result(strength, Duration.ofNanos(estimated));
+    }
+}
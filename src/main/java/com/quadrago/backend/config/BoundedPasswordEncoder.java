@@ -0,0 +1,143 @@
+package com.quadrago.backend.config;
+
+import com.quadrago.backend.exceptions.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executa hash/verificação de senha num pool dedicado, do tamanho do número de CPUs, com fila limitada.
+ *
+ * BCrypt é CPU puro (dezenas de ms por chamada): no thread do request, uma rajada de logins
+ * ocupa todos os núcleos e derruba o resto da API. Aqui o custo fica preso a N threads e o
+ * excedente é recusado na hora ({@link PasswordHashingBusyException} → 429 + Retry-After).
+ *
+ * Admissão: além da fila limitada, recusa já na entrada quando a espera estimada (fila × tempo
+ * médio recente / threads) passa do timeout — trabalho que terminaria depois do cliente desistir
+ * só roubaria CPU de quem ainda pode ser atendido.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration waitTimeout;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+    private volatile double avgNanos; // média móvel (EWMA) do tempo de execução
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.waitTimeout = waitTimeout;
+
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hash-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .description("Tempo de CPU por operação de senha")
+                .tag("op", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .description("Tempo de CPU por operação de senha")
+                .tag("op", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Operações de senha recusadas por fila cheia ou espera excedida")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size())
+                .description("Operações de senha aguardando na fila")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Operações de senha em execução")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword); // só inspeciona o prefixo, sem custo
+    }
+
+    /** Chamado pelo Spring no shutdown (destroy method inferido do @Bean). */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> op) {
+        if (estimatedWaitNanos() > waitTimeout.toNanos()) throw busy();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long t0 = System.nanoTime();
+                try {
+                    return op.call();
+                } finally {
+                    long elapsed = System.nanoTime() - t0;
+                    timer.record(elapsed, TimeUnit.NANOSECONDS);
+                    double avg = avgNanos;
+                    avgNanos = avg == 0 ? elapsed : avg + EWMA_ALPHA * (elapsed - avg);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando hash de senha", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private PasswordHashingBusyException busy() {
+        rejected.increment();
+        return new PasswordHashingBusyException(retryAfterSeconds());
+    }
+
+    /** Quanto um novo pedido esperaria até terminar, pelo tamanho da fila e a média recente. */
+    private double estimatedWaitNanos() {
+        return (executor.getQueue().size() + 1) * avgNanos / executor.getMaximumPoolSize();
+    }
+
+    /** Estimativa de quando a fila atual terá escoado (mínimo 1s). */
+    private long retryAfterSeconds() {
+        return Math.max(1L, (long) Math.ceil(estimatedWaitNanos() / 1e9));
+    }
+}
@@ -0,0 +1,52 @@
+package com.quadrago.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Envolve o DataSource com {@link ConcurrencyLimitedDataSource}, dimensionado pelo pool do Hikari.
+ * Ligado por padrão junto com virtual threads ({@code spring.threads.virtual.enabled}).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceConcurrencyLimiter(Environment env, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof ConcurrencyLimitedDataSource) return bean;
+
+                int permits = env.getProperty("app.datasource.limiter.permits", Integer.class,
+                        env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                long timeoutMs = env.getProperty("app.datasource.limiter.acquire-timeout-ms", Long.class,
+                        env.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+                int maxWaiting = env.getProperty("app.datasource.limiter.max-waiting", Integer.class, 1000);
+
+                var limited = new ConcurrencyLimitedDataSource(ds, permits, timeoutMs, maxWaiting);
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("db.limiter.waiting", limited, ConcurrencyLimitedDataSource::getWaiting)
+                            .description("Threads aguardando permissão para o pool")
+                            .register(registry);
+                    Gauge.builder("db.limiter.in_use", limited, ConcurrencyLimitedDataSource::getInUse)
+                            .description("Permissões em uso")
+                            .register(registry);
+                });
+                log.info("DataSource '{}' limitado a {} conexões simultâneas (timeout={} ms, maxWaiting={})",
+                        beanName, permits, timeoutMs, maxWaiting);
+                return limited;
+            }
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.quadrago.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Habilita jobs @Scheduled (limpeza de revogações, etc.). */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,8 +2,12 @@ package com.quadrago.backend.config;
 
 import com.quadrago.backend.filters.CustomUserDetailsService;
 import com.quadrago.backend.filters.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -18,6 +22,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
@@ -29,7 +34,9 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Configuration
@@ -46,8 +53,10 @@ public class SecurityConfig {
     private static final String TEACHER = "TEACHER";
     private static final String STUDENT = "STUDENT";
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         log.info("Building SecurityFilterChain (stateless, JWT).");
 
         return http
@@ -61,6 +70,9 @@ public class SecurityConfig {
                 )
 
                 .authorizeHttpRequests(auth -> auth
+                        // Dispatch assíncrono (SSE) só continua um request já autorizado
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // ======= PÚBLICO =======
                         .requestMatchers("/", "/login", "/logout", "/auth/**", "/assets/**").permitAll()
 
@@ -90,12 +102,15 @@ public class SecurityConfig {
                         .requestMatchers("/admin/**").hasRole(ADMIN)
                         .requestMatchers(HttpMethod.GET, "/dashboard/**").hasAnyRole(TEACHER, ADMIN)
 
+                        // Agenda: professor, aluno ou admin (quem é participante é checado no controller)
+                        .requestMatchers("/lessons/**").hasAnyRole(TEACHER, STUDENT, ADMIN)
+
                         // Qualquer outra rota requer autenticação
                         .anyRequest().authenticated()
                 )
 
                 // Usa nosso AuthenticationProvider (UserDetailsService + BCrypt)
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
 
                 // Basic Auth (útil para admin/actuator quando necessário)
                 .httpBasic(Customizer.withDefaults())
@@ -106,12 +121,12 @@ public class SecurityConfig {
                 .build();
     }
 
-    /** DaoAuthenticationProvider usando CustomUserDetailsService + BCrypt */
+    /** DaoAuthenticationProvider usando CustomUserDetailsService + BCrypt; rehash no login se o custo estiver abaixo da política */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setUserDetailsService(customUserDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(customUserDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(customUserDetailsService);
         return provider;
     }
 
@@ -127,8 +142,8 @@ public class SecurityConfig {
         ));
 
         cfg.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        cfg.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Requested-With"));
-        cfg.setExposedHeaders(List.of("Location"));
+        cfg.setAllowedHeaders(List.of("Authorization", "Content-Type", "X-Requested-With", "Last-Event-ID"));
+        cfg.setExposedHeaders(List.of("Location", "X-Next-Cursor"));
         cfg.setAllowCredentials(true);
         // (opcional) cache do preflight
         cfg.setMaxAge(3600L);
@@ -158,9 +173,42 @@ public class SecurityConfig {
         };
     }
 
+    /**
+     * Encoder delegante ("{bcrypt}..."); hashes legados sem prefixo continuam válidos e são
+     * regravados no próximo login. O custo vem de {@code strength} ou, se 0, de um benchmark no
+     * startup contra {@code target-latency}. BCrypt roda fora do thread do request (ver BoundedPasswordEncoder).
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password-hashing.strength:0}") int strength,
+            @Value("${app.security.password-hashing.target-latency:100ms}") Duration targetLatency,
+            @Value("${app.security.password-hashing.min-strength:10}") int minStrength,
+            @Value("${app.security.password-hashing.max-strength:14}") int maxStrength,
+            @Value("${app.security.password-hashing.threads:0}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password-hashing.wait-timeout:5s}") Duration waitTimeout) {
+        if (strength <= 0) {
+            var calibrated = BCryptCostCalibrator.calibrate(targetLatency, minStrength, maxStrength);
+            strength = calibrated.strength();
+            log.info("BCrypt: custo {} escolhido por benchmark (~{} ms por hash, alvo {} ms)",
+                    strength, calibrated.estimated().toMillis(), targetLatency.toMillis());
+        } else {
+            log.info("BCrypt: custo {} fixado por configuração", strength);
+        }
+        int policy = strength;
+        Gauge.builder("auth.password.strength", () -> policy)
+                .description("Custo BCrypt vigente para novos hashes")
+                .register(meterRegistry);
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(
+                BCRYPT_ID, Map.of(BCRYPT_ID, new BCryptPasswordEncoder(policy)));
+        // Hashes gravados antes do prefixo {id}: BCrypt verifica qualquer custo
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        log.info("Hash de senha: {} threads, fila de {}", poolSize, queueCapacity);
+        return new BoundedPasswordEncoder(delegating, poolSize, queueCapacity, waitTimeout, meterRegistry);
     }
 
     @Bean
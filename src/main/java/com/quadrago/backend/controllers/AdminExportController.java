@@ -0,0 +1,55 @@
+package com.quadrago.backend.controllers;
+
+import com.quadrago.backend.services.UserExportService;
+import com.quadrago.backend.services.UserExportService.Format;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/admin/exports")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private final UserExportService exportService;
+
+    /**
+     * Dump completo de usuários, pessoas e perfis (ADMIN). Streaming: as linhas saem do cursor
+     * do banco direto para a resposta, sem montar lista em memória.
+     * {@code format=ndjson|csv}; {@code gzip=true} entrega o arquivo compactado (.gz).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/users")
+    public ResponseEntity<StreamingResponseBody> users(@RequestParam(defaultValue = "ndjson") String format,
+                                                       @RequestParam(defaultValue = "false") boolean gzip) {
+        Format f = parseFormat(format);
+        String filename = "users-" + LocalDate.now() + "." + f.extension + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> exportService.exportUsers(f, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(f.contentType + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido (use ndjson ou csv)");
+        }
+    }
+}
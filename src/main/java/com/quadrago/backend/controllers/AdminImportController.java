@@ -0,0 +1,57 @@
+package com.quadrago.backend.controllers;
+
+import com.quadrago.backend.dtos.UserDtos.UserImportJobResponse;
+import com.quadrago.backend.services.UserExportService.Format;
+import com.quadrago.backend.services.UserImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/admin/imports")
+@RequiredArgsConstructor
+public class AdminImportController {
+
+    private final UserImportService importService;
+
+    /**
+     * Cadastro em lote (ADMIN). Corpo cru: {@code format=ndjson} (um CreatePersonUserRequest por linha)
+     * ou {@code format=csv} (com cabeçalho). O arquivo é lido e validado na hora; a criação roda em
+     * background: 202 com Location apontando para o status da importação.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/users")
+    public ResponseEntity<UserImportJobResponse> users(@RequestParam(defaultValue = "ndjson") String format,
+                                                       InputStream body) throws IOException {
+        UserImportJobResponse job = importService.submit(parseFormat(format), body);
+        return ResponseEntity.accepted().location(URI.create("/admin/imports/users/" + job.id())).body(job);
+    }
+
+    /** Andamento; com status DONE traz as linhas criadas e as recusadas com o motivo. */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/users/{id}")
+    public UserImportJobResponse userImport(@PathVariable String id) {
+        return importService.job(id);
+    }
+
+    private static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido (use ndjson ou csv)");
+        }
+    }
+}
@@ -3,7 +3,12 @@ package com.quadrago.backend.controllers;
 import com.quadrago.backend.filters.CustomUserPrincipal;
 import com.quadrago.backend.filters.CustomUserDetailsService;
 import com.quadrago.backend.services.JwtService;
-import com.quadrago.backend.services.TokenBlacklistService;
+import com.quadrago.backend.services.RefreshTokenService;
+import com.quadrago.backend.services.VerifiedToken;
+import com.quadrago.backend.services.revocation.TokenRevocationBackend;
+import com.quadrago.backend.services.throttle.LoginThrottle;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
@@ -28,7 +33,9 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
-    private final TokenBlacklistService blacklist;
+    private final TokenRevocationBackend revocations;
+    private final RefreshTokenService refreshTokens;
+    private final LoginThrottle loginThrottle;
 
     /* ======== DTOs ======== */
     public record LoginRequest(@Email @NotBlank String email, @NotBlank String password) {}
@@ -39,7 +46,11 @@ public class AuthController {
 
     /* ======== LOGIN ======== */
     @PostMapping("/login")
-    public ResponseEntity<TokenPairResponse> login(@RequestBody @Validated LoginRequest request) {
+    public ResponseEntity<TokenPairResponse> login(@RequestBody @Validated LoginRequest request,
+                                                   HttpServletRequest httpRequest) {
+        // Limite por IP/e-mail antes de qualquer BCrypt (429 via GlobalExceptionHandler). Atrás de proxy
+        // confiável o remoteAddr já é o IP do cliente (server.forward-headers-strategy=native)
+        loginThrottle.acquire(httpRequest.getRemoteAddr(), request.email());
         try {
             Authentication auth = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.email().toLowerCase(), request.password())
@@ -47,7 +58,7 @@ public class AuthController {
             CustomUserPrincipal principal = (CustomUserPrincipal) auth.getPrincipal();
 
             String access = jwtService.generateAccessToken(principal);
-            String refresh = jwtService.generateRefreshToken(principal);
+            String refresh = refreshTokens.issue(principal);
 
             Set<String> roles = principal.getAuthorities().stream()
                     .map(GrantedAuthority::getAuthority).map(a -> a.replaceFirst("^ROLE_", ""))
@@ -73,42 +84,48 @@ public class AuthController {
     public ResponseEntity<TokenPairResponse> refresh(@RequestBody @Validated RefreshRequest req) {
         final String oldRefresh = req.refreshToken();
 
-        // 1) Blacklist check
-        if (blacklist.isBlacklisted(oldRefresh)) {
-            log.warn("Refresh token na blacklist");
+        // 1) Parse único: assinatura + expiração + typ
+        final VerifiedToken verified;
+        try {
+            verified = jwtService.parse(oldRefresh);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Refresh token inválido: {}", e.getMessage());
+            return ResponseEntity.status(401).build();
+        }
+        final String username = verified.subject();
+        if (!verified.isRefresh() || username == null) {
             return ResponseEntity.status(401).build();
         }
 
-        // 2) Validar se é refresh e se está válido
-        final String username = jwtService.extractUsername(oldRefresh);
-        if (!jwtService.isRefreshToken(oldRefresh) || username == null) {
+        // 2) Blacklist check
+        if (revocations.isRevoked(verified)) {
+            log.warn("Refresh token na blacklist");
             return ResponseEntity.status(401).build();
         }
 
-        var userDetails = userDetailsService.loadUserByUsername(username);
-        if (!jwtService.isTokenValid(oldRefresh, userDetails)) {
+        var userDetails = (CustomUserPrincipal) userDetailsService.loadUserByUsername(username);
+        if (!jwtService.isTokenValid(verified, userDetails)) {
             return ResponseEntity.status(401).build();
         }
 
-        // 3) Rotação: invalida o refresh antigo até seu expiration
-        long expMs = jwtService.extractExpiration(oldRefresh).getTime();
-        blacklist.blacklist(oldRefresh, expMs);
+        // 3) Rotação na família (detecta reuso de refresh antigo)
+        var newRefresh = refreshTokens.rotate(verified, userDetails);
+        if (newRefresh.isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
 
-        // 4) Gera novos tokens
+        // 4) Gera novo access
         String newAccess = jwtService.generateAccessToken(userDetails);
-        String newRefresh = jwtService.generateRefreshToken(userDetails);
 
         Set<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority).map(a -> a.replaceFirst("^ROLE_", ""))
                 .collect(Collectors.toSet());
 
-        Long userId = (userDetails instanceof CustomUserPrincipal p) ? p.getId() : null;
-
-        return ResponseEntity.ok(new TokenPairResponse(newAccess, newRefresh, "Bearer",
-                userId, userDetails.getUsername(), roles));
+        return ResponseEntity.ok(new TokenPairResponse(newAccess, newRefresh.get(), "Bearer",
+                userDetails.getId(), userDetails.getUsername(), roles));
     }
 
-    /* ======== LOGOUT (blacklist de access e refresh) ======== */
+    /* ======== LOGOUT (blacklist do access, revogação da família do refresh) ======== */
     @PostMapping("/logout")
     public ResponseEntity<Void> logout(
             @RequestHeader(name = "Authorization", required = false) String authorization,
@@ -118,8 +135,7 @@ public class AuthController {
         if (authorization != null && authorization.startsWith("Bearer ")) {
             String access = authorization.substring(7);
             try {
-                long accessExp = jwtService.extractExpiration(access).getTime();
-                blacklist.blacklist(access, accessExp);
+                revocations.revoke(jwtService.parse(access));
             } catch (Exception e) {
                 log.debug("Falha ao extrair expiração do access token no logout: {}", e.getMessage());
             }
@@ -129,8 +145,7 @@ public class AuthController {
         if (body != null && body.refreshToken() != null && !body.refreshToken().isBlank()) {
             String refresh = body.refreshToken();
             try {
-                long refreshExp = jwtService.extractExpiration(refresh).getTime();
-                blacklist.blacklist(refresh, refreshExp);
+                refreshTokens.revoke(jwtService.parse(refresh));
             } catch (Exception e) {
                 log.debug("Falha ao extrair expiração do refresh token no logout: {}", e.getMessage());
             }
@@ -0,0 +1,88 @@
+package com.quadrago.backend.controllers;
+
+import com.quadrago.backend.dtos.LessonDtos.AvailabilityResponse;
+import com.quadrago.backend.dtos.LessonDtos.LessonResponse;
+import com.quadrago.backend.dtos.LessonDtos.RescheduleLessonRequest;
+import com.quadrago.backend.dtos.LessonDtos.ScheduleLessonRequest;
+import com.quadrago.backend.services.scheduling.LessonSchedulingService;
+import com.quadrago.backend.services.scheduling.LessonSeriesService;
+import com.quadrago.backend.services.scheduling.TeacherAvailabilityService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/lessons")
+@RequiredArgsConstructor
+public class LessonController {
+
+    private final LessonSchedulingService scheduling;
+    private final TeacherAvailabilityService availability;
+    private final LessonSeriesService series;
+
+    /**
+     * Agendar: admin, o professor ou o aluno da aula. Horário cruzando outra aula de qualquer um
+     * dos dois → 409 com o id da aula em conflito.
+     */
+    @PreAuthorize("hasRole('ADMIN') or #req.teacherUserId == principal.id or #req.studentUserId == principal.id")
+    @PostMapping
+    public ResponseEntity<LessonResponse> schedule(@RequestBody @Valid ScheduleLessonRequest req) {
+        LessonResponse lesson = scheduling.schedule(req);
+        return ResponseEntity.created(URI.create("/lessons/" + lesson.id())).body(lesson);
+    }
+
+    /**
+     * Agenda do usuário (como professor ou aluno) com início em [from, to): aulas em aberto e as
+     * ocorrências das séries, calculadas só para a janela (ocorrência ainda não materializada vem
+     * sem id, com {@code seriesId} e {@code occurrenceStartAt}).
+     */
+    @PreAuthorize("hasRole('ADMIN') or #userId == principal.id")
+    @GetMapping
+    public ResponseEntity<List<LessonResponse>> calendar(
+            @RequestParam Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to
+    ) {
+        return ResponseEntity.ok(series.calendar(userId, from, to));
+    }
+
+    /**
+     * Professores da especialidade livres em [startAt, endAt), ordenados pela agenda mais folgada.
+     * É uma sugestão: o agendamento confere de novo.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> availability(
+            @RequestParam String specialty,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startAt,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endAt,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(availability.search(specialty, startAt, endAt, limit));
+    }
+
+    @PreAuthorize("hasRole('ADMIN') or @lessonSchedulingService.isParticipant(#id, principal.id)")
+    @GetMapping("/{id}")
+    public ResponseEntity<LessonResponse> get(@PathVariable Long id) {
+        return ResponseEntity.ok(scheduling.get(id));
+    }
+
+    /** Remarcar (mesmas regras de conflito; a própria aula não conta). */
+    @PreAuthorize("hasRole('ADMIN') or @lessonSchedulingService.isParticipant(#id, principal.id)")
+    @PutMapping("/{id}/schedule")
+    public ResponseEntity<LessonResponse> reschedule(@PathVariable Long id, @RequestBody @Valid RescheduleLessonRequest req) {
+        return ResponseEntity.ok(scheduling.reschedule(id, req));
+    }
+
+    @PreAuthorize("hasRole('ADMIN') or @lessonSchedulingService.isParticipant(#id, principal.id)")
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<LessonResponse> cancel(@PathVariable Long id) {
+        return ResponseEntity.ok(scheduling.cancel(id));
+    }
+}
@@ -0,0 +1,66 @@
+package com.quadrago.backend.controllers;
+
+import com.quadrago.backend.dtos.LessonDtos.CreateLessonSeriesRequest;
+import com.quadrago.backend.dtos.LessonDtos.LessonResponse;
+import com.quadrago.backend.dtos.LessonDtos.LessonSeriesResponse;
+import com.quadrago.backend.dtos.LessonDtos.RescheduleLessonRequest;
+import com.quadrago.backend.services.scheduling.LessonSeriesService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+
+@RestController
+@RequestMapping("/lessons/series")
+@RequiredArgsConstructor
+public class LessonSeriesController {
+
+    private final LessonSeriesService series;
+
+    /** Criar série: mesmas regras do agendamento avulso, para cada aula da série (409 no primeiro conflito). */
+    @PreAuthorize("hasRole('ADMIN') or #req.teacherUserId == principal.id or #req.studentUserId == principal.id")
+    @PostMapping
+    public ResponseEntity<LessonSeriesResponse> create(@RequestBody @Valid CreateLessonSeriesRequest req) {
+        LessonSeriesResponse created = series.create(req);
+        return ResponseEntity.created(URI.create("/lessons/series/" + created.id())).body(created);
+    }
+
+    @PreAuthorize("hasRole('ADMIN') or @lessonSeriesService.isParticipant(#id, principal.id)")
+    @GetMapping("/{id}")
+    public ResponseEntity<LessonSeriesResponse> get(@PathVariable Long id) {
+        return ResponseEntity.ok(series.get(id));
+    }
+
+    /** Encerrar: as aulas que ainda não começaram deixam de existir. */
+    @PreAuthorize("hasRole('ADMIN') or @lessonSeriesService.isParticipant(#id, principal.id)")
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<LessonSeriesResponse> end(@PathVariable Long id) {
+        return ResponseEntity.ok(series.end(id));
+    }
+
+    /** Cancelar uma aula da série, identificada pelo início original (ISO-8601). */
+    @PreAuthorize("hasRole('ADMIN') or @lessonSeriesService.isParticipant(#id, principal.id)")
+    @PostMapping("/{id}/occurrences/{start}/cancel")
+    public ResponseEntity<LessonResponse> cancelOccurrence(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime start
+    ) {
+        return ResponseEntity.ok(series.cancelOccurrence(id, start));
+    }
+
+    /** Remarcar uma aula da série; as demais continuam no horário da série. */
+    @PreAuthorize("hasRole('ADMIN') or @lessonSeriesService.isParticipant(#id, principal.id)")
+    @PutMapping("/{id}/occurrences/{start}/schedule")
+    public ResponseEntity<LessonResponse> rescheduleOccurrence(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime start,
+            @RequestBody @Valid RescheduleLessonRequest req
+    ) {
+        return ResponseEntity.ok(series.rescheduleOccurrence(id, start, req));
+    }
+}
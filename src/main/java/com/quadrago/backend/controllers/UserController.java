@@ -1,5 +1,6 @@
 package com.quadrago.backend.controllers;
 
+import com.quadrago.backend.dashboard.DashboardController;
 import com.quadrago.backend.dtos.UserDtos.*;
 import com.quadrago.backend.enums.RoleName;
 import com.quadrago.backend.models.Person;
@@ -16,7 +17,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
-import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -56,19 +56,26 @@ public class UserController {
     }
 
     /**
-     * Sem filtro (lista): ADMIN apenas.
+     * Sem filtro (lista paginada por keyset): ADMIN apenas. Próxima página no header X-Next-Cursor
+     * (ausente na última); {@code limit} até 200.
      * Com ?email=: ADMIN ou o próprio usuário (comparação por e-mail).
      */
     @PreAuthorize("#email == null ? hasRole('ADMIN') : (hasRole('ADMIN') or #email?.toLowerCase() == principal?.username?.toLowerCase())")
     @GetMapping
-    public ResponseEntity<?> listOrFind(@RequestParam(required = false) String email) {
+    public ResponseEntity<?> listOrFind(@RequestParam(required = false) String email,
+                                        @RequestParam(defaultValue = "50") int limit,
+                                        @RequestParam(required = false) String cursor) {
         if (email != null && !email.isBlank()) {
             return userService.getByEmail(email)
                     .<ResponseEntity<?>>map(r -> ResponseEntity.ok(toDetails(loadUserOrThrow(r.id()))))
                     .orElseGet(() -> ResponseEntity.notFound().build());
         }
-        List<UserResponse> list = userService.listAll();
-        return ResponseEntity.ok(list);
+        UserPage page = userService.listPage(limit, cursor);
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(DashboardController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     /* ========= UPDATE - USER ========= */
@@ -159,6 +166,16 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Encerrar todas as sessões (todos os dispositivos): admin ou dono
+     */
+    @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
+    @DeleteMapping("/{id}/sessions")
+    public ResponseEntity<Void> revokeSessions(@PathVariable Long id) {
+        userService.revokeAllSessions(id);
+        return ResponseEntity.noContent().build();
+    }
+
     /* ========= HELPERS ========= */
 
     private User loadUserOrThrow(Long id) {
@@ -0,0 +1,81 @@
+package com.quadrago.backend.dashboard;
+
+import com.quadrago.backend.dashboard.support.ActivityCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Feed de atividades lido só do log append-only activity_event.
+ *
+ * Uma varredura no índice (teacher_user_id, happened_at desc, id desc) a partir do cursor:
+ * o custo por página não depende da profundidade. O id é único, então o desempate do keyset
+ * usa (happened_at, id); o tipo segue no cursor apenas por compatibilidade do token.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActivityFeedRepository {
+
+    public record Row(long id, String type, String studentEmail, Instant happenedAt) {
+        public ActivityCursor cursor() {
+            return new ActivityCursor(happenedAt, type, id);
+        }
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, i) -> new Row(
+            rs.getLong("id"),
+            rs.getString("type"),
+            rs.getString("student_email"),
+            rs.getObject("happened_at", OffsetDateTime.class).toInstant());
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * Replay do stream (Last-Event-ID): eventos com happened_at a partir de {@code since}, em ordem
+     * de (happened_at, id). Não usa o id como posição: a sequência é lida no INSERT, não no commit,
+     * e uma transação longa grava ids menores depois; quem chama recua {@code since} numa janela.
+     */
+    public List<Row> findSince(Long teacherUserId, Instant since, int limit) {
+        return jdbc.query("""
+                select e.id, e.type, u.email as student_email, e.happened_at
+                  from activity_event e
+                  left join users u on u.id = e.student_user_id
+                 where e.teacher_user_id = :teacher and e.happened_at >= :since
+                 order by e.happened_at, e.id
+                 limit :limit
+                """, new MapSqlParameterSource()
+                        .addValue("teacher", teacherUserId)
+                        .addValue("since", OffsetDateTime.ofInstant(since, ZoneOffset.UTC))
+                        .addValue("limit", limit),
+                ROW_MAPPER);
+    }
+
+    public List<Row> findPage(Long teacherUserId, ActivityCursor after, int limit) {
+        String keyset = after == null ? "" : "and (e.happened_at < :ts or (e.happened_at = :ts and e.id < :id))";
+        String sql = """
+                select e.id, e.type, u.email as student_email, e.happened_at
+                  from activity_event e
+                  left join users u on u.id = e.student_user_id
+                 where e.teacher_user_id = :teacher %s
+                 order by e.happened_at desc, e.id desc
+                 limit :limit
+                """.formatted(keyset);
+
+        var params = new MapSqlParameterSource()
+                .addValue("teacher", teacherUserId)
+                .addValue("limit", limit);
+        if (after != null) {
+            params.addValue("ts", OffsetDateTime.ofInstant(after.happenedAt(), ZoneOffset.UTC))
+                  .addValue("id", after.id());
+        }
+
+        return jdbc.query(sql, params, ROW_MAPPER);
+    }
+}
@@ -1,11 +1,15 @@
 package com.quadrago.backend.dashboard;
 
+import com.quadrago.backend.dashboard.activity.ActivityStreamHub;
 import com.quadrago.backend.dashboard.dto.DashboardOverviewDto;
+import com.quadrago.backend.dashboard.dto.RecentActivitiesPage;
 import com.quadrago.backend.dashboard.dto.RecentActivityDto;
 import com.quadrago.backend.dashboard.support.CurrentUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -14,7 +18,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DashboardController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final DashboardService service;
+    private final ActivityStreamHub stream;
 
     @GetMapping("/overview")
     public ResponseEntity<DashboardOverviewDto> overview() {
@@ -22,11 +29,32 @@ public class DashboardController {
         return ResponseEntity.ok(service.loadOverviewForTeacher(userId));
     }
 
+    /** Feed paginado por keyset: a próxima página vem no header X-Next-Cursor (ausente na última). */
     @GetMapping("/activities")
     public ResponseEntity<List<RecentActivityDto>> activities(
-            @RequestParam(defaultValue = "20") int limit
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        Long userId = CurrentUser.id();
+        RecentActivitiesPage page = service.loadRecentActivities(userId, limit, cursor);
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Stream SSE das atividades do professor (evento "activity", id = posição opaca no feed).
+     * Ao reconectar, o navegador envia Last-Event-ID e recebe o que perdeu, começando um pouco antes
+     * dele: eventos repetidos chegam com o mesmo id e o cliente os descarta. Se não der para repor
+     * tudo, chega um evento "reset" e o cliente recarrega o feed (GET /activities).
+     */
+    @GetMapping(path = "/activities/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter activitiesStream(
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId
     ) {
         Long userId = CurrentUser.id();
-        return ResponseEntity.ok(service.loadRecentActivities(userId, limit));
+        return stream.subscribe(userId, lastEventId);
     }
 }
@@ -0,0 +1,67 @@
+package com.quadrago.backend.dashboard.activity;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Carga inicial de activity_event a partir das tabelas de origem (só quando o log está vazio).
+ * Do histórico antigo só existem createdAt e o último updatedAt, então cada aula gera no máximo
+ * dois eventos (agendada + status atual). Exceções de séries não têm o "agendada" (a série tem).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.dashboard.activity.backfill-on-startup", havingValue = "true", matchIfMissing = true)
+public class ActivityEventBackfill implements ApplicationRunner {
+
+    private static final String INSERT = "insert into activity_event (id, happened_at, teacher_user_id, student_user_id, type, source_id) ";
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        if (!jdbc.queryForList("select 1 from activity_event limit 1").isEmpty()) return;
+
+        int enrollments = jdbc.update(INSERT + """
+                select nextval('activity_event_seq'), s.created_at, s.teacher_user_id, s.student_user_id, 'ENROLLMENT', s.id
+                  from subscription s
+                """);
+        int subscriptionChanges = jdbc.update(INSERT + """
+                select nextval('activity_event_seq'), s.updated_at, s.teacher_user_id, s.student_user_id,
+                       concat('SUBSCRIPTION_', s.status), s.id
+                  from subscription s
+                 where s.status <> 'ACTIVE'
+                """);
+        int lessons = jdbc.update(INSERT + """
+                select nextval('activity_event_seq'), l.created_at, l.teacher_user_id, l.student_user_id, 'LESSON_SCHEDULED', l.id
+                  from lesson l
+                 where l.series_id is null
+                """);
+        int series = jdbc.update(INSERT + """
+                select nextval('activity_event_seq'), s.created_at, s.teacher_user_id, s.student_user_id,
+                       'LESSON_SERIES_SCHEDULED', s.id
+                  from lesson_series s
+                """);
+        int lessonChanges = jdbc.update(INSERT + """
+                select nextval('activity_event_seq'), l.updated_at, l.teacher_user_id, l.student_user_id,
+                       concat('LESSON_', l.status), l.id
+                  from lesson l
+                 where l.status <> 'SCHEDULED'
+                """);
+        int payments = jdbc.update(INSERT + """
+                select nextval('activity_event_seq'), p.created_at, p.teacher_user_id, p.student_user_id,
+                       concat('PAYMENT_', p.status), p.id
+                  from payment p
+                """);
+
+        int total = enrollments + subscriptionChanges + lessons + series + lessonChanges + payments;
+        if (total > 0) log.info("activity_event: backfill com {} eventos", total);
+    }
+}
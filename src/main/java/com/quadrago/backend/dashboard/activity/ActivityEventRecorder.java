@@ -0,0 +1,234 @@
+package com.quadrago.backend.dashboard.activity;
+
+import com.quadrago.backend.enums.ActivityType;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.enums.PaymentStatus;
+import com.quadrago.backend.enums.SubscriptionStatus;
+import com.quadrago.backend.models.Lesson;
+import com.quadrago.backend.models.LessonSeries;
+import com.quadrago.backend.models.Payment;
+import com.quadrago.backend.models.StudentProfile;
+import com.quadrago.backend.models.Subscription;
+import com.quadrago.backend.models.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.quadrago.backend.dashboard.support.EntityStates.get;
+import static com.quadrago.backend.dashboard.support.EntityStates.profileId;
+
+/**
+ * Grava em activity_event cada mudança relevante de Lesson, Subscription e Payment,
+ * na mesma transação (eventos "post" do Hibernate, disparados no flush).
+ *
+ * Cada mudança vira uma linha nova: o feed mostra o histórico completo, não só o último updatedAt.
+ * Séries recorrentes geram um evento ao serem criadas e outro ao serem encerradas; as ocorrências
+ * não geram eventos, só as exceções (ocorrência cancelada ou remarcada).
+ *
+ * Fora de {@link #batched} cada linha é um INSERT próprio; dentro, as linhas do bloco vão num só lote.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityEventRecorder implements PostInsertEventListener, PostUpdateEventListener {
+
+    private static final String INSERT = """
+            insert into activity_event (id, happened_at, teacher_user_id, student_user_id, type, source_id)
+            values (nextval('activity_event_seq'), ?, ?, ?, ?, ?)
+            """;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+
+    /** Linhas acumuladas pelo {@link #batched} em andamento nesta thread (null fora dele). */
+    private final ThreadLocal<List<Row>> pending = new ThreadLocal<>();
+
+    private record Row(OffsetDateTime happenedAt, Long teacherUserId, Long studentUserId, String studentEmail,
+                       ActivityType type, Long sourceId) {
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Lesson l) {
+            // Exceção de série: a linha nasce já cancelada ou remarcada
+            ActivityType type = l.getSeriesId() != null ? ActivityType.of(l.getStatus()) : ActivityType.LESSON_SCHEDULED;
+            record(l.getCreatedAt(), profileId(l.getTeacherProfile()), l.getStudentProfile(), type, l.getId());
+        } else if (event.getEntity() instanceof LessonSeries s) {
+            record(s.getCreatedAt(), profileId(s.getTeacherProfile()), s.getStudentProfile(),
+                    ActivityType.LESSON_SERIES_SCHEDULED, s.getId());
+        } else if (event.getEntity() instanceof Subscription s) {
+            record(s.getCreatedAt(), profileId(s.getTeacherProfile()), s.getStudentProfile(),
+                    ActivityType.ENROLLMENT, s.getId());
+        } else if (event.getEntity() instanceof Payment p) {
+            record(p.getCreatedAt(), profileId(p.getTeacherProfile()), p.getStudentProfile(),
+                    ActivityType.of(p.getStatus()), p.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] old = event.getOldState();
+        if (old == null) return;
+        EntityPersister persister = event.getPersister();
+
+        if (event.getEntity() instanceof Lesson l) {
+            LessonStatus oldStatus = (LessonStatus) get(persister, old, "status");
+            ActivityType type;
+            if (oldStatus != l.getStatus()) {
+                type = ActivityType.of(l.getStatus());
+            } else if (!Objects.equals(get(persister, old, "startAt"), l.getStartAt())) {
+                type = ActivityType.LESSON_RESCHEDULED; // mudou o horário sem trocar o status
+            } else {
+                return;
+            }
+            record(l.getUpdatedAt(), profileId(l.getTeacherProfile()), l.getStudentProfile(), type, l.getId());
+        } else if (event.getEntity() instanceof LessonSeries s) {
+            if (Objects.equals(get(persister, old, "untilAt"), s.getUntilAt())) return;
+            record(s.getUpdatedAt(), profileId(s.getTeacherProfile()), s.getStudentProfile(),
+                    ActivityType.LESSON_SERIES_ENDED, s.getId());
+        } else if (event.getEntity() instanceof Subscription s) {
+            if (get(persister, old, "status") == s.getStatus()) return;
+            record(s.getUpdatedAt(), profileId(s.getTeacherProfile()), s.getStudentProfile(),
+                    ActivityType.of(s.getStatus()), s.getId());
+        } else if (event.getEntity() instanceof Payment p) {
+            if (get(persister, old, "status") == p.getStatus()) return;
+            record(p.getUpdatedAt(), profileId(p.getTeacherProfile()), p.getStudentProfile(),
+                    ActivityType.of(p.getStatus()), p.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Roda {@code work} (numa transação) acumulando as atividades das mudanças feitas nele e grava
+     * todas num INSERT em lote no fim, após um flush: uma ida ao banco por lote em vez de uma por
+     * linha, para quem muda centenas de entidades de uma vez (renovação de assinaturas).
+     */
+    public void batched(Runnable work) {
+        if (pending.get() != null) {
+            work.run();
+            return;
+        }
+        List<Row> rows = new ArrayList<>();
+        pending.set(rows);
+        try {
+            work.run();
+            EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory).flush();
+        } finally {
+            pending.remove();
+        }
+        if (!rows.isEmpty()) insertAll(rows);
+    }
+
+    private void record(OffsetDateTime happenedAt, Long teacherUserId, StudentProfile studentProfile,
+                        ActivityType type, Long sourceId) {
+        Long studentUserId = profileId(studentProfile);
+        String studentEmail = loadedEmail(studentProfile);
+        List<Row> rows = pending.get();
+        if (rows != null) {
+            rows.add(new Row(happenedAt, teacherUserId, studentUserId, studentEmail, type, sourceId));
+            return;
+        }
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT, new String[]{"id"});
+            ps.setObject(1, happenedAt);
+            ps.setLong(2, teacherUserId);
+            ps.setObject(3, studentUserId);
+            ps.setString(4, type.name());
+            ps.setLong(5, sourceId);
+            return ps;
+        }, key);
+        // Entregue ao stream só após o commit (ver ActivityStreamHub)
+        if (studentEmail == null && studentUserId != null) {
+            studentEmail = emails(List.of(studentUserId)).get(studentUserId);
+        }
+        events.publishEvent(new ActivityRecordedEvent(
+                key.getKeyAs(Long.class), teacherUserId, studentUserId, studentEmail, type, happenedAt));
+    }
+
+    private void insertAll(List<Row> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(con -> con.prepareStatement(INSERT, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setObject(1, row.happenedAt());
+                ps.setLong(2, row.teacherUserId());
+                ps.setObject(3, row.studentUserId());
+                ps.setString(4, row.type().name());
+                ps.setLong(5, row.sourceId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        }, keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        Map<Long, String> emails = emails(rows.stream()
+                .filter(row -> row.studentEmail() == null && row.studentUserId() != null)
+                .map(Row::studentUserId).distinct().toList());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            String email = row.studentEmail() != null ? row.studentEmail() : emails.get(row.studentUserId());
+            events.publishEvent(new ActivityRecordedEvent(((Number) ids.get(i).values().iterator().next()).longValue(),
+                    row.teacherUserId(), row.studentUserId(), email, row.type(), row.happenedAt()));
+        }
+    }
+
+    /** E-mail do aluno se o perfil e o usuário já estão na sessão; null se exigiria carregar um proxy. */
+    private static String loadedEmail(StudentProfile profile) {
+        if (profile == null || !Hibernate.isInitialized(profile)) return null;
+        User user = profile.getUser();
+        return user != null && Hibernate.isInitialized(user) ? user.getEmail() : null;
+    }
+
+    /** Os que faltaram em memória: uma consulta por INSERT (ou por lote), nunca no fan-out. */
+    private Map<Long, String> emails(List<Long> userIds) {
+        if (userIds.isEmpty()) return Map.of();
+        Map<Long, String> emails = new HashMap<>();
+        jdbc.query("select id, email from users where id in (" + String.join(",", Collections.nCopies(userIds.size(), "?")) + ")",
+                rs -> {
+                    emails.put(rs.getLong(1), rs.getString(2));
+                }, userIds.toArray());
+        return emails;
+    }
+}
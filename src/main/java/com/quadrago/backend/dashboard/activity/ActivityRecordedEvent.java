@@ -0,0 +1,19 @@
+package com.quadrago.backend.dashboard.activity;
+
+import com.quadrago.backend.enums.ActivityType;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Linha gravada em activity_event (publicado no flush; consumido após o commit). Leva o e-mail do
+ * aluno para o stream não consultar o banco por evento.
+ */
+public record ActivityRecordedEvent(
+        long id,
+        Long teacherUserId,
+        Long studentUserId,
+        String studentEmail,
+        ActivityType type,
+        OffsetDateTime happenedAt
+) {
+}
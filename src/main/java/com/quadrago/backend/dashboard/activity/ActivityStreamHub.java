@@ -0,0 +1,388 @@
+package com.quadrago.backend.dashboard.activity;
+
+import com.quadrago.backend.dashboard.ActivityFeedRepository;
+import com.quadrago.backend.dashboard.dto.RecentActivityDto;
+import com.quadrago.backend.dashboard.support.ActivityCursor;
+import com.quadrago.backend.enums.ActivityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out em processo de activity_event para conexões SSE do dashboard.
+ *
+ * Cada conexão é assíncrona (nenhuma thread presa enquanto ociosa) e tem uma fila limitada.
+ * O pool de envio só faz {@code emitter.send()}: o fan-out enfileira na thread do commit (o evento
+ * já traz o e-mail do aluno) e o replay consulta o banco na thread do request. Cliente lento que
+ * estoura a fila é desconectado e reconecta com Last-Event-ID, recebendo o que perdeu do banco.
+ *
+ * Envio bloqueado (janela TCP do cliente cheia) tem prazo: passado {@code send-timeout} a conexão
+ * sai do hub e é encerrada quando o write voltar (o Tomcat o derruba no timeout de conexão). O pool
+ * cresce até {@code max-sender-threads} enquanto houver threads presas assim, para os outros
+ * clientes não esperarem; com ele esgotado, a conexão que precisaria de thread é desconectada.
+ *
+ * O id de cada evento SSE é a posição dele no feed ({@link ActivityCursor}). O replay não parte do
+ * id do activity_event (lido da sequência no INSERT, não no commit: uma transação longa grava ids
+ * menores depois), e sim do happened_at recuado de {@code replay-overlap}; os eventos da janela que
+ * o cliente já tinha chegam de novo com o mesmo id. Replay que passaria de {@code replay-limit}, que
+ * falha ou com Last-Event-ID desconhecido vira um evento "reset": o cliente recarrega o feed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivityStreamHub {
+
+    private final ActivityFeedRepository activityFeed;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.dashboard.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${app.dashboard.stream.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.dashboard.stream.replay-limit:500}")
+    private int replayLimit;
+
+    @Value("${app.dashboard.stream.replay-overlap:2m}")
+    private Duration replayOverlap;
+
+    @Value("${app.dashboard.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${app.dashboard.stream.max-sender-threads:64}")
+    private int maxSenderThreads;
+
+    @Value("${app.dashboard.stream.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    @Value("${app.dashboard.stream.reconnect-ms:3000}")
+    private long reconnectMs;
+
+    private static final String RESET = "RESET";
+    private static final String RESET_EVENT = "reset";
+
+    private final Map<Long, Set<Subscriber>> byTeacher = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private ThreadPoolExecutor sender;
+    private Counter overflows;
+    private Counter stalled;
+    private Counter resets;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        // Sem fila: cada drenagem pega uma thread livre ou cria uma, até o teto
+        sender = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-sender-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("dashboard.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Conexões SSE abertas")
+                .register(meterRegistry);
+        overflows = Counter.builder("dashboard.stream.overflows")
+                .description("Conexões encerradas por fila cheia (cliente lento) ou pool de envio esgotado")
+                .register(meterRegistry);
+        stalled = Counter.builder("dashboard.stream.stalled")
+                .description("Conexões encerradas por envio bloqueado além do send-timeout")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.stream.sender.threads", this, h -> h.sender.getPoolSize())
+                .description("Threads do pool de envio SSE")
+                .register(meterRegistry);
+        resets = Counter.builder("dashboard.stream.resets")
+                .description("Reconexões sem replay possível (limite, falha ou Last-Event-ID desconhecido)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        byTeacher.values().forEach(set -> set.forEach(Subscriber::drop));
+        sender.shutdownNow();
+    }
+
+    /* ===== Conexão ===== */
+
+    /** {@code lastEventId}: header Last-Event-ID da reconexão (null na primeira conexão). */
+    public SseEmitter subscribe(Long teacherUserId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber sub = new Subscriber(teacherUserId, emitter);
+
+        emitter.onCompletion(() -> remove(sub));
+        emitter.onTimeout(() -> {
+            remove(sub);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(sub));
+
+        boolean reconnect = lastEventId != null && !lastEventId.isBlank();
+        if (reconnect) sub.beginReplay();
+        byTeacher.computeIfAbsent(teacherUserId, k -> ConcurrentHashMap.newKeySet()).add(sub);
+        subscribers.incrementAndGet();
+
+        sub.offer(SseEmitter.event().reconnectTime(reconnectMs).comment("connected"));
+        if (reconnect) {
+            // Registrado antes do replay: eventos ao vivo ficam retidos até o replay terminar.
+            // A consulta roda aqui, na thread do request, e não no pool de envio.
+            replay(sub, lastEventId.trim());
+        }
+        return emitter;
+    }
+
+    private void replay(Subscriber sub, String lastEventId) {
+        Set<Long> replayed = new HashSet<>();
+        ActivityCursor last = parseEventId(lastEventId);
+        boolean reset = last == null;
+        if (!reset) {
+            try {
+                List<ActivityFeedRepository.Row> rows = activityFeed.findSince(
+                        sub.teacherUserId, last.happenedAt().minus(replayOverlap), replayLimit + 1);
+                if (rows.size() > replayLimit) {
+                    reset = true; // mais do que o limite: recarregar o feed sai mais barato
+                } else {
+                    for (ActivityFeedRepository.Row row : rows) {
+                        if (row.id() == last.id()) continue; // o próprio Last-Event-ID
+                        sub.offer(event(row.cursor(), new RecentActivityDto(
+                                row.studentEmail(), ActivityType.labelOf(row.type()), row.happenedAt())));
+                        replayed.add(row.id());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Falha no replay do stream (teacher={}, lastEventId={}): {}",
+                        sub.teacherUserId, lastEventId, e.getMessage());
+                reset = true;
+            }
+        }
+        if (reset) {
+            resets.increment();
+            // Próxima reconexão parte daqui; o que veio antes o cliente busca no feed
+            sub.offer(SseEmitter.event().id(new ActivityCursor(Instant.now(), RESET, 0).encode())
+                    .name(RESET_EVENT).data("refetch"));
+        }
+        sub.endReplay(replayed);
+    }
+
+    /** Posição enviada como id dos eventos; null se não for uma (cliente antigo, valor adulterado). */
+    private static ActivityCursor parseEventId(String raw) {
+        try {
+            return ActivityCursor.decode(raw);
+        } catch (ResponseStatusException e) {
+            return null;
+        }
+    }
+
+    private void remove(Subscriber sub) {
+        if (!sub.closed.compareAndSet(false, true)) return;
+        subscribers.decrementAndGet();
+        byTeacher.computeIfPresent(sub.teacherUserId, (k, set) -> {
+            set.remove(sub);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /* ===== Fan-out ===== */
+
+    /** Só enfileira (sem banco, sem I/O): roda na thread que comitou. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onActivityRecorded(ActivityRecordedEvent event) {
+        Set<Subscriber> subs = byTeacher.get(event.teacherUserId());
+        if (subs == null || subs.isEmpty()) return; // ninguém ouvindo: custo zero
+
+        var dto = new RecentActivityDto(event.studentEmail(), event.type().label(), event.happenedAt().toInstant());
+        var cursor = new ActivityCursor(event.happenedAt().toInstant(), event.type().name(), event.id());
+        for (Subscriber sub : subs) {
+            sub.offerLive(event.id(), event(cursor, dto));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> subs : byTeacher.values()) {
+            for (Subscriber sub : subs) {
+                sub.heartbeat();
+            }
+        }
+    }
+
+    /** Envio parado há mais de send-timeout: a conexão sai e não prende mais nada além da sua thread. */
+    @Scheduled(fixedDelayString = "${app.dashboard.stream.stall-check-ms:1000}")
+    public void dropStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subs : byTeacher.values()) {
+            for (Subscriber sub : subs) {
+                long since = sub.sendingSince;
+                if (since != 0 && now - since > sendTimeout.toNanos()) {
+                    stalled.increment();
+                    log.debug("Stream SSE com envio bloqueado, desconectando (teacher={})", sub.teacherUserId);
+                    sub.drop();
+                }
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(ActivityCursor cursor, RecentActivityDto dto) {
+        return SseEmitter.event().id(cursor.encode()).name("activity").data(dto, MediaType.APPLICATION_JSON);
+    }
+
+    /* ===== Conexão individual ===== */
+
+    private final class Subscriber {
+        final Long teacherUserId;
+        final SseEmitter emitter;
+        final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private boolean dropped;        // guarded by this; encerrada pelo hub
+        volatile long sendingSince;     // nanoTime do send em andamento; 0 = nenhum
+        private final Deque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>(); // guarded by this
+        private List<Live> pendingLive; // != null durante o replay
+
+        private record Live(long id, SseEmitter.SseEventBuilder event) {}
+
+        Subscriber(Long teacherUserId, SseEmitter emitter) {
+            this.teacherUserId = teacherUserId;
+            this.emitter = emitter;
+        }
+
+        synchronized void beginReplay() {
+            pendingLive = new ArrayList<>();
+        }
+
+        /** Libera os eventos ao vivo retidos, descartando os que o replay já entregou. */
+        void endReplay(Set<Long> replayedIds) {
+            List<Live> pending;
+            synchronized (this) {
+                pending = pendingLive;
+                pendingLive = null;
+            }
+            for (Live live : pending) {
+                if (!replayedIds.contains(live.id)) offer(live.event);
+            }
+        }
+
+        void offerLive(long id, SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (pendingLive != null) {
+                    pendingLive.add(new Live(id, event));
+                    return;
+                }
+            }
+            offer(event);
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                if (!queue.isEmpty()) return; // já há tráfego
+            }
+            offer(SseEmitter.event().comment("hb"));
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) return;
+            boolean full;
+            synchronized (this) {
+                full = queue.size() >= queueCapacity;
+                if (!full) queue.addLast(event);
+            }
+            if (full) {
+                // Backpressure: não acumula sem limite; o cliente reconecta e faz replay pelo banco
+                overflows.increment();
+                log.debug("Stream SSE com fila cheia, desconectando (teacher={})", teacherUserId);
+                drop();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    overflows.increment();
+                    log.warn("Pool de envio SSE esgotado, desconectando (teacher={})", teacherUserId);
+                    drop();
+                }
+            }
+        }
+
+        /**
+         * Tira a conexão do hub. O emitter só é completado por quem não está no meio de um send:
+         * aqui se não há drenagem, senão pela própria drenagem quando o send voltar (send e complete
+         * disputam o mesmo monitor do emitter; completar daqui travaria junto com o send).
+         */
+        void drop() {
+            boolean idle;
+            synchronized (this) {
+                dropped = true;
+                queue.clear();
+                idle = !draining.get();
+            }
+            remove(this);
+            if (idle) completeOnce();
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                boolean stop;
+                synchronized (this) {
+                    next = dropped ? null : queue.pollFirst();
+                    if (next == null) draining.set(false);
+                    stop = dropped;
+                }
+                if (next == null) {
+                    if (stop) completeOnce();
+                    return;
+                }
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    remove(this); // cliente foi embora
+                    draining.set(false);
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        private void completeOnce() {
+            if (!completed.compareAndSet(false, true)) return;
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // já encerrado pelo container
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.quadrago.backend.dashboard.counters;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quadrago.backend.dashboard.dto.DashboardOverviewDto;
+import com.quadrago.backend.services.scheduling.LessonSeriesOccurrences;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Contadores pré-agregados do dashboard (tabela {@code teacher_dashboard_counters} + cache local).
+ *
+ * Escrita: deltas aplicados na mesma transação da mudança em Subscription/Lesson
+ * (ver {@link DashboardCountersListener}); a linha é criada sob demanda a partir de uma contagem completa.
+ * Leitura: cache → uma linha pela PK. Reconciliação periódica corrige drift (corridas entre transações).
+ *
+ * Ocorrências de séries recorrentes não têm linha em lesson e não entram nos contadores: a leitura
+ * as soma na hora ({@link LessonSeriesOccurrences#countFutureOccurrences}), só quando o professor tem
+ * série ativa.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashboardCounters {
+
+    /** Sentinela para "não conta como aula futura" (sempre anterior ao watermark). */
+    private static final OffsetDateTime NEVER = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final String OPEN_LESSON = "l.status in ('SCHEDULED','RESCHEDULED')";
+
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+    private final MeterRegistry meterRegistry;
+    private final EntityManagerFactory entityManagerFactory;
+    private final LessonSeriesOccurrences series;
+
+    @Value("${app.dashboard.counters.cache-ttl:30s}")
+    private Duration cacheTtl;
+
+    @Value("${app.dashboard.counters.cache-max-size:10000}")
+    private long cacheMaxSize;
+
+    private Cache<Long, DashboardOverviewDto> cache;
+    private Counter drift;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "dashboard.counters");
+        drift = Counter.builder("dashboard.counters.drift")
+                .description("Linhas de contadores corrigidas pela reconciliação")
+                .register(meterRegistry);
+    }
+
+    /* ===== Leitura ===== */
+
+    /**
+     * Overview do professor. Em miss do cache: um único SELECT, sem join, na linha pela PK; as aulas
+     * que já começaram desde o watermark são descontadas na própria leitura (subconsulta no índice
+     * parcial de aulas em aberto). Cria a linha com contagem completa se ainda não existir.
+     */
+    @Transactional
+    public DashboardOverviewDto overview(Long teacherUserId) {
+        return cache.get(teacherUserId, this::loadRow);
+    }
+
+    private DashboardOverviewDto loadRow(Long teacherUserId) {
+        OffsetDateTime now = now();
+        List<DashboardOverviewDto> row = readRow(teacherUserId, now);
+        if (row.isEmpty()) {
+            createRow(teacherUserId, now);
+            row = readRow(teacherUserId, now);
+        }
+        return row.get(0);
+    }
+
+    private List<DashboardOverviewDto> readRow(Long teacherUserId, OffsetDateTime now) {
+        boolean[] hasSeries = {false};
+        List<DashboardOverviewDto> rows = jdbc.query("""
+                select c.active_students,
+                       c.scheduled_lessons - (
+                         select count(*) from lesson l
+                          where l.teacher_user_id = c.teacher_user_id
+                            and %s
+                            and l.start_at > c.scheduled_watermark
+                            and l.start_at <= ?) as scheduled_lessons,
+                       c.active_subscriptions,
+                       (select count(*) from lesson_series s
+                         where s.teacher_user_id = c.teacher_user_id and s.last_start_at > ?) as active_series
+                  from teacher_dashboard_counters c
+                 where c.teacher_user_id = ?
+                """.formatted(OPEN_LESSON),
+                (rs, i) -> {
+                    hasSeries[0] = rs.getLong(4) > 0;
+                    return new DashboardOverviewDto(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+                },
+                now, now, teacherUserId);
+        if (!hasSeries[0]) return rows;
+        DashboardOverviewDto row = rows.get(0);
+        return List.of(new DashboardOverviewDto(row.students(),
+                row.scheduledLessons() + series.countFutureOccurrences(teacherUserId, now), row.activeSubscriptions()));
+    }
+
+    /* ===== Deltas (chamados pelo listener, dentro da transação de negócio) ===== */
+
+    /**
+     * Aula mudou: {@code oldStart}/{@code newStart} só contam se a aula estava/está aberta
+     * (passar {@code null} quando não conta). A comparação com o watermark é feita no próprio UPDATE.
+     */
+    public void applyLessonChange(Long teacherUserId, OffsetDateTime oldStart, OffsetDateTime newStart) {
+        String sql = """
+                update teacher_dashboard_counters
+                   set scheduled_lessons = scheduled_lessons
+                         + case when ? > scheduled_watermark then 1 else 0 end
+                         - case when ? > scheduled_watermark then 1 else 0 end,
+                       updated_at = ?
+                 where teacher_user_id = ?
+                """;
+        Object[] args = {orNever(newStart), orNever(oldStart), now(), teacherUserId};
+        applyOrCreate(teacherUserId, sql, args);
+    }
+
+    /**
+     * Assinatura mudou: {@code subscriptionsDelta} em {-1, 0, 1}; {@code studentsDelta} já considera
+     * as outras assinaturas ativas do mesmo aluno com o professor.
+     */
+    public void applySubscriptionChange(Long teacherUserId, int subscriptionsDelta, int studentsDelta) {
+        if (subscriptionsDelta == 0 && studentsDelta == 0) return;
+        String sql = """
+                update teacher_dashboard_counters
+                   set active_subscriptions = active_subscriptions + ?,
+                       active_students = active_students + ?,
+                       updated_at = ?
+                 where teacher_user_id = ?
+                """;
+        Object[] args = {subscriptionsDelta, studentsDelta, now(), teacherUserId};
+        applyOrCreate(teacherUserId, sql, args);
+    }
+
+    /** Outras assinaturas ativas do par professor/aluno (lookup pontual pelo índice do par). */
+    public long otherActiveSubscriptions(Long teacherUserId, Long studentUserId, Long subscriptionId) {
+        flushPendingBatch();
+        Long n = jdbc.queryForObject("""
+                select count(*) from subscription
+                 where teacher_user_id = ? and student_user_id = ? and status = 'ACTIVE' and id <> ?
+                """, Long.class, teacherUserId, studentUserId, subscriptionId);
+        return n != null ? n : 0L;
+    }
+
+    private void applyOrCreate(Long teacherUserId, String sql, Object[] args) {
+        // Sem linha: a contagem completa já enxerga a mudança (flush já executado); só reaplica o
+        // delta se outra transação criou a linha antes (a contagem dela não vê esta mudança).
+        if (jdbc.update(sql, args) == 0 && !createRowAfterFlush(teacherUserId)) {
+            jdbc.update(sql, args);
+        }
+        events.publishEvent(new DashboardCountersChangedEvent(teacherUserId));
+    }
+
+    private boolean createRowAfterFlush(Long teacherUserId) {
+        flushPendingBatch();
+        return createRow(teacherUserId, now());
+    }
+
+    /**
+     * Com batching JDBC os eventos "post" do Hibernate chegam antes de o lote ir para o banco: uma
+     * contagem feita no listener não veria as linhas ainda no lote (nem a da própria mudança).
+     * Só as contagens pagam o envio antecipado; os deltas puros continuam no lote.
+     */
+    private void flushPendingBatch() {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (em != null) {
+            em.unwrap(SharedSessionContractImplementor.class).getJdbcCoordinator().executeBatch();
+        }
+    }
+
+    private boolean createRow(Long teacherUserId, OffsetDateTime now) {
+        return jdbc.update("""
+                insert into teacher_dashboard_counters
+                    (teacher_user_id, active_subscriptions, active_students, scheduled_lessons,
+                     scheduled_watermark, updated_at)
+                values (?,
+                    (select count(*) from subscription s where s.teacher_user_id = ? and s.status = 'ACTIVE'),
+                    (select count(distinct s.student_user_id) from subscription s
+                      where s.teacher_user_id = ? and s.status = 'ACTIVE'),
+                    (select count(*) from lesson l where l.teacher_user_id = ? and %s and l.start_at > ?),
+                    ?, ?)
+                on conflict do nothing
+                """.formatted(OPEN_LESSON),
+                teacherUserId, teacherUserId, teacherUserId, teacherUserId, now, now, now) == 1;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCountersChanged(DashboardCountersChangedEvent event) {
+        cache.invalidate(event.teacherUserId());
+    }
+
+    /* ===== Reconciliação ===== */
+
+    /**
+     * Recalcula tudo com três consultas agrupadas e corrige só as linhas divergentes que não foram
+     * tocadas desde o início da reconciliação (não sobrescreve deltas concorrentes).
+     */
+    @Scheduled(initialDelayString = "${app.dashboard.counters.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${app.dashboard.counters.reconcile-interval-ms:3600000}")
+    @Transactional
+    public void reconcile() {
+        OffsetDateTime now = now();
+        advanceWatermarks(now);
+        Map<Long, long[]> expected = new HashMap<>();   // [subscriptions, students, scheduled]
+
+        jdbc.query("""
+                select s.teacher_user_id, count(*), count(distinct s.student_user_id)
+                  from subscription s where s.status = 'ACTIVE' group by s.teacher_user_id
+                """, rs -> {
+            long[] c = expected.computeIfAbsent(rs.getLong(1), k -> new long[3]);
+            c[0] = rs.getLong(2);
+            c[1] = rs.getLong(3);
+        });
+        jdbc.query("""
+                select l.teacher_user_id, count(*)
+                  from lesson l where %s and l.start_at > ? group by l.teacher_user_id
+                """.formatted(OPEN_LESSON), rs -> {
+            expected.computeIfAbsent(rs.getLong(1), k -> new long[3])[2] = rs.getLong(2);
+        }, now);
+
+        List<Object[]> fixes = new ArrayList<>();
+        Set<Long> existing = new HashSet<>();
+        jdbc.query("""
+                select teacher_user_id, active_subscriptions, active_students, scheduled_lessons
+                  from teacher_dashboard_counters
+                """, rs -> {
+            long id = rs.getLong(1);
+            existing.add(id);
+            long[] c = expected.getOrDefault(id, new long[3]);
+            if (c[0] != rs.getLong(2) || c[1] != rs.getLong(3) || c[2] != rs.getLong(4)) {
+                fixes.add(new Object[]{c[0], c[1], c[2], now, now, id, now});
+            }
+        });
+        // Professores com atividade e sem linha: a linha nasce na primeira leitura/mudança.
+        expected.keySet().removeAll(existing);
+
+        if (!fixes.isEmpty()) {
+            int[] updated = jdbc.batchUpdate("""
+                    update teacher_dashboard_counters
+                       set active_subscriptions = ?, active_students = ?, scheduled_lessons = ?,
+                           scheduled_watermark = ?, updated_at = ?
+                     where teacher_user_id = ? and updated_at <= ?
+                    """, fixes);
+            int corrected = 0;
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] != 0) {
+                    corrected++;
+                    cache.invalidate((Long) fixes.get(i)[5]);
+                }
+            }
+            // Linhas tocadas por outra transação desde a contagem ficam para a próxima rodada
+            if (corrected > 0) {
+                drift.increment(corrected);
+                log.warn("Dashboard counters: {} linha(s) com drift corrigida(s)", corrected);
+            }
+        }
+        log.debug("Dashboard counters reconciliados: {} linhas, {} sem linha", existing.size(), expected.size());
+    }
+
+    /**
+     * Desconta de todas as linhas as aulas que começaram desde o watermark e o move para {@code now}.
+     * A leitura já desconta na hora; isto só mantém curta a faixa que ela precisa contar e deixa as
+     * linhas comparáveis com a contagem "start_at > now" da reconciliação.
+     */
+    private void advanceWatermarks(OffsetDateTime now) {
+        jdbc.update("""
+                update teacher_dashboard_counters c
+                   set scheduled_lessons = c.scheduled_lessons - (
+                         select count(*) from lesson l
+                          where l.teacher_user_id = c.teacher_user_id
+                            and %s
+                            and l.start_at > c.scheduled_watermark
+                            and l.start_at <= ?),
+                       scheduled_watermark = ?
+                 where c.scheduled_watermark < ?
+                """.formatted(OPEN_LESSON), now, now, now);
+    }
+
+    private static Object orNever(OffsetDateTime t) {
+        return t != null ? t : NEVER;
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,5 @@
+package com.quadrago.backend.dashboard.counters;
+
+/** Contadores do professor mudaram (entrada do cache é descartada após o commit). */
+public record DashboardCountersChangedEvent(Long teacherUserId) {
+}
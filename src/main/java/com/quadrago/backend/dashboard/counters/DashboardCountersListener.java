@@ -0,0 +1,125 @@
+package com.quadrago.backend.dashboard.counters;
+
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.enums.SubscriptionStatus;
+import com.quadrago.backend.models.Lesson;
+import com.quadrago.backend.models.Subscription;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+import static com.quadrago.backend.dashboard.support.EntityStates.get;
+import static com.quadrago.backend.dashboard.support.EntityStates.profileId;
+
+/**
+ * Traduz insert/update/delete de Lesson e Subscription em deltas de {@link DashboardCounters}.
+ *
+ * Usa os eventos "post" do Hibernate (disparados no flush, dentro da transação), que trazem o
+ * estado anterior da entidade — sem snapshot manual nem releitura do banco.
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardCountersListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DashboardCounters counters;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Lesson l) {
+            OffsetDateTime start = futureStart(l.getStatus(), l.getStartAt());
+            if (start != null) counters.applyLessonChange(profileId(l.getTeacherProfile()), null, start);
+        } else if (event.getEntity() instanceof Subscription s && s.getStatus() == SubscriptionStatus.ACTIVE) {
+            subscriptionBecameActive(s.getId(), profileId(s.getTeacherProfile()), profileId(s.getStudentProfile()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] old = event.getOldState();
+        if (event.getEntity() instanceof Lesson l) {
+            if (old == null) return; // sem estado anterior (update de entidade destacada): fica para a reconciliação
+            Long teacher = profileId(l.getTeacherProfile());
+            OffsetDateTime newStart = futureStart(l.getStatus(), l.getStartAt());
+            Long oldTeacher = profileId(get(event.getPersister(), old, "teacherProfile"));
+            OffsetDateTime oldStart = futureStart((LessonStatus) get(event.getPersister(), old, "status"),
+                    (OffsetDateTime) get(event.getPersister(), old, "startAt"));
+            if (Objects.equals(oldTeacher, teacher)) {
+                if (!Objects.equals(oldStart, newStart)) counters.applyLessonChange(teacher, oldStart, newStart);
+            } else {
+                if (oldStart != null) counters.applyLessonChange(oldTeacher, oldStart, null);
+                if (newStart != null) counters.applyLessonChange(teacher, null, newStart);
+            }
+        } else if (event.getEntity() instanceof Subscription s && old != null) {
+            boolean wasActive = get(event.getPersister(), old, "status") == SubscriptionStatus.ACTIVE;
+            boolean isActive = s.getStatus() == SubscriptionStatus.ACTIVE;
+            Long oldTeacher = profileId(get(event.getPersister(), old, "teacherProfile"));
+            Long oldStudent = profileId(get(event.getPersister(), old, "studentProfile"));
+            Long teacher = profileId(s.getTeacherProfile());
+            Long student = profileId(s.getStudentProfile());
+            boolean samePair = Objects.equals(oldTeacher, teacher) && Objects.equals(oldStudent, student);
+            if (wasActive == isActive && (samePair || !isActive)) return;
+
+            if (wasActive) subscriptionLeftActive(s.getId(), oldTeacher, oldStudent);
+            if (isActive) subscriptionBecameActive(s.getId(), teacher, student);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object[] state = event.getDeletedState();
+        if (state == null) return;
+        if (event.getEntity() instanceof Lesson) {
+            OffsetDateTime oldStart = futureStart((LessonStatus) get(event.getPersister(), state, "status"),
+                    (OffsetDateTime) get(event.getPersister(), state, "startAt"));
+            if (oldStart != null) {
+                counters.applyLessonChange(profileId(get(event.getPersister(), state, "teacherProfile")), oldStart, null);
+            }
+        } else if (event.getEntity() instanceof Subscription
+                && get(event.getPersister(), state, "status") == SubscriptionStatus.ACTIVE) {
+            subscriptionLeftActive((Long) event.getId(),
+                    profileId(get(event.getPersister(), state, "teacherProfile")),
+                    profileId(get(event.getPersister(), state, "studentProfile")));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /* ===== Helpers ===== */
+
+    private void subscriptionBecameActive(Long subscriptionId, Long teacher, Long student) {
+        boolean firstForStudent = counters.otherActiveSubscriptions(teacher, student, subscriptionId) == 0;
+        counters.applySubscriptionChange(teacher, 1, firstForStudent ? 1 : 0);
+    }
+
+    private void subscriptionLeftActive(Long subscriptionId, Long teacher, Long student) {
+        boolean lastForStudent = counters.otherActiveSubscriptions(teacher, student, subscriptionId) == 0;
+        counters.applySubscriptionChange(teacher, -1, lastForStudent ? -1 : 0);
+    }
+
+    /** Início da aula se ela conta como agendada (aberta); {@code null} caso contrário. */
+    private static OffsetDateTime futureStart(LessonStatus status, OffsetDateTime startAt) {
+        return status == LessonStatus.SCHEDULED || status == LessonStatus.RESCHEDULED ? startAt : null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.quadrago.backend.dashboard.dto;
+
+import java.util.List;
+
+public record RecentActivitiesPage(
+        List<RecentActivityDto> items,
+        String nextCursor  // null = não há mais páginas
+) {
+}
@@ -0,0 +1,34 @@
+package com.quadrago.backend.dashboard.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Posição no feed de atividades: (happenedAt, type, id), em ordem decrescente.
+ * Serializado como token opaco (base64url) para o cliente só repassar.
+ */
+public record ActivityCursor(Instant happenedAt, String type, long id) {
+
+    public String encode() {
+        String raw = happenedAt.getEpochSecond() + ":" + happenedAt.getNano() + ":" + type + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** {@code null}/vazio = primeira página; token inválido = 400. */
+    public static ActivityCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 4);
+            return new ActivityCursor(
+                    Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                    parts[2],
+                    Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+}
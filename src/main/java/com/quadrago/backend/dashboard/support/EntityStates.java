@@ -0,0 +1,30 @@
+package com.quadrago.backend.dashboard.support;
+
+import com.quadrago.backend.models.StudentProfile;
+import com.quadrago.backend.models.TeacherProfile;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+/** Leitura do estado anterior entregue pelos eventos "post" do Hibernate. */
+public final class EntityStates {
+    private EntityStates() {}
+
+    public static Object get(EntityPersister persister, Object[] state, String property) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return state[i];
+        }
+        throw new IllegalArgumentException("Propriedade inexistente: " + property);
+    }
+
+    /** user_id do perfil sem inicializar o proxy LAZY. */
+    public static Long profileId(Object profile) {
+        if (profile == null) return null;
+        if (profile instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getInternalIdentifier();
+        }
+        if (profile instanceof TeacherProfile t) return t.getUserId();
+        if (profile instanceof StudentProfile s) return s.getUserId();
+        throw new IllegalArgumentException("Perfil inesperado: " + profile.getClass());
+    }
+}
@@ -0,0 +1,109 @@
+package com.quadrago.backend.dtos;
+
+import com.quadrago.backend.enums.LessonStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+
+public class LessonDtos {
+
+    /* ======= AGENDAMENTO ======= */
+    public record ScheduleLessonRequest(
+            @NotNull Long teacherUserId,
+            @NotNull Long studentUserId,
+            @NotNull OffsetDateTime startAt,
+            @NotNull OffsetDateTime endAt,
+            @Size(max = 1000) String notes
+    ) {
+    }
+
+    public record RescheduleLessonRequest(
+            @NotNull OffsetDateTime startAt,
+            @NotNull OffsetDateTime endAt
+    ) {
+    }
+
+    /* ======= RESPONSE ======= */
+    public record LessonResponse(
+            Long id,
+            Long teacherUserId,
+            Long studentUserId,
+            OffsetDateTime startAt,
+            OffsetDateTime endAt,
+            LessonStatus status,
+            String notes,
+            /* Série e início original da ocorrência (nulos em aula avulsa); id nulo: ocorrência ainda não materializada */
+            Long seriesId,
+            OffsetDateTime occurrenceStartAt
+    ) {
+    }
+
+    /* ======= AULAS RECORRENTES ======= */
+
+    /**
+     * Série semanal: {@code daysOfWeek} a cada {@code intervalWeeks} semanas (padrão 1), no horário
+     * local de {@code startAt} no fuso {@code timeZone}; termina em {@code until} ou após
+     * {@code count} aulas (um dos dois).
+     */
+    public record CreateLessonSeriesRequest(
+            @NotNull Long teacherUserId,
+            @NotNull Long studentUserId,
+            @NotNull OffsetDateTime startAt,
+            @NotNull @Positive Integer durationMinutes,
+            @NotEmpty Set<DayOfWeek> daysOfWeek,
+            @Positive Integer intervalWeeks,
+            OffsetDateTime until,
+            @Positive Integer count,
+            @Size(max = 64) String timeZone,
+            @Size(max = 1000) String notes
+    ) {
+    }
+
+    public record LessonSeriesResponse(
+            Long id,
+            Long teacherUserId,
+            Long studentUserId,
+            OffsetDateTime startAt,
+            int durationMinutes,
+            Set<DayOfWeek> daysOfWeek,
+            int intervalWeeks,
+            OffsetDateTime until,
+            Integer count,
+            String timeZone,
+            /* Início da última aula e total de aulas pela regra (contando as que viraram exceção) */
+            OffsetDateTime lastStartAt,
+            long occurrences,
+            String notes
+    ) {
+    }
+
+    /* ======= HORÁRIOS LIVRES ======= */
+    public record AvailableTeacher(
+            Long teacherUserId,
+            BigDecimal hourlyRate,
+            int bookedMinutes
+    ) {
+    }
+
+    /**
+     * {@code candidates}: professores da especialidade; {@code partial}: o orçamento de tempo
+     * acabou antes de avaliar todos (a lista vem só com os já avaliados).
+     */
+    public record AvailabilityResponse(
+            String specialty,
+            OffsetDateTime startAt,
+            OffsetDateTime endAt,
+            int candidates,
+            int available,
+            boolean partial,
+            List<AvailableTeacher> teachers
+    ) {
+    }
+}
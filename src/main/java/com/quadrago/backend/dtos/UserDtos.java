@@ -1,5 +1,6 @@
 package com.quadrago.backend.dtos;
 
+import com.quadrago.backend.enums.ImportJobStatus;
 import com.quadrago.backend.enums.RoleName;
 import com.quadrago.backend.enums.UserStatus;
 import jakarta.validation.constraints.Email;
@@ -7,7 +8,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 public class UserDtos {
@@ -24,6 +27,40 @@ public class UserDtos {
     ) {
     }
 
+    /* ======= IMPORT (lote) ======= */
+
+    /**
+     * Resultado de POST /admin/imports/users: linhas criadas e, para as recusadas, o motivo.
+     */
+    public record UserImportResult(
+            int total,
+            int created,
+            int failed,
+            List<ImportRowError> errors
+    ) {
+    }
+
+    /**
+     * Importação aceita (202 de POST /admin/imports/users) e seu andamento em GET /admin/imports/users/{id}.
+     * {@code result} só vem preenchido com status DONE.
+     */
+    public record UserImportJobResponse(
+            String id,
+            ImportJobStatus status,
+            int total,
+            Instant submittedAt,
+            Instant finishedAt,
+            UserImportResult result
+    ) {
+    }
+
+    public record ImportRowError(
+            int line,       // linha no arquivo (1 = primeira; no CSV conta o cabeçalho)
+            String email,
+            String message
+    ) {
+    }
+
     /* ======= READ/RESPONSE ======= */
 
     /**
@@ -36,6 +73,24 @@ public class UserDtos {
     ) {
     }
 
+    /**
+     * Linha da listagem paginada (GET /users)
+     */
+    public record UserSummaryResponse(
+            Long id,
+            String email,
+            String name,
+            UserStatus status,
+            Set<RoleName> roles
+    ) {
+    }
+
+    public record UserPage(
+            List<UserSummaryResponse> items,
+            String nextCursor  // null = não há mais páginas
+    ) {
+    }
+
     /**
      * Resposta detalhada (status, roles e presença de perfis)
      */
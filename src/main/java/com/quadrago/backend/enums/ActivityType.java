@@ -0,0 +1,50 @@
+package com.quadrago.backend.enums;
+
+/** Tipos de evento do log de atividades (activity_event.type). */
+public enum ActivityType {
+    ENROLLMENT("Nova matrícula"),
+    SUBSCRIPTION_ACTIVE("Assinatura reativada"),
+    SUBSCRIPTION_PAUSED("Assinatura pausada"),
+    SUBSCRIPTION_CANCELED("Assinatura cancelada"),
+    SUBSCRIPTION_EXPIRED("Assinatura expirada"),
+    LESSON_SCHEDULED("Aula agendada"),
+    LESSON_RESCHEDULED("Aula reagendada"),
+    LESSON_CANCELED("Aula cancelada"),
+    LESSON_COMPLETED("Aula concluída"),
+    LESSON_SERIES_SCHEDULED("Aulas recorrentes agendadas"),
+    LESSON_SERIES_ENDED("Aulas recorrentes encerradas"),
+    PAYMENT_PENDING("Pagamento pendente"),
+    PAYMENT_SUCCESS("Pagamento realizado"),
+    PAYMENT_FAILED("Pagamento recusado");
+
+    private final String label;
+
+    ActivityType(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /** Rótulo a partir do valor gravado; tipos desconhecidos (versão mais nova) saem crus. */
+    public static String labelOf(String type) {
+        try {
+            return valueOf(type).label();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return type;
+        }
+    }
+
+    public static ActivityType of(LessonStatus status) {
+        return valueOf("LESSON_" + status.name());
+    }
+
+    public static ActivityType of(SubscriptionStatus status) {
+        return valueOf("SUBSCRIPTION_" + status.name());
+    }
+
+    public static ActivityType of(PaymentStatus status) {
+        return valueOf("PAYMENT_" + status.name());
+    }
+}
@@ -0,0 +1,8 @@
+package com.quadrago.backend.enums;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
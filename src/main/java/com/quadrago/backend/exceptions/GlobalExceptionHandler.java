@@ -6,11 +6,15 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -87,6 +91,40 @@ public class GlobalExceptionHandler {
         return body;
     }
 
+    /** Pool de conexões saturado (limiter ou timeout do Hikari): falha rápida e retentável. */
+    @ExceptionHandler({CannotGetJdbcConnectionException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<ProblemDetail> handleDatabaseBusy(Exception ex) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        pd.setTitle("Service busy");
+        pd.setDetail("Database is saturated, try again shortly.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(pd);
+    }
+
+    /** Pool de hash de senha saturado ou limite de login: recusa rápida, cliente tenta de novo depois. */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ProblemDetail> handleTooManyRequests(TooManyRequestsException ex) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS);
+        pd.setTitle("Too many requests");
+        pd.setDetail(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(pd);
+    }
+
+    /** Agenda: o horário pedido cruza outra aula; o corpo diz com qual. */
+    @ExceptionHandler(LessonConflictException.class)
+    public ProblemDetail handleLessonConflict(LessonConflictException ex) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        pd.setTitle("Schedule conflict");
+        pd.setDetail(ex.getMessage());
+        pd.setProperty("party", ex.getParty());
+        if (ex.getConflictingLessonId() != null) pd.setProperty("conflictingLessonId", ex.getConflictingLessonId());
+        if (ex.getConflictingSeriesId() != null) pd.setProperty("conflictingSeriesId", ex.getConflictingSeriesId());
+        return pd;
+    }
+
     @ExceptionHandler(Exception.class)
     public ProblemDetail handleGeneric(Exception ex) {
         ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.INTERNAL_SERVER_ERROR);
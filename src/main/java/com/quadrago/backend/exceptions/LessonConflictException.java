@@ -0,0 +1,22 @@
+package com.quadrago.backend.exceptions;
+
+import lombok.Getter;
+
+/** Horário cruza outra aula do professor ou do aluno: vira 409 no {@link GlobalExceptionHandler}. */
+@Getter
+public class LessonConflictException extends RuntimeException {
+
+    /** "teacher" ou "student": de quem é a agenda em conflito. */
+    private final String party;
+    /** Aula avulsa (ou exceção de série) em conflito; {@code null} se o conflito é com uma série. */
+    private final Long conflictingLessonId;
+    /** Série cuja ocorrência (não materializada) está em conflito; {@code null} se é uma aula. */
+    private final Long conflictingSeriesId;
+
+    public LessonConflictException(String message, String party, Long conflictingLessonId, Long conflictingSeriesId) {
+        super(message);
+        this.party = party;
+        this.conflictingLessonId = conflictingLessonId;
+        this.conflictingSeriesId = conflictingSeriesId;
+    }
+}
@@ -0,0 +1,9 @@
+package com.quadrago.backend.exceptions;
+
+/** Tentativas de login acima do limite (por IP ou por e-mail) na janela configurada. */
+public class LoginThrottledException extends TooManyRequestsException {
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many login attempts, try again later.", retryAfterSeconds);
+    }
+}
@@ -0,0 +1,9 @@
+package com.quadrago.backend.exceptions;
+
+/** Pool de hash de senha saturado: o request deve ser recusado com 429 + Retry-After. */
+public class PasswordHashingBusyException extends TooManyRequestsException {
+
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super("Authentication is busy, try again shortly.", retryAfterSeconds);
+    }
+}
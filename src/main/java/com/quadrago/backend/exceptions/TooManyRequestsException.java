@@ -0,0 +1,15 @@
+package com.quadrago.backend.exceptions;
+
+import lombok.Getter;
+
+/** Recusa por sobrecarga ou limite de taxa: vira 429 + Retry-After no {@link GlobalExceptionHandler}. */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -2,28 +2,70 @@ package com.quadrago.backend.filters;
 
 import com.quadrago.backend.models.User;
 import com.quadrago.backend.repositories.UserRepository;
+import com.quadrago.backend.services.UserSecurityChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
+import java.util.Set;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepo;
+    private final UserDetailsCache cache;
+    private final ApplicationEventPublisher events;
+
+    /*
+     * Sem @Transactional aqui: em cache hit não abrimos transação (nem pegamos conexão do pool).
+     * Em miss, o repositório tem a própria transação e roles são EAGER.
+     */
 
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         if (username == null || username.isBlank()) {
             throw new UsernameNotFoundException("Usuário não informado");
         }
         String email = username.toLowerCase();
+        return cache.getByEmail(email, this::fetchByEmail);
+    }
+
+    /**
+     * Opcional: útil para montar Authentication a partir do ID (refresh, etc).
+     */
+    public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
+        return cache.getById(id, this::fetchById);
+    }
+
+    /**
+     * Rehash transparente: chamado pelo DaoAuthenticationProvider após login válido quando o hash
+     * armazenado está abaixo da política atual (custo menor ou sem prefixo {bcrypt}).
+     * Não regrava se a senha mudou desde que o principal foi carregado.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails details, String newPassword) {
+        CustomUserPrincipal principal = (CustomUserPrincipal) details;
+        User user = userRepo.findById(principal.getId()).orElse(null);
+        if (user == null || !Objects.equals(user.getPasswordHash(), principal.getPassword())) {
+            return details;
+        }
+        user.setPasswordHash(newPassword);
+        events.publishEvent(new UserSecurityChangedEvent(user.getId(), user.getSecurityVersion(), Set.of(user.getEmail())));
+        log.debug("Hash de senha atualizado para a política atual: id={}", user.getId());
+        return CustomUserPrincipal.fromEntity(user);
+    }
+
+    private CustomUserPrincipal fetchByEmail(String email) {
         User user = userRepo.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + email));
 
@@ -32,11 +74,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return principal;
     }
 
-    /**
-     * Opcional: útil para montar Authentication a partir do ID (refresh, etc).
-     */
-    @Transactional(readOnly = true)
-    public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
+    private CustomUserPrincipal fetchById(Long id) {
         User user = userRepo.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: id=" + id));
         return CustomUserPrincipal.fromEntity(user);
@@ -3,6 +3,7 @@ package com.quadrago.backend.filters;
 import com.quadrago.backend.enums.UserStatus;
 import com.quadrago.backend.models.Role;
 import com.quadrago.backend.models.User;
+import com.quadrago.backend.services.VerifiedToken;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,6 +25,8 @@ public class CustomUserPrincipal implements UserDetails {
     private final String username;         // email
     private final String password;         // hash
     private final Set<GrantedAuthority> authorities;
+    private final UserStatus status;
+    private final long securityVersion;     // claim "sv"
 
     private final boolean accountNonExpired;
     private final boolean credentialsNonExpired;
@@ -34,6 +37,8 @@ public class CustomUserPrincipal implements UserDetails {
                                 String username,
                                 String password,
                                 Set<GrantedAuthority> authorities,
+                                UserStatus status,
+                                long securityVersion,
                                 boolean accountNonExpired,
                                 boolean credentialsNonExpired,
                                 boolean accountNonLocked,
@@ -42,6 +47,8 @@ public class CustomUserPrincipal implements UserDetails {
         this.username = username;
         this.password = password;
         this.authorities = authorities;
+        this.status = status;
+        this.securityVersion = securityVersion;
         this.accountNonExpired = accountNonExpired;
         this.credentialsNonExpired = credentialsNonExpired;
         this.accountNonLocked = accountNonLocked;
@@ -49,16 +56,34 @@ public class CustomUserPrincipal implements UserDetails {
     }
 
     public static CustomUserPrincipal fromEntity(User u) {
-        Set<GrantedAuthority> auths = mapAuthorities(u.getRoles());
+        return of(u.getId(), u.getEmail().toLowerCase(), u.getPasswordHash(),
+                mapAuthorities(u.getRoles()), u.getStatus(), u.getSecurityVersion());
+    }
+
+    /**
+     * Reconstrói o principal a partir de claims já verificados (modo stateless, sem banco).
+     * Não há hash de senha: este principal serve apenas para autorização do request.
+     */
+    public static CustomUserPrincipal fromToken(VerifiedToken token) {
+        Set<GrantedAuthority> auths = token.roles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableSet());
+        return of(token.userId(), token.subject().toLowerCase(), null,
+                auths, UserStatus.valueOf(token.status()), token.securityVersion());
+    }
 
-        boolean enabled = u.getStatus() == UserStatus.ACTIVE;
-        boolean accountNonLocked = u.getStatus() != UserStatus.BLOCKED;
+    private static CustomUserPrincipal of(Long id, String email, String passwordHash,
+                                          Set<GrantedAuthority> auths, UserStatus status, long securityVersion) {
+        boolean enabled = status == UserStatus.ACTIVE;
+        boolean accountNonLocked = status != UserStatus.BLOCKED;
 
         return new CustomUserPrincipal(
-                u.getId(),
-                u.getEmail().toLowerCase(),
-                u.getPasswordHash(),
+                id,
+                email,
+                passwordHash,
                 auths,
+                status,
+                securityVersion,
                 true,   // accountNonExpired
                 true,   // credentialsNonExpired
                 accountNonLocked,
@@ -1,13 +1,17 @@
 package com.quadrago.backend.filters;
 
 import com.quadrago.backend.services.JwtService;
-import com.quadrago.backend.services.TokenBlacklistService;
+import com.quadrago.backend.services.SecurityVersionRegistry;
+import com.quadrago.backend.services.VerifiedToken;
+import com.quadrago.backend.services.revocation.TokenRevocationBackend;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
@@ -26,7 +30,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
-    private final TokenBlacklistService tokenBlacklistService;
+    private final TokenRevocationBackend revocations;
+    private final SecurityVersionRegistry securityVersions;
+
+    /**
+     * Modo stateless: monta o principal direto dos claims verificados (uid, roles, status, sv),
+     * sem consultar o banco. Tokens antigos (sem esses claims) caem no caminho com banco.
+     */
+    @Value("${app.security.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
     private static final AntPathMatcher PATH = new AntPathMatcher();
 
@@ -98,28 +110,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String token = authHeader.substring(7);
 
         try {
-            // 1) Blacklist: se estiver, não autentica
-            if (tokenBlacklistService.isBlacklisted(token)) {
+            // 1) Parse + verificação de assinatura/expiração uma única vez por request
+            final VerifiedToken verified = jwtService.parse(token);
+
+            // 2) Revogado (logout/rotação): não autentica
+            if (revocations.isRevoked(verified)) {
                 log.warn("Token na blacklist - path='{}'", request.getRequestURI());
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            // 2) Evita usar refresh token como access (exceto /auth/**, já pulado no shouldNotFilter)
-            if (jwtService.isRefreshToken(token)) {
+            // 3) Evita usar refresh token como access (exceto /auth/**, já pulado no shouldNotFilter)
+            if (verified.isRefresh()) {
                 log.warn("Refresh token apresentado em endpoint não autorizado para refresh. path='{}'", request.getRequestURI());
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            // 3) Fluxo normal de autenticação
-            final String username = jwtService.extractUsername(token);
+            // 4) Fluxo normal de autenticação
+            final String username = verified.subject();
             final Authentication currentAuth = SecurityContextHolder.getContext().getAuthentication();
 
             if (username != null && (currentAuth == null || !username.equalsIgnoreCase(getPrincipalName(currentAuth)))) {
-                final var userDetails = userDetailsService.loadUserByUsername(username);
+                final UserDetails userDetails = resolvePrincipal(verified);
 
-                if (jwtService.isTokenValid(token, userDetails)) {
+                if (userDetails != null && jwtService.isTokenValid(verified, userDetails)) {
                     final var authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -151,6 +166,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /** Principal do token: pelos claims (modo stateless) ou pelo banco; null se o token não vale mais. */
+    private UserDetails resolvePrincipal(VerifiedToken verified) {
+        if (!statelessPrincipal || !verified.hasPrincipalClaims()) {
+            return userDetailsService.loadUserByUsername(verified.subject());
+        }
+        if (!securityVersions.isCurrent(verified.userId(), verified.securityVersion())) {
+            log.warn("Token com security version desatualizada: userId={}, sv={}", verified.userId(), verified.securityVersion());
+            return null;
+        }
+        CustomUserPrincipal principal = CustomUserPrincipal.fromToken(verified);
+        if (!principal.isEnabled() || !principal.isAccountNonLocked()) {
+            log.warn("Token de usuário inativo/bloqueado: userId={}", verified.userId());
+            return null;
+        }
+        return principal;
+    }
+
     private String getPrincipalName(Authentication auth) {
         if (auth == null) return null;
         final Object principal = auth.getPrincipal();
@@ -0,0 +1,94 @@
+package com.quadrago.backend.filters;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quadrago.backend.services.UserSecurityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache local (limitado + TTL) de {@link CustomUserPrincipal}, indexado por e-mail normalizado e por id.
+ * Evita users + user_roles por request autenticado.
+ *
+ * Métricas via Actuator: cache.gets{cache=userDetails.*,result=hit|miss}, cache.evictions, cache.size.
+ * Invalidação: {@link UserSecurityChangedEvent} após o commit (bloqueio/troca de role vale na hora).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserDetailsCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.security.user-cache.ttl:60s}")
+    private Duration ttl;
+
+    private Cache<String, CustomUserPrincipal> byEmail;
+    private Cache<Long, CustomUserPrincipal> byId;
+
+    @PostConstruct
+    void init() {
+        byEmail = build();
+        byId = build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "userDetails.byEmail");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "userDetails.byId");
+        log.info("UserDetailsCache: enabled={}, maxSize={}, ttl={}", enabled, maxSize, ttl);
+    }
+
+    private <K> Cache<K, CustomUserPrincipal> build() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /** Busca por e-mail (já normalizado); em miss carrega via loader e indexa também por id. */
+    public CustomUserPrincipal getByEmail(String email, Function<String, CustomUserPrincipal> loader) {
+        if (!enabled) return loader.apply(email);
+        CustomUserPrincipal p = byEmail.get(email, loader);
+        byId.put(p.getId(), p);
+        return p;
+    }
+
+    /** Busca por id; em miss carrega via loader e indexa também por e-mail. */
+    public CustomUserPrincipal getById(Long id, Function<Long, CustomUserPrincipal> loader) {
+        if (!enabled) return loader.apply(id);
+        CustomUserPrincipal p = byId.get(id, loader);
+        byEmail.put(p.getUsername(), p);
+        return p;
+    }
+
+    public void evict(Long userId, Iterable<String> emails) {
+        if (userId != null) {
+            CustomUserPrincipal cached = byId.getIfPresent(userId);
+            if (cached != null) byEmail.invalidate(cached.getUsername());
+            byId.invalidate(userId);
+        }
+        for (String email : emails) {
+            byEmail.invalidate(email.toLowerCase());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        evict(event.userId(), event.emails());
+        log.debug("UserDetailsCache evict: userId={}, emails={}", event.userId(), event.emails());
+    }
+}
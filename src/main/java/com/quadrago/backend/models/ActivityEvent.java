@@ -0,0 +1,57 @@
+package com.quadrago.backend.models;
+
+import com.quadrago.backend.enums.ActivityType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Log append-only de atividades do professor (fonte do feed do dashboard).
+ * Gravado na mesma transação da mudança em Lesson/Subscription/Payment; nunca é atualizado.
+ *
+ * A PK inclui {@code happened_at} para permitir particionar a tabela por mês (RANGE em happened_at).
+ */
+@Entity
+@Table(name = "activity_event",
+        indexes = @Index(name = "ix_activity_event_teacher_time",
+                columnList = "teacher_user_id, happened_at desc, id desc"))
+@IdClass(ActivityEvent.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityEvent {
+
+    /** Inserção normal é via JDBC com nextval('activity_event_seq'). */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_event_seq")
+    @SequenceGenerator(name = "activity_event_seq", sequenceName = "activity_event_seq", allocationSize = 1)
+    private Long id;
+
+    @Id
+    @Column(name = "happened_at", nullable = false)
+    private OffsetDateTime happenedAt;
+
+    @Column(name = "teacher_user_id", nullable = false)
+    private Long teacherUserId;
+
+    @Column(name = "student_user_id")
+    private Long studentUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ActivityType type;
+
+    /** id da Lesson/Subscription/Payment de origem */
+    @Column(name = "source_id", nullable = false)
+    private Long sourceId;
+
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long id;
+        private OffsetDateTime happenedAt;
+    }
+}
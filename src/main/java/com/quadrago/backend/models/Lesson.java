@@ -4,14 +4,25 @@ import com.quadrago.backend.enums.LessonStatus;
 import com.quadrago.backend.models.base.Timestamped;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 
 import java.time.OffsetDateTime;
 
-@Entity @Table(name = "lesson")
+/**
+ * No PostgreSQL a tabela é particionada por mês de {@code start_at} (ver V7 e
+ * {@code LessonPartitionMaintenance}); a PK é (id, start_at). Consultas com faixa de
+ * {@code start_at} só visitam as partições da faixa; busca só por id consulta o índice de cada partição.
+ */
+@Entity @Table(name = "lesson",
+        indexes = {
+                @Index(name = "ix_lesson_teacher_start", columnList = "teacher_user_id, start_at"),
+                @Index(name = "ix_lesson_series_occurrence", columnList = "series_id, occurrence_start_at")
+        })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Lesson extends Timestamped {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_seq")
+    @SequenceGenerator(name = "lesson_seq", sequenceName = "lesson_seq", allocationSize = 50)
     private Long id;
 
     /** Professor dono da aula (PK do teacher_profile = user_id) */
@@ -24,6 +35,20 @@ public class Lesson extends Timestamped {
     @JoinColumn(name = "student_user_id", referencedColumnName = "user_id")
     private StudentProfile studentProfile;
 
+    /**
+     * Colunas de FK como atributos só de leitura: consultas filtram por {@code teacherUserId}
+     * direto na coluna, sem join com o perfil (quem grava é a associação).
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "teacher_user_id", insertable = false, updatable = false)
+    private Long teacherUserId;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "student_user_id", insertable = false, updatable = false)
+    private Long studentUserId;
+
+    /** Chave de partição: UPDATE/DELETE do Hibernate levam {@code start_at} no WHERE e tocam uma partição só. */
+    @PartitionKey
     @Column(nullable = false)
     private OffsetDateTime startAt;
 
@@ -35,4 +60,23 @@ public class Lesson extends Timestamped {
 
     @Column(length = 1000)
     private String notes;
+
+    /**
+     * Exceção de uma {@link LessonSeries}: a ocorrência que começava em {@code occurrenceStartAt}
+     * foi cancelada ou remarcada e passou a existir como esta linha. Nulos em aula avulsa.
+     * Uma exceção por ocorrência: garantido pelas travas de agenda do {@code LessonSeriesService}
+     * (tabela particionada não aceita índice único sem a chave de partição).
+     */
+    @Column(name = "series_id")
+    private Long seriesId;
+
+    @Column(name = "occurrence_start_at")
+    private OffsetDateTime occurrenceStartAt;
+
+    /** Mantém as colunas de leitura coerentes com as associações antes do flush. */
+    @PrePersist @PreUpdate
+    void syncUserIds() {
+        teacherUserId = teacherProfile != null ? teacherProfile.getUserId() : null;
+        studentUserId = studentProfile != null ? studentProfile.getUserId() : null;
+    }
 }
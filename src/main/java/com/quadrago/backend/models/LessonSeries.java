@@ -0,0 +1,82 @@
+package com.quadrago.backend.models;
+
+import com.quadrago.backend.models.base.Timestamped;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Aulas recorrentes (semanais) de um professor com um aluno, guardadas como regra: as ocorrências
+ * são calculadas sob demanda ({@code SeriesRule}). Só as exceções viram linha em {@link Lesson}
+ * ({@code seriesId} + {@code occurrenceStartAt}): ocorrência cancelada ou remarcada.
+ */
+@Entity
+@Table(name = "lesson_series",
+        indexes = {
+                @Index(name = "ix_lesson_series_teacher_last", columnList = "teacher_user_id, last_start_at"),
+                @Index(name = "ix_lesson_series_student_last", columnList = "student_user_id, last_start_at"),
+                @Index(name = "ix_lesson_series_last", columnList = "last_start_at")
+        })
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class LessonSeries extends Timestamped {
+
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_series_seq")
+    @SequenceGenerator(name = "lesson_series_seq", sequenceName = "lesson_series_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_user_id", referencedColumnName = "user_id")
+    private TeacherProfile teacherProfile;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_user_id", referencedColumnName = "user_id")
+    private StudentProfile studentProfile;
+
+    /** Colunas de FK só de leitura (mesmo esquema de {@link Lesson}). */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "teacher_user_id", insertable = false, updatable = false)
+    private Long teacherUserId;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "student_user_id", insertable = false, updatable = false)
+    private Long studentUserId;
+
+    /** Início de referência: dia a partir do qual a série vale e horário local das aulas. */
+    @Column(name = "start_at", nullable = false)
+    private OffsetDateTime startAt;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private int durationMinutes;
+
+    /** Fuso em que o horário local é mantido (ex.: America/Sao_Paulo). */
+    @Column(name = "time_zone", nullable = false, length = 64)
+    private String timeZone;
+
+    /** Dias da semana como bits (segunda = 1, terça = 2, quarta = 4, ... domingo = 64). */
+    @Column(name = "days_of_week", nullable = false)
+    private int daysOfWeek;
+
+    @Column(name = "interval_weeks", nullable = false)
+    private int intervalWeeks;
+
+    /** Fim da série: {@code untilAt} ou {@code occurrenceCount}, nunca os dois (como no RRULE). */
+    @Column(name = "until_at")
+    private OffsetDateTime untilAt;
+
+    @Column(name = "occurrence_count")
+    private Integer occurrenceCount;
+
+    /** Início da última ocorrência (derivado da regra): filtra séries ainda ativas pelo índice. */
+    @Column(name = "last_start_at", nullable = false)
+    private OffsetDateTime lastStartAt;
+
+    @Column(length = 1000)
+    private String notes;
+
+    @PrePersist @PreUpdate
+    void syncUserIds() {
+        teacherUserId = teacherProfile != null ? teacherProfile.getUserId() : null;
+        studentUserId = studentProfile != null ? studentProfile.getUserId() : null;
+    }
+}
@@ -13,8 +13,10 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 public class Party extends Timestamped {
+    /** Sequência com pool (pooled-lo, 50 ids por nextval): inserts em lote sem round trip por linha. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "party_seq")
+    @SequenceGenerator(name = "party_seq", sequenceName = "party_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -9,11 +9,14 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
-@Entity @Table(name = "payment")
+@Entity @Table(name = "payment",
+        uniqueConstraints = @UniqueConstraint(name = "ux_payment_subscription_period",
+                columnNames = {"subscription_id", "renewal_period_at"}))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Payment extends Timestamped {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+    @SequenceGenerator(name = "payment_seq", sequenceName = "payment_seq", allocationSize = 50)
     private Long id;
 
     /** Professor recebedor */
@@ -26,6 +29,15 @@ public class Payment extends Timestamped {
     @JoinColumn(name = "student_user_id", referencedColumnName = "user_id")
     private StudentProfile studentProfile;
 
+    /** FKs de professor/aluno só leitura, para filtrar sem join (ver Lesson). */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "teacher_user_id", insertable = false, updatable = false)
+    private Long teacherUserId;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "student_user_id", insertable = false, updatable = false)
+    private Long studentUserId;
+
     /** (Opcional) vínculo com a assinatura */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "subscription_id")
@@ -48,4 +60,18 @@ public class Payment extends Timestamped {
 
     @Column(length = 1000)
     private String description;
+
+    /**
+     * Período cobrado por uma renovação ({@code nextRenewAt} da assinatura na hora): no máximo um
+     * pagamento por assinatura e período. Nulo em pagamento avulso.
+     */
+    @Column(name = "renewal_period_at")
+    private OffsetDateTime renewalPeriodAt;
+
+    /** Colunas de leitura acompanham as associações (o Hibernate não as grava). */
+    @PrePersist @PreUpdate
+    void syncUserIds() {
+        teacherUserId = teacherProfile != null ? teacherProfile.getUserId() : null;
+        studentUserId = studentProfile != null ? studentProfile.getUserId() : null;
+    }
 }
@@ -0,0 +1,46 @@
+package com.quadrago.backend.models;
+
+import com.quadrago.backend.models.base.Timestamped;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Família de refresh tokens (uma por login/dispositivo).
+ * Cada rotação incrementa {@code generation}; apresentar um refresh de geração antiga = reuso (token roubado)
+ * e revoga a família inteira. Lookup sempre pela PK (claim "fid").
+ */
+@Entity
+@Table(name = "refresh_token_family",
+        indexes = @Index(name = "ix_refresh_token_family_user", columnList = "user_id, revoked_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenFamily extends Timestamped {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /** jti do único refresh válido da família */
+    @Column(name = "current_jti", nullable = false)
+    private UUID currentJti;
+
+    @Column(nullable = false)
+    private int generation;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Column(name = "revoked_at")
+    private OffsetDateTime revokedAt;
+
+    @Column(name = "revoke_reason", length = 32)
+    private String revokeReason;
+}
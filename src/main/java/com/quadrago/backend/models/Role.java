@@ -7,7 +7,9 @@ import lombok.*;
 @Entity @Table(name = "roles")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Role {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    /** Poucas linhas e id smallint: pool pequeno para não queimar a faixa a cada restart. */
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roles_seq")
+    @SequenceGenerator(name = "roles_seq", sequenceName = "roles_seq", allocationSize = 5)
     private Short id;
 
     @Enumerated(EnumType.STRING)
@@ -25,4 +25,9 @@ public class StudentProfile extends Timestamped {
 
     private String emergencyContact;
     private String notes;
+
+    /** Versão da agenda do aluno; mesma regra de TeacherProfile.calendarVersion. */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "calendar_version", nullable = false, updatable = false)
+    private long calendarVersion;
 }
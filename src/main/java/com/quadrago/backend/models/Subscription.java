@@ -8,11 +8,14 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
-@Entity @Table(name = "subscription")
+@Entity @Table(name = "subscription",
+        indexes = @Index(name = "ix_subscription_teacher_student_status",
+                columnList = "teacher_user_id, student_user_id, status"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Subscription extends Timestamped {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscription_seq")
+    @SequenceGenerator(name = "subscription_seq", sequenceName = "subscription_seq", allocationSize = 50)
     private Long id;
 
     /** Professor dono da assinatura */
@@ -25,6 +28,15 @@ public class Subscription extends Timestamped {
     @JoinColumn(name = "student_user_id", referencedColumnName = "user_id")
     private StudentProfile studentProfile;
 
+    /** Mesmas colunas das associações, só leitura (filtros sem join; ver Lesson). */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "teacher_user_id", insertable = false, updatable = false)
+    private Long teacherUserId;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "student_user_id", insertable = false, updatable = false)
+    private Long studentUserId;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private SubscriptionStatus status;
@@ -38,5 +50,28 @@ public class Subscription extends Timestamped {
 
     private OffsetDateTime startAt;
     private OffsetDateTime endAt;
+    /** Próxima cobrança; o SubscriptionRenewalEngine renova as ativas vencidas e avança a data. */
     private OffsetDateTime nextRenewAt;
+
+    /** Meses entre renovações, contados a partir de {@code startAt} (nulo = mensal). */
+    @Column(name = "renewal_interval_months")
+    private Integer renewalIntervalMonths;
+
+    /**
+     * Quando a última renovação desta assinatura falhou (nulo = sem falha pendente): ela fica fora da
+     * fila até {@code retry-delay} depois, sem travar as outras vencidas.
+     */
+    @Column(name = "renewal_failed_at")
+    private OffsetDateTime renewalFailedAt;
+
+    /** Causa da falha (mensagem do erro mais específico). */
+    @Column(name = "renewal_failure", length = 500)
+    private String renewalFailure;
+
+    /** Colunas de leitura acompanham as associações (o Hibernate não as grava). */
+    @PrePersist @PreUpdate
+    void syncUserIds() {
+        teacherUserId = teacherProfile != null ? teacherProfile.getUserId() : null;
+        studentUserId = studentProfile != null ? studentProfile.getUserId() : null;
+    }
 }
@@ -0,0 +1,42 @@
+package com.quadrago.backend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Read model do dashboard do professor (uma linha por professor), mantido incrementalmente
+ * a cada mudança de status em Subscription/Lesson e reconciliado periodicamente.
+ *
+ * {@code scheduledLessons} conta aulas abertas com início posterior a {@code scheduledWatermark};
+ * o watermark avança na leitura, descontando as aulas que passaram no intervalo.
+ */
+@Entity
+@Table(name = "teacher_dashboard_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TeacherDashboardCounters {
+
+    @Id
+    @Column(name = "teacher_user_id")
+    private Long teacherUserId;
+
+    @Column(name = "active_subscriptions", nullable = false)
+    private long activeSubscriptions;
+
+    @Column(name = "active_students", nullable = false)
+    private long activeStudents;
+
+    @Column(name = "scheduled_lessons", nullable = false)
+    private long scheduledLessons;
+
+    @Column(name = "scheduled_watermark", nullable = false)
+    private OffsetDateTime scheduledWatermark;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -30,4 +30,12 @@ public class TeacherProfile extends Timestamped {
     @CollectionTable(name = "teacher_specialties", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "specialty")
     private java.util.Set<String> specialties = new java.util.HashSet<>();
+
+    /**
+     * Incrementada a cada mudança na agenda (LessonSchedulingService, sob lock desta linha); o JPA
+     * nunca a regrava. Diz se o índice de agenda em memória ainda vale.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "calendar_version", nullable = false, updatable = false)
+    private long calendarVersion;
 }
@@ -19,7 +19,8 @@ import java.util.Set;
 public class User extends Timestamped {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(optional = false)
@@ -39,6 +40,14 @@ public class User extends Timestamped {
     @Column(nullable = false, name = "status")
     private UserStatus status;
 
+    /**
+     * Versão de segurança: incrementada quando status/roles/e-mail mudam.
+     * Vai no claim "sv" dos tokens; tokens com versão antiga deixam de valer.
+     */
+    @Column(nullable = false, name = "security_version", columnDefinition = "bigint default 0")
+    @Builder.Default
+    private long securityVersion = 0L;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "user_roles",
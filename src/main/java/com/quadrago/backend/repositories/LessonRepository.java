@@ -1,35 +1,59 @@
 package com.quadrago.backend.repositories;
 
 import com.quadrago.backend.models.Lesson;
-import com.quadrago.backend.repositories.views.LessonActivityView;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.*;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
 
+    /**
+     * Aulas em aberto do professor que começam depois de {@code after}. Filtra pela coluna
+     * teacher_user_id (sem passar por teacher_profile/users): varredura só do índice parcial
+     * ix_lesson_teacher_open_start, e só nas partições (mensais) a partir da de {@code after}.
+     *
+     * Conta só linhas de lesson: as ocorrências de séries (não materializadas) ficam em
+     * {@code LessonSeriesOccurrences.countFutureOccurrences}, que o overview do dashboard soma a isto.
+     */
     @Query("""
-      select count(l) from Lesson l
-      where l.teacherProfile.user.id = :teacherUserId
-        and l.startAt > :now
-        and l.status in ('SCHEDULED','RESCHEDULED')
-    """)
+            select count(*) from Lesson l
+             where l.teacherUserId = :teacherUserId
+               and l.status in (com.quadrago.backend.enums.LessonStatus.SCHEDULED,
+                                com.quadrago.backend.enums.LessonStatus.RESCHEDULED)
+               and l.startAt > :after
+            """)
     long countFutureLessonsByTeacher(@Param("teacherUserId") Long teacherUserId,
-                                     @Param("now") OffsetDateTime now);
+                                     @Param("after") OffsetDateTime after);
 
+    /** Professor e aluno da aula (não mudam depois de criada), sem carregar a entidade. */
+    interface Participants {
+        Long getTeacherUserId();
+        Long getStudentUserId();
+    }
+
+    @Query("select l.teacherUserId as teacherUserId, l.studentUserId as studentUserId from Lesson l where l.id = :id")
+    Optional<Participants> findParticipants(@Param("id") Long id);
+
+    /** Exceção já materializada de uma ocorrência de série (índice da ocorrência). */
+    Optional<Lesson> findBySeriesIdAndOccurrenceStartAt(Long seriesId, OffsetDateTime occurrenceStartAt);
+
+    /**
+     * Aulas em aberto em que o usuário é professor ou aluno, com início em [from, to). Cada lado
+     * do OR usa o índice parcial de aulas em aberto da sua coluna.
+     */
     @Query("""
-      select l.studentProfile.user.email as studentEmail,
-             case when l.status = 'CANCELED' then 'Aula cancelada'
-                  when l.status = 'RESCHEDULED' then 'Aula reagendada'
-                  else 'Aula agendada' end as eventLabel,
-             coalesce(l.updatedAt, l.createdAt) as happenedAt
-      from Lesson l
-      where l.teacherProfile.user.id = :teacherUserId
-      order by happenedAt desc
-    """)
-    List<LessonActivityView> findRecentChanges(@Param("teacherUserId") Long teacherUserId,
-                                               Pageable pageable);
+            select l from Lesson l
+             where (l.teacherUserId = :userId or l.studentUserId = :userId)
+               and l.status in (com.quadrago.backend.enums.LessonStatus.SCHEDULED,
+                                com.quadrago.backend.enums.LessonStatus.RESCHEDULED)
+               and l.startAt >= :from and l.startAt < :to
+             order by l.startAt
+            """)
+    List<Lesson> findOpenByUserBetween(@Param("userId") Long userId,
+                                       @Param("from") OffsetDateTime from,
+                                       @Param("to") OffsetDateTime to);
 }
@@ -0,0 +1,15 @@
+package com.quadrago.backend.repositories;
+
+import com.quadrago.backend.models.LessonSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface LessonSeriesRepository extends JpaRepository<LessonSeries, Long> {
+
+    /** Professor e aluno da série (não mudam depois de criada), sem carregar a entidade. */
+    @Query("select s.teacherUserId as teacherUserId, s.studentUserId as studentUserId from LessonSeries s where s.id = :id")
+    Optional<LessonRepository.Participants> findParticipants(@Param("id") Long id);
+}
@@ -1,23 +1,29 @@
 package com.quadrago.backend.repositories;
 
-import com.quadrago.backend.models.Payment; // ajuste se necessário
-import com.quadrago.backend.repositories.views.PaymentActivityView;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.*;
+import com.quadrago.backend.models.Payment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
+    interface RenewalPeriod {
+        Long getSubscriptionId();
+        OffsetDateTime getPeriodAt();
+    }
+
+    /**
+     * Períodos de renovação já cobrados das assinaturas a partir de {@code from}
+     * (índice único ux_payment_subscription_period, sem join com subscription).
+     */
     @Query("""
-      select p.payer.name as payerName,
-             p.createdAt as happenedAt
-      from Payment p
-      where p.teacher.user.id = :teacherUserId
-      order by p.createdAt desc
-      """)
-    List<PaymentActivityView> findRecentPayments(@Param("teacherUserId") Long teacherUserId,
-                                                 Pageable pageable);
-    // Ajuste payer/name/relacionamento para o seu modelo real.
-}
\ No newline at end of file
+            select p.subscription.id as subscriptionId, p.renewalPeriodAt as periodAt from Payment p
+             where p.subscription.id in :subscriptionIds and p.renewalPeriodAt >= :from
+            """)
+    List<RenewalPeriod> findRenewalPeriods(@Param("subscriptionIds") Collection<Long> subscriptionIds,
+                                           @Param("from") OffsetDateTime from);
+}
@@ -2,9 +2,16 @@ package com.quadrago.backend.repositories;
 
 import com.quadrago.backend.models.Person;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PersonRepository extends JpaRepository<Person, Long> {
     Optional<Person> findByCpf(String cpf);
-}
\ No newline at end of file
+
+    @Query("select p.cpf from Person p where p.cpf in :cpfs")
+    List<String> findExistingCpfs(@Param("cpfs") Collection<String> cpfs);
+}
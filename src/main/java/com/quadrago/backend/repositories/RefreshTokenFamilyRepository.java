@@ -0,0 +1,53 @@
+package com.quadrago.backend.repositories;
+
+import com.quadrago.backend.models.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, UUID> {
+
+    /** Rotação atômica (compare-and-set pela PK): só avança se geração/jti apresentados forem os atuais. */
+    @Modifying
+    @Query("""
+      update RefreshTokenFamily f
+         set f.generation = f.generation + 1,
+             f.currentJti = :newJti,
+             f.updatedAt = :now
+       where f.id = :id
+         and f.generation = :generation
+         and f.currentJti = :jti
+         and f.revokedAt is null
+         and f.expiresAt > :now
+    """)
+    int advance(@Param("id") UUID id,
+                @Param("generation") int generation,
+                @Param("jti") UUID jti,
+                @Param("newJti") UUID newJti,
+                @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("""
+      update RefreshTokenFamily f
+         set f.revokedAt = :now, f.revokeReason = :reason, f.updatedAt = :now
+       where f.id = :id and f.revokedAt is null
+    """)
+    int revoke(@Param("id") UUID id, @Param("reason") String reason, @Param("now") OffsetDateTime now);
+
+    /** "Sair de todos os dispositivos": um único UPDATE, sem entradas por token. */
+    @Modifying
+    @Query("""
+      update RefreshTokenFamily f
+         set f.revokedAt = :now, f.revokeReason = :reason, f.updatedAt = :now
+       where f.userId = :userId and f.revokedAt is null
+    """)
+    int revokeAllForUser(@Param("userId") Long userId, @Param("reason") String reason, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshTokenFamily f where f.expiresAt < :before")
+    int deleteExpired(@Param("before") OffsetDateTime before);
+}
@@ -2,10 +2,44 @@ package com.quadrago.backend.repositories;
 
 import com.quadrago.backend.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /** Quais destes e-mails (já normalizados) existem: uma consulta para o lote inteiro. */
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /** Linha da listagem: roles agregadas em "ADMIN,TEACHER" (null se nenhuma). */
+    interface SummaryRow {
+        Long getId();
+        String getEmail();
+        String getName();
+        String getStatus();
+        String getRoles();
+    }
+
+    /**
+     * Página da listagem por keyset em users.id: varredura da PK a partir do cursor, sem OFFSET.
+     * Roles por subconsulta correlacionada (só para as linhas da página), sem GROUP BY no conjunto todo.
+     */
+    @Query(nativeQuery = true, value = """
+            select u.id as id, u.email as email, p.name as name, u.status as status,
+                   (select string_agg(r.name, ',')
+                      from user_roles ur join roles r on r.id = ur.role_id
+                     where ur.user_id = u.id) as roles
+              from users u
+              left join person p on p.party_id = u.party_id
+             where u.id > :afterId
+             order by u.id
+             limit :limit
+            """)
+    List<SummaryRow> findSummaryPage(@Param("afterId") long afterId, @Param("limit") int limit);
+}
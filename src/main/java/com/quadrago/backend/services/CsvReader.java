@@ -0,0 +1,66 @@
+package com.quadrago.backend.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 mínimo (importação de usuários): campos entre aspas podem conter vírgula, aspas ("")
+ * e quebra de linha. {@link #recordLine} é a linha física em que o último registro lido começou.
+ */
+final class CsvReader {
+
+    private final Reader in;
+    private int line = 1;
+    int recordLine;
+
+    CsvReader(Reader in) {
+        this.in = new BufferedReader(in);
+    }
+
+    /** Próximo registro; {@code null} no fim do arquivo. Linha em branco vira um único campo vazio. */
+    List<String> next() throws IOException {
+        recordLine = line;
+        int c = read();
+        if (c == -1) return null;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    int d = read();
+                    if (d != '"') {
+                        quoted = false;
+                        c = d;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c = in.read();
+        if (c == '\n') line++;
+        return c;
+    }
+}
@@ -1,9 +1,12 @@
 package com.quadrago.backend.services;
 
+import com.quadrago.backend.filters.CustomUserPrincipal;
 import com.quadrago.backend.models.User;
+import com.quadrago.backend.services.revocation.TokenId;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,6 +23,9 @@ import java.util.stream.Collectors;
 @Service
 public class JwtService {
 
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
     @Value("${jwt.secret}")
     private String jwtSecret;  // texto (ou Base64) da chave
 
@@ -31,6 +37,7 @@ public class JwtService {
     private long refreshTtlMs;
 
     private SecretKey key;
+    private JwtParser parser; // thread-safe: construído uma vez e reutilizado
 
     /* ---------------------- secret/key ---------------------- */
 
@@ -52,8 +59,15 @@ public class JwtService {
         return Keys.hmacShaKeyFor(bytes);
     }
 
+    @PostConstruct
+    void init() {
+        key = buildKey(jwtSecret);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+    }
+
     private SecretKey key() {
-        if (key == null) key = buildKey(jwtSecret);
         return key;
     }
 
@@ -62,13 +76,25 @@ public class JwtService {
     /** ACCESS TOKEN (curta duração) */
     public String generateAccessToken(UserDetails user) {
         Map<String, Object> claims = baseClaims(user);
-        return buildToken(user.getUsername(), claims, accessTtlMs, "access");
+        return buildToken(user.getUsername(), claims, accessTtlMs, TYPE_ACCESS);
     }
 
     /** REFRESH TOKEN (longa duração) */
     public String generateRefreshToken(UserDetails user) {
         Map<String, Object> claims = baseClaims(user); // pode ser vazio se preferir
-        return buildToken(user.getUsername(), claims, refreshTtlMs, "refresh");
+        return buildToken(user.getUsername(), claims, refreshTtlMs, TYPE_REFRESH);
+    }
+
+    /** REFRESH TOKEN vinculado a uma família de rotação (ver RefreshTokenService). */
+    public String generateRefreshToken(UserDetails user, UUID familyId, int generation, UUID jti) {
+        Map<String, Object> claims = baseClaims(user);
+        claims.put("fid", familyId.toString());
+        claims.put("gen", generation);
+        return buildToken(user.getUsername(), claims, refreshTtlMs, TYPE_REFRESH, jti);
+    }
+
+    public long getRefreshTtlMs() {
+        return refreshTtlMs;
     }
 
     /** Compatibilidade: usa access token por padrão. */
@@ -84,7 +110,10 @@ public class JwtService {
                 .collect(Collectors.toCollection(LinkedHashSet::new));
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", roles);
-        return buildToken(username, claims, accessTtlMs, "access");
+        claims.put("uid", user.getId());
+        claims.put("status", user.getStatus().name());
+        claims.put("sv", user.getSecurityVersion());
+        return buildToken(username, claims, accessTtlMs, TYPE_ACCESS);
     }
 
     private Map<String, Object> baseClaims(UserDetails user) {
@@ -94,10 +123,20 @@ public class JwtService {
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", roles);
+        // Claims para reconstrução stateless do principal (ver JwtAuthenticationFilter)
+        if (user instanceof CustomUserPrincipal p) {
+            claims.put("uid", p.getId());
+            claims.put("status", p.getStatus().name());
+            claims.put("sv", p.getSecurityVersion());
+        }
         return claims;
     }
 
     private String buildToken(String subject, Map<String, Object> claims, long ttlMillis, String typ) {
+        return buildToken(subject, claims, ttlMillis, typ, UUID.randomUUID());
+    }
+
+    private String buildToken(String subject, Map<String, Object> claims, long ttlMillis, String typ, UUID jti) {
         Instant now = Instant.now();
         Instant exp = now.plusMillis(ttlMillis);
 
@@ -107,6 +146,7 @@ public class JwtService {
 
         return Jwts.builder()
                 .setClaims(withTyp)
+                .setId(jti.toString()) // jti: chave compacta para revogação
                 .setSubject(subject)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(exp))
@@ -116,8 +156,30 @@ public class JwtService {
 
     /* -------------------- parsing/validation -------------------- */
 
+    /**
+     * Faz o parse e verifica assinatura/expiração UMA vez, devolvendo um objeto imutável.
+     * Lança {@link JwtException} (ex.: {@link ExpiredJwtException}) ou IllegalArgumentException se inválido.
+     */
+    public VerifiedToken parse(String token) {
+        Claims claims = extractAllClaims(token);
+        Object typ = claims.get("typ");
+        return new VerifiedToken(
+                claims.getSubject(),
+                toRoleSet(claims.get("roles")),
+                typ != null ? String.valueOf(typ) : TYPE_ACCESS,
+                toInstant(claims.getExpiration()),
+                toInstant(claims.getIssuedAt()),
+                toLong(claims.get("uid")),
+                claims.get("status") != null ? String.valueOf(claims.get("status")) : null,
+                toLong(claims.get("sv")),
+                TokenId.of(claims.getId(), token),
+                toUuid(claims.get("fid")),
+                claims.get("gen") instanceof Number g ? g.intValue() : null
+        );
+    }
+
     public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        return parse(token).subject();
     }
 
     public Date extractExpiration(String token) {
@@ -125,49 +187,82 @@ public class JwtService {
     }
 
     /** Retorna roles como Set<String> (mesmo formato gravado no claim, ex.: ROLE_ADMIN). */
-    @SuppressWarnings("unchecked")
     public Set<String> extractRoles(String token) {
-        Object raw = extractAllClaims(token).get("roles");
-        if (raw == null) return Set.of();
-        if (raw instanceof Collection<?> col) {
-            return col.stream().map(String::valueOf).collect(Collectors.toCollection(LinkedHashSet::new));
-        }
-        return Arrays.stream(String.valueOf(raw).split(","))
-                .map(String::trim).filter(s -> !s.isEmpty())
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return parse(token).roles();
     }
 
     /** true se o claim "typ" == "refresh" */
     public boolean isRefreshToken(String token) {
-        Object typ = extractAllClaims(token).get("typ");
-        return typ != null && "refresh".equalsIgnoreCase(String.valueOf(typ));
+        return parse(token).isRefresh();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return username != null
-                    && username.equalsIgnoreCase(userDetails.getUsername())
-                    && !isTokenExpired(token);
+            return isTokenValid(parse(token), userDetails);
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("JWT validation failed: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Validação sobre um token já verificado: confere subject, expiração e, quando o token
+     * traz "sv", se a versão de segurança ainda é a atual do usuário (sem re-parse).
+     */
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        if (token.subject() == null
+                || !token.subject().equalsIgnoreCase(userDetails.getUsername())
+                || token.isExpired(Instant.now())) {
+            return false;
+        }
+        if (token.securityVersion() != null && userDetails instanceof CustomUserPrincipal p) {
+            return token.securityVersion() == p.getSecurityVersion();
+        }
+        return true;
+    }
+
     public boolean isTokenExpired(String token) {
         try {
-            return extractExpiration(token).before(new Date());
+            return parse(token).isExpired(Instant.now());
         } catch (ExpiredJwtException e) {
             return true;
         }
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static Set<String> toRoleSet(Object raw) {
+        if (raw == null) return Set.of();
+        if (raw instanceof Collection<?> col) {
+            return col.stream().map(String::valueOf).collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+        return Arrays.stream(String.valueOf(raw).split(","))
+                .map(String::trim).filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static Long toLong(Object raw) {
+        if (raw instanceof Number n) return n.longValue();
+        if (raw == null) return null;
+        try {
+            return Long.valueOf(String.valueOf(raw));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static UUID toUuid(Object raw) {
+        if (raw == null) return null;
+        try {
+            return UUID.fromString(String.valueOf(raw));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
     }
 }
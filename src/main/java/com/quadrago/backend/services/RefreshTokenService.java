@@ -0,0 +1,109 @@
+package com.quadrago.backend.services;
+
+import com.quadrago.backend.filters.CustomUserPrincipal;
+import com.quadrago.backend.models.RefreshTokenFamily;
+import com.quadrago.backend.repositories.RefreshTokenFamilyRepository;
+import com.quadrago.backend.services.revocation.TokenRevocationBackend;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh tokens organizados em famílias (uma por login).
+ *
+ * Rotação = compare-and-set pela PK da família (geração + jti atuais). Se um refresh de geração
+ * antiga reaparece, é reuso (provável roubo): a família inteira é revogada.
+ * Revogar famílias não gera entradas por token no backend de revogação.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    public static final String REASON_LOGOUT = "LOGOUT";
+    public static final String REASON_LOGOUT_ALL = "LOGOUT_ALL";
+    public static final String REASON_REUSE = "REUSE_DETECTED";
+
+    private final RefreshTokenFamilyRepository families;
+    private final JwtService jwtService;
+    private final TokenRevocationBackend revocations;
+
+    /** Login: abre uma nova família (geração 0) e devolve o refresh token. */
+    @Transactional
+    public String issue(CustomUserPrincipal principal) {
+        OffsetDateTime now = now();
+        UUID familyId = UUID.randomUUID();
+        UUID jti = UUID.randomUUID();
+        families.save(RefreshTokenFamily.builder()
+                .id(familyId)
+                .userId(principal.getId())
+                .currentJti(jti)
+                .generation(0)
+                .expiresAt(now.plusNanos(jwtService.getRefreshTtlMs() * 1_000_000L))
+                .build());
+        return jwtService.generateRefreshToken(principal, familyId, 0, jti);
+    }
+
+    /**
+     * Rotação: devolve o próximo refresh da família, ou vazio se o token apresentado não vale
+     * (família revogada/expirada ou reuso — neste caso a família é revogada).
+     */
+    @Transactional
+    public Optional<String> rotate(VerifiedToken presented, CustomUserPrincipal principal) {
+        if (presented.familyId() == null) {
+            // Refresh emitido antes das famílias: revoga o token e migra para uma família nova
+            revocations.revoke(presented);
+            return Optional.of(issue(principal));
+        }
+
+        UUID familyId = presented.familyId();
+        int generation = presented.generation() != null ? presented.generation() : -1;
+        UUID newJti = UUID.randomUUID();
+        OffsetDateTime now = now();
+
+        if (families.advance(familyId, generation, presented.jti(), newJti, now) == 1) {
+            return Optional.of(jwtService.generateRefreshToken(principal, familyId, generation + 1, newJti));
+        }
+
+        if (families.revoke(familyId, REASON_REUSE, now) == 1) {
+            log.warn("Reuso de refresh token detectado: userId={}, family={}, gen={} — família revogada",
+                    principal.getId(), familyId, generation);
+        }
+        return Optional.empty();
+    }
+
+    /** Logout de um dispositivo. */
+    @Transactional
+    public void revoke(VerifiedToken refresh) {
+        if (refresh.familyId() != null) {
+            families.revoke(refresh.familyId(), REASON_LOGOUT, now());
+        } else {
+            revocations.revoke(refresh);
+        }
+    }
+
+    /** Logout de todos os dispositivos: um único UPDATE. */
+    @Transactional
+    public int revokeAllForUser(Long userId) {
+        return families.revokeAllForUser(userId, REASON_LOGOUT_ALL, now());
+    }
+
+    /** Famílias expiradas (refresh TTL vencido) não servem nem para detectar reuso. */
+    @Scheduled(fixedDelayString = "${app.security.refresh-family.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int removed = families.deleteExpired(now().minusDays(1));
+        if (removed > 0) log.debug("Famílias de refresh expiradas removidas: {}", removed);
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,153 @@
+package com.quadrago.backend.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versão mínima aceita por usuário, usada no modo stateless do {@link com.quadrago.backend.filters.JwtAuthenticationFilter}.
+ *
+ * Só guarda usuários que mudaram recentemente: cada entrada vale por um TTL de access token,
+ * depois disso todo token com a versão antiga já expirou sozinho e a entrada pode sair.
+ * Sem entrada => qualquer versão do token é aceita.
+ *
+ * Com o modo stateless ligado, as mudanças também vão para a tabela {@code security_version_floor}:
+ * as outras réplicas passam a recusar o token antigo em até {@code sync-interval-ms}, e um nó que
+ * reinicia semeia o mapa com as entradas ainda válidas. Desligado, nada toca o banco.
+ */
+@Slf4j
+@Service
+public class SecurityVersionRegistry {
+
+    private static final int PRUNE_THRESHOLD = 1024;
+
+    /** Tolerância para relógios/commits fora de ordem entre nós no sync incremental. */
+    private static final long SYNC_SKEW_MS = 5_000;
+
+    private record Entry(long minVersion, long keepUntilMillis) {}
+
+    private final ConcurrentHashMap<Long, Entry> versions = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate outsideTransaction;
+    private final long accessTtlMs;
+    private final boolean shared;
+
+    private volatile long syncedUpToMs;     // changed_at_ms já refletido no mapa (menos o skew)
+
+    public SecurityVersionRegistry(JdbcTemplate jdbc,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${jwt.access.expiration:900000}") long accessTtlMs,
+                                   @Value("${app.security.jwt.stateless-principal:false}") boolean shared) {
+        this.jdbc = jdbc;
+        this.outsideTransaction = new TransactionTemplate(transactionManager);
+        this.outsideTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.accessTtlMs = accessTtlMs;
+        this.shared = shared;
+    }
+
+    /** Tabela e índice vêm da migração V10. */
+    @PostConstruct
+    public void init() {
+        if (!shared) return;
+        long start = System.currentTimeMillis();
+        int seeded = load("select user_id, min_version, keep_until_ms from security_version_floor where keep_until_ms > ?", start);
+        syncedUpToMs = start - SYNC_SKEW_MS;
+        log.info("Security versions semeadas do banco: {}", seeded);
+    }
+
+    /** Registra apenas após o commit: versão nova só vale se a mudança foi persistida. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        Long userId = event.userId();
+        long keepUntil = System.currentTimeMillis() + accessTtlMs;
+        record(userId, event.securityVersion(), keepUntil);
+        if (shared && userId != null) publish(userId, event.securityVersion(), keepUntil);
+    }
+
+    private void record(Long userId, long minVersion, long keepUntil) {
+        if (userId == null) return;
+        versions.merge(userId, new Entry(minVersion, keepUntil),
+                (old, neu) -> new Entry(Math.max(old.minVersion(), neu.minVersion()),
+                        Math.max(old.keepUntilMillis(), neu.keepUntilMillis())));
+        log.debug("Security version registrada: userId={}, minVersion={}", userId, minVersion);
+        if (versions.size() > PRUNE_THRESHOLD) prune();
+    }
+
+    /** true se a versão do token ainda é aceita para o usuário. */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        Entry e = versions.get(userId);
+        if (e == null) return true;
+        if (e.keepUntilMillis() <= System.currentTimeMillis()) {
+            versions.remove(userId, e);
+            return true;
+        }
+        return tokenVersion >= e.minVersion();
+    }
+
+    /* ===================== COMPARTILHAMENTO ===================== */
+
+    /** Mudanças feitas em outras réplicas (e as daqui, que o merge ignora). */
+    @Scheduled(fixedDelayString = "${app.security.version-floor.sync-interval-ms:2000}")
+    public void sync() {
+        if (!shared) return;
+        long start = System.currentTimeMillis();
+        load("select user_id, min_version, keep_until_ms from security_version_floor where changed_at_ms >= ?", syncedUpToMs);
+        syncedUpToMs = start - SYNC_SKEW_MS;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.version-floor.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        if (!shared) return;
+        int removed = jdbc.update("delete from security_version_floor where keep_until_ms <= ?", System.currentTimeMillis());
+        if (removed > 0) log.debug("Security versions vencidas removidas: {}", removed);
+    }
+
+    /**
+     * Em autocommit, fora da transação da mudança (que já comitou). Se o banco falhar
+     * aqui, esta réplica já barra o token e as outras não: fica no log.
+     */
+    private void publish(Long userId, long minVersion, long keepUntil) {
+        long now = System.currentTimeMillis();
+        try {
+            outsideTransaction.executeWithoutResult(status -> {
+                // Um statement: duas réplicas publicando o mesmo usuário ao mesmo tempo não colidem
+                jdbc.update("""
+                        insert into security_version_floor (user_id, min_version, keep_until_ms, changed_at_ms)
+                        values (?, ?, ?, ?)
+                        on conflict (user_id) do update
+                           set min_version = excluded.min_version, keep_until_ms = excluded.keep_until_ms,
+                               changed_at_ms = excluded.changed_at_ms
+                         where security_version_floor.min_version < excluded.min_version""",
+                        userId, minVersion, keepUntil, now);
+            });
+        } catch (DataAccessException e) {
+            log.error("Falha ao publicar security version: userId={}, minVersion={}", userId, minVersion, e);
+        }
+    }
+
+    private int load(String sql, long since) {
+        int[] loaded = {0};
+        jdbc.query(sql, rs -> {
+            record(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+            loaded[0]++;
+        }, since);
+        return loaded[0];
+    }
+
+    private void prune() {
+        long now = System.currentTimeMillis();
+        versions.entrySet().removeIf(en -> en.getValue().keepUntilMillis() <= now);
+    }
+}
@@ -0,0 +1,8 @@
+package com.quadrago.backend.services;
+
+/**
+ * Publicado pelo {@link TeacherProfileService} quando um perfil de professor é criado, alterado
+ * (valor/hora, especialidades) ou removido.
+ */
+public record TeacherProfileChangedEvent(Long teacherUserId) {
+}
@@ -8,6 +8,7 @@ import com.quadrago.backend.models.User;
 import com.quadrago.backend.repositories.TeacherProfileRepository;
 import com.quadrago.backend.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +25,7 @@ public class TeacherProfileService {
     private final UserRepository userRepo;
     private final TeacherProfileRepository teacherRepo;
     private final RoleService roleService;
+    private final ApplicationEventPublisher events;
 
     /* ===================== CREATE ===================== */
 
@@ -42,7 +44,9 @@ public class TeacherProfileService {
                 .specialties(sanitize(req.specialties()))
                 .build();
 
-        return teacherRepo.save(tp).getUserId();
+        Long id = teacherRepo.save(tp).getUserId();
+        events.publishEvent(new TeacherProfileChangedEvent(id));
+        return id;
     }
 
     /* ====================== READ ====================== */
@@ -68,6 +72,7 @@ public class TeacherProfileService {
             tp.getSpecialties().clear();
             tp.getSpecialties().addAll(sanitize(req.specialties()));
         }
+        events.publishEvent(new TeacherProfileChangedEvent(userId));
         return teacherRepo.save(tp);
     }
 
@@ -77,6 +82,7 @@ public class TeacherProfileService {
             throw new IllegalArgumentException("Perfil de professor não encontrado");
         }
         teacherRepo.deleteById(userId);
+        events.publishEvent(new TeacherProfileChangedEvent(userId));
         // Observação: não removemos o ROLE_TEACHER automaticamente.
     }
 
@@ -87,6 +93,7 @@ public class TeacherProfileService {
         TeacherProfile tp = get(userId);
         tp.getSpecialties().addAll(sanitize(specialties));
         teacherRepo.save(tp);
+        events.publishEvent(new TeacherProfileChangedEvent(userId));
         return new LinkedHashSet<>(tp.getSpecialties());
     }
 
@@ -97,6 +104,7 @@ public class TeacherProfileService {
             Set<String> toRemove = sanitize(specialties);
             tp.getSpecialties().removeIf(s -> toRemove.contains(normalize(s)));
             teacherRepo.save(tp);
+            events.publishEvent(new TeacherProfileChangedEvent(userId));
         }
         return new LinkedHashSet<>(tp.getSpecialties());
     }
@@ -107,6 +115,8 @@ public class TeacherProfileService {
         tp.getSpecialties().clear();
         tp.getSpecialties().addAll(sanitize(specialties));
         teacherRepo.save(tp);
+        events.publishEvent(new TeacherProfileChangedEvent(userId));
+        events.publishEvent(new TeacherProfileChangedEvent(userId));
         return new LinkedHashSet<>(tp.getSpecialties());
     }
 
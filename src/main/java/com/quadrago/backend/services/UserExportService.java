@@ -0,0 +1,278 @@
+package com.quadrago.backend.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação completa de usuários + pessoa + perfis, linha a linha.
+ *
+ * Cursor JDBC forward-only com fetch size dentro de uma transação read-only (no PostgreSQL o
+ * driver só usa cursor de servidor com autocommit desligado); cada linha é escrita direto no
+ * stream de saída. Memória constante, independente do número de linhas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    private static final String SQL = """
+            select u.id, u.email, u.status, u.created_at, u.last_login_at,
+                   (select array_agg(r.name)
+                      from user_roles ur join roles r on r.id = ur.role_id
+                     where ur.user_id = u.id) as roles,
+                   p.name, p.cpf, p.phone, p.birth_date,
+                   t.user_id is not null as teacher, t.bio as teacher_bio, t.hourly_rate as teacher_hourly_rate,
+                   (select array_agg(ts.specialty)
+                      from teacher_specialties ts
+                     where ts.user_id = t.user_id) as teacher_specialties,
+                   s.user_id is not null as student, s.emergency_contact as student_emergency_contact,
+                   s.notes as student_notes
+              from users u
+              left join person p on p.party_id = u.party_id
+              left join teacher_profile t on t.user_id = u.id
+              left join student_profile s on s.user_id = u.id
+             order by u.id
+            """;
+
+    private static final String[] COLUMNS = {
+            "id", "email", "status", "created_at", "last_login_at", "roles",
+            "name", "cpf", "phone", "birth_date",
+            "teacher", "teacher_bio", "teacher_hourly_rate", "teacher_specialties",
+            "student", "student_emergency_contact", "student_notes"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /** Escreve todas as linhas em {@code out} (não fecha o stream). Retorna o número de linhas. */
+    public long exportUsers(Format format, boolean gzip, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        GZIPOutputStream gz = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        OutputStream target = new BufferedOutputStream(gz != null ? gz : out, BUFFER_SIZE);
+        RowWriter writer = format == Format.NDJSON ? new NdjsonWriter(target) : new CsvWriter(target);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        long rows;
+        try {
+            rows = tx.execute(status -> jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, rs -> {
+                long n = 0;
+                try {
+                    writer.header();
+                    while (rs.next()) {
+                        writer.row(rs);
+                        n++;
+                    }
+                    writer.finish();
+                } catch (IOException e) {
+                    // Cliente desconectou: aborta a consulta e libera a conexão
+                    throw new UncheckedIOException(e);
+                }
+                return n;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        target.flush();
+        if (gz != null) gz.finish();
+        log.info("Export de usuários: {} linhas ({}{}) em {} ms", rows, format.extension, gzip ? ".gz" : "",
+                (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /* ===== Formatos ===== */
+
+    private interface RowWriter {
+        void header() throws IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    /** Coluna array_agg (vazia quando não há linhas); valores podem conter vírgula. */
+    private static List<String> strings(ResultSet rs, String column) throws SQLException {
+        Array array = rs.getArray(column);
+        if (array == null) return List.of();
+        try {
+            List<String> values = new ArrayList<>();
+            for (Object v : (Object[]) array.getArray()) values.add(v.toString());
+            return values;
+        } finally {
+            array.free();
+        }
+    }
+
+    /** Um objeto JSON por linha; roles/especialidades como arrays. */
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator json;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            json = objectMapper.getFactory().createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void header() {
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("email", rs.getString("email"));
+            json.writeStringField("status", rs.getString("status"));
+            writeString("created_at", rs.getObject("created_at", OffsetDateTime.class));
+            writeString("last_login_at", rs.getObject("last_login_at", OffsetDateTime.class));
+            writeList("roles", strings(rs, "roles"));
+            json.writeStringField("name", rs.getString("name"));
+            json.writeStringField("cpf", rs.getString("cpf"));
+            json.writeStringField("phone", rs.getString("phone"));
+            writeString("birth_date", rs.getObject("birth_date", LocalDate.class));
+            if (rs.getBoolean("teacher")) {
+                json.writeObjectFieldStart("teacher");
+                json.writeStringField("bio", rs.getString("teacher_bio"));
+                BigDecimal rate = rs.getBigDecimal("teacher_hourly_rate");
+                if (rate != null) json.writeNumberField("hourly_rate", rate);
+                else json.writeNullField("hourly_rate");
+                writeList("specialties", strings(rs, "teacher_specialties"));
+                json.writeEndObject();
+            } else {
+                json.writeNullField("teacher");
+            }
+            if (rs.getBoolean("student")) {
+                json.writeObjectFieldStart("student");
+                json.writeStringField("emergency_contact", rs.getString("student_emergency_contact"));
+                json.writeStringField("notes", rs.getString("student_notes"));
+                json.writeEndObject();
+            } else {
+                json.writeNullField("student");
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+
+        private void writeString(String field, Object value) throws IOException {
+            json.writeStringField(field, value != null ? value.toString() : null);
+        }
+
+        private void writeList(String field, List<String> values) throws IOException {
+            json.writeArrayFieldStart(field);
+            for (String v : values) json.writeString(v);
+            json.writeEndArray();
+        }
+    }
+
+    /** RFC 4180: cabeçalho + uma linha por usuário; listas separadas por vírgula dentro do campo. */
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        CsvWriter(OutputStream out) {
+            this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void header() throws IOException {
+            out.write(String.join(",", COLUMNS));
+            out.write("\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) out.write(',');
+                String value = value(rs, COLUMNS[i]);
+                if (value != null) writeField(value);
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private static String value(ResultSet rs, String column) throws SQLException {
+            Object v = switch (column) {
+                case "created_at", "last_login_at" -> rs.getObject(column, OffsetDateTime.class);
+                case "birth_date" -> rs.getObject(column, LocalDate.class);
+                case "roles", "teacher_specialties" -> {
+                    List<String> values = strings(rs, column);
+                    yield values.isEmpty() ? null : String.join(",", values);
+                }
+                case "teacher_hourly_rate" -> {
+                    BigDecimal rate = rs.getBigDecimal(column);
+                    yield rate != null ? rate.toPlainString() : null;
+                }
+                default -> rs.getObject(column);
+            };
+            return v != null ? v.toString() : null;
+        }
+
+        private void writeField(String s) throws IOException {
+            boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+            if (!quote) {
+                out.write(s);
+                return;
+            }
+            out.write('"');
+            out.write(s.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
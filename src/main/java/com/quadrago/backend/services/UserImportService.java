@@ -0,0 +1,496 @@
+package com.quadrago.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.dtos.UserDtos.ImportRowError;
+import com.quadrago.backend.dtos.UserDtos.UserImportJobResponse;
+import com.quadrago.backend.dtos.UserDtos.UserImportResult;
+import com.quadrago.backend.enums.ImportJobStatus;
+import com.quadrago.backend.enums.PartyType;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.exceptions.PasswordHashingBusyException;
+import com.quadrago.backend.models.Party;
+import com.quadrago.backend.models.Person;
+import com.quadrago.backend.models.User;
+import com.quadrago.backend.repositories.PartyRepository;
+import com.quadrago.backend.repositories.PersonRepository;
+import com.quadrago.backend.repositories.RoleRepository;
+import com.quadrago.backend.repositories.UserRepository;
+import com.quadrago.backend.services.UserExportService.Format;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cadastro em lote (onboarding de academias): mesmo resultado de N chamadas a
+ * {@link UserService#createPersonUser}, sem o custo por linha.
+ *
+ * 1) valida cada linha; duplicatas dentro do arquivo são recusadas;
+ * 2) unicidade de e-mail/CPF contra o banco em consultas set-based ({@code in (...)} por bloco);
+ * 3) hashes em paralelo, passando pelo mesmo pool limitado do login (hash-parallelism tarefas por vez);
+ * 4) inserts em blocos de {@code chunk-size}, cada bloco numa transação, com batching JDBC
+ *    (ids de sequência com pool). Se um bloco violar unicidade (cadastro concorrente), é refeito
+ *    linha a linha para apontar quais falharam.
+ *
+ * Linhas inválidas não impedem as demais; cada recusa volta com número da linha e motivo.
+ *
+ * Só 1 e 2 rodam na requisição (leem o corpo, que fecha com ela). Hash e insert, a parte lenta
+ * (minutos para milhares de linhas), viram um job em background: um por vez, na ordem de envio.
+ * Os jobs ficam em memória desta instância (GET do status responde 404 em outra réplica ou depois
+ * de reiniciar) e os terminados são descartados após {@code job-retention}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    private static final int IN_CLAUSE_SIZE = 1000;
+    private static final int HASH_ATTEMPTS = 3;
+
+    private final PartyRepository partyRepo;
+    private final PersonRepository personRepo;
+    private final UserRepository userRepo;
+    private final RoleRepository roleRepo;
+    private final RoleService roleService;
+    private final PasswordEncoder passwordEncoder;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.import.max-rows:20000}")
+    private int maxRows;
+
+    @Value("${app.import.chunk-size:500}")
+    private int chunkSize;
+
+    /** Hashes simultâneos de uma importação; 0 = metade das CPUs (sobra pool para os logins). */
+    @Value("${app.import.hash-parallelism:0}")
+    private int hashParallelism;
+
+    /** Importações aceitas e ainda não terminadas; além disso a requisição recebe 429. */
+    @Value("${app.import.max-pending-jobs:4}")
+    private int maxPendingJobs;
+
+    @Value("${app.import.job-retention:1h}")
+    private Duration jobRetention;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService hashExecutor;
+    private ExecutorService jobExecutor;
+
+    @PostConstruct
+    void init() {
+        int threads = hashParallelism > 0 ? hashParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        hashExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "user-import-hash-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        jobExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "user-import-job");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+    }
+
+    /* ===== Jobs ===== */
+
+    /** Lê e valida o arquivo agora; hash e insert seguem em background (acompanhe por {@link #job}). */
+    public UserImportJobResponse submit(Format format, InputStream body) throws IOException {
+        long pending = jobs.values().stream().filter(job -> job.finishedAt == null).count();
+        if (pending >= maxPendingJobs) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Importações demais em andamento, tente novamente mais tarde");
+        }
+        ImportBatch batch = prepare(format, body);
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), batch.total);
+        jobs.put(job.id, job);
+        jobExecutor.execute(() -> run(job, batch));
+        return job.response();
+    }
+
+    public UserImportJobResponse job(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) throw new NoSuchElementException("Importação não encontrada: " + id);
+        return job.response();
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.job-cleanup-interval-ms:600000}")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private void run(ImportJob job, ImportBatch batch) {
+        job.status = ImportJobStatus.RUNNING;
+        try {
+            job.finish(ImportJobStatus.DONE, complete(batch));
+        } catch (RuntimeException e) {
+            log.error("Importação {} falhou", job.id, e);
+            job.finish(ImportJobStatus.FAILED, null);
+        }
+    }
+
+    /** Etapas 1 e 2: parse, validação e unicidade contra o banco. */
+    ImportBatch prepare(Format format, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        List<ImportRowError> errors = new ArrayList<>();
+        Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+        List<Row> rows = format == Format.NDJSON ? parseNdjson(reader, errors) : parseCsv(reader, errors);
+        int total = rows.size() + errors.size();
+
+        List<Row> valid = validate(rows, errors);
+        valid = rejectExisting(valid, errors);
+        log.info("Importação de usuários aceita: {} linhas, {} válidas (validação {} ms)",
+                total, valid.size(), (System.nanoTime() - start) / 1_000_000);
+        return new ImportBatch(total, valid, errors);
+    }
+
+    /** Etapas 3 e 4: hash e insert. */
+    UserImportResult complete(ImportBatch batch) {
+        long start = System.nanoTime();
+        List<ImportRowError> errors = batch.errors;
+        List<Row> valid = hashAll(batch.rows, errors);
+        long hashed = System.nanoTime();
+
+        int created = insertAll(valid, errors);
+        long done = System.nanoTime();
+
+        errors.sort(Comparator.comparingInt(ImportRowError::line));
+        log.info("Importação de usuários: {} linhas, {} criadas, {} recusadas (hash {} ms, insert {} ms)",
+                batch.total, created, errors.size(), (hashed - start) / 1_000_000, (done - hashed) / 1_000_000);
+        return new UserImportResult(batch.total, created, errors.size(), errors);
+    }
+
+    /* ===== Validação e unicidade ===== */
+
+    private List<Row> validate(List<Row> rows, List<ImportRowError> errors) {
+        Map<String, Integer> emails = new HashMap<>();
+        Map<String, Integer> cpfs = new HashMap<>();
+        List<Row> valid = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            CreatePersonUserRequest req = row.request;
+            Set<ConstraintViolation<CreatePersonUserRequest>> violations = validator.validate(req);
+            if (!violations.isEmpty()) {
+                errors.add(row.error(violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "))));
+                continue;
+            }
+            Integer sameEmail = emails.putIfAbsent(row.email, row.line);
+            if (sameEmail != null) {
+                errors.add(row.error("E-mail repetido no arquivo (linha " + sameEmail + ")"));
+                continue;
+            }
+            if (req.cpf() != null) {
+                Integer sameCpf = cpfs.putIfAbsent(req.cpf(), row.line);
+                if (sameCpf != null) {
+                    errors.add(row.error("CPF repetido no arquivo (linha " + sameCpf + ")"));
+                    continue;
+                }
+            }
+            valid.add(row);
+        }
+        return valid;
+    }
+
+    private List<Row> rejectExisting(List<Row> rows, List<ImportRowError> errors) {
+        Set<String> emails = existing(rows.stream().map(r -> r.email).toList(), userRepo::findExistingEmails);
+        Set<String> cpfs = existing(rows.stream().map(r -> r.request.cpf()).filter(Objects::nonNull).toList(),
+                personRepo::findExistingCpfs);
+
+        List<Row> remaining = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (emails.contains(row.email)) {
+                errors.add(row.error("E-mail já cadastrado"));
+            } else if (row.request.cpf() != null && cpfs.contains(row.request.cpf())) {
+                errors.add(row.error("CPF já cadastrado"));
+            } else {
+                remaining.add(row);
+            }
+        }
+        return remaining;
+    }
+
+    private static Set<String> existing(List<String> values, Function<List<String>, List<String>> query) {
+        Set<String> found = new HashSet<>();
+        for (int i = 0; i < values.size(); i += IN_CLAUSE_SIZE) {
+            found.addAll(query.apply(values.subList(i, Math.min(i + IN_CLAUSE_SIZE, values.size()))));
+        }
+        return found;
+    }
+
+    /* ===== Hash ===== */
+
+    private List<Row> hashAll(List<Row> rows, List<ImportRowError> errors) {
+        List<CompletableFuture<Void>> futures = rows.stream()
+                .map(row -> CompletableFuture.runAsync(() -> row.hash = hash(row.request.password()), hashExecutor))
+                .toList();
+
+        List<Row> hashed = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            try {
+                futures.get(i).join();
+                hashed.add(row);
+            } catch (RuntimeException e) {
+                log.warn("Importação: hash falhou na linha {}: {}", row.line, e.getMessage());
+                errors.add(row.error("Não foi possível processar a senha, tente novamente"));
+            }
+        }
+        return hashed;
+    }
+
+    /** O pool de hash é compartilhado com o login: se estiver cheio, espera o Retry-After e tenta de novo. */
+    private String hash(String rawPassword) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return passwordEncoder.encode(rawPassword);
+            } catch (PasswordHashingBusyException e) {
+                if (attempt == HASH_ATTEMPTS) throw e;
+                try {
+                    TimeUnit.SECONDS.sleep(e.getRetryAfterSeconds());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /* ===== Insert ===== */
+
+    private int insertAll(List<Row> rows, List<ImportRowError> errors) {
+        if (rows.isEmpty()) return 0;
+        Map<RoleName, Short> roleIds = new EnumMap<>(RoleName.class);
+        rows.stream().flatMap(r -> r.roles.stream()).distinct()
+                .forEach(rn -> roleIds.put(rn, roleService.getOrCreate(rn).getId()));
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int created = 0;
+        for (int i = 0; i < rows.size(); i += chunkSize) {
+            List<Row> chunk = rows.subList(i, Math.min(i + chunkSize, rows.size()));
+            try {
+                tx.executeWithoutResult(status -> insert(chunk, roleIds));
+                created += chunk.size();
+            } catch (DataIntegrityViolationException e) {
+                // Alguém cadastrou o mesmo e-mail/CPF entre a checagem e o insert: isola a(s) linha(s)
+                for (Row row : chunk) {
+                    try {
+                        tx.executeWithoutResult(status -> insert(List.of(row), roleIds));
+                        created++;
+                    } catch (DataIntegrityViolationException rowError) {
+                        errors.add(row.error("E-mail ou CPF já cadastrado"));
+                    }
+                }
+            }
+        }
+        return created;
+    }
+
+    /** Party → Person → User agrupados por tabela: o flush vira um batch por tipo de INSERT. */
+    private void insert(List<Row> rows, Map<RoleName, Short> roleIds) {
+        List<Party> parties = new ArrayList<>(rows.size());
+        List<Person> persons = new ArrayList<>(rows.size());
+        List<User> users = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            CreatePersonUserRequest req = row.request;
+            Party party = Party.builder().partyType(PartyType.PERSON).build();
+            parties.add(party);
+            persons.add(Person.builder()
+                    .party(party).name(req.name()).cpf(req.cpf()).phone(req.phone()).birthDate(req.birthDate())
+                    .build());
+            User user = User.builder().party(party).email(row.email).passwordHash(row.hash).build();
+            row.roles.forEach(rn -> user.getRoles().add(roleRepo.getReferenceById(roleIds.get(rn))));
+            users.add(user);
+        }
+        partyRepo.saveAll(parties);
+        personRepo.saveAll(persons);
+        userRepo.saveAll(users);
+    }
+
+    /* ===== Formatos ===== */
+
+    /** Um objeto por linha, mesmos campos de POST /users/person. */
+    private List<Row> parseNdjson(Reader in, List<ImportRowError> errors) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isBlank()) continue;
+            checkLimit(rows.size() + errors.size());
+            try {
+                rows.add(new Row(number, objectMapper.readValue(line, CreatePersonUserRequest.class)));
+            } catch (JsonProcessingException e) {
+                errors.add(new ImportRowError(number, null, "JSON inválido: " + e.getOriginalMessage()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * CSV com cabeçalho (ordem livre): name, email, password obrigatórias; cpf, phone, birth_date
+     * (ISO yyyy-MM-dd) e roles (separadas por vírgula, ponto e vírgula ou |) opcionais.
+     */
+    private List<Row> parseCsv(Reader in, List<ImportRowError> errors) throws IOException {
+        CsvReader csv = new CsvReader(in);
+        List<String> header = csv.next();
+        if (header == null) return List.of();
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        for (String required : List.of("name", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cabeçalho CSV sem a coluna " + required);
+            }
+        }
+
+        List<Row> rows = new ArrayList<>();
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            if (fields.stream().allMatch(String::isBlank)) continue;
+            checkLimit(rows.size() + errors.size());
+            Map<String, String> record = new HashMap<>();
+            for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                int i = column.getValue();
+                String value = i < fields.size() ? fields.get(i).trim() : "";
+                if (!value.isEmpty()) record.put(column.getKey(), value);
+            }
+            try {
+                rows.add(new Row(csv.recordLine, new CreatePersonUserRequest(
+                        record.get("name"), record.get("cpf"), record.get("phone"),
+                        record.containsKey("birthdate") ? LocalDate.parse(record.get("birthdate")) : null,
+                        record.get("email"), record.get("password"), parseRoles(record.get("roles")))));
+            } catch (DateTimeParseException e) {
+                errors.add(new ImportRowError(csv.recordLine, record.get("email"), "birth_date inválida (use yyyy-MM-dd)"));
+            } catch (IllegalArgumentException e) {
+                errors.add(new ImportRowError(csv.recordLine, record.get("email"), e.getMessage()));
+            }
+        }
+        return rows;
+    }
+
+    private static Set<RoleName> parseRoles(String value) {
+        if (value == null) return null;
+        Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+        for (String name : value.split("[,;|]")) {
+            if (name.isBlank()) continue;
+            try {
+                roles.add(RoleName.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Papel inválido: " + name.trim());
+            }
+        }
+        return roles;
+    }
+
+    private void checkLimit(int count) {
+        if (count >= maxRows) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Máximo de " + maxRows + " usuários por importação");
+        }
+    }
+
+    /** Arquivo lido e validado, à espera do hash e do insert. */
+    static final class ImportBatch {
+        final int total;
+        final List<Row> rows;
+        final List<ImportRowError> errors;
+
+        ImportBatch(int total, List<Row> rows, List<ImportRowError> errors) {
+            this.total = total;
+            this.rows = rows;
+            this.errors = errors;
+        }
+    }
+
+    private static final class ImportJob {
+        final String id;
+        final int total;
+        final Instant submittedAt = Instant.now();
+        volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+        volatile UserImportResult result;
+        volatile Instant finishedAt;
+
+        ImportJob(String id, int total) {
+            this.id = id;
+            this.total = total;
+        }
+
+        void finish(ImportJobStatus status, UserImportResult result) {
+            this.result = result;
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        UserImportJobResponse response() {
+            return new UserImportJobResponse(id, status, total, submittedAt, finishedAt, result);
+        }
+    }
+
+    /** Linha aceita pelo parser; e-mail normalizado como no cadastro individual. */
+    private static final class Row {
+        final int line;
+        final CreatePersonUserRequest request;
+        final String email;
+        final Set<RoleName> roles;
+        volatile String hash;
+
+        Row(int line, CreatePersonUserRequest request) {
+            this.line = line;
+            this.request = request;
+            this.email = request.email() == null ? null : request.email().toLowerCase();
+            this.roles = (request.roles() == null || request.roles().isEmpty())
+                    ? Set.of(RoleName.STUDENT) : request.roles();
+        }
+
+        ImportRowError error(String message) {
+            return new ImportRowError(line, email, message);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.quadrago.backend.services;
+
+import java.util.Set;
+
+/**
+ * Publicado pelo {@link UserService} quando algo que afeta a autenticação/autorização
+ * de um usuário muda (status, roles, e-mail, senha, exclusão).
+ *
+ * @param securityVersion versão de segurança vigente; {@link #DELETED} quando o usuário foi removido
+ * @param emails          e-mails (normalizados) afetados — inclui o antigo em troca de e-mail
+ */
+public record UserSecurityChangedEvent(Long userId, long securityVersion, Set<String> emails) {
+
+    public static final long DELETED = Long.MAX_VALUE;
+
+    public UserSecurityChangedEvent {
+        emails = emails == null ? Set.of() : Set.copyOf(emails);
+    }
+
+    public static UserSecurityChangedEvent deleted(Long userId, String email) {
+        return new UserSecurityChangedEvent(userId, DELETED, Set.of(email));
+    }
+}
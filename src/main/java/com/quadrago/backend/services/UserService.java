@@ -1,16 +1,21 @@
 package com.quadrago.backend.services;
 
 import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.dtos.UserDtos.UserPage;
 import com.quadrago.backend.dtos.UserDtos.UserResponse;
+import com.quadrago.backend.dtos.UserDtos.UserSummaryResponse;
 import com.quadrago.backend.enums.PartyType;
 import com.quadrago.backend.enums.RoleName;
 import com.quadrago.backend.enums.UserStatus;
 import com.quadrago.backend.models.*;
 import com.quadrago.backend.repositories.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -27,6 +32,8 @@ public class UserService {
     private final StudentProfileRepository studentProfileRepo;
     private final RoleService roleService;
     private final PasswordEncoder passwordEncoder; // configure no SecurityConfig
+    private final ApplicationEventPublisher events;
+    private final RefreshTokenService refreshTokens;
 
   /* ==============================
      CREATE
@@ -91,12 +98,37 @@ public class UserService {
                 });
     }
 
+    /**
+     * Listagem por keyset: {@code cursor} é o último id da página anterior (opaco para o cliente).
+     * Uma consulta por página, custo constante independente da profundidade.
+     */
     @Transactional(readOnly = true)
-    public List<UserResponse> listAll() {
-        return userRepo.findAll().stream().map(u -> {
-            Person p = getPersonOf(u);
-            return new UserResponse(u.getId(), u.getEmail(), p.getName());
-        }).collect(Collectors.toList());
+    public UserPage listPage(int limit, String cursor) {
+        int size = Math.min(Math.max(limit, 1), 200);
+        long afterId = parseCursor(cursor);
+        List<UserRepository.SummaryRow> rows = userRepo.findSummaryPage(afterId, size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<UserRepository.SummaryRow> page = hasMore ? rows.subList(0, size) : rows;
+        String next = hasMore ? Long.toString(page.get(size - 1).getId()) : null;
+
+        return new UserPage(page.stream().map(UserService::toSummary).toList(), next);
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+
+    private static UserSummaryResponse toSummary(UserRepository.SummaryRow row) {
+        Set<RoleName> roles = row.getRoles() == null ? Set.of()
+                : Arrays.stream(row.getRoles().split(",")).map(RoleName::valueOf).collect(Collectors.toSet());
+        return new UserSummaryResponse(row.getId(), row.getEmail(), row.getName(),
+                UserStatus.valueOf(row.getStatus()), roles);
     }
 
   /* ==============================
@@ -120,7 +152,11 @@ public class UserService {
 
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
-        user.setEmail(normalized);
+        if (!normalized.equals(user.getEmail())) {
+            String previous = user.getEmail();
+            user.setEmail(normalized);
+            bumpSecurityVersion(user, previous);
+        }
         Person p = getPersonOf(user);
         return new UserResponse(user.getId(), user.getEmail(), p.getName());
     }
@@ -136,6 +172,8 @@ public class UserService {
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
         user.setPasswordHash(passwordEncoder.encode(rawPassword));
+        // Sem bump de versão (sessões seguem válidas), mas o hash em cache precisa sair
+        events.publishEvent(new UserSecurityChangedEvent(user.getId(), user.getSecurityVersion(), Set.of(user.getEmail())));
     }
 
     /**
@@ -146,7 +184,10 @@ public class UserService {
         if (status == null) throw new IllegalArgumentException("Status inválido");
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
-        user.setStatus(status);
+        if (user.getStatus() != status) {
+            user.setStatus(status);
+            bumpSecurityVersion(user);
+        }
     }
 
   /* ==============================
@@ -196,7 +237,11 @@ public class UserService {
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
 
-        rolesToAdd.forEach(rn -> user.getRoles().add(roleService.getOrCreate(rn)));
+        boolean changed = false;
+        for (RoleName rn : rolesToAdd) {
+            changed |= user.getRoles().add(roleService.getOrCreate(rn));
+        }
+        if (changed) bumpSecurityVersion(user);
         return getRoleNames(user);
     }
 
@@ -210,7 +255,9 @@ public class UserService {
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
 
-        user.getRoles().removeIf(r -> rolesToRemove.contains(r.getName()));
+        if (user.getRoles().removeIf(r -> rolesToRemove.contains(r.getName()))) {
+            bumpSecurityVersion(user);
+        }
         return getRoleNames(user);
     }
 
@@ -222,17 +269,32 @@ public class UserService {
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
 
+        Set<RoleName> before = getRoleNames(user);
         user.getRoles().clear();
         if (newRoles != null && !newRoles.isEmpty()) {
             newRoles.forEach(rn -> user.getRoles().add(roleService.getOrCreate(rn)));
         }
-        return getRoleNames(user);
+        Set<RoleName> after = getRoleNames(user);
+        if (!before.equals(after)) bumpSecurityVersion(user);
+        return after;
     }
 
   /* ==============================
      DELETE
      ============================== */
 
+    /**
+     * Sair de todos os dispositivos: revoga todas as famílias de refresh do usuário (um UPDATE)
+     * e incrementa a versão de segurança, invalidando também os access tokens já emitidos.
+     */
+    @Transactional
+    public void revokeAllSessions(Long userId) {
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
+        refreshTokens.revokeAllForUser(userId);
+        bumpSecurityVersion(user);
+    }
+
     /**
      * Exclui o usuário e seus perfis. Em seguida remove a Party (e Person por cascata).
      * Ordem:
@@ -246,6 +308,7 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
 
         Long partyId = user.getParty().getId();
+        String email = user.getEmail();
 
         // Perfis (se existirem)
         if (teacherProfileRepo.existsByUserId(userId)) {
@@ -264,12 +327,26 @@ public class UserService {
         // Apaga person (se existir) e depois party
         personRepo.findById(partyId).ifPresent(personRepo::delete);
         partyRepo.findById(partyId).ifPresent(partyRepo::delete);
+
+        events.publishEvent(UserSecurityChangedEvent.deleted(userId, email));
     }
 
   /* ==============================
      HELPERS
      ============================== */
 
+    /**
+     * Incrementa a versão de segurança: tokens emitidos antes da mudança deixam de valer
+     * (refresh compara com o banco; access é barrado via SecurityVersionRegistry após o commit).
+     * O mesmo evento remove o usuário do UserDetailsCache após o commit.
+     */
+    private void bumpSecurityVersion(User user, String... previousEmails) {
+        user.setSecurityVersion(user.getSecurityVersion() + 1);
+        Set<String> emails = new HashSet<>(Arrays.asList(previousEmails));
+        emails.add(user.getEmail());
+        events.publishEvent(new UserSecurityChangedEvent(user.getId(), user.getSecurityVersion(), emails));
+    }
+
     private Person getPersonOf(User user) {
         Long partyId = user.getParty().getId();
         return personRepo.findById(partyId)
@@ -0,0 +1,57 @@
+package com.quadrago.backend.services;
+
+import com.quadrago.backend.services.revocation.TokenId;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resultado imutável de um JWT já verificado (assinatura + expiração).
+ * Produzido uma única vez por {@link JwtService#parse(String)} e repassado
+ * para filtro/controllers, evitando re-parse e re-verificação do HMAC.
+ */
+public record VerifiedToken(
+        String subject,      // e-mail (username)
+        Set<String> roles,   // ex.: ROLE_ADMIN
+        String type,         // "access" | "refresh"
+        Instant expiresAt,
+        Instant issuedAt,
+        Long userId,         // claim "uid" (ausente em tokens antigos)
+        String status,       // claim "status" (UserStatus no momento da emissão)
+        Long securityVersion, // claim "sv" (ausente em tokens antigos)
+        TokenId tokenId,      // "jti" ou hash de 128 bits do token (chave de revogação)
+        UUID familyId,        // refresh: claim "fid" (família de rotação)
+        Integer generation    // refresh: claim "gen"
+) {
+
+    public VerifiedToken {
+        roles = roles == null ? Set.of() : Set.copyOf(roles);
+    }
+
+    public boolean isRefresh() {
+        return JwtService.TYPE_REFRESH.equalsIgnoreCase(type);
+    }
+
+    public boolean isAccess() {
+        return !isRefresh();
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+
+    /** true se o token traz todos os claims necessários para montar o principal sem ir ao banco. */
+    public boolean hasPrincipalClaims() {
+        return subject != null && userId != null && status != null && securityVersion != null;
+    }
+
+    /** jti como UUID (tokens emitidos por este serviço sempre têm jti). */
+    public UUID jti() {
+        return tokenId != null ? new UUID(tokenId.hi(), tokenId.lo()) : null;
+    }
+
+    public long expiresAtMillis() {
+        return expiresAt != null ? expiresAt.toEpochMilli() : 0L;
+    }
+}
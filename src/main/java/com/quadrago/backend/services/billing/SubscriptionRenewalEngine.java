@@ -0,0 +1,418 @@
+package com.quadrago.backend.services.billing;
+
+import com.quadrago.backend.dashboard.activity.ActivityEventRecorder;
+import com.quadrago.backend.enums.PaymentStatus;
+import com.quadrago.backend.enums.SubscriptionStatus;
+import com.quadrago.backend.models.Payment;
+import com.quadrago.backend.models.Subscription;
+import com.quadrago.backend.repositories.PaymentRepository;
+import com.quadrago.backend.repositories.PaymentRepository.RenewalPeriod;
+import com.quadrago.backend.repositories.SubscriptionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Renova as assinaturas ativas com {@code nextRenewAt} vencido: cria o Payment (pendente) do período,
+ * avança {@code nextRenewAt} e expira as que passaram de {@code endAt}.
+ *
+ * A fila é a própria tabela: cada lote trava até {@code chunk-size} assinaturas vencidas com
+ * {@code FOR UPDATE SKIP LOCKED} (as mais atrasadas primeiro, índice ix_subscription_due) e é
+ * processado e commitado numa transação curta. Workers desta instância e de outras pegam lotes
+ * disjuntos sem coordenação; um milhão de vencidas vira milhares de transações pequenas, nunca uma
+ * longa. Assinatura muito atrasada renova um período por lote e volta para a fila até alcançar o presente.
+ *
+ * Idempotente por período: o pagamento guarda o período que cobrou (índice único por assinatura e
+ * período) e um período já cobrado só avança a data. Cobrança e avanço entram no mesmo commit. Lote
+ * que falha é refeito uma assinatura por transação: a que falhar sozinha é marcada
+ * ({@code renewal_failed_at}) e fica fora da fila por {@code retry-delay}, então uma linha ruim
+ * não prende as vencidas atrás dela.
+ *
+ * Pagamento e expiração passam pelo Hibernate: feed de atividades e contadores do dashboard
+ * (listeners) enxergam as renovações como qualquer outra mudança. As atividades do lote vão num
+ * INSERT em lote ({@link ActivityEventRecorder#batched}); as expirações, que mexem na linha de
+ * contadores do professor, vão ao banco uma a uma em ordem de professor, então lotes concorrentes
+ * travam essas linhas sempre na mesma ordem.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SubscriptionRenewalEngine {
+
+    /** Desfecho da renovação de uma assinatura (tag {@code outcome} das métricas). */
+    public enum Outcome {
+        /** Pagamento criado e data avançada. */
+        RENEWED,
+        /** Sem preço: só avança a data. */
+        NOT_CHARGED,
+        /** Período já tinha pagamento (renovação repetida): só avança a data. */
+        ALREADY_BILLED,
+        /** Próximo período começa depois do fim da assinatura. */
+        EXPIRED,
+        /** Falhou sozinha: marcada e fora da fila até {@code retry-delay}. */
+        FAILED
+    }
+
+    /** Assinaturas processadas numa rodada, por desfecho. */
+    public record RenewalRun(Map<Outcome, Long> outcomes, Duration elapsed) {
+        public long total() {
+            return outcomes.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long count(Outcome outcome) {
+            return outcomes.getOrDefault(outcome, 0L);
+        }
+    }
+
+    private static final String CLAIM = """
+            select s.id, s.next_renew_at from subscription s
+             where s.status = 'ACTIVE' and s.next_renew_at <= ?
+               and (s.renewal_failed_at is null or s.renewal_failed_at <= ?)
+             order by s.next_renew_at
+             limit ?
+             for update skip locked
+            """;
+
+    /** Uma assinatura do lote que falhou (outro worker pode tê-la pego ou renovado nesse meio-tempo). */
+    private static final String CLAIM_ONE = """
+            select s.id, s.next_renew_at from subscription s
+             where s.id = ? and s.status = 'ACTIVE' and s.next_renew_at <= ?
+             for update skip locked
+            """;
+
+    private static final String MARK_FAILED =
+            "update subscription set renewal_failed_at = ?, renewal_failure = ? where id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final SubscriptionRepository subscriptions;
+    private final PaymentRepository payments;
+    private final ActivityEventRecorder activities;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    /** false: o job agendado não roda (a rodada ainda pode ser chamada direto). */
+    @Value("${app.subscriptions.renewal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.subscriptions.renewal.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.subscriptions.renewal.workers:2}")
+    private int workers;
+
+    /** Teto de cada transação de lote; estourado, o lote volta para a fila. */
+    @Value("${app.subscriptions.renewal.chunk-timeout:30s}")
+    private Duration chunkTimeout;
+
+    @Value("${app.subscriptions.renewal.currency:BRL}")
+    private String currency;
+
+    /** Quanto tempo uma assinatura cuja renovação falhou fica fora da fila. */
+    @Value("${app.subscriptions.renewal.retry-delay:1h}")
+    private Duration retryDelay;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    /** Atraso (segundos) da renovação mais antiga do último lote; 0 com a fila vazia. */
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private ExecutorService pool;
+    private TransactionTemplate tx;
+    private Timer chunkTimer;
+    private final Map<Outcome, Counter> outcomeCounters = new EnumMap<>(Outcome.class);
+
+    @PostConstruct
+    void init() {
+        workers = Math.max(1, workers);
+        AtomicInteger threads = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "subscription-renewal-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        tx = new TransactionTemplate(transactionManager);
+        tx.setTimeout((int) Math.max(1, chunkTimeout.toSeconds()));
+        chunkTimer = Timer.builder("subscriptions.renewal.chunk")
+                .description("Duração da transação de cada lote de renovações")
+                .register(meterRegistry);
+        for (Outcome outcome : Outcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("subscriptions.renewals")
+                    .description("Assinaturas renovadas, por desfecho")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("subscriptions.renewal.lag", lagSeconds, AtomicLong::get)
+                .description("Atraso da renovação vencida mais antiga no último lote")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Dispara uma rodada nos workers sem prender a thread do agendador (que é compartilhada com os
+     * outros jobs); se a anterior ainda está drenando a fila, não faz nada.
+     */
+    @Scheduled(initialDelayString = "${app.subscriptions.renewal.initial-delay-ms:60000}",
+            fixedDelayString = "${app.subscriptions.renewal.interval-ms:60000}")
+    public void scheduled() {
+        if (enabled && running.compareAndSet(false, true)) {
+            start(run -> running.set(false));
+        }
+    }
+
+    /** Drena a fila de vencidas agora (todos os workers) e espera terminar. */
+    public RenewalRun renewDue() {
+        Run run = start(r -> {});
+        try {
+            run.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return run.result();
+    }
+
+    /* ===================== RODADA ===================== */
+
+    private final class Run {
+        final long startedAt = System.nanoTime();
+        final Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+        final AtomicInteger active = new AtomicInteger(workers);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Run() {
+            for (Outcome outcome : Outcome.values()) counts.put(outcome, new LongAdder());
+        }
+
+        RenewalRun result() {
+            Map<Outcome, Long> outcomes = new EnumMap<>(Outcome.class);
+            counts.forEach((outcome, n) -> outcomes.put(outcome, n.sum()));
+            return new RenewalRun(outcomes, Duration.ofNanos(System.nanoTime() - startedAt));
+        }
+    }
+
+    private Run start(Consumer<Run> onFinish) {
+        Run run = new Run();
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> {
+                try {
+                    drain(run);
+                } finally {
+                    if (run.active.decrementAndGet() == 0) {
+                        finish(run);
+                        onFinish.accept(run);
+                        run.done.countDown();
+                    }
+                }
+            });
+        }
+        return run;
+    }
+
+    /**
+     * Lote atrás de lote até a fila (para este worker) esvaziar. Lote que falha é refeito uma a uma;
+     * só erro fora das assinaturas (banco indisponível) encerra o worker até a próxima rodada.
+     */
+    private void drain(Run run) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> claimed = new ArrayList<>();
+                Map<Outcome, Integer> outcomes;
+                try {
+                    outcomes = renewChunk(claimed);
+                } catch (RuntimeException e) {
+                    if (claimed.isEmpty()) throw e;
+                    log.warn("Renovação de assinaturas: lote de {} falhou ({}); refazendo uma a uma",
+                            claimed.size(), cause(e));
+                    outcomes = renewOneByOne(claimed);
+                }
+                if (claimed.isEmpty()) return;
+                outcomes.forEach((outcome, n) -> {
+                    run.counts.get(outcome).add(n);
+                    outcomeCounters.get(outcome).increment(n);
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Renovação de assinaturas: worker parou ({}); as assinaturas voltam para a fila", cause(e));
+        }
+    }
+
+    private void finish(Run run) {
+        RenewalRun result = run.result();
+        if (result.total() == 0) return;
+        double seconds = Math.max(0.001, result.elapsed().toNanos() / 1e9);
+        log.info("Renovação de assinaturas: {} processada(s) em {} ms ({}/s): {}",
+                result.total(), result.elapsed().toMillis(), Math.round(result.total() / seconds), result.outcomes());
+    }
+
+    /* ===================== LOTE ===================== */
+
+    /**
+     * Um lote numa transação; devolve os desfechos (vazio se não havia nada vencido). Os ids travados
+     * ficam em {@code claimed} mesmo se a transação falhar depois.
+     */
+    private Map<Outcome, Integer> renewChunk(List<Long> claimed) {
+        long started = System.nanoTime();
+        Map<Outcome, Integer> outcomes = tx.execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            Map<Long, OffsetDateTime> due = claim(CLAIM, now, now.minus(retryDelay), chunkSize);
+            if (due.isEmpty()) {
+                lagSeconds.set(0);
+                return Map.of();
+            }
+            claimed.addAll(due.keySet());
+            OffsetDateTime oldest = due.values().iterator().next();
+            lagSeconds.set(Math.max(0, Duration.between(oldest, now).toSeconds()));
+            return renew(due);
+        });
+        if (outcomes != null && !outcomes.isEmpty()) chunkTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        return outcomes != null ? outcomes : Map.of();
+    }
+
+    /** Refaz um lote que falhou, uma assinatura por transação; a que falhar sozinha é marcada. */
+    private Map<Outcome, Integer> renewOneByOne(List<Long> ids) {
+        Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+        for (Long id : ids) {
+            try {
+                Map<Outcome, Integer> outcomes = tx.execute(status -> {
+                    Map<Long, OffsetDateTime> due = claim(CLAIM_ONE, id, OffsetDateTime.now(ZoneOffset.UTC));
+                    return due.isEmpty() ? Map.<Outcome, Integer>of() : renew(due);
+                });
+                if (outcomes != null) outcomes.forEach((outcome, n) -> counts.merge(outcome, n, Integer::sum));
+            } catch (RuntimeException e) {
+                String cause = cause(e);
+                log.warn("Renovação de assinaturas: assinatura {} falhou ({}); fora da fila por {}", id, cause, retryDelay);
+                tx.executeWithoutResult(status -> jdbc.update(MARK_FAILED, OffsetDateTime.now(ZoneOffset.UTC),
+                        cause.length() > 500 ? cause.substring(0, 500) : cause, id));
+                counts.merge(Outcome.FAILED, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private Map<Long, OffsetDateTime> claim(String sql, Object... args) {
+        Map<Long, OffsetDateTime> due = new LinkedHashMap<>();
+        jdbc.query(sql, rs -> {
+            due.put(rs.getLong(1), rs.getObject(2, OffsetDateTime.class));
+        }, args);
+        return due;
+    }
+
+    /** Renova as assinaturas travadas ({@code id → nextRenewAt}, a mais atrasada primeiro). */
+    private Map<Outcome, Integer> renew(Map<Long, OffsetDateTime> due) {
+        Set<String> billed = new HashSet<>();
+        for (RenewalPeriod p : payments.findRenewalPeriods(due.keySet(), due.values().iterator().next())) {
+            billed.add(key(p.getSubscriptionId(), p.getPeriodAt()));
+        }
+        Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+        activities.batched(() -> {
+            List<Payment> created = new ArrayList<>();
+            List<Subscription> ending = new ArrayList<>();
+            for (Subscription s : subscriptions.findAllById(due.keySet())) {
+                s.setRenewalFailedAt(null);
+                s.setRenewalFailure(null);
+                if (ends(s)) {
+                    ending.add(s);
+                    continue;
+                }
+                Outcome outcome = renew(s, billed.contains(key(s.getId(), s.getNextRenewAt())), created);
+                counts.merge(outcome, 1, Integer::sum);
+            }
+            payments.saveAll(created);
+            subscriptions.flush();
+            // Uma por flush, em ordem de professor: os contadores travam na mesma ordem em todo lote
+            // e só no fim da transação
+            ending.sort(Comparator.comparing(Subscription::getTeacherUserId));
+            for (Subscription s : ending) {
+                s.setStatus(SubscriptionStatus.EXPIRED);
+                s.setNextRenewAt(null);
+                subscriptions.flush();
+                counts.merge(Outcome.EXPIRED, 1, Integer::sum);
+            }
+        });
+        return counts;
+    }
+
+    /** O período vencido começa no fim da assinatura ou depois: expira em vez de renovar. */
+    private static boolean ends(Subscription s) {
+        return s.getEndAt() != null && !s.getNextRenewAt().isBefore(s.getEndAt());
+    }
+
+    private Outcome renew(Subscription s, boolean alreadyBilled, List<Payment> created) {
+        OffsetDateTime period = s.getNextRenewAt();
+        s.setNextRenewAt(nextPeriod(s.getStartAt() != null ? s.getStartAt() : period, period,
+                s.getRenewalIntervalMonths() != null && s.getRenewalIntervalMonths() > 0 ? s.getRenewalIntervalMonths() : 1));
+        if (alreadyBilled) return Outcome.ALREADY_BILLED;
+        if (s.getPrice() == null || s.getPrice().compareTo(BigDecimal.ZERO) <= 0) return Outcome.NOT_CHARGED;
+
+        created.add(Payment.builder()
+                .teacherProfile(s.getTeacherProfile())
+                .studentProfile(s.getStudentProfile())
+                .subscription(s)
+                .amount(s.getPrice())
+                .currency(currency)
+                .status(PaymentStatus.PENDING)
+                .description("Renovação: " + s.getPlanName())
+                .renewalPeriodAt(period)
+                .build());
+        return Outcome.RENEWED;
+    }
+
+    /**
+     * Primeiro vencimento depois de {@code period} na grade {@code anchor + k * months} meses: contar
+     * sempre a partir do início mantém o dia (31/01 → 28/02 → 31/03, sem escorregar para o dia 28).
+     */
+    static OffsetDateTime nextPeriod(OffsetDateTime anchor, OffsetDateTime period, int months) {
+        long n = ChronoUnit.MONTHS.between(anchor, period) / months * months;
+        OffsetDateTime next;
+        do {
+            n += months;
+            next = anchor.plusMonths(n);
+        } while (!next.isAfter(period));
+        return next;
+    }
+
+    private static String cause(Throwable e) {
+        return String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+    }
+
+    private static String key(Long subscriptionId, OffsetDateTime period) {
+        return subscriptionId + "@" + period.toInstant();
+    }
+}
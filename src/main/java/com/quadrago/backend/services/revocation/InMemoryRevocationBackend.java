@@ -0,0 +1,50 @@
+package com.quadrago.backend.services.revocation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revogação local (por JVM) sobre o {@link RevocationStore} compacto.
+ * Adequado para instância única; com várias réplicas use o backend {@code jdbc}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.security.revocation.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRevocationBackend implements TokenRevocationBackend {
+
+    private final RevocationStore store;
+
+    public InMemoryRevocationBackend(MeterRegistry meterRegistry,
+                                     @Value("${app.security.revocation.bucket-ms:60000}") long bucketMillis) {
+        this.store = new RevocationStore(bucketMillis);
+        Gauge.builder("auth.revocation.entries", store, RevocationStore::size)
+                .description("Tokens revogados ainda retidos")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.memory", store, RevocationStore::memoryBytes)
+                .description("Memória estimada do store de revogação")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void revoke(TokenId id, long expiresAtMillis) {
+        store.revoke(id, expiresAtMillis, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isRevoked(TokenId id) {
+        return store.isRevoked(id, System.currentTimeMillis());
+    }
+
+    /** Limpeza periódica: só visita os buckets de expiração já vencidos. */
+    @Scheduled(fixedDelayString = "${app.security.revocation.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        int removed = store.cleanup(System.currentTimeMillis());
+        if (removed > 0) log.debug("Revogações expiradas removidas: {}", removed);
+    }
+}
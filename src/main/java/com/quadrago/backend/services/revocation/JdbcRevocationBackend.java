@@ -0,0 +1,160 @@
+package com.quadrago.backend.services.revocation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revogação compartilhada entre réplicas via tabela {@code revoked_token} (PostgreSQL).
+ *
+ * Cada nó mantém um {@link BloomFilter} local sincronizado periodicamente: se o filtro diz "não contém",
+ * o token não foi revogado (sem falsos negativos) e não há ida ao banco. Só os positivos (revogados de fato
+ * ou falso positivo, ~{@code fpp}) consultam a tabela.
+ *
+ * Consistência: revogações feitas em outro nó passam a valer aqui em até {@code sync-interval-ms}.
+ * Revogações feitas neste nó valem imediatamente.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.security.revocation.backend", havingValue = "jdbc")
+public class JdbcRevocationBackend implements TokenRevocationBackend {
+
+    /** Tolerância para relógios/commits fora de ordem entre nós no sync incremental. */
+    private static final long SYNC_SKEW_MS = 5_000;
+
+    private final JdbcTemplate jdbc;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final long fullRebuildIntervalMs;
+
+    private volatile BloomFilter bloom;
+    private volatile long syncedUpToMs;     // revoked_at_ms já refletido no filtro (menos o skew)
+    private volatile long lastFullRebuildMs;
+
+    private final Counter bloomNegatives;
+    private final Counter dbHits;
+    private final Counter dbMisses;
+
+    public JdbcRevocationBackend(JdbcTemplate jdbc,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.security.revocation.bloom.expected-insertions:100000}") long expectedInsertions,
+                                 @Value("${app.security.revocation.bloom.fpp:0.01}") double fpp,
+                                 @Value("${app.security.revocation.full-rebuild-interval-ms:600000}") long fullRebuildIntervalMs) {
+        this.jdbc = jdbc;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.fullRebuildIntervalMs = fullRebuildIntervalMs;
+
+        this.bloomNegatives = Counter.builder("auth.revocation.checks").tag("result", "bloom_negative").register(meterRegistry);
+        this.dbHits = Counter.builder("auth.revocation.checks").tag("result", "db_revoked").register(meterRegistry);
+        this.dbMisses = Counter.builder("auth.revocation.checks").tag("result", "db_false_positive").register(meterRegistry);
+        Gauge.builder("auth.revocation.bloom.size", this, b -> b.bloom != null ? b.bloom.sizeInBytes() : 0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /** Tabela e índice vêm da migração V1_1. */
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /* ===================== API ===================== */
+
+    @Override
+    public void revoke(TokenId id, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (id == null || expiresAtMillis <= now) return;
+        // Um único statement: dentro da transação do chamador (rotate), um erro de chave duplicada
+        // abortaria a transação inteira no PostgreSQL
+        jdbc.update("""
+                insert into revoked_token (id_hi, id_lo, expires_at_ms, revoked_at_ms) values (?, ?, ?, ?)
+                on conflict (id_hi, id_lo) do update
+                   set expires_at_ms = excluded.expires_at_ms, revoked_at_ms = excluded.revoked_at_ms
+                 where revoked_token.expires_at_ms < excluded.expires_at_ms""",
+                id.hi(), id.lo(), expiresAtMillis, now);
+        // Publica no filtro atual; se houve troca (rebuild) no meio, publica também no novo
+        BloomFilter b;
+        do {
+            b = bloom;
+            b.put(id);
+        } while (b != bloom);
+    }
+
+    @Override
+    public boolean isRevoked(TokenId id) {
+        if (id == null) return false;
+        if (!bloom.mightContain(id)) {
+            bloomNegatives.increment();
+            return false;
+        }
+        Integer found = jdbc.query(
+                "select 1 from revoked_token where id_hi = ? and id_lo = ? and expires_at_ms > ?",
+                rs -> rs.next() ? 1 : null,
+                id.hi(), id.lo(), System.currentTimeMillis());
+        if (found != null) {
+            dbHits.increment();
+            return true;
+        }
+        dbMisses.increment();
+        return false;
+    }
+
+    /* ===================== SYNC / LIMPEZA ===================== */
+
+    /** Incremental (só revogações novas); rebuild completo de tempos em tempos para descartar expirados. */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-interval-ms:2000}")
+    public void sync() {
+        if (System.currentTimeMillis() - lastFullRebuildMs >= fullRebuildIntervalMs) {
+            rebuild();
+            return;
+        }
+        long start = System.currentTimeMillis();
+        loadInto(bloom, syncedUpToMs);
+        syncedUpToMs = start - SYNC_SKEW_MS;
+    }
+
+    /** Reconstrói o filtro só com as revogações ainda válidas (Bloom não suporta remoção). */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Long live = jdbc.queryForObject("select count(*) from revoked_token where expires_at_ms > ?", Long.class, start);
+        BloomFilter fresh = BloomFilter.create(Math.max(expectedInsertions, (live == null ? 0 : live) * 2), fpp);
+
+        jdbc.query(con -> {
+            var ps = con.prepareStatement("select id_hi, id_lo from revoked_token where expires_at_ms > ?");
+            ps.setFetchSize(1_000);
+            ps.setLong(1, start);
+            return ps;
+        }, rs -> {
+            fresh.put(new TokenId(rs.getLong(1), rs.getLong(2)));
+        });
+        // o que entrou durante a varredura
+        loadInto(fresh, start - SYNC_SKEW_MS);
+
+        bloom = fresh;
+        syncedUpToMs = start - SYNC_SKEW_MS;
+        lastFullRebuildMs = start;
+        log.debug("Bloom de revogação reconstruído: {} entradas vivas, {} bytes", live, fresh.sizeInBytes());
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        int removed = jdbc.update("delete from revoked_token where expires_at_ms <= ?", System.currentTimeMillis());
+        if (removed > 0) log.debug("Revogações expiradas removidas: {}", removed);
+    }
+
+    private void loadInto(BloomFilter target, long revokedSinceMs) {
+        jdbc.query("select id_hi, id_lo from revoked_token where revoked_at_ms >= ?",
+                rs -> {
+                    target.put(new TokenId(rs.getLong(1), rs.getLong(2)));
+                },
+                revokedSinceMs);
+    }
+}
@@ -0,0 +1,214 @@
+package com.quadrago.backend.services.revocation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Conjunto compacto de {@link TokenId}s revogados, com expiração.
+ *
+ * <ul>
+ *   <li>Tabela: um único {@code long[]} com endereçamento aberto (linear probing);
+ *       cada slot ocupa 3 longs (hi, lo, expiresAt) — 24 bytes, sem objetos por entrada.</li>
+ *   <li>Expiração: "roda" de buckets de tempo ({@code bucketMillis}); a limpeza só visita
+ *       buckets já vencidos, custo O(expirados) em vez de varrer a tabela inteira.</li>
+ *   <li>Concorrência: leitura otimista ({@link StampedLock}) no caminho quente; escrita exclusiva.</li>
+ * </ul>
+ */
+public final class RevocationStore {
+
+    static final int MIN_CAPACITY = 1 << 10;
+    private static final int STRIDE = 3;       // hi, lo, expiresAt
+    private static final long EMPTY = 0L;      // expiresAt == 0 => slot livre
+
+    private final long bucketMillis;
+    private final StampedLock lock = new StampedLock();
+
+    private long[] table = new long[MIN_CAPACITY * STRIDE];
+    private int size;
+
+    /** bucket (expiresAt / bucketMillis) -> pares (hi, lo) que expiram nele */
+    private final NavigableMap<Long, LongPairList> wheel = new TreeMap<>();
+
+    public RevocationStore(long bucketMillis) {
+        if (bucketMillis <= 0) throw new IllegalArgumentException("bucketMillis deve ser > 0");
+        this.bucketMillis = bucketMillis;
+    }
+
+    /* ===================== ESCRITA ===================== */
+
+    public void revoke(TokenId id, long expiresAtMillis, long nowMillis) {
+        if (id == null || expiresAtMillis <= nowMillis) return; // já expirado: nada a guardar
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > capacity()) resize(capacity() * 2);
+            int slot = findSlot(table, id.hi(), id.lo());
+            int base = slot * STRIDE;
+            if (table[base + 2] != EMPTY) {
+                if (expiresAtMillis <= table[base + 2]) return;
+                table[base + 2] = expiresAtMillis;   // o bucket antigo será ignorado na limpeza
+            } else {
+                table[base] = id.hi();
+                table[base + 1] = id.lo();
+                table[base + 2] = expiresAtMillis;
+                size++;
+            }
+            wheel.computeIfAbsent(expiresAtMillis / bucketMillis, b -> new LongPairList()).add(id.hi(), id.lo());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Remove tudo que expirou até {@code nowMillis}. Retorna quantas entradas saíram da tabela. */
+    public int cleanup(long nowMillis) {
+        long stamp = lock.writeLock();
+        try {
+            // bucket b contém expirações em [b*bucketMillis, (b+1)*bucketMillis): vencido se b < now/bucketMillis
+            var due = wheel.headMap(nowMillis / bucketMillis, false);
+            int removed = 0;
+            for (Map.Entry<Long, LongPairList> bucket : due.entrySet()) {
+                LongPairList pairs = bucket.getValue();
+                for (int i = 0; i < pairs.size; i++) {
+                    long hi = pairs.data[2 * i], lo = pairs.data[2 * i + 1];
+                    int slot = findSlot(table, hi, lo);
+                    long exp = table[slot * STRIDE + 2];
+                    if (exp != EMPTY && exp <= nowMillis) {
+                        deleteSlot(slot);
+                        removed++;
+                    }
+                }
+            }
+            due.clear();
+            if (capacity() > MIN_CAPACITY && size * 8 < capacity()) {
+                resize(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(size, 1) * 4)));
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /* ===================== LEITURA ===================== */
+
+    public boolean isRevoked(TokenId id, long nowMillis) {
+        if (id == null) return false;
+        long stamp = lock.tryOptimisticRead();
+        long exp = lookup(table, id.hi(), id.lo());
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                exp = lookup(table, id.hi(), id.lo());
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return exp > nowMillis;
+    }
+
+    /** Entradas vivas na tabela (inclui expiradas ainda não limpas). */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Estimativa de memória retida: tabela + buckets da roda. */
+    public long memoryBytes() {
+        long stamp = lock.readLock();
+        try {
+            long bytes = (long) table.length * Long.BYTES;
+            for (LongPairList l : wheel.values()) bytes += (long) l.data.length * Long.BYTES + 64; // + nó/array header
+            return bytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /* ===================== INTERNOS ===================== */
+
+    private int capacity() {
+        return table.length / STRIDE;
+    }
+
+    /** Slot de origem do id (visível para os testes montarem clusters). */
+    static int home(long hi, long lo, int mask) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    /** Leitura tolerante a corrida (modo otimista): nunca estoura índice e limita as sondagens. */
+    private static long lookup(long[] t, long hi, long lo) {
+        int cap = t.length / STRIDE;
+        int mask = cap - 1;
+        int i = home(hi, lo, mask);
+        for (int probes = 0; probes < cap; probes++) {
+            int base = i * STRIDE;
+            long exp = t[base + 2];
+            if (exp == EMPTY) return EMPTY;
+            if (t[base] == hi && t[base + 1] == lo) return exp;
+            i = (i + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /** Slot do id, ou o slot livre onde ele entraria. Requer lock de escrita. */
+    private static int findSlot(long[] t, long hi, long lo) {
+        int mask = t.length / STRIDE - 1;
+        int i = home(hi, lo, mask);
+        while (true) {
+            int base = i * STRIDE;
+            if (t[base + 2] == EMPTY || (t[base] == hi && t[base + 1] == lo)) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /** Remoção com backward-shift (sem tombstones), mantendo as cadeias de sondagem válidas. */
+    private void deleteSlot(int slot) {
+        int mask = capacity() - 1;
+        int i = slot;
+        int j = slot;
+        while (true) {
+            j = (j + 1) & mask;
+            int bj = j * STRIDE;
+            if (table[bj + 2] == EMPTY) break;
+            int k = home(table[bj], table[bj + 1], mask);
+            boolean stays = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+            if (stays) continue;
+            System.arraycopy(table, bj, table, i * STRIDE, STRIDE);
+            i = j;
+        }
+        Arrays.fill(table, i * STRIDE, i * STRIDE + STRIDE, 0L);
+        size--;
+    }
+
+    private void resize(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity * STRIDE];
+        for (int base = 0; base < old.length; base += STRIDE) {
+            if (old[base + 2] == EMPTY) continue;
+            int slot = findSlot(table, old[base], old[base + 1]);
+            System.arraycopy(old, base, table, slot * STRIDE, STRIDE);
+        }
+    }
+
+    /** Lista crescente de pares de long, sem boxing. */
+    private static final class LongPairList {
+        long[] data = new long[8];
+        int size;
+
+        void add(long a, long b) {
+            if (2 * size + 2 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[2 * size] = a;
+            data[2 * size + 1] = b;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.quadrago.backend.services.revocation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Identificador compacto (128 bits) de um JWT, usado como chave de revogação
+ * no lugar da string inteira do token.
+ *
+ * Origem: claim "jti" (UUID) quando existir; senão os 128 bits iniciais do SHA-256 do token.
+ */
+public record TokenId(long hi, long lo) {
+
+    public static TokenId of(String jti, String rawToken) {
+        if (jti != null) {
+            try {
+                UUID uuid = UUID.fromString(jti);
+                return new TokenId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } catch (IllegalArgumentException ignored) { /* jti não-UUID: cai no hash */ }
+        }
+        return hashOf(rawToken);
+    }
+
+    public static TokenId hashOf(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buf = ByteBuffer.wrap(digest);
+            return new TokenId(buf.getLong(), buf.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new UUID(hi, lo).toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.quadrago.backend.services.revocation;
+
+import com.quadrago.backend.services.VerifiedToken;
+
+/**
+ * Backend de revogação de tokens (logout / rotação de refresh).
+ * Selecionado por {@code app.security.revocation.backend}: {@code memory} (padrão, por JVM) ou {@code jdbc} (compartilhado).
+ */
+public interface TokenRevocationBackend {
+
+    /** Revoga o token até {@code expiresAtMillis}; depois disso a entrada pode ser descartada. */
+    void revoke(TokenId id, long expiresAtMillis);
+
+    boolean isRevoked(TokenId id);
+
+    default void revoke(VerifiedToken token) {
+        if (token == null) return;
+        revoke(token.tokenId(), token.expiresAtMillis());
+    }
+
+    default boolean isRevoked(VerifiedToken token) {
+        return token != null && isRevoked(token.tokenId());
+    }
+}
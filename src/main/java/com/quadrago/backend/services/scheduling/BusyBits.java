@@ -0,0 +1,51 @@
+package com.quadrago.backend.services.scheduling;
+
+/**
+ * Ocupação de um dia (UTC) em baldes de 15 minutos: 96 bits em dois longs ({@code lo} = baldes
+ * 0–63, {@code hi} = 64–95). Interseção de agenda com janela é um AND.
+ *
+ * Intervalos são arredondados para fora (início para baixo, fim para cima): quem não tem bit em
+ * comum está livre com certeza; horários fora da grade de 15 minutos podem dar falso ocupado,
+ * nunca falso livre.
+ */
+public record BusyBits(long lo, long hi) {
+
+    public static final long BUCKET_MILLIS = 15 * 60_000L;
+    public static final int BUCKETS_PER_DAY = 96;
+    public static final long DAY_MILLIS = BUCKET_MILLIS * BUCKETS_PER_DAY;
+    public static final BusyBits EMPTY = new BusyBits(0, 0);
+
+    /** Baldes do dia {@code epochDay} tocados por [start, end) (epoch millis); vazio se não cruzar o dia. */
+    public static BusyBits of(long epochDay, long start, long end) {
+        long dayStart = epochDay * DAY_MILLIS;
+        long from = Math.max(start, dayStart) - dayStart;
+        long to = Math.min(end, dayStart + DAY_MILLIS) - dayStart;
+        if (from >= to) return EMPTY;
+        int first = (int) (from / BUCKET_MILLIS);
+        int last = (int) ((to + BUCKET_MILLIS - 1) / BUCKET_MILLIS);
+        return new BusyBits(span(first, Math.min(last, 64)), span(Math.max(first - 64, 0), last - 64));
+    }
+
+    public BusyBits or(BusyBits other) {
+        return new BusyBits(lo | other.lo, hi | other.hi);
+    }
+
+    public boolean intersects(BusyBits other) {
+        return (lo & other.lo) != 0 || (hi & other.hi) != 0;
+    }
+
+    public boolean isEmpty() {
+        return lo == 0 && hi == 0;
+    }
+
+    public int minutes() {
+        return (Long.bitCount(lo) + Long.bitCount(hi)) * (int) (BUCKET_MILLIS / 60_000);
+    }
+
+    /** Bits [from, to) de um long; vazio se from >= to. */
+    private static long span(int from, int to) {
+        if (from >= to) return 0;
+        long upTo = to == 64 ? -1L : (1L << to) - 1;
+        return upTo & -(1L << from);
+    }
+}
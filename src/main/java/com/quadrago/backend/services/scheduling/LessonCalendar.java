@@ -0,0 +1,180 @@
+package com.quadrago.backend.services.scheduling;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Agenda (aulas em aberto) de um professor ou aluno como índice de intervalos imutável.
+ *
+ * Arrays paralelos ordenados por início, mais o maior fim de cada prefixo ({@code maxEnds}): é a
+ * árvore de intervalos aumentada "achatada". Os intervalos que podem cruzar [start, end) são os de
+ * início < end, um prefixo achado por busca binária; dentro dele basta descer enquanto o maior fim
+ * do prefixo passar de start. Com a agenda sem sobreposições (o normal) isso é O(log n) e para no
+ * primeiro passo; um ano de aulas (alguns milhares) responde em microssegundos.
+ *
+ * Intervalos semiabertos: aulas encostadas (uma termina quando a outra começa) não conflitam.
+ * Escrita devolve uma cópia (O(n), também microssegundos); leitores nunca veem estado parcial.
+ *
+ * Ocorrências de séries recorrentes entram com o id da série marcado por {@link #SERIES_FLAG}
+ * (ver {@link #seriesSlot}); todas as ocorrências de uma série compartilham esse id.
+ */
+public final class LessonCalendar {
+
+    /** Aula no índice; instantes em epoch millis. */
+    public record Slot(long lessonId, long start, long end) {}
+
+    public static final LessonCalendar EMPTY = new LessonCalendar(0, new long[0], new long[0], new long[0]);
+
+    /** Marca ids de ocorrências de série; ids de sequência nunca chegam a esse bit. */
+    public static final long SERIES_FLAG = 1L << 62;
+
+    /** Qualquer início: {@link #findConflict(long, long, long, long)} ignora o id inteiro. */
+    private static final long ANY_START = Long.MIN_VALUE;
+
+    public static long seriesSlot(long seriesId) {
+        return seriesId | SERIES_FLAG;
+    }
+
+    public static boolean isSeriesSlot(long id) {
+        return (id & SERIES_FLAG) != 0;
+    }
+
+    public static long seriesIdOf(long slotId) {
+        return slotId & ~SERIES_FLAG;
+    }
+
+    /** {@code calendar_version} do dono quando o índice foi montado (ver {@link LessonCalendarCache}). */
+    private final long version;
+    private final long[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private LessonCalendar(long version, long[] ids, long[] starts, long[] ends) {
+        this.version = version;
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    public static LessonCalendar of(long version, List<Slot> slots) {
+        Slot[] sorted = slots.toArray(Slot[]::new);
+        Arrays.sort(sorted, Comparator.comparingLong(Slot::start).thenComparingLong(Slot::lessonId));
+        long[] ids = new long[sorted.length];
+        long[] starts = new long[sorted.length];
+        long[] ends = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].lessonId();
+            starts[i] = sorted[i].start();
+            ends[i] = sorted[i].end();
+        }
+        return new LessonCalendar(version, ids, starts, ends);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Primeira aula (do fim para o começo) que cruza [start, end), ignorando {@code ignoredLessonId}
+     * (a própria aula numa remarcação); -1 se não houver.
+     */
+    public long findConflict(long start, long end, long ignoredLessonId) {
+        return findConflict(start, end, ignoredLessonId, ANY_START);
+    }
+
+    /**
+     * Como {@link #findConflict(long, long, long)}, mas só ignora o intervalo de {@code ignoredId} que
+     * começa em {@code ignoredStart}: a ocorrência de série sendo remarcada, não as outras da série.
+     */
+    public long findConflict(long start, long end, long ignoredId, long ignoredStart) {
+        for (int i = lowerBound(starts, end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+            if (ends[i] > start && !(ids[i] == ignoredId && (ignoredStart == ANY_START || starts[i] == ignoredStart))) {
+                return ids[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Intervalo [start, end) de uma aula do índice. */
+    @FunctionalInterface
+    public interface IntervalConsumer {
+        void accept(long start, long end);
+    }
+
+    /** Visita as aulas que cruzam [from, to), na mesma descida de {@link #findConflict}. */
+    public void forEachOverlapping(long from, long to, IntervalConsumer consumer) {
+        for (int i = lowerBound(starts, to) - 1; i >= 0 && maxEnds[i] > from; i--) {
+            if (ends[i] > from) consumer.accept(starts[i], ends[i]);
+        }
+    }
+
+    /** Cópia com a aula (re)posicionada em [start, end). */
+    public LessonCalendar with(long newVersion, long lessonId, long start, long end) {
+        LessonCalendar base = without(newVersion, lessonId);
+        int n = base.ids.length;
+        int at = lowerBound(base.starts, start);
+        while (at < n && base.starts[at] == start && base.ids[at] < lessonId) at++;
+
+        long[] ids = new long[n + 1];
+        long[] starts = new long[n + 1];
+        long[] ends = new long[n + 1];
+        System.arraycopy(base.ids, 0, ids, 0, at);
+        System.arraycopy(base.starts, 0, starts, 0, at);
+        System.arraycopy(base.ends, 0, ends, 0, at);
+        ids[at] = lessonId;
+        starts[at] = start;
+        ends[at] = end;
+        System.arraycopy(base.ids, at, ids, at + 1, n - at);
+        System.arraycopy(base.starts, at, starts, at + 1, n - at);
+        System.arraycopy(base.ends, at, ends, at + 1, n - at);
+        return new LessonCalendar(newVersion, ids, starts, ends);
+    }
+
+    /** Cópia sem a aula (cancelada/concluída); só troca a versão se ela não estiver no índice. */
+    public LessonCalendar without(long newVersion, long lessonId) {
+        int at = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == lessonId) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) return new LessonCalendar(newVersion, ids, starts, ends);
+
+        int n = ids.length - 1;
+        long[] newIds = new long[n];
+        long[] newStarts = new long[n];
+        long[] newEnds = new long[n];
+        System.arraycopy(ids, 0, newIds, 0, at);
+        System.arraycopy(starts, 0, newStarts, 0, at);
+        System.arraycopy(ends, 0, newEnds, 0, at);
+        System.arraycopy(ids, at + 1, newIds, at, n - at);
+        System.arraycopy(starts, at + 1, newStarts, at, n - at);
+        System.arraycopy(ends, at + 1, newEnds, at, n - at);
+        return new LessonCalendar(newVersion, newIds, newStarts, newEnds);
+    }
+
+    /** Primeiro índice com valor >= key. */
+    private static int lowerBound(long[] sorted, long key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
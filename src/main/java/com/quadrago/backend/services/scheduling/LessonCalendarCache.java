@@ -0,0 +1,143 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quadrago.backend.services.scheduling.LessonCalendar.Slot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Índices de agenda por professor e por aluno, montados sob demanda e mantidos pelas escritas.
+ *
+ * Cada índice guarda a {@code calendar_version} do dono com que foi montado. Quem agenda trava a
+ * linha do perfil (SELECT ... FOR UPDATE, que já devolve a versão): se a versão em memória é a mesma,
+ * o índice reflete o banco e a checagem não consulta lesson; se outra instância (ou uma escrita que
+ * não passou pelo cache) incrementou a versão, o índice é remontado com uma consulta.
+ * Depois do commit a escrita instala o índice já atualizado, sem reler.
+ *
+ * O índice inclui as ocorrências futuras das séries do dono ({@link LessonSeriesOccurrences}),
+ * expandidas uma vez na montagem; as exceções entram como as aulas que são.
+ */
+@Component
+@RequiredArgsConstructor
+public class LessonCalendarCache {
+
+    public enum Owner {
+        TEACHER("teacher_profile", "teacher_user_id"),
+        STUDENT("student_profile", "student_user_id");
+
+        final String profileTable;
+        final String lessonColumn;
+
+        Owner(String profileTable, String lessonColumn) {
+            this.profileTable = profileTable;
+            this.lessonColumn = lessonColumn;
+        }
+    }
+
+    record Key(Owner owner, long userId) {}
+
+    /** Índice novo de um dono, instalado após o commit da escrita que o produziu. */
+    public record CalendarChangedEvent(Owner owner, long userId, LessonCalendar calendar) {}
+
+    private static final String OPEN_LESSON = "status in ('SCHEDULED','RESCHEDULED')";
+
+    private final JdbcTemplate jdbc;
+    private final MeterRegistry meterRegistry;
+    private final LessonSeriesOccurrences series;
+
+    @Value("${app.lessons.calendar.cache-max-size:20000}")
+    private long maxSize;
+
+    @Value("${app.lessons.calendar.expire-after-access:1h}")
+    private Duration expireAfterAccess;
+
+    /** Aulas que começaram antes disso já terminaram; o limite em start_at poda as partições antigas. */
+    @Value("${app.lessons.max-duration:8h}")
+    private Duration maxDuration;
+
+    private Cache<Key, LessonCalendar> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "lessons.calendar");
+    }
+
+    /**
+     * Índice do dono na versão {@code version} (a lida sob o lock do perfil). Remonta do banco se o
+     * índice em memória não existir ou for de outra versão.
+     */
+    public LessonCalendar get(Owner owner, long userId, long version) {
+        Key key = new Key(owner, userId);
+        LessonCalendar cached = cache.getIfPresent(key);
+        if (cached != null && cached.version() == version) return cached;
+
+        LessonCalendar loaded = load(owner, userId, version);
+        install(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * Índice remontado do banco dentro da transação corrente (enxerga as escritas dela), sem instalar:
+     * para escritas de série, que mudam muitos intervalos de uma vez. Instala via
+     * {@link CalendarChangedEvent} depois do commit.
+     */
+    LessonCalendar loadFresh(Owner owner, long userId, long version) {
+        return load(owner, userId, version);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCalendarChanged(CalendarChangedEvent event) {
+        install(new Key(event.owner(), event.userId()), event.calendar());
+    }
+
+    /** Nunca troca um índice por um de versão anterior (commits concorrentes chegam fora de ordem). */
+    private void install(Key key, LessonCalendar calendar) {
+        cache.asMap().merge(key, calendar, (current, candidate) ->
+                candidate.version() >= current.version() ? candidate : current);
+    }
+
+    /** Aulas em aberto que ainda não terminaram (as passadas não conflitam com novos horários). */
+    private LessonCalendar load(Owner owner, long userId, long version) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<Slot> slots = new ArrayList<>(jdbc.query("""
+                select id, start_at, end_at from lesson
+                 where %s = ? and %s and start_at > ? and coalesce(end_at, start_at) > ?
+                """.formatted(owner.lessonColumn, OPEN_LESSON),
+                (rs, i) -> {
+                    long start = rs.getObject("start_at", OffsetDateTime.class).toInstant().toEpochMilli();
+                    OffsetDateTime end = rs.getObject("end_at", OffsetDateTime.class);
+                    return new Slot(rs.getLong("id"), start, end != null ? end.toInstant().toEpochMilli() : start);
+                },
+                userId, now.minus(maxDuration), now));
+
+        long from = now.toInstant().toEpochMilli();
+        for (var s : series.forOwner(owner, userId, now.toInstant())) {
+            Instant last = s.rule().lastStart();
+            if (last == null) continue;
+            long slotId = LessonCalendar.seriesSlot(s.id());
+            s.forEachOccurrence(from, last.toEpochMilli() + s.rule().durationMillis() + 1,
+                    (start, end) -> slots.add(new Slot(slotId, start, end)));
+        }
+        return LessonCalendar.of(version, slots);
+    }
+}
@@ -0,0 +1,191 @@
+package com.quadrago.backend.services.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partições mensais de lesson (PostgreSQL, criadas na V7): mantém os próximos meses criados e
+ * desanexa os meses mais antigos que a retenção.
+ *
+ * Cada passo é uma transação curta com {@code lock_timeout}: criar e desanexar partição travam a
+ * tabela-mãe, e é melhor tentar de novo na próxima rodada do que enfileirar atrás de uma consulta
+ * longa e segurar todo mundo. Com várias instâncias, um advisory lock deixa um passo para uma só.
+ *
+ * Mês desanexado vira {@code lesson_archive_AAAA_MM}: fora das consultas, com os dados intactos para
+ * exportar ou apagar.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.lessons.partitions.maintenance-enabled", havingValue = "true", matchIfMissing = true)
+public class LessonPartitionMaintenance {
+
+    private static final Pattern MONTHLY = Pattern.compile("lesson_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    /** Chave do advisory lock (qualquer constante fixa do app). */
+    private static final long LOCK_KEY = 0x6c6573736f6e70L; // "lessonp"
+
+    private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.lessons.partitions.months-ahead:12}")
+    private int monthsAhead;
+
+    /** Meses de histórico mantidos além do corrente; 0 mantém tudo. */
+    @Value("${app.lessons.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${app.lessons.partitions.lock-timeout:5s}")
+    private String lockTimeout;
+
+    private TransactionTemplate tx;
+    private Counter created;
+    private Counter detached;
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        created = Counter.builder("lessons.partitions.created")
+                .description("Partições mensais de lesson criadas")
+                .register(meterRegistry);
+        detached = Counter.builder("lessons.partitions.detached")
+                .description("Partições mensais de lesson desanexadas pela retenção")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.lessons.partitions.initial-delay-ms:30000}",
+            fixedDelayString = "${app.lessons.partitions.interval-ms:21600000}")
+    public void maintain() {
+        if (!isPartitioned()) {
+            log.warn("lesson não é particionada (banco sem a V7?): manutenção de partições ignorada");
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int added = createMonths(current, current.plusMonths(monthsAhead));
+        int removed = retentionMonths > 0 ? detachBefore(current.minusMonths(retentionMonths)) : 0;
+        if (added + removed > 0) log.info("lesson: {} partição(ões) criada(s), {} desanexada(s)", added, removed);
+    }
+
+    /** Cria as partições que faltam de {@code from} a {@code to} (inclusive); devolve quantas criou. */
+    public int createMonths(YearMonth from, YearMonth to) {
+        Set<String> existing = partitions();
+        int n = 0;
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            if (!existing.contains(name(m)) && step(m, this::createMonth)) n++;
+        }
+        created.increment(n);
+        return n;
+    }
+
+    /** Desanexa (e renomeia para arquivo) os meses anteriores a {@code cutoff}. */
+    public int detachBefore(YearMonth cutoff) {
+        int n = 0;
+        for (String partition : partitions()) {
+            Matcher m = MONTHLY.matcher(partition);
+            if (!m.matches()) continue;
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (month.isBefore(cutoff) && step(month, this::detachMonth)) n++;
+        }
+        detached.increment(n);
+        return n;
+    }
+
+    /* ===================== PASSOS ===================== */
+
+    /**
+     * Linhas do mês que caíram na partição default (agendadas além dos meses criados) saem dela
+     * antes: a partição nova não pode ser criada com linhas dela na default.
+     */
+    private boolean createMonth(YearMonth month) {
+        // Outra instância pode ter criado entre a listagem e o advisory lock
+        if (exists(name(month))) return false;
+        String from = literal(month);
+        String to = literal(month.plusMonths(1));
+        jdbc.execute("""
+                create temporary table lesson_moving on commit drop as
+                with moved as (delete from lesson_default where start_at >= %s and start_at < %s returning *)
+                select * from moved
+                """.formatted(from, to));
+        jdbc.execute("create table %s partition of lesson for values from (%s) to (%s)".formatted(name(month), from, to));
+        int moved = jdbc.update("insert into lesson select * from lesson_moving");
+        if (moved > 0) log.info("lesson: {} linha(s) da partição default movidas para {}", moved, name(month));
+        return true;
+    }
+
+    private boolean detachMonth(YearMonth month) {
+        if (!partitions().contains(name(month))) return false;
+        jdbc.execute("alter table lesson detach partition " + name(month));
+        jdbc.execute("alter table " + name(month) + " rename to lesson_archive_" + month.format(SUFFIX));
+        return true;
+    }
+
+    /** Um passo numa transação curta; {@code false} se não houve nada a fazer ou a trava não veio a tempo. */
+    private boolean step(YearMonth month, Predicate<YearMonth> action) {
+        try {
+            Boolean done = tx.execute(status -> {
+                jdbc.execute("set local lock_timeout = '" + lockTimeout + "'");
+                if (!Boolean.TRUE.equals(jdbc.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY))) {
+                    return false;
+                }
+                return action.test(month);
+            });
+            return Boolean.TRUE.equals(done);
+        } catch (DataAccessException e) {
+            log.warn("lesson: partição {} não processada ({}); nova tentativa na próxima rodada",
+                    name(month), e.getMostSpecificCause().getMessage());
+            return false;
+        }
+    }
+
+    /* ===================== HELPERS ===================== */
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbc.queryForObject("""
+                select exists (select 1 from pg_partitioned_table where partrelid = to_regclass('lesson'))
+                """, Boolean.class));
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("select to_regclass(?) is not null", Boolean.class, table));
+    }
+
+    private Set<String> partitions() {
+        List<String> names = jdbc.queryForList("""
+                select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                 where i.inhparent = to_regclass('lesson')
+                """, String.class);
+        return new HashSet<>(names);
+    }
+
+    private static String name(YearMonth month) {
+        return "lesson_" + month.format(SUFFIX);
+    }
+
+    /** Início do mês em UTC como literal SQL (DDL não aceita parâmetros). */
+    private static String literal(YearMonth month) {
+        return "'" + OffsetDateTime.of(month.atDay(1).atStartOfDay(), ZoneOffset.UTC) + "'::timestamptz";
+    }
+}
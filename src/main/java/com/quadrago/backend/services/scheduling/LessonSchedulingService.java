@@ -0,0 +1,219 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.dtos.LessonDtos.LessonResponse;
+import com.quadrago.backend.dtos.LessonDtos.RescheduleLessonRequest;
+import com.quadrago.backend.dtos.LessonDtos.ScheduleLessonRequest;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.exceptions.LessonConflictException;
+import com.quadrago.backend.models.Lesson;
+import com.quadrago.backend.repositories.LessonRepository;
+import com.quadrago.backend.repositories.StudentProfileRepository;
+import com.quadrago.backend.repositories.TeacherProfileRepository;
+import com.quadrago.backend.services.scheduling.LessonCalendarCache.CalendarChangedEvent;
+import com.quadrago.backend.services.scheduling.LessonCalendarCache.Owner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Agendar, remarcar e cancelar aulas sem sobreposição na agenda do professor nem na do aluno.
+ *
+ * Correção sob concorrência: toda escrita trava as linhas de teacher_profile e student_profile
+ * (sempre nessa ordem, sem deadlock entre duas escritas) antes de checar; duas reservas do mesmo
+ * professor se serializam e a segunda enxerga a primeira. A checagem em si é no índice em memória
+ * ({@link LessonCalendarCache}), validado pela versão que o próprio lock devolve.
+ */
+@Service
+@RequiredArgsConstructor
+public class LessonSchedulingService {
+
+    private static final Set<LessonStatus> OPEN = EnumSet.of(LessonStatus.SCHEDULED, LessonStatus.RESCHEDULED);
+
+    /** Aula nova: nenhuma aula do índice é ignorada na checagem. */
+    private static final long NEW_LESSON = -1;
+
+    private final LessonRepository lessonRepo;
+    private final TeacherProfileRepository teacherRepo;
+    private final StudentProfileRepository studentRepo;
+    private final LessonCalendarCache calendars;
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+
+    @Value("${app.lessons.max-duration:8h}")
+    private Duration maxDuration;
+
+    /** Perfil travado nesta transação e o índice dele na versão lida sob o lock. */
+    record Locked(Owner owner, long userId, long version, LessonCalendar calendar) {}
+
+    /** [start, end) em epoch millis. */
+    record Window(long start, long end) {}
+
+    /* ===================== ESCRITA ===================== */
+
+    @Transactional
+    public LessonResponse schedule(ScheduleLessonRequest req) {
+        Window window = window(req.startAt(), req.endAt());
+        Locked teacher = lock(Owner.TEACHER, req.teacherUserId());
+        Locked student = lock(Owner.STUDENT, req.studentUserId());
+        check(teacher, window, NEW_LESSON);
+        check(student, window, NEW_LESSON);
+
+        Lesson lesson = lessonRepo.save(Lesson.builder()
+                .teacherProfile(teacherRepo.getReferenceById(teacher.userId()))
+                .studentProfile(studentRepo.getReferenceById(student.userId()))
+                .startAt(req.startAt())
+                .endAt(req.endAt())
+                .status(LessonStatus.SCHEDULED)
+                .notes(req.notes())
+                .build());
+
+        publish(teacher, teacher.calendar().with(teacher.version() + 1, lesson.getId(), window.start(), window.end()));
+        publish(student, student.calendar().with(student.version() + 1, lesson.getId(), window.start(), window.end()));
+        return toResponse(lesson);
+    }
+
+    @Transactional
+    public LessonResponse reschedule(Long lessonId, RescheduleLessonRequest req) {
+        Window window = window(req.startAt(), req.endAt());
+        LockedLesson locked = lockLesson(lessonId);
+        Lesson lesson = locked.lesson();
+        if (!OPEN.contains(lesson.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Aula " + lesson.getStatus() + " não pode ser remarcada");
+        }
+        check(locked.teacher(), window, lessonId);
+        check(locked.student(), window, lessonId);
+
+        lesson.setStartAt(req.startAt());
+        lesson.setEndAt(req.endAt());
+        lesson.setStatus(LessonStatus.RESCHEDULED);
+
+        Locked teacher = locked.teacher();
+        Locked student = locked.student();
+        publish(teacher, teacher.calendar().with(teacher.version() + 1, lessonId, window.start(), window.end()));
+        publish(student, student.calendar().with(student.version() + 1, lessonId, window.start(), window.end()));
+        return toResponse(lesson);
+    }
+
+    /** Cancela e libera o horário nas duas agendas. Cancelar de novo não muda nada. */
+    @Transactional
+    public LessonResponse cancel(Long lessonId) {
+        LockedLesson locked = lockLesson(lessonId);
+        Lesson lesson = locked.lesson();
+        if (lesson.getStatus() == LessonStatus.CANCELED) return toResponse(lesson);
+        if (!OPEN.contains(lesson.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Aula " + lesson.getStatus() + " não pode ser cancelada");
+        }
+        lesson.setStatus(LessonStatus.CANCELED);
+
+        Locked teacher = locked.teacher();
+        Locked student = locked.student();
+        publish(teacher, teacher.calendar().without(teacher.version() + 1, lessonId));
+        publish(student, student.calendar().without(student.version() + 1, lessonId));
+        return toResponse(lesson);
+    }
+
+    /* ====================== LEITURA ====================== */
+
+    @Transactional(readOnly = true)
+    public LessonResponse get(Long lessonId) {
+        return toResponse(lessonRepo.findById(lessonId).orElseThrow(LessonSchedulingService::lessonNotFound));
+    }
+
+    /** Para o @PreAuthorize: o usuário é o professor ou o aluno da aula. */
+    @Transactional(readOnly = true)
+    public boolean isParticipant(Long lessonId, Long userId) {
+        return userId != null && lessonRepo.findParticipants(lessonId)
+                .map(p -> userId.equals(p.getTeacherUserId()) || userId.equals(p.getStudentUserId()))
+                .orElse(false);
+    }
+
+    /* ===================== HELPERS ===================== */
+
+    private record LockedLesson(Locked teacher, Locked student, Lesson lesson) {}
+
+    /**
+     * Trava as agendas dos participantes e só então carrega a aula: o estado lido já é o que vale
+     * sob o lock (toda mudança de aula passa pelas mesmas travas).
+     */
+    private LockedLesson lockLesson(Long lessonId) {
+        LessonRepository.Participants participants = lessonRepo.findParticipants(lessonId)
+                .orElseThrow(LessonSchedulingService::lessonNotFound);
+        Locked teacher = lock(Owner.TEACHER, participants.getTeacherUserId());
+        Locked student = lock(Owner.STUDENT, participants.getStudentUserId());
+        Lesson lesson = lessonRepo.findById(lessonId).orElseThrow(LessonSchedulingService::lessonNotFound);
+        return new LockedLesson(teacher, student, lesson);
+    }
+
+    /** Trava o perfil (professor antes do aluno, sempre) e devolve o índice na versão travada. */
+    Locked lock(Owner owner, Long userId) {
+        List<Long> version = jdbc.queryForList(
+                "select calendar_version from " + owner.profileTable + " where user_id = ? for update",
+                Long.class, userId);
+        if (version.isEmpty()) {
+            throw new NoSuchElementException(owner == Owner.TEACHER
+                    ? "Perfil de professor não encontrado" : "Perfil de aluno não encontrado");
+        }
+        long v = version.get(0);
+        return new Locked(owner, userId, v, calendars.get(owner, userId, v));
+    }
+
+    static void check(Locked locked, Window window, long ignoredLessonId) {
+        check(locked, window, ignoredLessonId, Long.MIN_VALUE);
+    }
+
+    /** {@code ignoredStart}: só o intervalo de {@code ignoredId} com esse início é ignorado. */
+    static void check(Locked locked, Window window, long ignoredId, long ignoredStart) {
+        long conflict = ignoredStart == Long.MIN_VALUE
+                ? locked.calendar().findConflict(window.start(), window.end(), ignoredId)
+                : locked.calendar().findConflict(window.start(), window.end(), ignoredId, ignoredStart);
+        if (conflict < 0) return;
+        Long lessonId = LessonCalendar.isSeriesSlot(conflict) ? null : conflict;
+        Long seriesId = LessonCalendar.isSeriesSlot(conflict) ? LessonCalendar.seriesIdOf(conflict) : null;
+        if (locked.owner() == Owner.TEACHER) {
+            throw new LessonConflictException("O professor já tem aula nesse horário", "teacher", lessonId, seriesId);
+        }
+        throw new LessonConflictException("O aluno já tem aula nesse horário", "student", lessonId, seriesId);
+    }
+
+    /** Grava a nova versão (ainda sob o lock) e entrega o índice atualizado para depois do commit. */
+    void publish(Locked locked, LessonCalendar updated) {
+        jdbc.update("update " + locked.owner().profileTable + " set calendar_version = ? where user_id = ?",
+                updated.version(), locked.userId());
+        events.publishEvent(new CalendarChangedEvent(locked.owner(), locked.userId(), updated));
+    }
+
+    Window window(OffsetDateTime startAt, OffsetDateTime endAt) {
+        if (!endAt.isAfter(startAt)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O fim da aula deve ser depois do início");
+        }
+        if (Duration.between(startAt, endAt).compareTo(maxDuration) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Aula mais longa que o permitido (" + maxDuration + ")");
+        }
+        if (!startAt.isAfter(OffsetDateTime.now(ZoneOffset.UTC))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Não é possível agendar no passado");
+        }
+        return new Window(startAt.toInstant().toEpochMilli(), endAt.toInstant().toEpochMilli());
+    }
+
+    private static NoSuchElementException lessonNotFound() {
+        return new NoSuchElementException("Aula não encontrada");
+    }
+
+    static LessonResponse toResponse(Lesson l) {
+        return new LessonResponse(l.getId(), l.getTeacherUserId(), l.getStudentUserId(),
+                l.getStartAt(), l.getEndAt(), l.getStatus(), l.getNotes(), l.getSeriesId(), l.getOccurrenceStartAt());
+    }
+}
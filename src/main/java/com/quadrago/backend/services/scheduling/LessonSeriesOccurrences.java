@@ -0,0 +1,157 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.services.scheduling.LessonCalendarCache.Owner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ocorrências de séries (lesson_series) sem materializar: carrega as séries ativas e as exceções
+ * (linhas de lesson com series_id) da janela e expande só o que a janela pede.
+ *
+ * Uma ocorrência que tem exceção não existe mais como ocorrência: a linha de lesson (cancelada ou
+ * remarcada) é quem a representa, e é contada/listada como qualquer aula.
+ */
+@Component
+@RequiredArgsConstructor
+public class LessonSeriesOccurrences {
+
+    /** Série ativa com os inícios (epoch millis) das ocorrências que viraram exceção. */
+    public record ActiveSeries(long id, long teacherUserId, long studentUserId, SeriesRule rule, String notes,
+                               Set<Long> exceptionStarts) {
+
+        /** Ocorrências (sem as exceções) que cruzam [from, to). */
+        public void forEachOccurrence(long from, long to, LessonCalendar.IntervalConsumer consumer) {
+            rule.forEachOverlapping(from, to, (start, end) -> {
+                if (!exceptionStarts.contains(start)) consumer.accept(start, end);
+            });
+        }
+    }
+
+    private static final String SERIES_COLUMNS = """
+            s.id, s.teacher_user_id, s.student_user_id, s.start_at, s.duration_minutes, s.time_zone,
+            s.days_of_week, s.interval_weeks, s.until_at, s.occurrence_count, s.notes
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /** Séries não são mais longas que isso por ocorrência; limita a busca por início. */
+    @Value("${app.lessons.max-duration:8h}")
+    private Duration maxDuration;
+
+    /** Séries do professor ou do aluno com ocorrência terminando depois de {@code after}. */
+    public List<ActiveSeries> forOwner(Owner owner, long userId, Instant after) {
+        return withExceptions(jdbc.query("""
+                select %s from lesson_series s
+                 where s.%s = :user and s.last_start_at > :after
+                """.formatted(SERIES_COLUMNS, owner.lessonColumn),
+                new MapSqlParameterSource("user", userId).addValue("after", utc(after.minus(maxDuration))),
+                SeriesRow.MAPPER), after, null);
+    }
+
+    /** Séries do usuário (como professor ou aluno) com ocorrência em [from, to). */
+    public List<ActiveSeries> forUser(long userId, Instant from, Instant to) {
+        return withExceptions(jdbc.query("""
+                select %s from lesson_series s
+                 where (s.teacher_user_id = :user or s.student_user_id = :user)
+                   and s.last_start_at >= :from and s.start_at < :to
+                """.formatted(SERIES_COLUMNS),
+                new MapSqlParameterSource("user", userId).addValue("from", utc(from)).addValue("to", utc(to)),
+                SeriesRow.MAPPER), from, to);
+    }
+
+    /** Séries de todos os professores com ocorrência cruzando [from, to) (ocupação do dia). */
+    public List<ActiveSeries> overlapping(Instant from, Instant to) {
+        return withExceptions(jdbc.query("""
+                select %s from lesson_series s
+                 where s.last_start_at > :from and s.start_at < :to
+                """.formatted(SERIES_COLUMNS),
+                new MapSqlParameterSource("from", utc(from.minus(maxDuration))).addValue("to", utc(to)),
+                SeriesRow.MAPPER), from, to);
+    }
+
+    /**
+     * Ocorrências futuras (início depois de {@code after}) das séries do professor, sem as que têm
+     * exceção. Um statement: as exceções vêm contadas por subconsulta no índice da ocorrência, e o
+     * resto é aritmética da regra. Exceções depois da última ocorrência (série encerrada antes
+     * delas) já não descontam nada.
+     */
+    public long countFutureOccurrences(long teacherUserId, OffsetDateTime after) {
+        long[] total = {0};
+        jdbc.query("""
+                select %s,
+                       (select count(*) from lesson l
+                         where l.series_id = s.id and l.occurrence_start_at > :after
+                           and l.occurrence_start_at <= s.last_start_at) as exceptions
+                  from lesson_series s
+                 where s.teacher_user_id = :teacher and s.last_start_at > :after
+                """.formatted(SERIES_COLUMNS),
+                new MapSqlParameterSource("teacher", teacherUserId).addValue("after", after),
+                rs -> {
+                    SeriesRule rule = SeriesRow.MAPPER.mapRow(rs, 0).rule();
+                    total[0] += rule.countAfter(after.toInstant()) - rs.getLong("exceptions");
+                });
+        return total[0];
+    }
+
+    /* ===================== HELPERS ===================== */
+
+    private record SeriesRow(long id, long teacherUserId, long studentUserId, SeriesRule rule, String notes) {
+        static final RowMapper<SeriesRow> MAPPER = SeriesRow::map;
+
+        private static SeriesRow map(ResultSet rs, int i) throws SQLException {
+            ZoneId zone = ZoneId.of(rs.getString("time_zone"));
+            SeriesRule rule = SeriesRule.of(rs.getObject("start_at", OffsetDateTime.class), zone,
+                    SeriesRule.daysOf(rs.getInt("days_of_week")), rs.getInt("interval_weeks"),
+                    rs.getObject("until_at", OffsetDateTime.class), rs.getObject("occurrence_count", Integer.class),
+                    Duration.ofMinutes(rs.getInt("duration_minutes")));
+            return new SeriesRow(rs.getLong("id"), rs.getLong("teacher_user_id"), rs.getLong("student_user_id"),
+                    rule, rs.getString("notes"));
+        }
+    }
+
+    /** Junta a cada série os inícios de ocorrência com exceção em [from, to) ({@code to} nulo: sem fim). */
+    private List<ActiveSeries> withExceptions(List<SeriesRow> series, Instant from, Instant to) {
+        if (series.isEmpty()) return List.of();
+        Map<Long, Set<Long>> exceptions = new HashMap<>();
+        Collection<Long> ids = series.stream().map(SeriesRow::id).toList();
+        var params = new MapSqlParameterSource("ids", ids).addValue("from", utc(from.minus(maxDuration)));
+        String upper = "";
+        if (to != null) {
+            upper = "and l.occurrence_start_at < :to";
+            params.addValue("to", utc(to));
+        }
+        jdbc.query("""
+                select l.series_id, l.occurrence_start_at from lesson l
+                 where l.series_id in (:ids) and l.occurrence_start_at >= :from %s
+                """.formatted(upper), params, rs -> {
+            exceptions.computeIfAbsent(rs.getLong(1), k -> new HashSet<>())
+                    .add(rs.getObject(2, OffsetDateTime.class).toInstant().toEpochMilli());
+        });
+        return series.stream()
+                .map(s -> new ActiveSeries(s.id(), s.teacherUserId(), s.studentUserId(), s.rule(), s.notes(),
+                        exceptions.getOrDefault(s.id(), Set.of())))
+                .toList();
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
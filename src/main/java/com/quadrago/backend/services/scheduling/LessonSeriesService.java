@@ -0,0 +1,292 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.dashboard.counters.DashboardCountersChangedEvent;
+import com.quadrago.backend.dtos.LessonDtos.CreateLessonSeriesRequest;
+import com.quadrago.backend.dtos.LessonDtos.LessonResponse;
+import com.quadrago.backend.dtos.LessonDtos.LessonSeriesResponse;
+import com.quadrago.backend.dtos.LessonDtos.RescheduleLessonRequest;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.models.Lesson;
+import com.quadrago.backend.models.LessonSeries;
+import com.quadrago.backend.repositories.LessonRepository;
+import com.quadrago.backend.repositories.LessonSeriesRepository;
+import com.quadrago.backend.repositories.StudentProfileRepository;
+import com.quadrago.backend.repositories.TeacherProfileRepository;
+import com.quadrago.backend.services.scheduling.LessonCalendarCache.Owner;
+import com.quadrago.backend.services.scheduling.LessonSchedulingService.Locked;
+import com.quadrago.backend.services.scheduling.LessonSchedulingService.Window;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Aulas recorrentes: a série é gravada como regra ({@link SeriesRule}) e as ocorrências nunca viram
+ * linhas, a não ser a que for cancelada ou remarcada (exceção: uma {@link Lesson} com
+ * {@code seriesId}/{@code occurrenceStartAt}, que dali em diante é uma aula como as outras).
+ *
+ * Mesmas travas e checagem de conflito do {@link LessonSchedulingService}. Escritas de série mudam
+ * muitos intervalos de uma vez: em vez de editar o índice, ele é remontado dentro da transação
+ * (já com a escrita) e instalado após o commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class LessonSeriesService {
+
+    private final LessonSeriesRepository seriesRepo;
+    private final LessonRepository lessonRepo;
+    private final TeacherProfileRepository teacherRepo;
+    private final StudentProfileRepository studentRepo;
+    private final LessonSchedulingService scheduling;
+    private final LessonCalendarCache calendars;
+    private final LessonSeriesOccurrences occurrences;
+    private final ApplicationEventPublisher events;
+
+    @Value("${app.lessons.max-duration:8h}")
+    private Duration maxDuration;
+
+    /** Limite de aulas por série (e, com isso, do que uma série põe no índice de agenda). */
+    @Value("${app.lessons.series.max-occurrences:520}")
+    private int maxOccurrences;
+
+    @Value("${app.lessons.series.default-zone:America/Sao_Paulo}")
+    private String defaultZone;
+
+    /** Maior janela aceita na listagem da agenda. */
+    @Value("${app.lessons.series.max-calendar-window:92d}")
+    private Duration maxCalendarWindow;
+
+    /* ===================== ESCRITA ===================== */
+
+    /** Cria a série se nenhuma das ocorrências cruzar aula (avulsa ou de outra série) dos dois. */
+    @Transactional
+    public LessonSeriesResponse create(CreateLessonSeriesRequest req) {
+        Duration duration = Duration.ofMinutes(req.durationMinutes());
+        if (duration.compareTo(maxDuration) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Aula mais longa que o permitido (" + maxDuration + ")");
+        }
+        if (!req.startAt().isAfter(OffsetDateTime.now(ZoneOffset.UTC))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Não é possível agendar no passado");
+        }
+        String timeZone = req.timeZone() != null ? req.timeZone() : defaultZone;
+        int intervalWeeks = req.intervalWeeks() != null ? req.intervalWeeks() : 1;
+        SeriesRule rule;
+        try {
+            rule = SeriesRule.of(req.startAt(), ZoneId.of(timeZone), req.daysOfWeek(), intervalWeeks,
+                    req.until(), req.count(), duration);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (rule.total() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A série não tem nenhuma aula");
+        }
+        if (rule.total() > maxOccurrences) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Série com mais de " + maxOccurrences + " aulas");
+        }
+
+        Locked teacher = scheduling.lock(Owner.TEACHER, req.teacherUserId());
+        Locked student = scheduling.lock(Owner.STUDENT, req.studentUserId());
+        Instant last = rule.lastStart();
+        rule.forEachOverlapping(req.startAt().toInstant().toEpochMilli(), last.toEpochMilli() + rule.durationMillis(),
+                (start, end) -> {
+                    Window window = new Window(start, end);
+                    LessonSchedulingService.check(teacher, window, -1);
+                    LessonSchedulingService.check(student, window, -1);
+                });
+
+        LessonSeries series = seriesRepo.saveAndFlush(LessonSeries.builder()
+                .teacherProfile(teacherRepo.getReferenceById(teacher.userId()))
+                .studentProfile(studentRepo.getReferenceById(student.userId()))
+                .startAt(req.startAt())
+                .durationMinutes(req.durationMinutes())
+                .timeZone(timeZone)
+                .daysOfWeek(SeriesRule.mask(req.daysOfWeek()))
+                .intervalWeeks(intervalWeeks)
+                .untilAt(req.until())
+                .occurrenceCount(req.count())
+                .lastStartAt(last.atOffset(ZoneOffset.UTC))
+                .notes(req.notes())
+                .build());
+
+        republish(teacher, student);
+        return toResponse(series, rule);
+    }
+
+    /**
+     * Encerra a série agora: as ocorrências que ainda não começaram deixam de existir. Exceções já
+     * materializadas (aulas remarcadas) continuam valendo como aulas avulsas.
+     */
+    @Transactional
+    public LessonSeriesResponse end(Long seriesId) {
+        LockedSeries locked = lockSeries(seriesId);
+        LessonSeries series = locked.series();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        if (!series.getLastStartAt().isAfter(now)) return toResponse(series, SeriesRule.of(series));
+
+        series.setUntilAt(now);
+        series.setOccurrenceCount(null);
+        SeriesRule rule = SeriesRule.of(series);
+        Instant last = rule.lastStart();
+        series.setLastStartAt(last != null ? last.atOffset(ZoneOffset.UTC) : now);
+        seriesRepo.flush();
+
+        republish(locked.teacher(), locked.student());
+        return toResponse(series, rule);
+    }
+
+    /** Cancela uma ocorrência (pelo início original); se ela já é exceção, cancela a aula. */
+    @Transactional
+    public LessonResponse cancelOccurrence(Long seriesId, OffsetDateTime occurrenceStart) {
+        LockedSeries locked = lockSeries(seriesId);
+        OffsetDateTime start = occurrenceStart.withOffsetSameInstant(ZoneOffset.UTC);
+        var existing = lessonRepo.findBySeriesIdAndOccurrenceStartAt(seriesId, start);
+        if (existing.isPresent()) return scheduling.cancel(existing.get().getId());
+
+        SeriesRule rule = futureOccurrence(locked.series(), start);
+        Lesson lesson = materialize(locked.series(), start, start, start.plus(Duration.ofMillis(rule.durationMillis())),
+                LessonStatus.CANCELED);
+        republish(locked.teacher(), locked.student());
+        return LessonSchedulingService.toResponse(lesson);
+    }
+
+    /** Remarca uma ocorrência; a própria ocorrência não conta como conflito, as outras da série sim. */
+    @Transactional
+    public LessonResponse rescheduleOccurrence(Long seriesId, OffsetDateTime occurrenceStart, RescheduleLessonRequest req) {
+        Window window = scheduling.window(req.startAt(), req.endAt());
+        LockedSeries locked = lockSeries(seriesId);
+        OffsetDateTime start = occurrenceStart.withOffsetSameInstant(ZoneOffset.UTC);
+        var existing = lessonRepo.findBySeriesIdAndOccurrenceStartAt(seriesId, start);
+        if (existing.isPresent()) return scheduling.reschedule(existing.get().getId(), req);
+
+        futureOccurrence(locked.series(), start);
+        long slot = LessonCalendar.seriesSlot(seriesId);
+        long startMillis = start.toInstant().toEpochMilli();
+        LessonSchedulingService.check(locked.teacher(), window, slot, startMillis);
+        LessonSchedulingService.check(locked.student(), window, slot, startMillis);
+
+        Lesson lesson = materialize(locked.series(), start, req.startAt(), req.endAt(), LessonStatus.RESCHEDULED);
+        republish(locked.teacher(), locked.student());
+        return LessonSchedulingService.toResponse(lesson);
+    }
+
+    /* ====================== LEITURA ====================== */
+
+    @Transactional(readOnly = true)
+    public LessonSeriesResponse get(Long seriesId) {
+        LessonSeries series = seriesRepo.findById(seriesId).orElseThrow(LessonSeriesService::seriesNotFound);
+        return toResponse(series, SeriesRule.of(series));
+    }
+
+    /**
+     * Agenda do usuário (professor ou aluno) com início em [from, to): aulas em aberto mais as
+     * ocorrências das séries, expandidas só nessa janela.
+     */
+    @Transactional(readOnly = true)
+    public List<LessonResponse> calendar(Long userId, OffsetDateTime from, OffsetDateTime to) {
+        if (!to.isAfter(from) || Duration.between(from, to).compareTo(maxCalendarWindow) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Janela inválida (fim depois do início, no máximo " + maxCalendarWindow.toDays() + " dias)");
+        }
+        List<LessonResponse> out = new ArrayList<>();
+        for (Lesson l : lessonRepo.findOpenByUserBetween(userId, from, to)) {
+            out.add(LessonSchedulingService.toResponse(l));
+        }
+        long lo = from.toInstant().toEpochMilli();
+        long hi = to.toInstant().toEpochMilli();
+        for (var s : occurrences.forUser(userId, from.toInstant(), to.toInstant())) {
+            s.forEachOccurrence(lo, hi, (start, end) -> {
+                if (start < lo) return;
+                OffsetDateTime startAt = utc(start);
+                out.add(new LessonResponse(null, s.teacherUserId(), s.studentUserId(), startAt, utc(end),
+                        LessonStatus.SCHEDULED, s.notes(), s.id(), startAt));
+            });
+        }
+        out.sort(Comparator.comparing(LessonResponse::startAt));
+        return out;
+    }
+
+    /** Para o @PreAuthorize: o usuário é o professor ou o aluno da série. */
+    @Transactional(readOnly = true)
+    public boolean isParticipant(Long seriesId, Long userId) {
+        return userId != null && seriesRepo.findParticipants(seriesId)
+                .map(p -> userId.equals(p.getTeacherUserId()) || userId.equals(p.getStudentUserId()))
+                .orElse(false);
+    }
+
+    /* ===================== HELPERS ===================== */
+
+    private record LockedSeries(Locked teacher, Locked student, LessonSeries series) {}
+
+    /** Mesma ordem do {@link LessonSchedulingService}: participantes, travas, e só então a série. */
+    private LockedSeries lockSeries(Long seriesId) {
+        var participants = seriesRepo.findParticipants(seriesId).orElseThrow(LessonSeriesService::seriesNotFound);
+        Locked teacher = scheduling.lock(Owner.TEACHER, participants.getTeacherUserId());
+        Locked student = scheduling.lock(Owner.STUDENT, participants.getStudentUserId());
+        LessonSeries series = seriesRepo.findById(seriesId).orElseThrow(LessonSeriesService::seriesNotFound);
+        return new LockedSeries(teacher, student, series);
+    }
+
+    /** Regra da série, se {@code start} é uma ocorrência dela que ainda não começou. */
+    private static SeriesRule futureOccurrence(LessonSeries series, OffsetDateTime start) {
+        SeriesRule rule = SeriesRule.of(series);
+        if (!rule.isOccurrence(start.toInstant())) {
+            throw new NoSuchElementException("Ocorrência não encontrada na série");
+        }
+        if (!start.isAfter(OffsetDateTime.now(ZoneOffset.UTC))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ocorrência já começou");
+        }
+        return rule;
+    }
+
+    private Lesson materialize(LessonSeries series, OffsetDateTime occurrenceStart,
+                               OffsetDateTime startAt, OffsetDateTime endAt, LessonStatus status) {
+        return lessonRepo.saveAndFlush(Lesson.builder()
+                .teacherProfile(series.getTeacherProfile())
+                .studentProfile(series.getStudentProfile())
+                .startAt(startAt)
+                .endAt(endAt)
+                .status(status)
+                .notes(series.getNotes())
+                .seriesId(series.getId())
+                .occurrenceStartAt(occurrenceStart)
+                .build());
+    }
+
+    /**
+     * Nova versão das duas agendas, com o índice remontado já com a escrita (flush feito), e o
+     * overview do professor invalidado (as ocorrências são somadas na leitura dos contadores).
+     */
+    private void republish(Locked teacher, Locked student) {
+        scheduling.publish(teacher, calendars.loadFresh(Owner.TEACHER, teacher.userId(), teacher.version() + 1));
+        scheduling.publish(student, calendars.loadFresh(Owner.STUDENT, student.userId(), student.version() + 1));
+        events.publishEvent(new DashboardCountersChangedEvent(teacher.userId()));
+    }
+
+    private static LessonSeriesResponse toResponse(LessonSeries s, SeriesRule rule) {
+        return new LessonSeriesResponse(s.getId(), s.getTeacherUserId(), s.getStudentUserId(), s.getStartAt(),
+                s.getDurationMinutes(), SeriesRule.daysOf(s.getDaysOfWeek()), s.getIntervalWeeks(), s.getUntilAt(),
+                s.getOccurrenceCount(), s.getTimeZone(), s.getLastStartAt(), rule.total(), s.getNotes());
+    }
+
+    private static OffsetDateTime utc(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC);
+    }
+
+    private static NoSuchElementException seriesNotFound() {
+        return new NoSuchElementException("Série não encontrada");
+    }
+}
@@ -0,0 +1,180 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.models.LessonSeries;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Regra de recorrência de uma série (subconjunto do RRULE: FREQ=WEEKLY;INTERVAL;BYDAY e UNTIL ou
+ * COUNT). As ocorrências são os dias da semana marcados, a cada {@code intervalWeeks} semanas
+ * contadas da semana do início, sempre no horário local do início no fuso da série (18h continua
+ * 18h depois de mudança de horário de verão).
+ *
+ * Nada é expandido por inteiro: quantas ocorrências existem antes de uma data sai de aritmética
+ * de semanas (O(1)); listar ocorrências só percorre os dias da janela pedida.
+ */
+public final class SeriesRule {
+
+    private final ZoneId zone;
+    private final LocalDate firstDate;
+    private final LocalTime time;
+    /** Bit {@code d - 1} para cada {@link DayOfWeek} d (segunda = bit 0). */
+    private final int days;
+    private final int intervalWeeks;
+    private final long durationMillis;
+
+    /** Segunda-feira da semana do início: semana 0 da contagem. */
+    private final LocalDate anchor;
+    private final int firstDow;
+    private final long total;
+
+    private SeriesRule(ZoneId zone, LocalDate firstDate, LocalTime time, int days, int intervalWeeks,
+                       Instant until, Integer count, long durationMillis) {
+        if (days == 0) throw new IllegalArgumentException("Série sem dias da semana");
+        if (intervalWeeks < 1) throw new IllegalArgumentException("Intervalo de semanas deve ser positivo");
+        if ((until == null) == (count == null)) {
+            throw new IllegalArgumentException("Informe o fim da série: data limite ou número de aulas (um dos dois)");
+        }
+        this.zone = zone;
+        this.firstDate = firstDate;
+        this.time = time;
+        this.days = days;
+        this.intervalWeeks = intervalWeeks;
+        this.durationMillis = durationMillis;
+        this.anchor = firstDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        this.firstDow = firstDate.getDayOfWeek().getValue() - 1;
+        this.total = count != null ? Math.max(0, count) : countUpTo(until);
+    }
+
+    public static SeriesRule of(OffsetDateTime startAt, ZoneId zone, Set<DayOfWeek> daysOfWeek, int intervalWeeks,
+                                OffsetDateTime until, Integer count, Duration duration) {
+        var local = startAt.atZoneSameInstant(zone).toLocalDateTime();
+        return new SeriesRule(zone, local.toLocalDate(), local.toLocalTime(), mask(daysOfWeek), intervalWeeks,
+                until != null ? until.toInstant() : null, count, duration.toMillis());
+    }
+
+    public static SeriesRule of(LessonSeries s) {
+        var local = s.getStartAt().atZoneSameInstant(ZoneId.of(s.getTimeZone())).toLocalDateTime();
+        return new SeriesRule(ZoneId.of(s.getTimeZone()), local.toLocalDate(), local.toLocalTime(), s.getDaysOfWeek(),
+                s.getIntervalWeeks(), s.getUntilAt() != null ? s.getUntilAt().toInstant() : null,
+                s.getOccurrenceCount(), s.getDurationMinutes() * 60_000L);
+    }
+
+    public static int mask(Set<DayOfWeek> daysOfWeek) {
+        int mask = 0;
+        for (DayOfWeek d : daysOfWeek) mask |= 1 << (d.getValue() - 1);
+        return mask;
+    }
+
+    public static Set<DayOfWeek> daysOf(int mask) {
+        Set<DayOfWeek> out = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if ((mask & (1 << (d.getValue() - 1))) != 0) out.add(d);
+        }
+        return out;
+    }
+
+    /** Número de ocorrências da série. */
+    public long total() {
+        return total;
+    }
+
+    public long durationMillis() {
+        return durationMillis;
+    }
+
+    /** Ocorrências com início depois de {@code after}. */
+    public long countAfter(Instant after) {
+        return total - Math.min(total, countUpTo(after));
+    }
+
+    /** Início da última ocorrência; {@code null} se a série não tem nenhuma. */
+    public Instant lastStart() {
+        if (total == 0) return null;
+        // Menor data D com countBefore(D + 1) >= total: busca binária (countBefore é monótona)
+        long lo = 0;
+        long hi = 7L * intervalWeeks * (total / Integer.bitCount(days) + 2);
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (countBefore(firstDate.plusDays(mid + 1)) >= total) hi = mid;
+            else lo = mid + 1;
+        }
+        return startOn(firstDate.plusDays(lo));
+    }
+
+    /** {@code start} é o início de uma ocorrência desta série. */
+    public boolean isOccurrence(Instant start) {
+        LocalDate date = start.atZone(zone).toLocalDate();
+        return isOccurrenceDate(date) && countBefore(date) < total && startOn(date).equals(start);
+    }
+
+    /** Visita as ocorrências que cruzam [from, to) (epoch millis), em ordem. */
+    public void forEachOverlapping(long from, long to, LessonCalendar.IntervalConsumer consumer) {
+        if (total == 0 || from >= to) return;
+        LocalDate date = Instant.ofEpochMilli(from - durationMillis).atZone(zone).toLocalDate();
+        if (date.isBefore(firstDate)) date = firstDate;
+        LocalDate last = Instant.ofEpochMilli(to).atZone(zone).toLocalDate();
+        long index = countBefore(date);
+        for (; !date.isAfter(last) && index < total; date = date.plusDays(1)) {
+            if (!isOccurrenceDate(date)) continue;
+            long start = startOn(date).toEpochMilli();
+            if (start < to && start + durationMillis > from) consumer.accept(start, start + durationMillis);
+            index++;
+        }
+    }
+
+    /* ===================== ARITMÉTICA ===================== */
+
+    /** Ocorrências com início <= t, sem o limite de COUNT/UNTIL. */
+    private long countUpTo(Instant t) {
+        LocalDate date = t.atZone(zone).toLocalDate();
+        long n = countBefore(date);
+        if (isOccurrenceDate(date) && !startOn(date).isAfter(t)) n++;
+        return n;
+    }
+
+    /** Ocorrências em datas anteriores a {@code date}, sem o limite de COUNT/UNTIL. */
+    private long countBefore(LocalDate date) {
+        if (!date.isAfter(firstDate)) return 0;
+        long elapsed = ChronoUnit.DAYS.between(anchor, date);
+        long week = elapsed / 7;
+        int dow = (int) (elapsed % 7);
+
+        // Semanas ativas completas (0 .. week-1), tirando os dias da semana 0 antes do início
+        long activeWeeks = (week + intervalWeeks - 1) / intervalWeeks;
+        long n = activeWeeks * Integer.bitCount(days);
+        if (week > 0) n -= Integer.bitCount(days & lowBits(firstDow));
+
+        // Semana corrente, até o dia anterior a date
+        if (week % intervalWeeks == 0) {
+            int partial = days & lowBits(dow);
+            if (week == 0) partial &= ~lowBits(firstDow);
+            n += Integer.bitCount(partial);
+        }
+        return n;
+    }
+
+    private boolean isOccurrenceDate(LocalDate date) {
+        if (date.isBefore(firstDate)) return false;
+        long week = ChronoUnit.DAYS.between(anchor, date) / 7;
+        return week % intervalWeeks == 0 && (days & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+
+    private Instant startOn(LocalDate date) {
+        return date.atTime(time).atZone(zone).toInstant();
+    }
+
+    private static int lowBits(int n) {
+        return (1 << n) - 1;
+    }
+}
@@ -0,0 +1,193 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.dtos.LessonDtos.AvailabilityResponse;
+import com.quadrago.backend.dtos.LessonDtos.AvailableTeacher;
+import com.quadrago.backend.services.scheduling.TeacherBusyDays.Day;
+import com.quadrago.backend.services.scheduling.TeacherSpecialtyIndex.Teachers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * "Quais professores de X estão livres terça das 18h às 20h": cruza o índice de especialidades
+ * ({@link TeacherSpecialtyIndex}) com a ocupação por dia ({@link TeacherBusyDays}) sem consultar
+ * lesson por professor.
+ *
+ * Cada candidato custa um AND de dois longs por dia da janela. Acima de alguns milhares de
+ * candidatos a varredura é dividida em fork-join num pool próprio; cada pedaço confere o prazo
+ * da varredura ({@code app.lessons.availability.budget}) antes de começar e, estourado, a resposta
+ * sai com o que já foi avaliado e {@code partial = true}.
+ *
+ * Ordem: menos minutos já reservados nos dias da janela (agenda mais folgada primeiro), depois
+ * menor valor/hora (sem valor por último), depois id.
+ */
+@Service
+@RequiredArgsConstructor
+public class TeacherAvailabilityService {
+
+    /** Candidatos por tarefa de fork-join (abaixo disso dividir custa mais que varrer). */
+    static final int CHUNK = 2048;
+
+    private static final int MAX_LIMIT = 100;
+
+    private static final Comparator<AvailableTeacher> RANKING = Comparator
+            .comparingInt(AvailableTeacher::bookedMinutes)
+            .thenComparing(AvailableTeacher::hourlyRate, Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()))
+            .thenComparing(AvailableTeacher::teacherUserId);
+
+    private final TeacherSpecialtyIndex specialties;
+    private final TeacherBusyDays busyDays;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.lessons.max-duration:8h}")
+    private Duration maxDuration;
+
+    @Value("${app.lessons.availability.budget:200ms}")
+    private Duration budget;
+
+    /** Threads do pool de busca; 0 usa o número de CPUs. */
+    @Value("${app.lessons.availability.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private Timer searchTimer;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        searchTimer = Timer.builder("lessons.availability.search")
+                .description("Tempo da busca de professores livres")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public AvailabilityResponse search(String specialty, OffsetDateTime startAt, OffsetDateTime endAt, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return evaluate(specialty, startAt, endAt, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        } finally {
+            sample.stop(searchTimer);
+        }
+    }
+
+    private AvailabilityResponse evaluate(String specialty, OffsetDateTime startAt, OffsetDateTime endAt,
+                                          int limit) {
+        if (specialty == null || specialty.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe a especialidade");
+        }
+        if (!endAt.isAfter(startAt)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O fim da janela deve ser depois do início");
+        }
+        if (Duration.between(startAt, endAt).compareTo(maxDuration) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Janela mais longa que o permitido (" + maxDuration + ")");
+        }
+
+        Teachers teachers = specialties.teachersFor(specialty);
+        if (teachers.size() == 0) {
+            return new AvailabilityResponse(specialty, startAt, endAt, 0, 0, false, List.of());
+        }
+
+        // Janela como máscara por dia (UTC); com a duração limitada são um ou dois dias
+        long start = startAt.toInstant().toEpochMilli();
+        long end = endAt.toInstant().toEpochMilli();
+        long firstDay = Math.floorDiv(start, BusyBits.DAY_MILLIS);
+        long lastDay = Math.floorDiv(end - 1, BusyBits.DAY_MILLIS);
+        int dayCount = (int) (lastDay - firstDay + 1);
+        Day[] days = new Day[dayCount];
+        BusyBits[] masks = new BusyBits[dayCount];
+        for (int d = 0; d < dayCount; d++) {
+            days[d] = busyDays.day(firstDay + d);
+            masks[d] = BusyBits.of(firstDay + d, start, end);
+        }
+
+        // Prazo conta da varredura: as cargas acima são uma consulta por dia/índice e ficam em cache
+        long deadline = System.nanoTime() + budget.toNanos();
+
+        // -1: ocupado ou não avaliado; senão, minutos reservados nos dias da janela
+        int[] booked = new int[teachers.size()];
+        Arrays.fill(booked, -1);
+        AtomicBoolean partial = new AtomicBoolean();
+        Scan scan = new Scan(teachers.teacherUserIds(), days, masks, booked, deadline, partial, 0, booked.length);
+        if (booked.length <= CHUNK) scan.compute();
+        else pool.invoke(scan);
+
+        List<AvailableTeacher> available = new ArrayList<>();
+        for (int i = 0; i < booked.length; i++) {
+            if (booked[i] >= 0) {
+                available.add(new AvailableTeacher(teachers.teacherUserIds()[i], teachers.hourlyRates()[i], booked[i]));
+            }
+        }
+        available.sort(RANKING);
+        return new AvailabilityResponse(specialty, startAt, endAt, teachers.size(), available.size(), partial.get(),
+                List.copyOf(available.subList(0, Math.min(limit, available.size()))));
+    }
+
+    /** Avalia os candidatos [from, to), cada pedaço escrevendo só na sua faixa de {@code booked}. */
+    private static final class Scan extends RecursiveAction {
+        private final long[] teacherUserIds;
+        private final Day[] days;
+        private final BusyBits[] masks;
+        private final int[] booked;
+        private final long deadline;
+        private final AtomicBoolean partial;
+        private final int from;
+        private final int to;
+
+        Scan(long[] teacherUserIds, Day[] days, BusyBits[] masks, int[] booked, long deadline,
+             AtomicBoolean partial, int from, int to) {
+            this.teacherUserIds = teacherUserIds;
+            this.days = days;
+            this.masks = masks;
+            this.booked = booked;
+            this.deadline = deadline;
+            this.partial = partial;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Scan(teacherUserIds, days, masks, booked, deadline, partial, from, mid),
+                        new Scan(teacherUserIds, days, masks, booked, deadline, partial, mid, to));
+                return;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                partial.set(true);
+                return;
+            }
+            candidates:
+            for (int i = from; i < to; i++) {
+                int minutes = 0;
+                for (int d = 0; d < days.length; d++) {
+                    BusyBits bits = days[d].bits(teacherUserIds[i]);
+                    if (bits.intersects(masks[d])) continue candidates;
+                    minutes += bits.minutes();
+                }
+                booked[i] = minutes;
+            }
+        }
+    }
+}
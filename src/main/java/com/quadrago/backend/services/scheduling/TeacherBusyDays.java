@@ -0,0 +1,126 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quadrago.backend.services.scheduling.LessonCalendarCache.CalendarChangedEvent;
+import com.quadrago.backend.services.scheduling.LessonCalendarCache.Owner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ocupação de todos os professores num dia (UTC): um {@link BusyBits} por professor com aula em
+ * aberto naquele dia (quem não aparece está livre o dia todo).
+ *
+ * O dia é montado com uma consulta na primeira busca que precisa dele e expira após o TTL (que
+ * limita o atraso em relação a escritas de outras instâncias). As escritas desta instância chegam
+ * pelo {@link CalendarChangedEvent} depois do commit e recalculam só a linha do professor, a
+ * partir da agenda que o evento já traz. A busca é uma sugestão: quem agenda passa de novo pela
+ * checagem sob lock do {@link LessonSchedulingService}.
+ *
+ * Ocorrências de séries entram na montagem do dia expandidas só para aquele dia.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeacherBusyDays {
+
+    /** Bits do professor no dia e a {@code calendar_version} que os produziu (-1: lida do banco). */
+    record Row(long version, BusyBits bits) {}
+
+    /** Linhas de um dia; professores sem aula no dia não têm linha. */
+    record Day(long epochDay, ConcurrentHashMap<Long, Row> rows) {
+        BusyBits bits(long teacherUserId) {
+            Row row = rows.get(teacherUserId);
+            return row == null ? BusyBits.EMPTY : row.bits();
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final MeterRegistry meterRegistry;
+    private final LessonSeriesOccurrences series;
+
+    @Value("${app.lessons.availability.day-cache-ttl:30s}")
+    private Duration ttl;
+
+    @Value("${app.lessons.availability.day-cache-max-days:62}")
+    private long maxDays;
+
+    /** Aulas que começam antes disso do início do dia não entram (o serviço não agenda mais longas). */
+    @Value("${app.lessons.max-duration:8h}")
+    private Duration maxDuration;
+
+    private Cache<Long, Day> days;
+
+    @PostConstruct
+    void init() {
+        days = Caffeine.newBuilder()
+                .maximumSize(maxDays)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, days, "lessons.availability.days");
+    }
+
+    public Day day(long epochDay) {
+        return days.get(epochDay, this::load);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCalendarChanged(CalendarChangedEvent event) {
+        if (event.owner() != Owner.TEACHER) return;
+        LessonCalendar calendar = event.calendar();
+        for (Day day : days.asMap().values()) {
+            long dayStart = day.epochDay() * BusyBits.DAY_MILLIS;
+            BusyBits[] bits = {BusyBits.EMPTY};
+            calendar.forEachOverlapping(dayStart, dayStart + BusyBits.DAY_MILLIS,
+                    (start, end) -> bits[0] = bits[0].or(BusyBits.of(day.epochDay(), start, end)));
+            // Commits concorrentes chegam fora de ordem: nunca volta para uma versão anterior
+            day.rows().merge(event.userId(), new Row(calendar.version(), bits[0]),
+                    (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+        }
+    }
+
+    private Day load(long epochDay) {
+        long dayStart = epochDay * BusyBits.DAY_MILLIS;
+        Map<Long, BusyBits> bits = new HashMap<>();
+        jdbc.query("""
+                select teacher_user_id, start_at, end_at from lesson
+                 where status in ('SCHEDULED','RESCHEDULED')
+                   and start_at >= ? and start_at < ? and coalesce(end_at, start_at) > ?
+                """,
+                rs -> {
+                    long start = rs.getObject("start_at", OffsetDateTime.class).toInstant().toEpochMilli();
+                    OffsetDateTime endAt = rs.getObject("end_at", OffsetDateTime.class);
+                    long end = endAt != null ? endAt.toInstant().toEpochMilli() : start;
+                    bits.merge(rs.getLong("teacher_user_id"), BusyBits.of(epochDay, start, end), BusyBits::or);
+                },
+                utc(dayStart - maxDuration.toMillis()), utc(dayStart + BusyBits.DAY_MILLIS), utc(dayStart));
+        long dayEnd = dayStart + BusyBits.DAY_MILLIS;
+        for (var s : series.overlapping(Instant.ofEpochMilli(dayStart), Instant.ofEpochMilli(dayEnd))) {
+            s.forEachOccurrence(dayStart, dayEnd,
+                    (start, end) -> bits.merge(s.teacherUserId(), BusyBits.of(epochDay, start, end), BusyBits::or));
+        }
+
+        ConcurrentHashMap<Long, Row> rows = new ConcurrentHashMap<>(Math.max(16, bits.size() * 2));
+        bits.forEach((teacher, b) -> rows.put(teacher, new Row(-1, b)));
+        return new Day(epochDay, rows);
+    }
+
+    private static OffsetDateTime utc(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC);
+    }
+}
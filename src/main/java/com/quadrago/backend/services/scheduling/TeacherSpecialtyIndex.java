@@ -0,0 +1,108 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.services.TeacherProfileChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Especialidade → professores que a ensinam (teacher_specialties), em memória, sem diferenciar
+ * maiúsculas. Cada entrada guarda ids ordenados e o valor/hora alinhado, que a busca de horários
+ * livres percorre direto.
+ *
+ * Montado por inteiro com uma consulta; refeito na próxima busca depois que um perfil desta
+ * instância muda ({@link TeacherProfileChangedEvent}) ou quando passa do intervalo de refresh
+ * (mudanças feitas por outras instâncias ou por importação).
+ */
+@Component
+@RequiredArgsConstructor
+public class TeacherSpecialtyIndex {
+
+    /** Professores de uma especialidade: {@code teacherUserIds} crescente, {@code hourlyRates} alinhado. */
+    public record Teachers(long[] teacherUserIds, BigDecimal[] hourlyRates) {
+        static final Teachers NONE = new Teachers(new long[0], new BigDecimal[0]);
+
+        public int size() {
+            return teacherUserIds.length;
+        }
+    }
+
+    private record Snapshot(Map<String, Teachers> bySpecialty, long builtAtNanos) {}
+
+    private final JdbcTemplate jdbc;
+
+    @Value("${app.lessons.availability.specialty-refresh:5m}")
+    private Duration refresh;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale = true;
+
+    public Teachers teachersFor(String specialty) {
+        return current().bySpecialty().getOrDefault(key(specialty), Teachers.NONE);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTeacherProfileChanged(TeacherProfileChangedEvent event) {
+        stale = true;
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !stale && System.nanoTime() - s.builtAtNanos() < refresh.toNanos()) return s;
+        synchronized (this) {
+            s = snapshot;
+            if (s == null || stale || System.nanoTime() - s.builtAtNanos() >= refresh.toNanos()) {
+                stale = false; // antes da leitura: mudança commitada durante a montagem marca de novo
+                s = build();
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    private Snapshot build() {
+        record Entry(long teacherUserId, BigDecimal hourlyRate) {}
+        Map<String, List<Entry>> grouped = new HashMap<>();
+        jdbc.query("""
+                select ts.specialty, ts.user_id, tp.hourly_rate
+                  from teacher_specialties ts
+                  join teacher_profile tp on tp.user_id = ts.user_id
+                 order by ts.user_id
+                """,
+                rs -> {
+                    grouped.computeIfAbsent(key(rs.getString("specialty")), k -> new ArrayList<>())
+                            .add(new Entry(rs.getLong("user_id"), rs.getBigDecimal("hourly_rate")));
+                });
+
+        Map<String, Teachers> bySpecialty = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((specialty, entries) -> {
+            // Mesma especialidade com grafias diferentes no mesmo professor: uma entrada só
+            long[] ids = new long[entries.size()];
+            BigDecimal[] rates = new BigDecimal[entries.size()];
+            int n = 0;
+            for (Entry e : entries) {
+                if (n > 0 && ids[n - 1] == e.teacherUserId()) continue;
+                ids[n] = e.teacherUserId();
+                rates[n++] = e.hourlyRate();
+            }
+            bySpecialty.put(specialty, new Teachers(Arrays.copyOf(ids, n), Arrays.copyOf(rates, n)));
+        });
+        return new Snapshot(bySpecialty, System.nanoTime());
+    }
+
+    private static String key(String specialty) {
+        return specialty == null ? "" : specialty.trim().toLowerCase(Locale.ROOT);
+    }
+}
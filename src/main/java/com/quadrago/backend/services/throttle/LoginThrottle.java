@@ -0,0 +1,164 @@
+package com.quadrago.backend.services.throttle;
+
+import com.quadrago.backend.exceptions.LoginThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de tentativas de login por IP e por e-mail, aplicado antes do AuthenticationManager
+ * (tentativa recusada não gasta BCrypt).
+ *
+ * Cada tentativa conta nas duas janelas ({@link SlidingWindowSketch}). Acima de {@code delay-after}
+ * o request espera (dobrando a cada tentativa, até {@code max-delay}); acima de {@code limit},
+ * 429 com Retry-After. Se já houver {@code max-delayed} requests esperando, recusa em vez de
+ * prender mais threads.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginThrottle {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.login-throttle.window:15m}")
+    private Duration window;
+
+    @Value("${app.security.login-throttle.buckets:15}")
+    private int buckets;
+
+    @Value("${app.security.login-throttle.sketch.depth:4}")
+    private int depth;
+
+    @Value("${app.security.login-throttle.sketch.width:4096}")
+    private int width;
+
+    @Value("${app.security.login-throttle.ip.limit:100}")
+    private int ipLimit;
+
+    @Value("${app.security.login-throttle.ip.delay-after:20}")
+    private int ipDelayAfter;
+
+    @Value("${app.security.login-throttle.email.limit:10}")
+    private int emailLimit;
+
+    @Value("${app.security.login-throttle.email.delay-after:3}")
+    private int emailDelayAfter;
+
+    @Value("${app.security.login-throttle.base-delay:250ms}")
+    private Duration baseDelay;
+
+    @Value("${app.security.login-throttle.max-delay:2s}")
+    private Duration maxDelay;
+
+    @Value("${app.security.login-throttle.max-delayed:50}")
+    private int maxDelayed;
+
+    private SlidingWindowSketch byIp;
+    private SlidingWindowSketch byEmail;
+    private final AtomicInteger delayed = new AtomicInteger();
+    private Counter allowed;
+    private Counter delayedTotal;
+    private Counter rejectedIp;
+    private Counter rejectedEmail;
+    private Counter rejectedSaturated;
+
+    @PostConstruct
+    void init() {
+        byIp = new SlidingWindowSketch(window.toMillis(), buckets, depth, width);
+        byEmail = new SlidingWindowSketch(window.toMillis(), buckets, depth, width);
+
+        allowed = result("allowed", "none");
+        delayedTotal = result("delayed", "none");
+        rejectedIp = result("rejected", "ip");
+        rejectedEmail = result("rejected", "email");
+        rejectedSaturated = result("rejected", "saturated");
+        Gauge.builder("auth.login.throttle.waiting", delayed, AtomicInteger::get)
+                .description("Logins aguardando o atraso progressivo")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.throttle.limit", () -> ipLimit).tag("key", "ip")
+                .description("Tentativas por janela antes do 429")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.throttle.limit", () -> emailLimit).tag("key", "email")
+                .description("Tentativas por janela antes do 429")
+                .register(meterRegistry);
+
+        log.info("LoginThrottle: enabled={}, window={}, ip={}/{}, email={}/{}, memória={} KB",
+                enabled, window, ipDelayAfter, ipLimit, emailDelayAfter, emailLimit,
+                (byIp.sizeInBytes() + byEmail.sizeInBytes()) / 1024);
+    }
+
+    private Counter result(String result, String key) {
+        return Counter.builder("auth.login.throttle")
+                .description("Decisões do limitador de login")
+                .tag("result", result)
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra a tentativa e aplica atraso ou recusa. Retorna normalmente quando o login pode
+     * prosseguir; lança {@link LoginThrottledException} caso contrário.
+     */
+    public void acquire(String ip, String email) {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        long ipCount = byIp.incrementAndEstimate(ip, now);
+        long emailCount = byEmail.incrementAndEstimate(email.toLowerCase(), now);
+
+        if (ipCount > ipLimit) {
+            rejectedIp.increment();
+            log.warn("Login bloqueado por IP: ip={}, tentativas={}", ip, ipCount);
+            throw rejected();
+        }
+        if (emailCount > emailLimit) {
+            rejectedEmail.increment();
+            log.warn("Login bloqueado por e-mail: email={}, tentativas={}", email, emailCount);
+            throw rejected();
+        }
+
+        long delayMs = Math.max(delayMillis(ipCount, ipDelayAfter), delayMillis(emailCount, emailDelayAfter));
+        if (delayMs == 0) {
+            allowed.increment();
+            return;
+        }
+        if (delayed.incrementAndGet() > maxDelayed) {
+            delayed.decrementAndGet();
+            rejectedSaturated.increment();
+            throw rejected();
+        }
+        try {
+            delayedTotal.increment();
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejected();
+        } finally {
+            delayed.decrementAndGet();
+        }
+    }
+
+    /** Dobra a cada tentativa acima do limiar: base, 2×base, 4×base... até max-delay. */
+    private long delayMillis(long count, int delayAfter) {
+        long over = count - delayAfter;
+        if (over <= 0) return 0;
+        long ms = baseDelay.toMillis() << Math.min(over - 1, 20);
+        return Math.min(ms, maxDelay.toMillis());
+    }
+
+    private LoginThrottledException rejected() {
+        // A contagem cai quando a fatia mais antiga da janela sai
+        return new LoginThrottledException(Math.max(1, Duration.ofMillis(byIp.sliceMillis()).toSeconds()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.quadrago.backend.services.throttle;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Contagem aproximada de eventos por chave numa janela deslizante, com memória fixa e sem locks.
+ *
+ * Janela dividida em {@code buckets} fatias de tempo; cada fatia é um count-min sketch
+ * ({@code depth} linhas × {@code width} contadores atômicos). A estimativa nunca fica abaixo do
+ * valor real (colisões só somam). Fatias vencidas são trocadas por uma nova via CAS.
+ *
+ * Hash com semente aleatória por processo: e-mails/IPs escolhidos pelo atacante não colidem de
+ * propósito com os de uma vítima.
+ */
+public final class SlidingWindowSketch {
+
+    private record Slice(long epoch, AtomicIntegerArray cells) {}
+
+    private final int depth;
+    private final int width;
+    private final long sliceMillis;
+    private final AtomicReferenceArray<Slice> slices;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    public SlidingWindowSketch(long windowMillis, int buckets, int depth, int width) {
+        if (buckets < 1 || depth < 1 || width < 1) throw new IllegalArgumentException("Dimensões inválidas");
+        this.depth = depth;
+        this.width = width;
+        this.sliceMillis = Math.max(1, windowMillis / buckets);
+        this.slices = new AtomicReferenceArray<>(buckets);
+    }
+
+    /**
+     * Registra um evento para {@code key} e devolve a contagem na janela, incluindo este.
+     *
+     * Incrementa todas as linhas e só então relê: com N chamadas concorrentes na mesma chave, no
+     * máximo k delas veem contagem ≤ k — um limite não é furado por rajadas paralelas.
+     */
+    public long incrementAndEstimate(String key, long nowMillis) {
+        long epoch = nowMillis / sliceMillis;
+        long h1 = hash(key, seed), h2 = hash(key, ~seed) | 1L;
+        AtomicIntegerArray cells = current(epoch).cells;
+        for (int r = 0; r < depth; r++) {
+            cells.incrementAndGet(index(r, h1, h2));
+        }
+        return estimate(h1, h2, epoch);
+    }
+
+    /** Contagem na janela sem registrar evento. */
+    public long estimate(String key, long nowMillis) {
+        return estimate(hash(key, seed), hash(key, ~seed) | 1L, nowMillis / sliceMillis);
+    }
+
+    public long sliceMillis() {
+        return sliceMillis;
+    }
+
+    /** Memória dos contadores com todas as fatias alocadas. */
+    public long sizeInBytes() {
+        return (long) slices.length() * depth * width * Integer.BYTES;
+    }
+
+    private long estimate(long h1, long h2, long epoch) {
+        long total = 0;
+        for (int i = 0; i < slices.length(); i++) {
+            Slice s = slices.get(i);
+            if (s == null || s.epoch <= epoch - slices.length() || s.epoch > epoch) continue;
+            int min = Integer.MAX_VALUE;
+            for (int r = 0; r < depth && min > 0; r++) {
+                min = Math.min(min, s.cells.get(index(r, h1, h2)));
+            }
+            total += min;
+        }
+        return total;
+    }
+
+    private Slice current(long epoch) {
+        int i = (int) Math.floorMod(epoch, (long) slices.length());
+        while (true) {
+            Slice s = slices.get(i);
+            if (s != null && s.epoch >= epoch) return s;
+            Slice fresh = new Slice(epoch, new AtomicIntegerArray(depth * width));
+            if (slices.compareAndSet(i, s, fresh)) return fresh;
+        }
+    }
+
+    private int index(int row, long h1, long h2) {
+        return row * width + (int) Math.floorMod(h1 + row * h2, (long) width);
+    }
+
+    private static long hash(String key, long seed) {
+        long h = seed;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ b) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xFF51AFD7ED558CCDL;
+        x ^= x >>> 33;
+        x *= 0xC4CEB9FE1A85EC53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
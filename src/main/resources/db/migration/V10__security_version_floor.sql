@@ -0,0 +1,12 @@
+-- Versão mínima de token por usuário no modo stateless (SecurityVersionRegistry): cada réplica
+-- publica aqui as mudanças e lê as das outras; também semeia o registro ao subir.
+
+create table if not exists security_version_floor (
+    user_id bigint not null,
+    min_version bigint not null,
+    keep_until_ms bigint not null,
+    changed_at_ms bigint not null,
+    primary key (user_id)
+);
+
+create index if not exists ix_security_version_floor_changed_at on security_version_floor (changed_at_ms);
@@ -0,0 +1,69 @@
+-- O que entrou entre o baseline e as migrações (antes criado pelo ddl-auto=update): versão de
+-- segurança do usuário, famílias de refresh token, revogação de tokens, contadores e eventos do
+-- painel do professor. Tudo com IF NOT EXISTS: um banco criado pelo Hibernate depois do baseline
+-- já pode ter parte disso. Fora de transação (ver V1_1__sessions_and_dashboard.sql.conf) para os
+-- índices em tabelas que já têm dados serem criados com CONCURRENTLY, como na V3.
+
+alter table users add column if not exists security_version bigint default 0 not null;
+
+create table if not exists refresh_token_family (
+    generation integer not null,
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    revoked_at timestamp(6) with time zone,
+    updated_at timestamp(6) with time zone not null,
+    user_id bigint not null,
+    current_jti uuid not null,
+    id uuid not null,
+    revoke_reason varchar(32),
+    primary key (id)
+);
+
+-- Revogação de tokens (backend jdbc)
+create table if not exists revoked_token (
+    id_hi bigint not null,
+    id_lo bigint not null,
+    expires_at_ms bigint not null,
+    revoked_at_ms bigint not null,
+    primary key (id_hi, id_lo)
+);
+
+create table if not exists teacher_dashboard_counters (
+    active_students bigint not null,
+    active_subscriptions bigint not null,
+    scheduled_lessons bigint not null,
+    scheduled_watermark timestamp(6) with time zone not null,
+    teacher_user_id bigint not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (teacher_user_id)
+);
+
+create sequence if not exists activity_event_seq start with 1 increment by 1;
+
+create table if not exists activity_event (
+    happened_at timestamp(6) with time zone not null,
+    id bigint not null,
+    source_id bigint not null,
+    student_user_id bigint,
+    teacher_user_id bigint not null,
+    type varchar(32) not null check (type in ('ENROLLMENT','SUBSCRIPTION_ACTIVE','SUBSCRIPTION_PAUSED','SUBSCRIPTION_CANCELED','SUBSCRIPTION_EXPIRED','LESSON_SCHEDULED','LESSON_RESCHEDULED','LESSON_CANCELED','LESSON_COMPLETED','PAYMENT_PENDING','PAYMENT_SUCCESS','PAYMENT_FAILED')),
+    primary key (happened_at, id)
+);
+
+create index if not exists ix_activity_event_teacher_time on activity_event (teacher_user_id, happened_at desc, id desc);
+create index if not exists ix_refresh_token_family_user on refresh_token_family (user_id, revoked_at);
+create index if not exists ix_revoked_token_revoked_at on revoked_token (revoked_at_ms);
+
+create index concurrently if not exists ix_lesson_teacher_start
+    on lesson (teacher_user_id, start_at);
+create index concurrently if not exists ix_subscription_teacher_student_status
+    on subscription (teacher_user_id, student_user_id, status);
+
+-- Ids passaram de IDENTITY para sequências com pool (V2): o default da coluna deixa de existir,
+-- como num banco criado já com as sequências
+alter table party alter column id drop identity if exists;
+alter table users alter column id drop identity if exists;
+alter table roles alter column id drop identity if exists;
+alter table lesson alter column id drop identity if exists;
+alter table subscription alter column id drop identity if exists;
+alter table payment alter column id drop identity if exists;
@@ -0,0 +1,185 @@
+-- Schema do commit anterior às migrações, exatamente como o Hibernate (ddl-auto=update) o criava:
+-- ids IDENTITY, sem sequências e com os nomes de constraint gerados por ele. Bancos que já existiam
+-- são marcados como baseline (versão 1) e seguem da V1_1; nos novos, esta migração cria o mesmo
+-- ponto de partida. O que veio depois fica da V1_1 em diante.
+
+create table lesson (
+    id bigint generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    end_at timestamp(6) with time zone,
+    notes varchar(1000),
+    start_at timestamp(6) with time zone not null,
+    status varchar(255) not null check (status in ('SCHEDULED','RESCHEDULED','CANCELED','COMPLETED')),
+    student_user_id bigint not null,
+    teacher_user_id bigint not null,
+    primary key (id)
+);
+
+create table organization (
+    party_id bigint not null,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    cnpj varchar(255),
+    corporate_name varchar(255) not null,
+    state_insc varchar(255),
+    primary key (party_id)
+);
+
+create table party (
+    id bigint generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    party_type varchar(255) not null check (party_type in ('PERSON','ORGANIZATION')),
+    primary key (id)
+);
+
+create table payment (
+    id bigint generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    amount numeric(12,2) not null,
+    currency varchar(3),
+    description varchar(1000),
+    method varchar(255) check (method in ('PIX','CREDIT_CARD','BOLETO','CASH','TRANSFER')),
+    paid_at timestamp(6) with time zone,
+    status varchar(255) not null check (status in ('PENDING','SUCCESS','FAILED')),
+    student_user_id bigint not null,
+    subscription_id bigint,
+    teacher_user_id bigint not null,
+    primary key (id)
+);
+
+create table person (
+    party_id bigint not null,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    birth_date date,
+    cpf varchar(255),
+    name varchar(255) not null,
+    phone varchar(255),
+    primary key (party_id)
+);
+
+create table roles (
+    id smallint generated by default as identity,
+    description varchar(255),
+    name varchar(255) not null check (name in ('ADMIN','TEACHER','STUDENT')),
+    primary key (id)
+);
+
+create table student_profile (
+    user_id bigint not null,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    emergency_contact varchar(255),
+    notes varchar(255),
+    primary key (user_id)
+);
+
+create table subscription (
+    id bigint generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    end_at timestamp(6) with time zone,
+    next_renew_at timestamp(6) with time zone,
+    plan_name varchar(255) not null,
+    price numeric(12,2),
+    start_at timestamp(6) with time zone,
+    status varchar(255) not null check (status in ('ACTIVE','PAUSED','CANCELED','EXPIRED')),
+    student_user_id bigint not null,
+    teacher_user_id bigint not null,
+    primary key (id)
+);
+
+create table teacher_profile (
+    user_id bigint not null,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    bio varchar(255),
+    hourly_rate numeric(38,2),
+    primary key (user_id)
+);
+
+create table teacher_specialties (
+    user_id bigint not null,
+    specialty varchar(255)
+);
+
+create table user_roles (
+    user_id bigint not null,
+    role_id smallint not null,
+    primary key (user_id, role_id)
+);
+
+create table users (
+    id bigint generated by default as identity,
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    email varchar(255) not null,
+    last_login_at timestamp(6) with time zone,
+    password_hash varchar(255) not null,
+    status varchar(255) not null check (status in ('ACTIVE','INACTIVE','BLOCKED')),
+    party_id bigint not null,
+    primary key (id)
+);
+
+alter table organization
+    add constraint UKexgjgqsjotydkkaorkc0ohexf unique (cnpj);
+
+alter table person
+    add constraint UKovihp2p82c97wbe60mv11txrj unique (cpf);
+
+alter table roles
+    add constraint UKofx66keruapi6vyqpv6f2or37 unique (name);
+
+alter table users
+    add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users
+    add constraint UK85i7srceogohi2e1296u7q1xf unique (party_id);
+
+alter table lesson
+    add constraint fkx9akdafowftlhmr3s45r3fci foreign key (student_user_id) references student_profile;
+
+alter table lesson
+    add constraint fk7obm974c8ybob8qef299h3q73 foreign key (teacher_user_id) references teacher_profile;
+
+alter table organization
+    add constraint fkj53ec3lm6eypamuotxv4u1ngr foreign key (party_id) references party;
+
+alter table payment
+    add constraint fkea0ki3194unlx3lrfnf1tyg5n foreign key (student_user_id) references student_profile;
+
+alter table payment
+    add constraint fkdord3022qllhbxpx5f1ovd9ki foreign key (subscription_id) references subscription;
+
+alter table payment
+    add constraint fkssfa49abxl876cdfjr2wfkud2 foreign key (teacher_user_id) references teacher_profile;
+
+alter table person
+    add constraint fk31w8k0vvrlkpwaiveeebfwmg8 foreign key (party_id) references party;
+
+alter table student_profile
+    add constraint fkh6555c9k0gv0yddac6llslk3t foreign key (user_id) references users;
+
+alter table subscription
+    add constraint fklh9xmsn7l3pkmw6w8ajtohjx9 foreign key (student_user_id) references student_profile;
+
+alter table subscription
+    add constraint fkojdm02m1r6bnipc4ybvps118f foreign key (teacher_user_id) references teacher_profile;
+
+alter table teacher_profile
+    add constraint fkqh8hdpa4h1hsfpwscilntp8yv foreign key (user_id) references users;
+
+alter table teacher_specialties
+    add constraint fk89myonewlebpjgi4tyidqnh3d foreign key (user_id) references teacher_profile;
+
+alter table user_roles
+    add constraint fkh8ciramu9cc9q3qcqiv4ue8a6 foreign key (role_id) references roles;
+
+alter table user_roles
+    add constraint fkhfh9dx7w3ubf1co1vdev94g3f foreign key (user_id) references users;
+
+alter table users
+    add constraint fkilwg667udowyt2nvmvj5ukyjo foreign key (party_id) references party;
@@ -0,0 +1,55 @@
+-- Ids de IDENTITY (V1) para sequência com pool. Bancos criados pelo Hibernate (ddl-auto=update) e
+-- marcados como baseline podem não ter a sequência, ou tê-la começando em 1, abaixo dos ids já
+-- gravados. Num banco novo as sequências nascem aqui e, com as tabelas vazias, nada avança.
+--
+-- Com pooled-lo, nextval = v reserva [v, v + incremento): depois de setval(max) o próximo bloco
+-- começa em max + incremento. Só avança; nunca rebobina uma sequência que já está à frente.
+
+create sequence if not exists party_seq start with 1 increment by 50;
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists roles_seq start with 1 increment by 5;
+create sequence if not exists lesson_seq start with 1 increment by 50;
+create sequence if not exists subscription_seq start with 1 increment by 50;
+create sequence if not exists payment_seq start with 1 increment by 50;
+
+select setval('party_seq', t.m)
+  from (select max(id) as m from party) t,
+       (select coalesce(last_value + increment_by, start_value) as next
+          from pg_sequences
+         where schemaname = current_schema() and sequencename = 'party_seq') s
+ where t.m >= s.next;
+
+select setval('users_seq', t.m)
+  from (select max(id) as m from users) t,
+       (select coalesce(last_value + increment_by, start_value) as next
+          from pg_sequences
+         where schemaname = current_schema() and sequencename = 'users_seq') s
+ where t.m >= s.next;
+
+select setval('roles_seq', t.m)
+  from (select max(id) as m from roles) t,
+       (select coalesce(last_value + increment_by, start_value) as next
+          from pg_sequences
+         where schemaname = current_schema() and sequencename = 'roles_seq') s
+ where t.m >= s.next;
+
+select setval('lesson_seq', t.m)
+  from (select max(id) as m from lesson) t,
+       (select coalesce(last_value + increment_by, start_value) as next
+          from pg_sequences
+         where schemaname = current_schema() and sequencename = 'lesson_seq') s
+ where t.m >= s.next;
+
+select setval('subscription_seq', t.m)
+  from (select max(id) as m from subscription) t,
+       (select coalesce(last_value + increment_by, start_value) as next
+          from pg_sequences
+         where schemaname = current_schema() and sequencename = 'subscription_seq') s
+ where t.m >= s.next;
+
+select setval('payment_seq', t.m)
+  from (select max(id) as m from payment) t,
+       (select coalesce(last_value + increment_by, start_value) as next
+          from pg_sequences
+         where schemaname = current_schema() and sequencename = 'payment_seq') s
+ where t.m >= s.next;
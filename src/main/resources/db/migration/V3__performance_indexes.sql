@@ -0,0 +1,29 @@
+-- Índices das consultas quentes. CONCURRENTLY para não bloquear escrita em bancos já em produção
+-- (por isso fora de transação: ver V3__performance_indexes.sql.conf). IF NOT EXISTS torna a
+-- migração reexecutável se um build concorrente falhar no meio (o índice inválido precisa ser
+-- removido à mão antes).
+
+-- Agenda/contadores do professor: só aulas em aberto (mesmo filtro de DashboardCounters.OPEN_LESSON)
+create index concurrently if not exists ix_lesson_teacher_open_start
+    on lesson (teacher_user_id, start_at)
+    where status in ('SCHEDULED', 'RESCHEDULED');
+
+-- Assinaturas do professor por status; aluno no índice para varredura só de índice
+create index concurrently if not exists ix_subscription_teacher_status
+    on subscription (teacher_user_id, status) include (student_user_id);
+
+-- Pagamentos recentes do professor
+create index concurrently if not exists ix_payment_teacher_created
+    on payment (teacher_user_id, created_at desc);
+
+-- E-mail único sem diferenciar maiúsculas (a aplicação já grava em minúsculas)
+create unique index concurrently if not exists ux_users_email_lower
+    on users (lower(email));
+
+-- Limpeza de famílias expiradas (RefreshTokenFamilyRepository.deleteExpired)
+create index concurrently if not exists ix_refresh_token_family_expires
+    on refresh_token_family (expires_at);
+
+-- Coleção sem PK: carregar as especialidades de um professor varria a tabela
+create index concurrently if not exists ix_teacher_specialties_user
+    on teacher_specialties (user_id);
@@ -0,0 +1,9 @@
+-- Agenda de aulas: versão por professor/aluno (travada e incrementada a cada agendamento; diz se o
+-- índice em memória ainda vale) e índice das aulas em aberto por aluno, para montar a agenda dele.
+
+alter table teacher_profile add column calendar_version bigint not null default 0;
+alter table student_profile add column calendar_version bigint not null default 0;
+
+create index ix_lesson_student_open_start
+    on lesson (student_user_id, start_at)
+    where status in ('SCHEDULED', 'RESCHEDULED');
@@ -0,0 +1,5 @@
+-- Busca de horários livres: aulas em aberto de todos os professores num dia (TeacherBusyDays).
+-- Professor e fim no índice para varredura só de índice. CONCURRENTLY: ver V5__lesson_open_by_start.sql.conf.
+create index concurrently if not exists ix_lesson_open_start
+    on lesson (start_at) include (teacher_user_id, end_at)
+    where status in ('SCHEDULED', 'RESCHEDULED');
@@ -0,0 +1,42 @@
+-- Aulas recorrentes: a série guarda só a regra (dias da semana, intervalo, fim por data ou número de
+-- aulas); as ocorrências são calculadas sob demanda. Só as exceções (ocorrência cancelada ou
+-- remarcada) viram linha em lesson, apontando para a série e para o início original.
+
+create sequence lesson_series_seq start with 1 increment by 50;
+
+create table lesson_series (
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    id bigint not null,
+    teacher_user_id bigint not null references teacher_profile (user_id),
+    student_user_id bigint not null references student_profile (user_id),
+    start_at timestamp(6) with time zone not null,
+    duration_minutes integer not null check (duration_minutes > 0),
+    time_zone varchar(64) not null,
+    days_of_week integer not null check (days_of_week between 1 and 127),
+    interval_weeks integer not null check (interval_weeks > 0),
+    until_at timestamp(6) with time zone,
+    occurrence_count integer,
+    last_start_at timestamp(6) with time zone not null,
+    notes varchar(1000),
+    primary key (id),
+    check ((until_at is null) <> (occurrence_count is null))
+);
+
+-- Séries ativas (last_start_at no futuro) por professor, por aluno e de todos (ocupação do dia)
+create index ix_lesson_series_teacher_last on lesson_series (teacher_user_id, last_start_at);
+create index ix_lesson_series_student_last on lesson_series (student_user_id, last_start_at);
+create index ix_lesson_series_last on lesson_series (last_start_at);
+
+alter table lesson add column series_id bigint references lesson_series (id);
+alter table lesson add column occurrence_start_at timestamp(6) with time zone;
+
+-- Uma exceção por ocorrência; também é o índice das exceções de uma série (série, início)
+create unique index ux_lesson_series_occurrence on lesson (series_id, occurrence_start_at);
+
+alter table activity_event drop constraint if exists activity_event_type_check;
+alter table activity_event add constraint activity_event_type_check check (type in (
+    'ENROLLMENT','SUBSCRIPTION_ACTIVE','SUBSCRIPTION_PAUSED','SUBSCRIPTION_CANCELED','SUBSCRIPTION_EXPIRED',
+    'LESSON_SCHEDULED','LESSON_RESCHEDULED','LESSON_CANCELED','LESSON_COMPLETED',
+    'LESSON_SERIES_SCHEDULED','LESSON_SERIES_ENDED',
+    'PAYMENT_PENDING','PAYMENT_SUCCESS','PAYMENT_FAILED'));
@@ -0,0 +1,67 @@
+-- lesson particionada por mês de start_at (UTC). Toda consulta quente filtra por faixa de start_at
+-- e passa a visitar só as partições da faixa; histórico antigo sai da tabela desanexando a partição
+-- (LessonPartitionMaintenance), sem DELETE em massa.
+--
+-- Tabela particionada exige a chave de partição em PK e índices únicos: a PK vira (id, start_at) e
+-- o índice da ocorrência de série deixa de ser único (as travas de agenda já serializam as exceções).
+--
+-- Copia as linhas numa transação: em banco grande, rodar em janela de manutenção.
+
+alter table lesson rename to lesson_unpartitioned;
+alter table lesson_unpartitioned drop constraint if exists lesson_pkey;
+drop index if exists ix_lesson_teacher_start;
+drop index if exists ix_lesson_teacher_open_start;
+drop index if exists ix_lesson_student_open_start;
+drop index if exists ix_lesson_open_start;
+drop index if exists ux_lesson_series_occurrence;
+
+create table lesson (
+    created_at timestamp(6) with time zone not null,
+    end_at timestamp(6) with time zone,
+    id bigint not null,
+    start_at timestamp(6) with time zone not null,
+    student_user_id bigint not null references student_profile (user_id),
+    teacher_user_id bigint not null references teacher_profile (user_id),
+    updated_at timestamp(6) with time zone not null,
+    notes varchar(1000),
+    status varchar(255) not null check (status in ('SCHEDULED','RESCHEDULED','CANCELED','COMPLETED')),
+    series_id bigint references lesson_series (id),
+    occurrence_start_at timestamp(6) with time zone,
+    primary key (id, start_at)
+) partition by range (start_at);
+
+-- Fora dos meses criados (muito no futuro): a manutenção move as linhas ao criar o mês
+create table lesson_default partition of lesson default;
+
+-- Do mês da aula mais antiga até 12 meses à frente (app.lessons.partitions.months-ahead)
+do $$
+declare
+    m timestamp := date_trunc('month', coalesce((select min(start_at) from lesson_unpartitioned), now()) at time zone 'UTC');
+    last_month timestamp := date_trunc('month', now() at time zone 'UTC') + interval '12 months';
+begin
+    while m <= last_month loop
+        execute format('create table %I partition of lesson for values from (%L) to (%L)',
+                       'lesson_' || to_char(m, 'YYYY_MM'), m at time zone 'UTC', (m + interval '1 month') at time zone 'UTC');
+        m := m + interval '1 month';
+    end loop;
+end $$;
+
+insert into lesson (created_at, end_at, id, start_at, student_user_id, teacher_user_id, updated_at, notes, status,
+                    series_id, occurrence_start_at)
+select created_at, end_at, id, start_at, student_user_id, teacher_user_id, updated_at, notes, status,
+       series_id, occurrence_start_at
+  from lesson_unpartitioned;
+
+drop table lesson_unpartitioned;
+
+-- Mesmos índices de antes, agora particionados (um por partição, criados junto com cada mês novo)
+create index ix_lesson_teacher_start on lesson (teacher_user_id, start_at);
+create index ix_lesson_teacher_open_start on lesson (teacher_user_id, start_at)
+    where status in ('SCHEDULED', 'RESCHEDULED');
+create index ix_lesson_student_open_start on lesson (student_user_id, start_at)
+    where status in ('SCHEDULED', 'RESCHEDULED');
+create index ix_lesson_open_start on lesson (start_at) include (teacher_user_id, end_at)
+    where status in ('SCHEDULED', 'RESCHEDULED');
+create index ix_lesson_series_occurrence on lesson (series_id, occurrence_start_at);
+
+analyze lesson;
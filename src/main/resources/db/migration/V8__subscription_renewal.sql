@@ -0,0 +1,14 @@
+-- Renovação de assinaturas (SubscriptionRenewalEngine). Índices com CONCURRENTLY, fora de transação
+-- (ver V8__subscription_renewal.sql.conf e V3).
+
+alter table subscription add column if not exists renewal_interval_months integer;
+alter table payment add column if not exists renewal_period_at timestamp(6) with time zone;
+
+-- Fila de renovação: ativas por vencimento, as mais atrasadas primeiro (claim com SKIP LOCKED)
+create index concurrently if not exists ix_subscription_due
+    on subscription (next_renew_at)
+    where status = 'ACTIVE';
+
+-- Uma cobrança por assinatura e período (pagamentos avulsos têm período nulo e não conflitam)
+create unique index concurrently if not exists ux_payment_subscription_period
+    on payment (subscription_id, renewal_period_at);
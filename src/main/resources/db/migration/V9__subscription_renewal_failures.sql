@@ -0,0 +1,5 @@
+-- Renovação que falhou sozinha (SubscriptionRenewalEngine): a assinatura é marcada e sai da fila até
+-- o próximo retry, em vez de derrubar o lote inteiro toda rodada.
+
+alter table subscription add column if not exists renewal_failed_at timestamp(6) with time zone;
+alter table subscription add column if not exists renewal_failure varchar(500);
@@ -0,0 +1,35 @@
+package com.quadrago.backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** O benchmark nunca sai de [min-strength, max-strength], qualquer que seja o alvo. */
+class BCryptCostCalibratorTest {
+
+    @Test
+    void targetBelowTheMinimumCostKeepsMinStrength() {
+        var result = BCryptCostCalibrator.calibrate(Duration.ZERO, 4, 6);
+
+        assertEquals(4, result.strength());
+        assertTrue(result.estimated().toNanos() > 0);
+    }
+
+    @Test
+    void targetAboveTheMaximumCostStopsAtMaxStrength() {
+        var result = BCryptCostCalibrator.calibrate(Duration.ofHours(1), 4, 6);
+        var minimum = BCryptCostCalibrator.calibrate(Duration.ZERO, 4, 6);
+
+        assertEquals(6, result.strength());
+        assertTrue(result.estimated().compareTo(minimum.estimated()) > 0, "estimativa dobra a cada +1 no custo");
+    }
+
+    @Test
+    void equalBoundsPinTheCost() {
+        assertEquals(5, BCryptCostCalibrator.calibrate(Duration.ofHours(1), 5, 5).strength());
+        assertEquals(5, BCryptCostCalibrator.calibrate(Duration.ZERO, 5, 5).strength());
+    }
+}
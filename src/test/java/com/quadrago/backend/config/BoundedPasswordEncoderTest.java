@@ -0,0 +1,166 @@
+package com.quadrago.backend.config;
+
+import com.quadrago.backend.exceptions.PasswordHashingBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Admissão do pool de hash com 1 thread e fila mínima: recusa por fila cheia, por espera estimada
+ * (EWMA), por timeout do get (cancelando a tarefa) e repasse das exceções do delegate.
+ */
+class BoundedPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SlowEncoder delegate = new SlowEncoder();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        delegate.release.countDown();
+        if (encoder != null) encoder.shutdown();
+    }
+
+    @Test
+    void fullQueueIsRejectedAndCounted() throws Exception {
+        encoder = encoder(1, Duration.ofSeconds(5));
+        CompletableFuture<String> running = async("block");
+        await(() -> delegate.started.get() == 1);
+        CompletableFuture<String> queued = async("block");
+        await(() -> queue() == 1);
+
+        PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("x"));
+
+        assertEquals(1, busy.getRetryAfterSeconds(), "sem média ainda: mínimo de 1s");
+        assertEquals(1, rejected());
+        assertEquals(1, queue());
+        assertEquals(1, delegate.started.get(), "recusado sem chegar ao delegate");
+
+        delegate.release.countDown();
+        assertEquals("h:block", running.get(5, TimeUnit.SECONDS));
+        assertEquals("h:block", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, queue());
+    }
+
+    @Test
+    void estimatedWaitBeyondTheTimeoutIsShedBeforeQueuing() throws Exception {
+        encoder = encoder(4, Duration.ofSeconds(2));
+        assertEquals("h:sleep", encoder.encode("sleep"));   // primeira amostra: média ≈ 1,2s
+        CompletableFuture<String> running = async("block");
+        await(() -> delegate.started.get() == 2);
+        CompletableFuture<String> queued = async("sleep");
+        await(() -> queue() == 1);
+
+        // (1 na fila + 1) × 1,2s / 1 thread = 2,4s > 2s: recusa sem entrar na fila
+        PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("x"));
+
+        assertEquals(3, busy.getRetryAfterSeconds(), "ceil(2,4s)");
+        assertEquals(1, rejected());
+        assertEquals(1, queue());
+
+        delegate.release.countDown();
+        assertEquals("h:block", running.get(5, TimeUnit.SECONDS));
+        assertEquals("h:sleep", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waitTimeoutCancelsTheTask() throws Exception {
+        encoder = encoder(4, Duration.ofMillis(200));
+
+        long t0 = System.nanoTime();
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("block"));
+
+        assertTrue(System.nanoTime() - t0 >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(delegate.interrupted.await(5, TimeUnit.SECONDS), "tarefa cancelada com interrupção");
+        assertEquals(1, rejected());
+        await(() -> meterRegistry.get("auth.password.active").gauge().value() == 0);
+    }
+
+    @Test
+    void delegateFailuresArePassedThrough() {
+        encoder = encoder(4, Duration.ofSeconds(5));
+
+        IllegalArgumentException runtime = assertThrows(IllegalArgumentException.class, () -> encoder.encode("fail"));
+        assertSame(delegate.failure, runtime, "RuntimeException sai sem o ExecutionException");
+
+        IllegalStateException wrapped = assertThrows(IllegalStateException.class, () -> encoder.matches("error", "h:x"));
+        assertSame(delegate.error, wrapped.getCause());
+        assertEquals(0, rejected());
+    }
+
+    private BoundedPasswordEncoder encoder(int queueCapacity, Duration waitTimeout) {
+        return new BoundedPasswordEncoder(delegate, 1, queueCapacity, waitTimeout, meterRegistry);
+    }
+
+    private CompletableFuture<String> async(String raw) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread t = new Thread(() -> {
+            try {
+                result.complete(encoder.encode(raw));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return result;
+    }
+
+    private double queue() {
+        return meterRegistry.get("auth.password.queue").gauge().value();
+    }
+
+    private double rejected() {
+        return meterRegistry.get("auth.password.rejected").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) Thread.sleep(5);
+        assertTrue(condition.getAsBoolean(), "condição não atingida em 5s");
+    }
+
+    /** "block" espera o release, "sleep" leva 1,2s, "fail"/"error" lançam; o resto é imediato. */
+    private static final class SlowEncoder implements PasswordEncoder {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger();
+        final IllegalArgumentException failure = new IllegalArgumentException("senha inválida");
+        final Error error = new Error("falha do delegate");
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.incrementAndGet();
+            String raw = rawPassword.toString();
+            try {
+                switch (raw) {
+                    case "block" -> release.await();
+                    case "sleep" -> Thread.sleep(1200);
+                    case "fail" -> throw failure;
+                    case "error" -> throw error;
+                    default -> { }
+                }
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return "h:" + raw;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
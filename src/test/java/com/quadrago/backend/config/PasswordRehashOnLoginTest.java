@@ -0,0 +1,108 @@
+package com.quadrago.backend.config;
+
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.filters.CustomUserDetailsService;
+import com.quadrago.backend.support.IntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Encoder e provider do SecurityConfig (fora do perfil "test") contra o banco: custo fixado por
+ * {@code strength} e rehash no login só quando o hash está abaixo da política e não mudou no meio.
+ * O perfil "test" grava senhas com BCrypt puro, sem prefixo: são os hashes legados.
+ */
+class PasswordRehashOnLoginTest extends IntegrationTest {
+
+    private static final String PASSWORD = "x"; // senha dos usuários do IntegrationTest
+
+    @Autowired CustomUserDetailsService userDetailsService;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void pinnedStrengthSkipsTheBenchmark() {
+        PasswordEncoder encoder = encoder(5);
+
+        assertTrue(encoder.encode(PASSWORD).startsWith("{bcrypt}$2a$05$"), "min-strength 10 ignorado com strength fixo");
+    }
+
+    @Test
+    void legacyHashIsRewrittenOnceOnSuccessfulLogin() {
+        Long id = person("rehash.legado", RoleName.STUDENT);
+        String legacy = hash(id);
+        assertFalse(legacy.startsWith("{"), legacy);
+
+        login(provider(4), id, PASSWORD);
+        String upgraded = hash(id);
+        login(provider(4), id, PASSWORD);
+
+        assertTrue(upgraded.startsWith("{bcrypt}$2a$04$"), upgraded);
+        assertEquals(upgraded, hash(id), "já na política: não regrava de novo");
+    }
+
+    @Test
+    void lowerCostHashIsRaisedToThePolicy() {
+        Long id = person("rehash.custo", RoleName.STUDENT);
+        jdbc.update("update users set password_hash = ? where id = ?",
+                "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD), id);
+
+        login(provider(5), id, PASSWORD);
+
+        assertTrue(hash(id).startsWith("{bcrypt}$2a$05$"), hash(id));
+    }
+
+    @Test
+    void failedLoginDoesNotRewrite() {
+        Long id = person("rehash.falha", RoleName.STUDENT);
+        String legacy = hash(id);
+
+        assertThrows(BadCredentialsException.class, () -> login(provider(4), id, "errada"));
+
+        assertEquals(legacy, hash(id));
+    }
+
+    @Test
+    void hashChangedSinceLoadIsNotOverwritten() {
+        Long id = person("rehash.corrida", RoleName.STUDENT);
+        UserDetails loaded = userDetailsService.loadUserByUsername(email(id));
+        String changed = new BCryptPasswordEncoder(4).encode("nova");
+        jdbc.update("update users set password_hash = ? where id = ?", changed, id); // troca de senha no meio
+
+        UserDetails result = userDetailsService.updatePassword(loaded, "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        assertSame(loaded, result);
+        assertEquals(changed, hash(id));
+    }
+
+    private PasswordEncoder encoder(int strength) {
+        return new SecurityConfig(null, userDetailsService).passwordEncoder(new SimpleMeterRegistry(),
+                strength, Duration.ofMillis(100), 10, 14, 1, 4, Duration.ofSeconds(5));
+    }
+
+    private AuthenticationProvider provider(int strength) {
+        return new SecurityConfig(null, userDetailsService).authenticationProvider(encoder(strength));
+    }
+
+    private void login(AuthenticationProvider provider, Long id, String password) {
+        provider.authenticate(new UsernamePasswordAuthenticationToken(email(id), password));
+    }
+
+    private String email(Long id) {
+        return jdbc.queryForObject("select email from users where id = ?", String.class, id);
+    }
+
+    private String hash(Long id) {
+        return jdbc.queryForObject("select password_hash from users where id = ?", String.class, id);
+    }
+}
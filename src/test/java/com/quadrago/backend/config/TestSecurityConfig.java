@@ -1,9 +1,14 @@
 package com.quadrago.backend.config;
 
+import com.quadrago.backend.filters.CustomUserDetailsService;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -19,6 +24,20 @@ public class TestSecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /** Mesmo provider do SecurityConfig (fora do perfil "test"): AuthController precisa do AuthenticationManager */
+    @Bean
+    AuthenticationProvider authenticationProvider(CustomUserDetailsService userDetailsService,
+                                                  PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return provider;
+    }
+
+    @Bean
+    AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
+        return config.getAuthenticationManager();
+    }
+
     @Bean
     SecurityFilterChain testFilterChain(HttpSecurity http) throws Exception {
         return http
@@ -0,0 +1,120 @@
+package com.quadrago.backend.controllers;
+
+import com.quadrago.backend.config.BoundedPasswordEncoder;
+import com.quadrago.backend.support.IntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** POST /auth/login com o pool de hash saturado (1 thread, fila de 1): 429 + Retry-After, não 500. */
+@AutoConfigureMockMvc
+@Import(AuthLoginHashingBusyTest.SaturatedHashing.class)
+class AuthLoginHashingBusyTest extends IntegrationTest {
+
+    /** Fechado: toda operação de senha espera até o teste abrir. */
+    private static volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @TestConfiguration
+    static class SaturatedHashing {
+        @Bean
+        @Primary
+        BoundedPasswordEncoder boundedPasswordEncoder(MeterRegistry meterRegistry) {
+            PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+            PasswordEncoder gated = new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    pass();
+                    return bcrypt.encode(rawPassword);
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    pass();
+                    return bcrypt.matches(rawPassword, encodedPassword);
+                }
+            };
+            return new BoundedPasswordEncoder(gated, 1, 1, Duration.ofSeconds(5), meterRegistry);
+        }
+
+        private static void pass() {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    private final List<Thread> holders = new ArrayList<>();
+
+    @AfterEach
+    void openGate() throws InterruptedException {
+        gate.countDown();
+        for (Thread t : holders) t.join(5_000);
+    }
+
+    @Test
+    void saturatedHashingAnswers429WithRetryAfter() throws Exception {
+        String email = "ninguem." + System.nanoTime() + "@quadrago.local";
+        login(email).andExpect(status().isUnauthorized()); // hash de proteção contra timing já preparado
+
+        gate = new CountDownLatch(1);
+        hold(); // ocupa a thread
+        awaitGauge("auth.password.active", 1);
+        hold(); // ocupa a fila
+        awaitGauge("auth.password.queue", 1);
+        double rejected = meterRegistry.get("auth.password.rejected").counter().count();
+
+        login(email)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        assertTrue(meterRegistry.get("auth.password.rejected").counter().count() > rejected);
+    }
+
+    private void hold() {
+        Thread t = new Thread(() -> passwordEncoder.encode("x"));
+        t.setDaemon(true);
+        t.start();
+        holders.add(t);
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(name).gauge().value() != value && System.nanoTime() < deadline) Thread.sleep(5);
+        assertTrue(meterRegistry.get(name).gauge().value() == value, name + " não chegou a " + value);
+    }
+
+    private ResultActions login(String email) throws Exception {
+        return mvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"errada\"}"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.quadrago.backend.controllers;
+
+import com.quadrago.backend.support.IntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Limite de login visto pelo POST /auth/login: atraso progressivo, 429 com Retry-After e recusa
+ * quando já há {@code max-delayed} logins esperando, sempre antes do AuthenticationManager.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "app.security.login-throttle.enabled=true",
+        "app.security.login-throttle.window=15m",
+        "app.security.login-throttle.buckets=15",
+        "app.security.login-throttle.email.delay-after=2",
+        "app.security.login-throttle.email.limit=4",
+        "app.security.login-throttle.base-delay=500ms",
+        "app.security.login-throttle.max-delay=1s",
+        "app.security.login-throttle.max-delayed=1"
+})
+class AuthLoginThrottleTest extends IntegrationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired MeterRegistry meterRegistry;
+    @MockitoSpyBean AuthenticationManager authenticationManager;
+
+    @Test
+    void delaysThenRejectsWithoutAuthenticating() throws Exception {
+        String email = "alvo." + System.nanoTime() + "@quadrago.local";
+
+        login(email, "10.0.1.1").andExpect(status().isUnauthorized());
+        login(email, "10.0.1.2").andExpect(status().isUnauthorized());
+        assertTrue(millis(() -> login(email, "10.0.1.3").andExpect(status().isUnauthorized())) >= 500,
+                "terceira tentativa espera base-delay");
+        assertTrue(millis(() -> login(email, "10.0.1.4").andExpect(status().isUnauthorized())) >= 1000,
+                "quarta dobra o atraso (até max-delay)");
+
+        login(email, "10.0.1.5")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"));   // uma fatia: 15m / 15
+
+        verify(authenticationManager, times(4)).authenticate(argThat(auth -> email.equals(auth.getName())));
+    }
+
+    @Test
+    void rejectsWhenMaxDelayedLoginsAreAlreadyWaiting() throws Exception {
+        String email = "fila." + System.nanoTime() + "@quadrago.local";
+        login(email, "10.0.2.1").andExpect(status().isUnauthorized());
+        login(email, "10.0.2.1").andExpect(status().isUnauthorized());
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                login(email, "10.0.2.1").andExpect(status().isUnauthorized());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiting() == 0 && System.nanoTime() < deadline) Thread.sleep(5);
+        assertEquals(1, waiting(), "terceira tentativa deveria estar no atraso");
+
+        long rejectedIn = millis(() -> login(email, "10.0.2.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER)));
+        assertTrue(rejectedIn < 500, "saturado recusa na hora, sem esperar: " + rejectedIn + " ms");
+
+        waiting.get(5, TimeUnit.SECONDS);
+        verify(authenticationManager, times(3)).authenticate(argThat(auth -> email.equals(auth.getName())));
+    }
+
+    private ResultActions login(String email, String ip) throws Exception {
+        return mvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"errada\"}")
+                .with(request -> {
+                    request.setRemoteAddr(ip);
+                    return request;
+                }));
+    }
+
+    private double waiting() {
+        return meterRegistry.get("auth.login.throttle.waiting").gauge().value();
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    private static long millis(Call call) throws Exception {
+        long start = System.nanoTime();
+        call.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
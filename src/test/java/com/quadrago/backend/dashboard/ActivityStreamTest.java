@@ -0,0 +1,114 @@
+package com.quadrago.backend.dashboard;
+
+import com.quadrago.backend.dashboard.support.ActivityCursor;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Reconexão do stream SSE com Last-Event-ID: replay pela janela de happened_at (ids não seguem a
+ * ordem de commit) e evento "reset" quando não dá para repor tudo.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "app.dashboard.stream.replay-limit=5")
+class ActivityStreamTest extends IntegrationTest {
+
+    /** Longe dos ids da sequência que os outros testes usam no mesmo banco. */
+    private static final AtomicLong IDS = new AtomicLong(1_000_000);
+
+    @Autowired MockMvc mvc;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void eventCommittedLateWithLowerIdIsReplayed() throws Exception {
+        Long teacher = teacher("Prof Stream");
+        Instant t0 = Instant.now().minus(10, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.MILLIS);
+        long first = record(teacher, t0);
+        long late = IDS.incrementAndGet();           // id lido antes, transação comitou depois
+        long delivered = record(teacher, t0.plusSeconds(2));
+        insert(late, teacher, t0.plusSeconds(1));
+        long after = record(teacher, t0.plusSeconds(3));
+
+        String stream = connect(teacher, cursor(delivered, t0.plusSeconds(2)),
+                body -> body.contains(cursor(after, t0.plusSeconds(3))));
+
+        assertTrue(stream.contains(cursor(late, t0.plusSeconds(1))), stream);
+        assertTrue(stream.contains(cursor(first, t0)), "janela de sobreposição repete os anteriores: " + stream);
+        assertFalse(stream.contains(cursor(delivered, t0.plusSeconds(2))), "o próprio Last-Event-ID não volta");
+        assertFalse(stream.contains("event:reset"), stream);
+    }
+
+    @Test
+    void replayBeyondTheLimitSendsReset() throws Exception {
+        Long teacher = teacher("Prof Reset");
+        Instant t0 = Instant.now().minus(10, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.MILLIS);
+        long last = record(teacher, t0);
+        for (int i = 1; i <= 6; i++) record(teacher, t0.plusSeconds(i));
+
+        String stream = connect(teacher, cursor(last, t0), body -> body.contains("event:reset"));
+
+        assertFalse(stream.contains("event:activity"), "replay parcial não é enviado: " + stream);
+    }
+
+    @Test
+    void unknownLastEventIdSendsReset() throws Exception {
+        Long teacher = teacher("Prof Antigo");
+        record(teacher, Instant.now().minusSeconds(5));
+
+        String stream = connect(teacher, "12345", body -> body.contains("event:reset"));
+
+        assertFalse(stream.contains("event:activity"), stream);
+    }
+
+    /** Conecta com Last-Event-ID e espera (até 5 s) o corpo satisfazer {@code done}. */
+    private String connect(Long teacher, String lastEventId, Predicate<String> done) throws Exception {
+        MvcResult result = mvc.perform(get("/dashboard/activities/stream")
+                        .header("Last-Event-ID", lastEventId)
+                        .with(user(teacher.toString()).roles("TEACHER")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        String body = result.getResponse().getContentAsString();
+        while (!done.test(body) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(done.test(body), "stream incompleto: " + body);
+        return body;
+    }
+
+    private long record(Long teacher, Instant happenedAt) {
+        long id = IDS.incrementAndGet();
+        insert(id, teacher, happenedAt);
+        return id;
+    }
+
+    private void insert(long id, Long teacher, Instant happenedAt) {
+        jdbc.update("""
+                insert into activity_event (id, happened_at, teacher_user_id, student_user_id, type, source_id)
+                values (?, ?, ?, null, 'PAYMENT_SUCCESS', ?)
+                """, id, OffsetDateTime.ofInstant(happenedAt, ZoneOffset.UTC), teacher, id);
+    }
+
+    private static String cursor(long id, Instant happenedAt) {
+        return new ActivityCursor(happenedAt, "PAYMENT_SUCCESS", id).encode();
+    }
+}
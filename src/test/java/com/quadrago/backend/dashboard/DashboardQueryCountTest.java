@@ -0,0 +1,200 @@
+package com.quadrago.backend.dashboard;
+
+import com.quadrago.backend.dashboard.counters.DashboardCounters;
+import com.quadrago.backend.dashboard.counters.DashboardCountersChangedEvent;
+import com.quadrago.backend.dashboard.dto.DashboardOverviewDto;
+import com.quadrago.backend.dashboard.dto.RecentActivitiesPage;
+import com.quadrago.backend.dtos.LessonDtos.CreateLessonSeriesRequest;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.enums.SubscriptionStatus;
+import com.quadrago.backend.models.Lesson;
+import com.quadrago.backend.models.StudentProfile;
+import com.quadrago.backend.models.Subscription;
+import com.quadrago.backend.models.TeacherProfile;
+import com.quadrago.backend.repositories.LessonRepository;
+import com.quadrago.backend.repositories.StudentProfileRepository;
+import com.quadrago.backend.repositories.SubscriptionRepository;
+import com.quadrago.backend.repositories.TeacherProfileRepository;
+import com.quadrago.backend.services.scheduling.LessonSeriesService;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Quantos statements cada leitura do dashboard emite (contados no DataSource, então valem para
+ * JdbcTemplate e Hibernate). Com cache frio, o overview é um SELECT na linha de contadores, sem join;
+ * as contagens por professor dos repositórios filtram na coluna da FK, também sem join. Professor com
+ * série recorrente paga mais um statement (as ocorrências são contadas na leitura).
+ */
+@Import(DashboardQueryCountTest.StatementLog.class)
+class DashboardQueryCountTest extends IntegrationTest {
+
+    /** Embrulha o DataSource e registra o SQL de cada statement preparado ou executado. */
+    @TestConfiguration
+    static class StatementLog implements BeanPostProcessor {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource ds)) return bean;
+            return new DelegatingDataSource(ds) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+            };
+        }
+
+        private static Connection recording(Connection target) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare")) SQL.add((String) args[0]);
+                        Object result = invoke(method, target, args);
+                        return result instanceof Statement st && method.getName().equals("createStatement")
+                                ? recording(st) : result;
+                    });
+        }
+
+        private static Statement recording(Statement target) {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                    new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute") && args != null && args[0] instanceof String sql) {
+                            SQL.add(sql);
+                        }
+                        return invoke(method, target, args);
+                    });
+        }
+
+        private static Object invoke(java.lang.reflect.Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Autowired TeacherProfileRepository teacherRepo;
+    @Autowired StudentProfileRepository studentRepo;
+    @Autowired LessonRepository lessons;
+    @Autowired SubscriptionRepository subscriptions;
+    @Autowired DashboardCounters counters;
+    @Autowired DashboardService dashboard;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired LessonSeriesService lessonSeries;
+
+    private Long teacherId;
+    private Long studentId;
+
+    @BeforeEach
+    void seed() {
+        teacherId = teacher("prof");
+        studentId = student("aluno");
+
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            TeacherProfile teacher = teacherRepo.getReferenceById(teacherId);
+            StudentProfile student = studentRepo.getReferenceById(studentId);
+            subscriptions.save(Subscription.builder().teacherProfile(teacher).studentProfile(student)
+                    .status(SubscriptionStatus.ACTIVE).planName("Mensal").price(new BigDecimal("300.00"))
+                    .startAt(now).build());
+            for (int day = -2; day <= 3; day++) {
+                OffsetDateTime at = now.plusDays(day).plusMinutes(30);
+                lessons.save(Lesson.builder().teacherProfile(teacher).studentProfile(student)
+                        .startAt(at).endAt(at.plusHours(1))
+                        .status(day == 3 ? LessonStatus.CANCELED : LessonStatus.SCHEDULED).build());
+            }
+        });
+    }
+
+    @Test
+    void overviewOnColdCacheIsOneStatementWithoutJoins() {
+        counters.onCountersChanged(new DashboardCountersChangedEvent(teacherId));
+
+        List<String> sql = recorded(() -> dashboard.loadOverviewForTeacher(teacherId));
+        DashboardOverviewDto overview = counters.overview(teacherId);
+
+        assertEquals(1, sql.size(), () -> "statements: " + sql);
+        assertNoJoin(sql.get(0));
+        assertEquals(new DashboardOverviewDto(1, 3, 1), overview);
+    }
+
+    @Test
+    void overviewWithRecurringSeriesAddsOneStatementWithoutJoins() {
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).plusDays(7).truncatedTo(ChronoUnit.HOURS);
+        lessonSeries.create(new CreateLessonSeriesRequest(teacherId, studentId, start, 60,
+                Set.of(start.getDayOfWeek()), null, null, 4, "UTC", null));
+        counters.onCountersChanged(new DashboardCountersChangedEvent(teacherId));
+
+        List<String> sql = recorded(() -> dashboard.loadOverviewForTeacher(teacherId));
+
+        assertEquals(2, sql.size(), () -> "statements: " + sql);
+        sql.forEach(DashboardQueryCountTest::assertNoJoin);
+        assertEquals(new DashboardOverviewDto(1, 3 + 4, 1), counters.overview(teacherId));
+    }
+
+    @Test
+    void activityPageIsOneStatement() {
+        List<String> sql = recorded(() -> {
+            RecentActivitiesPage page = dashboard.loadRecentActivities(teacherId, 20, null);
+            assertEquals(7, page.items().size());
+            return page;
+        });
+        assertEquals(1, sql.size(), () -> "statements: " + sql);
+    }
+
+    @Test
+    void perTeacherCountsFilterOnForeignKeyColumns() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        List<String> lessonSql = recorded(() -> assertEqualsAndReturn(3L, lessons.countFutureLessonsByTeacher(teacherId, now)));
+        List<String> subscriptionSql = recorded(() -> assertEqualsAndReturn(1L, subscriptions.countActiveByTeacherUserId(teacherId)));
+        List<String> studentSql = recorded(() -> assertEqualsAndReturn(1L, subscriptions.countActiveStudentsByTeacherUserId(teacherId)));
+
+        for (List<String> sql : List.of(lessonSql, subscriptionSql, studentSql)) {
+            assertEquals(1, sql.size(), () -> "statements: " + sql);
+            assertNoJoin(sql.get(0));
+        }
+    }
+
+    private static List<String> recorded(Supplier<?> call) {
+        StatementLog.SQL.clear();
+        call.get();
+        return List.copyOf(StatementLog.SQL);
+    }
+
+    private static Long assertEqualsAndReturn(long expected, long actual) {
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    private static void assertNoJoin(String sql) {
+        assertFalse(sql.toLowerCase(Locale.ROOT).contains(" join "), () -> "join em: " + sql);
+    }
+}
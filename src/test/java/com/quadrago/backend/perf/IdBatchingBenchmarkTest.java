@@ -0,0 +1,186 @@
+package com.quadrago.backend.perf;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.dtos.UserDtos.CreateStudentProfileRequest;
+import com.quadrago.backend.dtos.UserDtos.CreateTeacherProfileRequest;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.enums.PaymentMethod;
+import com.quadrago.backend.enums.PaymentStatus;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.models.Lesson;
+import com.quadrago.backend.models.Payment;
+import com.quadrago.backend.models.StudentProfile;
+import com.quadrago.backend.models.TeacherProfile;
+import com.quadrago.backend.repositories.LessonRepository;
+import com.quadrago.backend.repositories.PaymentRepository;
+import com.quadrago.backend.repositories.StudentProfileRepository;
+import com.quadrago.backend.repositories.TeacherProfileRepository;
+import com.quadrago.backend.services.StudentProfileService;
+import com.quadrago.backend.services.TeacherProfileService;
+import com.quadrago.backend.services.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.tools.Server;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput de insert de Lesson e Payment com e sem batching JDBC.
+ *
+ * "sem batch" (jdbc batch size 1) é o comportamento de quando os ids eram IDENTITY: o Hibernate
+ * precisa do id gerado pelo banco e faz um INSERT (um round trip) por linha. "batch" é o atual:
+ * ids de sequência pooled-lo (um nextval a cada 50 linhas) e INSERTs agrupados no flush.
+ *
+ * Round trips só custam caro com rede no meio: por padrão o H2 roda como servidor TCP local
+ * (não em memória no mesmo processo). Para medir contra PostgreSQL: -Dperf.ids.jdbc-url=...
+ * (e -Dperf.ids.username / -Dperf.ids.password). Linhas por entidade: -Dperf.ids.rows.
+ */
+@Tag("perf")
+class IdBatchingBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("perf.ids.rows", 5_000);
+    private static final int ROWS_PER_TX = 500;
+    private static final int BATCH_SIZE = 50;
+
+    record Result(String entity, String mode, long rows, long millis, long statements) {
+        double rowsPerSecond() {
+            return rows * 1000.0 / Math.max(1, millis);
+        }
+    }
+
+    @Test
+    void batchedInsertsVersusRowByRow() throws Exception {
+        String url = System.getProperty("perf.ids.jdbc-url");
+        Server h2 = null;
+        if (url == null) {
+            h2 = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + h2.getPort() + "/mem:ids;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                    + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+        }
+
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--spring.datasource.url=" + url,
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--app.dashboard.activity.backfill-on-startup=false"));
+        if (!url.startsWith("jdbc:h2:")) {
+            args.addAll(List.of("--spring.datasource.driver-class-name=org.postgresql.Driver",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                    "--spring.datasource.username=" + System.getProperty("perf.ids.username", "postgres"),
+                    "--spring.datasource.password=" + System.getProperty("perf.ids.password", "")));
+        }
+
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("perf")
+                .run(args.toArray(String[]::new))) {
+
+            Long teacherId = ctx.getBean(UserService.class).createPersonUser(new CreatePersonUserRequest(
+                    "Perf Professor", null, null, null, "perf.ids.teacher@quadrago.local", "x", Set.of(RoleName.TEACHER))).id();
+            Long studentId = ctx.getBean(UserService.class).createPersonUser(new CreatePersonUserRequest(
+                    "Perf Aluno", null, null, null, "perf.ids.student@quadrago.local", "x", Set.of(RoleName.STUDENT))).id();
+            ctx.getBean(TeacherProfileService.class).create(teacherId, new CreateTeacherProfileRequest(null, null, Set.of()));
+            ctx.getBean(StudentProfileService.class).create(studentId, new CreateStudentProfileRequest(null, null));
+
+            Bench bench = new Bench(ctx, teacherId, studentId);
+            bench.run("lesson", 1, BATCH_SIZE); // aquecimento (JIT, pool de conexões, sequências)
+
+            List<Result> results = new ArrayList<>();
+            for (String entity : List.of("lesson", "payment")) {
+                results.add(bench.run(entity, ROWS, 1));
+                results.add(bench.run(entity, ROWS, BATCH_SIZE));
+            }
+
+            System.out.printf("%n[perf] inserts por entidade: %d linhas, %d por transação (%s)%n",
+                    ROWS, ROWS_PER_TX, url.replaceAll(";.*", ""));
+            System.out.printf("%-8s %-10s %9s %10s %12s%n", "entidade", "modo", "ms", "linhas/s", "statements");
+            for (Result r : results) {
+                System.out.printf("%-8s %-10s %9d %10.0f %12d%n", r.entity, r.mode, r.millis, r.rowsPerSecond(), r.statements);
+            }
+
+            assertEquals(2L * ROWS + 1, ctx.getBean(LessonRepository.class).count());
+            assertEquals(2L * ROWS, ctx.getBean(PaymentRepository.class).count());
+            for (int i = 0; i < results.size(); i += 2) {
+                assertTrue(results.get(i + 1).statements < results.get(i).statements / 10,
+                        results.get(i).entity + ": batching deveria reduzir os statements em mais de 10x");
+            }
+        } finally {
+            if (h2 != null) h2.stop();
+        }
+    }
+
+    private static final class Bench {
+        private final TransactionTemplate tx;
+        private final EntityManagerFactory emf;
+        private final Statistics stats;
+        private final LessonRepository lessons;
+        private final PaymentRepository payments;
+        private final TeacherProfileRepository teachers;
+        private final StudentProfileRepository students;
+        private final Long teacherId;
+        private final Long studentId;
+
+        Bench(ConfigurableApplicationContext ctx, Long teacherId, Long studentId) {
+            this.tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+            this.emf = ctx.getBean(EntityManagerFactory.class);
+            this.stats = emf.unwrap(SessionFactory.class).getStatistics();
+            this.lessons = ctx.getBean(LessonRepository.class);
+            this.payments = ctx.getBean(PaymentRepository.class);
+            this.teachers = ctx.getBean(TeacherProfileRepository.class);
+            this.students = ctx.getBean(StudentProfileRepository.class);
+            this.teacherId = teacherId;
+            this.studentId = studentId;
+        }
+
+        Result run(String entity, int rows, int batchSize) {
+            OffsetDateTime base = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+            stats.clear();
+            long start = System.nanoTime();
+            for (int done = 0; done < rows; done += ROWS_PER_TX) {
+                int n = Math.min(ROWS_PER_TX, rows - done);
+                int offset = done;
+                tx.executeWithoutResult(status -> {
+                    EntityManagerFactoryUtils.getTransactionalEntityManager(emf).unwrap(Session.class)
+                            .setJdbcBatchSize(batchSize);
+                    TeacherProfile teacher = teachers.getReferenceById(teacherId);
+                    StudentProfile student = students.getReferenceById(studentId);
+                    if (entity.equals("lesson")) {
+                        List<Lesson> chunk = new ArrayList<>(n);
+                        for (int i = 0; i < n; i++) {
+                            OffsetDateTime at = base.plusMinutes(30L * (offset + i));
+                            chunk.add(Lesson.builder().teacherProfile(teacher).studentProfile(student)
+                                    .startAt(at).endAt(at.plusMinutes(30)).status(LessonStatus.SCHEDULED).build());
+                        }
+                        lessons.saveAll(chunk);
+                    } else {
+                        List<Payment> chunk = new ArrayList<>(n);
+                        for (int i = 0; i < n; i++) {
+                            chunk.add(Payment.builder().teacherProfile(teacher).studentProfile(student)
+                                    .amount(new BigDecimal("150.00")).currency("BRL").status(PaymentStatus.PENDING)
+                                    .method(PaymentMethod.PIX).build());
+                        }
+                        payments.saveAll(chunk);
+                    }
+                });
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new Result(entity, batchSize == 1 ? "sem batch" : "batch " + batchSize, rows, millis,
+                    stats.getPrepareStatementCount());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.quadrago.backend.perf;
+
+import com.quadrago.backend.services.scheduling.LessonCalendar;
+import com.quadrago.backend.services.scheduling.LessonCalendar.Slot;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Custo da checagem de conflito no índice em memória contra a agenda de um ano de um professor
+ * (8 aulas de 1h por dia útil, ~2000 aulas). Meta: microssegundos por checagem, sem consulta ao banco.
+ * Aulas por dia: -Dperf.calendar.per-day.
+ */
+@Tag("perf")
+class LessonCalendarBenchmarkTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    private static final int PER_DAY = Integer.getInteger("perf.calendar.per-day", 8);
+    private static final int CHECKS = 1_000_000;
+
+    @Test
+    void conflictCheckAgainstAYearOfLessons() {
+        List<Slot> slots = new ArrayList<>();
+        long id = 1;
+        for (int day = 0; day < 365; day++) {
+            if (day % 7 >= 5) continue;
+            for (int h = 0; h < PER_DAY; h++) {
+                long start = day * DAY + (8 + h) * HOUR;
+                slots.add(new Slot(id++, start, start + HOUR));
+            }
+        }
+        LessonCalendar calendar = LessonCalendar.of(0, slots);
+
+        Random random = new Random(7);
+        long[] starts = new long[CHECKS];
+        for (int i = 0; i < CHECKS; i++) starts[i] = random.nextInt(365) * DAY + random.nextInt(48) * HOUR / 2;
+
+        long conflicts = 0;
+        for (int i = 0; i < CHECKS; i++) conflicts += calendar.findConflict(starts[i], starts[i] + HOUR, -1) >= 0 ? 1 : 0; // aquecimento
+        long begin = System.nanoTime();
+        for (int i = 0; i < CHECKS; i++) conflicts += calendar.findConflict(starts[i], starts[i] + HOUR, -1) >= 0 ? 1 : 0;
+        double nanosPerCheck = (System.nanoTime() - begin) / (double) CHECKS;
+
+        long writeBegin = System.nanoTime();
+        LessonCalendar updated = calendar;
+        for (int i = 0; i < 1_000; i++) updated = updated.with(i + 1, id + i, 400 * DAY + i * HOUR, 400 * DAY + (i + 1) * HOUR);
+        double microsPerWrite = (System.nanoTime() - writeBegin) / 1_000.0 / 1_000;
+
+        System.out.printf("%n[perf] agenda de %d aulas: %.0f ns por checagem, %.1f us por escrita (cópia), %d conflitos%n",
+                calendar.size(), nanosPerCheck, microsPerWrite, conflicts);
+        assertTrue(nanosPerCheck < 10_000, "checagem deveria levar microssegundos: " + nanosPerCheck + " ns");
+    }
+}
@@ -0,0 +1,200 @@
+package com.quadrago.backend.perf;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.repositories.LessonRepository;
+import com.quadrago.backend.services.scheduling.LessonPartitionMaintenance;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * countFutureLessonsByTeacher com o histórico de lesson crescendo (PostgreSQL, lesson particionada
+ * pela V7): a consulta filtra start_at futuro, o planner descarta as partições passadas e o tempo
+ * fica igual com 1 milhão ou dezenas de milhões de aulas antigas.
+ *
+ * Histórico espalhado pelos últimos 5 anos (partições criadas por {@link LessonPartitionMaintenance}),
+ * com 2% de aulas antigas que ficaram abertas. Roda num PostgreSQL do Testcontainers (precisa de
+ * Docker) ou no banco de -Dperf.partitions.jdbc-url (vazio; -Dperf.partitions.username/password).
+ * Tamanhos (acumulados) do histórico: -Dperf.partitions.history=1000000,5000000,20000000.
+ */
+@Tag("perf")
+class LessonPartitionBenchmarkTest {
+
+    private static final long[] HISTORY = Arrays.stream(
+                    System.getProperty("perf.partitions.history", "1000000,5000000,20000000").split(","))
+            .mapToLong(s -> Long.parseLong(s.trim())).toArray();
+    private static final int HISTORY_MONTHS = 60;
+    private static final int MONTHS_AHEAD = 12;
+    private static final int TEACHERS = 200;
+    private static final int FUTURE_PER_TEACHER = 40;
+    private static final int CALLS = 2_000;
+    private static final long FIRST_USER_ID = 900_000_000L;
+    private static final long FIRST_LESSON_ID = 3_000_000_000L;
+    private static final int INSERT_CHUNK = 1_000_000;
+    private static final Pattern PARTITION_SCAN = Pattern.compile(" on (lesson_\\d{4}_\\d{2}|lesson_default)\\b");
+
+    record Result(long history, int partitionsScanned, double medianMicros, double p95Micros) {}
+
+    @Test
+    void futureCountStaysFlatAsHistoryGrows() {
+        String url = System.getProperty("perf.partitions.jdbc-url");
+        String username = System.getProperty("perf.partitions.username", "postgres");
+        String password = System.getProperty("perf.partitions.password", "");
+        PostgreSQLContainer<?> postgres = null;
+        if (url == null) {
+            Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                    "sem Docker: use -Dperf.partitions.jdbc-url");
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("perf")
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                        "--app.dashboard.activity.backfill-on-startup=false",
+                        "--app.lessons.partitions.maintenance-enabled=true",
+                        "--app.lessons.partitions.initial-delay-ms=" + Long.MAX_VALUE / 2)) {
+
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            LessonRepository lessons = ctx.getBean(LessonRepository.class);
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            int created = ctx.getBean(LessonPartitionMaintenance.class)
+                    .createMonths(current.minusMonths(HISTORY_MONTHS + 1), current.plusMonths(MONTHS_AHEAD));
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            seedTeachersAndFutureLessons(jdbc, now);
+
+            List<Result> results = new ArrayList<>();
+            long rows = 0;
+            for (long target : HISTORY) {
+                for (; rows < target; rows = Math.min(target, rows + INSERT_CHUNK)) {
+                    insertHistory(jdbc, now, rows, Math.min(target, rows + INSERT_CHUNK));
+                }
+                jdbc.execute("analyze lesson");
+                results.add(measure(jdbc, lessons, target, now));
+            }
+
+            System.out.printf("%n[perf] countFutureLessonsByTeacher: %d professores, %d aulas futuras cada, "
+                    + "%d partições mensais (%d criadas), %d chamadas%n",
+                    TEACHERS, FUTURE_PER_TEACHER, partitions(jdbc), created, CALLS);
+            System.out.printf("%12s %10s %12s %10s%n", "histórico", "partições", "mediana µs", "p95 µs");
+            for (Result r : results) {
+                System.out.printf("%12d %10d %12.0f %10.0f%n", r.history, r.partitionsScanned, r.medianMicros, r.p95Micros);
+            }
+
+            Result smallest = results.get(0);
+            Result largest = results.get(results.size() - 1);
+            for (Result r : results) {
+                assertTrue(r.partitionsScanned <= MONTHS_AHEAD + 2,
+                        "planner deveria visitar só os meses futuros, visitou " + r.partitionsScanned);
+            }
+            assertTrue(largest.medianMicros <= 3 * smallest.medianMicros,
+                    "tempo da contagem deveria ficar estável com o histórico: " + results);
+        } finally {
+            if (postgres != null) postgres.stop();
+        }
+    }
+
+    /* ===================== CARGA ===================== */
+
+    private static void seedTeachersAndFutureLessons(JdbcTemplate jdbc, OffsetDateTime now) {
+        long last = FIRST_USER_ID + 2L * TEACHERS - 1;
+        jdbc.update("""
+                insert into party (id, party_type, created_at, updated_at)
+                select g, 'PERSON', ?, ? from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID, last);
+        jdbc.update("""
+                insert into users (id, party_id, email, password_hash, status, security_version, created_at, updated_at)
+                select g, g, 'perf.partitions.' || g || '@quadrago.local', 'x', 'ACTIVE', 0, ?, ?
+                  from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID, last);
+        jdbc.update("""
+                insert into teacher_profile (user_id, created_at, updated_at)
+                select g, ?, ? from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID, FIRST_USER_ID + TEACHERS - 1);
+        jdbc.update("""
+                insert into student_profile (user_id, created_at, updated_at)
+                select g, ?, ? from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID + TEACHERS, last);
+        // Aulas futuras nos próximos dias, no máximo uma por hora por professor
+        jdbc.update("""
+                insert into lesson (created_at, end_at, id, start_at, student_user_id, teacher_user_id, updated_at, status)
+                select ?, s + interval '1 hour', ? + g, s, ? + g % ?, ? + g % ?, ?, 'SCHEDULED'
+                  from generate_series(0, ? - 1) g,
+                       lateral (select date_trunc('hour', ?::timestamptz) + (1 + g / ?) * interval '1 hour') t(s)
+                """, now, FIRST_LESSON_ID, FIRST_USER_ID + TEACHERS, TEACHERS, FIRST_USER_ID, TEACHERS, now,
+                TEACHERS * FUTURE_PER_TEACHER, now, TEACHERS / 4);
+    }
+
+    /** Linhas [from, to) do histórico: passadas, espalhadas pelos últimos {@link #HISTORY_MONTHS} meses. */
+    private static void insertHistory(JdbcTemplate jdbc, OffsetDateTime now, long from, long to) {
+        long offset = FIRST_LESSON_ID + TEACHERS * FUTURE_PER_TEACHER;
+        long spanMinutes = HISTORY_MONTHS * 30L * 24 * 60;
+        jdbc.update("""
+                insert into lesson (created_at, end_at, id, start_at, student_user_id, teacher_user_id, updated_at, status)
+                select s, s + interval '1 hour', ? + g, s, ? + g % ?, ? + (g * 31) % ?, s,
+                       case when g % 50 = 7 then 'SCHEDULED' when g % 10 = 3 then 'CANCELED' else 'COMPLETED' end
+                  from generate_series(?::bigint, ?::bigint - 1) g,
+                       lateral (select ?::timestamptz - interval '1 day' - ((g * 7919) % ?) * interval '1 minute') t(s)
+                """, offset, FIRST_USER_ID + TEACHERS, TEACHERS, FIRST_USER_ID, TEACHERS, from, to, now, spanMinutes);
+    }
+
+    /* ===================== MEDIÇÃO ===================== */
+
+    private static Result measure(JdbcTemplate jdbc, LessonRepository lessons, long history, OffsetDateTime now) {
+        String plan = String.join("\n", jdbc.queryForList("""
+                explain select count(*) from lesson
+                 where teacher_user_id = ? and status in ('SCHEDULED', 'RESCHEDULED') and start_at > ?
+                """, String.class, FIRST_USER_ID, now));
+        int scanned = 0;
+        for (Matcher m = PARTITION_SCAN.matcher(plan); m.find(); ) scanned++;
+
+        Random random = new Random(42);
+        for (int i = 0; i < CALLS / 4; i++) { // aquecimento
+            lessons.countFutureLessonsByTeacher(FIRST_USER_ID + random.nextInt(TEACHERS), now);
+        }
+        long[] nanos = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            long teacher = FIRST_USER_ID + random.nextInt(TEACHERS);
+            long t0 = System.nanoTime();
+            long count = lessons.countFutureLessonsByTeacher(teacher, now);
+            nanos[i] = System.nanoTime() - t0;
+            assertEquals(FUTURE_PER_TEACHER, count, "aulas futuras do professor " + teacher);
+        }
+        Arrays.sort(nanos);
+        return new Result(history, scanned, nanos[CALLS / 2] / 1000.0, nanos[CALLS * 95 / 100] / 1000.0);
+    }
+
+    private static int partitions(JdbcTemplate jdbc) {
+        Integer n = jdbc.queryForObject("select count(*) from pg_inherits where inhparent = to_regclass('lesson')",
+                Integer.class);
+        return n == null ? 0 : n;
+    }
+}
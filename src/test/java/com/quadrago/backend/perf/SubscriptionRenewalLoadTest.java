@@ -0,0 +1,161 @@
+package com.quadrago.backend.perf;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.services.billing.SubscriptionRenewalEngine;
+import com.quadrago.backend.services.billing.SubscriptionRenewalEngine.Outcome;
+import com.quadrago.backend.services.billing.SubscriptionRenewalEngine.RenewalRun;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Um milhão de assinaturas vencendo ao mesmo tempo (PostgreSQL): o SubscriptionRenewalEngine drena
+ * a fila em lotes curtos com vários workers disputando lotes por SKIP LOCKED.
+ *
+ * Confere que cada assinatura foi processada uma vez (um pagamento por período), que nenhuma
+ * transação de lote chegou perto do teto e que uma segunda rodada não encontra nada. Imprime
+ * renovações/s e duração dos lotes.
+ *
+ * Roda num PostgreSQL do Testcontainers (precisa de Docker) ou no banco de -Dperf.renewal.jdbc-url
+ * (vazio; -Dperf.renewal.username/password). Tamanho: -Dperf.renewal.subscriptions; workers e lote:
+ * -Dperf.renewal.workers, -Dperf.renewal.chunk-size.
+ */
+@Tag("perf")
+class SubscriptionRenewalLoadTest {
+
+    private static final int SUBSCRIPTIONS = Integer.getInteger("perf.renewal.subscriptions", 1_000_000);
+    private static final int WORKERS = Integer.getInteger("perf.renewal.workers", 4);
+    private static final int CHUNK_SIZE = Integer.getInteger("perf.renewal.chunk-size", 500);
+    private static final int PAIRS = 1_000;
+    private static final long FIRST_USER_ID = 800_000_000L;
+    private static final long FIRST_SUBSCRIPTION_ID = 2_000_000_000L;
+    /** Um terço do teto da transação (30s): a rodada leva minutos, nenhum lote chega perto disso. */
+    private static final long MAX_CHUNK_MILLIS = 10_000;
+
+    @Test
+    void millionDueSubscriptionsAreRenewedInShortTransactions() {
+        String url = System.getProperty("perf.renewal.jdbc-url");
+        String username = System.getProperty("perf.renewal.username", "postgres");
+        String password = System.getProperty("perf.renewal.password", "");
+        PostgreSQLContainer<?> postgres = null;
+        if (url == null) {
+            Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                    "sem Docker: use -Dperf.renewal.jdbc-url");
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("perf")
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                        "--app.dashboard.activity.backfill-on-startup=false",
+                        "--app.subscriptions.renewal.workers=" + WORKERS,
+                        "--app.subscriptions.renewal.chunk-size=" + CHUNK_SIZE)) {
+
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            seed(jdbc, now);
+            long free = count(jdbc, "select count(*) from subscription where price is null and id >= ?", FIRST_SUBSCRIPTION_ID);
+            long ending = count(jdbc, "select count(*) from subscription where end_at is not null and id >= ?", FIRST_SUBSCRIPTION_ID);
+
+            SubscriptionRenewalEngine engine = ctx.getBean(SubscriptionRenewalEngine.class);
+            RenewalRun run = engine.renewDue();
+            Timer chunks = ctx.getBean(MeterRegistry.class).get("subscriptions.renewal.chunk").timer();
+
+            double seconds = Math.max(0.001, run.elapsed().toMillis() / 1000.0);
+            System.out.printf("%n[perf] renovação: %d assinaturas vencidas, %d workers, lotes de %d%n",
+                    SUBSCRIPTIONS, WORKERS, CHUNK_SIZE);
+            System.out.printf("tempo %d ms, %.0f renovações/s, %s%n", run.elapsed().toMillis(), run.total() / seconds,
+                    run.outcomes());
+            System.out.printf("lotes: %d, média %.1f ms, máx %.1f ms%n", chunks.count(),
+                    chunks.mean(TimeUnit.MILLISECONDS), chunks.max(TimeUnit.MILLISECONDS));
+
+            assertEquals(SUBSCRIPTIONS, run.total());
+            assertEquals(free, run.count(Outcome.NOT_CHARGED));
+            assertEquals(ending, run.count(Outcome.EXPIRED));
+            assertEquals(run.count(Outcome.RENEWED), count(jdbc,
+                    "select count(*) from payment where renewal_period_at is not null and subscription_id >= ?",
+                    FIRST_SUBSCRIPTION_ID));
+            assertEquals(0, count(jdbc, """
+                    select count(*) from subscription where status = 'ACTIVE' and next_renew_at <= ? and id >= ?
+                    """, now, FIRST_SUBSCRIPTION_ID));
+            assertTrue(chunks.max(TimeUnit.MILLISECONDS) < MAX_CHUNK_MILLIS,
+                    "lote mais longo: " + chunks.max(TimeUnit.MILLISECONDS) + " ms");
+            assertEquals(0, engine.renewDue().total(), "segunda rodada sem nada vencido");
+        } finally {
+            if (postgres != null) postgres.stop();
+        }
+    }
+
+    /**
+     * {@link #PAIRS} professores e alunos; assinaturas mensais vencidas ao longo do último dia,
+     * 5% sem preço e 4% terminando no vencimento (expiram), e a linha de contadores de cada professor.
+     */
+    private static void seed(JdbcTemplate jdbc, OffsetDateTime now) {
+        long last = FIRST_USER_ID + 2L * PAIRS - 1;
+        jdbc.update("""
+                insert into party (id, party_type, created_at, updated_at)
+                select g, 'PERSON', ?, ? from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID, last);
+        jdbc.update("""
+                insert into users (id, party_id, email, password_hash, status, security_version, created_at, updated_at)
+                select g, g, 'perf.renewal.' || g || '@quadrago.local', 'x', 'ACTIVE', 0, ?, ?
+                  from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID, last);
+        jdbc.update("""
+                insert into teacher_profile (user_id, created_at, updated_at)
+                select g, ?, ? from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID, FIRST_USER_ID + PAIRS - 1);
+        jdbc.update("""
+                insert into student_profile (user_id, created_at, updated_at)
+                select g, ?, ? from generate_series(?::bigint, ?::bigint) g
+                """, now, now, FIRST_USER_ID + PAIRS, last);
+        jdbc.update("""
+                insert into subscription (id, teacher_user_id, student_user_id, status, plan_name, price,
+                                          start_at, next_renew_at, end_at, created_at, updated_at)
+                select ? + g, ? + g % ?, ? + (g / ?) % ?, 'ACTIVE', 'Mensal',
+                       case when g % 20 = 0 then null else 100.00 end,
+                       d - interval '1 month', d, case when g % 25 = 1 then d end, ?, ?
+                  from generate_series(0, ? - 1) g,
+                       lateral (select ?::timestamptz - (g % 86400) * interval '1 second') t(d)
+                """, FIRST_SUBSCRIPTION_ID, FIRST_USER_ID, PAIRS, FIRST_USER_ID + PAIRS, PAIRS, PAIRS,
+                now, now, SUBSCRIPTIONS, now);
+        // Contadores do dashboard já existentes, como num sistema em uso (sem a criação sob demanda)
+        jdbc.update("""
+                insert into teacher_dashboard_counters (teacher_user_id, active_students, active_subscriptions,
+                                                        scheduled_lessons, scheduled_watermark, updated_at)
+                select s.teacher_user_id, count(distinct s.student_user_id), count(*), 0, ?, ?
+                  from subscription s where s.id >= ? group by s.teacher_user_id
+                """, now, now, FIRST_SUBSCRIPTION_ID);
+        jdbc.execute("analyze subscription");
+    }
+
+    private static long count(JdbcTemplate jdbc, String sql, Object... args) {
+        Long n = jdbc.queryForObject(sql, Long.class, args);
+        return n != null ? n : 0;
+    }
+}
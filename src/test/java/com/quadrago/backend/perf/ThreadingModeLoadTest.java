@@ -0,0 +1,159 @@
+package com.quadrago.backend.perf;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.dtos.UserDtos.CreateTeacherProfileRequest;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.services.TeacherProfileService;
+import com.quadrago.backend.services.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Carga em /auth/login e /dashboard/* com platform threads e com virtual threads (Java 21+).
+ * Roda só com {@code mvn test -Pperf}; parâmetros via -Dperf.concurrency / -Dperf.seconds.
+ *
+ * Cada modo sobe a aplicação real (SecurityConfig + H2) numa porta livre; o cliente mantém
+ * N requests em voo (HttpClient assíncrono) e mede throughput e p99.
+ */
+@Tag("perf")
+class ThreadingModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("perf.concurrency", 400);
+    private static final int SECONDS = Integer.getInteger("perf.seconds", 10);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup-seconds", 3);
+
+    private static final String EMAIL = "perf.teacher@quadrago.local";
+    private static final String PASSWORD = "perf-secret";
+    private static final String LOGIN_BODY = "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}";
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    record Result(String mode, String endpoint, long requests, long errors, double throughput, double p50Ms, double p99Ms) {}
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        List<Result> results = new ArrayList<>(run(false));
+        if (Runtime.version().feature() >= 21) {
+            results.addAll(run(true));
+        } else {
+            System.out.println("[perf] Java " + Runtime.version().feature() + ": modo virtual threads exige Java 21+");
+        }
+
+        System.out.printf("%n[perf] concurrency=%d, %ds por endpoint%n", CONCURRENCY, SECONDS);
+        System.out.printf("%-9s %-22s %9s %7s %10s %9s %9s%n", "mode", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result r : results) {
+            System.out.printf("%-9s %-22s %9d %7d %10.1f %9.1f %9.1f%n",
+                    r.mode, r.endpoint, r.requests, r.errors, r.throughput, r.p50Ms, r.p99Ms);
+        }
+        assertTrue(results.stream().allMatch(r -> r.requests > 0));
+    }
+
+    private List<Result> run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("perf")
+                .run(   // argumentos de linha de comando: precedem o application.properties
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:perf-" + mode + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")) {
+
+            Long teacherId = ctx.getBean(UserService.class).createPersonUser(new CreatePersonUserRequest(
+                    "Perf Teacher", null, null, null, EMAIL, PASSWORD, Set.of(RoleName.TEACHER))).id();
+            ctx.getBean(TeacherProfileService.class).create(teacherId, new CreateTeacherProfileRequest(null, null, null));
+
+            String base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            String token = accessToken(base);
+
+            Map<String, Function<String, HttpRequest>> endpoints = new LinkedHashMap<>();
+            endpoints.put("POST /auth/login", b -> HttpRequest.newBuilder(URI.create(b + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(LOGIN_BODY)).build());
+            endpoints.put("GET /dashboard/overview", b -> HttpRequest.newBuilder(URI.create(b + "/dashboard/overview"))
+                    .header("Authorization", "Bearer " + token).GET().build());
+            endpoints.put("GET /dashboard/activities", b -> HttpRequest.newBuilder(URI.create(b + "/dashboard/activities"))
+                    .header("Authorization", "Bearer " + token).GET().build());
+
+            List<Result> results = new ArrayList<>();
+            for (var e : endpoints.entrySet()) {
+                load(base, e.getValue(), WARMUP_SECONDS);
+                results.add(toResult(mode, e.getKey(), load(base, e.getValue(), SECONDS)));
+            }
+            return results;
+        }
+    }
+
+    private String accessToken(String base) throws Exception {
+        HttpResponse<String> res = http.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(LOGIN_BODY)).build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"").matcher(res.body());
+        if (res.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("Login falhou: " + res.statusCode() + " " + res.body());
+        }
+        return m.group(1);
+    }
+
+    private record Samples(long[] latenciesNanos, long errors, long elapsedNanos) {}
+
+    /** Mantém CONCURRENCY requests em voo durante {@code seconds}. */
+    private Samples load(String base, Function<String, HttpRequest> request, int seconds) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        while (System.nanoTime() < end) {
+            if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) continue;
+            long t0 = System.nanoTime();
+            http.sendAsync(request.apply(base), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((res, ex) -> {
+                        if (ex != null || res.statusCode() >= 400) errors.incrementAndGet();
+                        else latencies.add(System.nanoTime() - t0);
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(CONCURRENCY); // espera os que estão em voo
+        long elapsed = System.nanoTime() - start;
+        return new Samples(latencies.stream().mapToLong(Long::longValue).toArray(), errors.get(), elapsed);
+    }
+
+    private static Result toResult(String mode, String endpoint, Samples s) {
+        long[] sorted = s.latenciesNanos.clone();
+        Arrays.sort(sorted);
+        double seconds = s.elapsedNanos / 1e9;
+        return new Result(mode, endpoint, sorted.length, s.errors, sorted.length / seconds,
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.99));
+    }
+
+    private static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,215 @@
+package com.quadrago.backend.perf;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.services.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Export em streaming de 1M usuários sintéticos com heap pequeno (o profile perf roda com -Xmx256m).
+ *
+ * Exporta duas vezes, com 10 mil e com 1M usuários no banco, e mede o heap vivo (ocupado logo
+ * após GCs completos) durante cada export: com streaming ele não cresce com
+ * o número de linhas e fica bem abaixo do -Xmx; materializando as linhas, cresceria centenas de MB.
+ *
+ * H2 em arquivo (cache de páginas pequeno) para os dados não ocuparem o heap da JVM do teste.
+ * Parâmetros: -Dperf.export.rows, -Dperf.export.small-rows.
+ */
+@Tag("perf")
+class UserExportMemoryTest {
+
+    private static final int ROWS = Integer.getInteger("perf.export.rows", 1_000_000);
+    private static final int SMALL_ROWS = Integer.getInteger("perf.export.small-rows", 10_000);
+    /** Diferença aceita no heap vivo entre o export pequeno e o grande (cache de páginas do H2, buffers). */
+    private static final long MAX_LIVE_GROWTH = 32L << 20;
+    private static final long FIRST_ID = 1_000;
+
+    private static final String EMAIL = "perf.admin@quadrago.local";
+    private static final String PASSWORD = "perf-secret";
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void liveHeapDoesNotGrowWithExportedRows() throws Exception {
+        Path dir = Files.createTempDirectory("perf-export");
+        String url = "jdbc:h2:file:" + dir.resolve("db-" + UUID.randomUUID()).toAbsolutePath()
+                + ";MODE=PostgreSQL;CACHE_SIZE=8192";
+
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("perf")
+                .run("--server.port=0", "--spring.datasource.url=" + url,
+                        "--app.dashboard.activity.backfill-on-startup=false")) {
+
+            UserService users = ctx.getBean(UserService.class);
+            users.createPersonUser(new CreatePersonUserRequest(
+                    "Perf Admin", null, null, null, EMAIL, PASSWORD, Set.of(RoleName.ADMIN)));
+            users.createPersonUser(new CreatePersonUserRequest(
+                    "Perf Roles", null, null, null, "perf.roles@quadrago.local", PASSWORD,
+                    Set.of(RoleName.TEACHER, RoleName.STUDENT)));
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            String base = "http://localhost:" + ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            String token = accessToken(base);
+
+            seed(jdbc, FIRST_ID, FIRST_ID + SMALL_ROWS);
+            Export smallNdjson = export(base + "/admin/exports/users?format=ndjson", token, false);
+            Export smallCsv = export(base + "/admin/exports/users?format=csv&gzip=true", token, true);
+            seed(jdbc, FIRST_ID + SMALL_ROWS, FIRST_ID + ROWS);
+            Export ndjson = export(base + "/admin/exports/users?format=ndjson", token, false);
+            Export csv = export(base + "/admin/exports/users?format=csv&gzip=true", token, true);
+
+            long maxHeap = Runtime.getRuntime().maxMemory();
+            System.out.printf("%n[perf] export de usuários, heap máximo %d MB%n", maxHeap >> 20);
+            System.out.printf("%-12s %10s %9s %14s%n", "formato", "linhas", "ms", "heap vivo MB");
+            for (var row : List.of(Map.entry("ndjson", smallNdjson), Map.entry("csv.gz", smallCsv),
+                    Map.entry("ndjson", ndjson), Map.entry("csv.gz", csv))) {
+                Export e = row.getValue();
+                System.out.printf("%-12s %10d %9d %14d%n", row.getKey(), e.lines, e.millis, e.liveHeap >> 20);
+            }
+
+            assertEquals(SMALL_ROWS + 2L, smallNdjson.lines);
+            assertEquals(ROWS + 2L, ndjson.lines);
+            assertEquals(ROWS + 3L, csv.lines, "cabeçalho + uma linha por usuário");
+            assertTrue(ndjson.liveHeap - smallNdjson.liveHeap < MAX_LIVE_GROWTH,
+                    "heap vivo do ndjson cresceu com as linhas: " + smallNdjson + " -> " + ndjson);
+            assertTrue(csv.liveHeap - smallCsv.liveHeap < MAX_LIVE_GROWTH,
+                    "heap vivo do csv cresceu com as linhas: " + smallCsv + " -> " + csv);
+            assertTrue(Math.max(ndjson.liveHeap, csv.liveHeap) < maxHeap / 2,
+                    "heap vivo perto do -Xmx: " + ndjson + ", " + csv);
+        }
+    }
+
+    record Export(long lines, long millis, long liveHeap) {}
+
+    /** Um export inteiro, com o maior heap vivo observado enquanto ele roda. */
+    private Export export(String url, String token, boolean gzip) throws Exception {
+        try (LiveHeapProbe probe = new LiveHeapProbe()) {
+            long t0 = System.nanoTime();
+            long lines = countLines(url, token, gzip);
+            return new Export(lines, (System.nanoTime() - t0) / 1_000_000, probe.max());
+        }
+    }
+
+    /** Ids [fromId, toId): party/person/users/roles/perfis em SQL set-based (1 de cada 10 é professor, o resto aluno). */
+    private static void seed(JdbcTemplate jdbc, long fromId, long toId) {
+        String range = " from system_range(" + fromId + ", " + (toId - 1) + ") ";
+        jdbc.update("insert into party (id, party_type, created_at, updated_at)"
+                + " select x, 'PERSON', current_timestamp, current_timestamp" + range);
+        jdbc.update("insert into person (party_id, name, cpf, phone, birth_date, created_at, updated_at)"
+                + " select x, concat('Pessoa ', x), concat('cpf-', x), '+55 11 90000-0000', date '1990-01-01',"
+                + " current_timestamp, current_timestamp" + range);
+        jdbc.update("insert into users (id, party_id, email, password_hash, status, security_version, created_at, updated_at)"
+                + " select x, x, concat('user', x, '@perf.local'), 'x', 'ACTIVE', 0, current_timestamp, current_timestamp" + range);
+        jdbc.update("insert into user_roles (user_id, role_id)"
+                + " select x, (select id from roles where name = case when mod(x, 10) = 0 then 'TEACHER' else 'STUDENT' end)" + range);
+        jdbc.update("insert into teacher_profile (user_id, bio, hourly_rate, calendar_version, created_at, updated_at)"
+                + " select x, 'Bio, com \"aspas\"', 120.50, 0, current_timestamp, current_timestamp" + range
+                + " where mod(x, 10) = 0");
+        jdbc.update("insert into teacher_specialties (user_id, specialty)"
+                + " select x, 'beach tennis'" + range + " where mod(x, 10) = 0");
+        jdbc.update("insert into student_profile (user_id, emergency_contact, notes, calendar_version, created_at, updated_at)"
+                + " select x, 'Contato', null, 0, current_timestamp, current_timestamp" + range
+                + " where mod(x, 10) <> 0");
+    }
+
+    private long countLines(String url, String token, boolean gzip) throws Exception {
+        HttpResponse<InputStream> res = http.send(HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, res.statusCode());
+        try (InputStream body = gzip ? new GZIPInputStream(res.body()) : res.body();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return reader.lines().count();
+        }
+    }
+
+    private String accessToken(String base) throws Exception {
+        HttpResponse<String> res = http.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"").matcher(res.body());
+        if (res.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("Login falhou: " + res.statusCode() + " " + res.body());
+        }
+        return m.group(1);
+    }
+
+    /**
+     * Heap vivo durante o bloco: uma thread força GC completo a cada 500 ms e guarda o maior heap
+     * ocupado ao fim do GC, medido pelo próprio coletor ({@link MemoryPoolMXBean#getCollectionUsage()};
+     * ler o heap depois contaria o que o export alocou nesse meio-tempo).
+     */
+    private static final class LiveHeapProbe implements AutoCloseable {
+        private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP && p.getCollectionUsage() != null).toList();
+        private final AtomicLong max = new AtomicLong();
+        private final Thread sampler;
+
+        LiveHeapProbe() {
+            sample();
+            sampler = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Thread.sleep(500);
+                        sample();
+                    }
+                } catch (InterruptedException ignored) {
+                    // fim da medição
+                }
+            }, "live-heap-probe");
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+
+        private void sample() {
+            System.gc();
+            long used = heapPools.stream().mapToLong(p -> p.getCollectionUsage().getUsed()).sum();
+            max.accumulateAndGet(used, Math::max);
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /** Interrompido durante o join: devolve o sinal à thread do teste em vez de lançar. */
+        @Override
+        public void close() {
+            sampler.interrupt();
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.quadrago.backend.repositories;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.config.TestSecurityConfig;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.services.UserService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Atualização de um banco criado antes das migrações.
+ *
+ * O container nasce com o schema e os dados do commit baseline (db/legacy/baseline.sql: DDL do
+ * ddl-auto=update, ids IDENTITY). O contexto sobe contra ele com a configuração de produção do
+ * Flyway (baseline-on-migrate na versão 1) e o Hibernate validando o schema: subir já é a
+ * atualização. O resultado precisa ser o mesmo schema de um banco novo migrado do zero.
+ *
+ * Precisa de Docker; sem ele o teste é pulado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(
+        classes = BackendApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = {
+                "spring.flyway.enabled=true",
+                "spring.jpa.hibernate.ddl-auto=validate",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                "app.dashboard.activity.backfill-on-startup=false"
+        }
+)
+@Import(TestSecurityConfig.class)
+@ActiveProfiles("test")
+class MigrationUpgradeTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withInitScript("db/legacy/baseline.sql");
+
+    /** Colunas, constraints, índices e sequências do schema public; partições de lesson ficam de fora. */
+    private static final String SCHEMA = """
+            select d from (
+              select 'column ' || c.table_name || '.' || c.column_name || ' ' || c.data_type
+                     || coalesce('(' || c.character_maximum_length || ')', '')
+                     || coalesce(' ' || c.numeric_precision || ',' || c.numeric_scale, '')
+                     || case when c.is_nullable = 'NO' then ' not null' else '' end
+                     || coalesce(' default ' || c.column_default, '')
+                     || case when c.is_identity = 'YES' then ' identity' else '' end as d
+                from information_schema.columns c
+                join pg_class t on t.relname = c.table_name and t.relnamespace = 'public'::regnamespace
+               where c.table_schema = 'public' and not t.relispartition
+                 and c.table_name <> 'flyway_schema_history'
+              union all
+              select 'constraint ' || t.relname || ' ' || con.conname || ' ' || pg_get_constraintdef(con.oid)
+                from pg_constraint con
+                join pg_class t on t.oid = con.conrelid
+               where t.relnamespace = 'public'::regnamespace and not t.relispartition
+                 and t.relname <> 'flyway_schema_history'
+              union all
+              select 'index ' || i.indexdef
+                from pg_indexes i
+                join pg_class t on t.relname = i.tablename and t.relnamespace = 'public'::regnamespace
+               where i.schemaname = 'public' and not t.relispartition
+                 and i.tablename <> 'flyway_schema_history'
+              union all
+              select 'sequence ' || s.sequencename || ' increment ' || s.increment_by
+                from pg_sequences s
+               where s.schemaname = 'public'
+            ) x
+            order by d
+            """;
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired UserService users;
+
+    @Test
+    void legacyDatabaseIsBaselinedAndMigrated() {
+        List<Map<String, Object>> history = jdbc.queryForList(
+                "select version, type, success from flyway_schema_history where version is not null order by installed_rank");
+        assertEquals("1", history.get(0).get("version"));
+        assertEquals("BASELINE", history.get(0).get("type"));
+        assertTrue(history.size() > 1, "nenhuma migração rodou depois do baseline");
+        assertTrue(history.stream().allMatch(h -> Boolean.TRUE.equals(h.get("success"))), history.toString());
+    }
+
+    @Test
+    void legacyRowsSurviveAndNewIdsStartAfterThem() {
+        assertEquals(3, jdbc.queryForObject("select count(*) from users", Integer.class));
+        assertEquals(0L, jdbc.queryForObject(
+                "select security_version from users where email = 'teacher@legacy.local'", Long.class));
+        assertEquals(2, jdbc.queryForObject("select count(*) from lesson where teacher_user_id = 2", Integer.class));
+        assertEquals(1, jdbc.queryForObject("select count(*) from payment where subscription_id = 1", Integer.class));
+
+        // V2 avançou as sequências para depois dos ids IDENTITY já gravados
+        Long id = users.createPersonUser(new CreatePersonUserRequest(
+                "Novo", null, null, null, "novo@quadrago.local", "x", Set.of(RoleName.STUDENT))).id();
+        assertTrue(id > 3, "id novo colide com os legados: " + id);
+    }
+
+    @Test
+    void upgradedSchemaMatchesAFreshlyMigratedOne() {
+        jdbc.execute("drop database if exists fresh");
+        jdbc.execute("create database fresh");
+        String url = "jdbc:postgresql://" + POSTGRES.getHost() + ":" + POSTGRES.getMappedPort(5432) + "/fresh";
+        Flyway.configure()
+                .dataSource(url, POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        JdbcTemplate fresh = new JdbcTemplate(new DriverManagerDataSource(url, POSTGRES.getUsername(), POSTGRES.getPassword()));
+
+        List<String> upgraded = jdbc.queryForList(SCHEMA, String.class);
+        List<String> created = fresh.queryForList(SCHEMA, String.class);
+        assertEquals(String.join("\n", created), String.join("\n", upgraded));
+    }
+}
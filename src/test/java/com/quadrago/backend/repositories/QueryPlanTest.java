@@ -0,0 +1,205 @@
+package com.quadrago.backend.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.config.TestSecurityConfig;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Toda consulta declarada nos repositórios (@Query e derivadas do nome) precisa de índice.
+ *
+ * Sobe o contexto contra PostgreSQL com o schema das migrações (Hibernate só valida), chama cada
+ * método com argumentos fictícios numa transação desfeita no fim, captura o SQL gerado e roda
+ * {@code EXPLAIN} do plano genérico com {@code enable_seqscan = off}: com o planner proibido de
+ * varrer, um Seq Scan no plano significa que não existe índice que atenda o filtro.
+ *
+ * Precisa de Docker; sem ele o teste é pulado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(
+        classes = BackendApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = {
+                "spring.flyway.enabled=true",
+                "spring.jpa.hibernate.ddl-auto=validate",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + "com.quadrago.backend.repositories.QueryPlanTest$Capture",
+                "app.dashboard.activity.backfill-on-startup=false"
+        }
+)
+@Import(TestSecurityConfig.class)
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    /** SQL que o Hibernate prepara, na ordem; o teste limpa antes de cada chamada. */
+    public static final class Capture implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\?");
+
+    @Autowired ApplicationContext ctx;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void noRepositoryQueryFallsBackToSequentialScan() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Repositories repositories = new Repositories(ctx);
+        List<String> failures = new ArrayList<>();
+        int explained = 0;
+
+        for (Class<?> domainType : repositories) {
+            Class<?> repoInterface = repositories.getRequiredRepositoryInformation(domainType).getRepositoryInterface();
+            Object repo = repositories.getRepositoryFor(domainType).orElseThrow();
+
+            for (Method method : repoInterface.getDeclaredMethods()) {
+                if (method.isDefault() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = repoInterface.getSimpleName() + "." + method.getName();
+                Set<String> statements = capture(tx, repo, method);
+                assertFalse(statements.isEmpty(), name + " não gerou SQL");
+
+                for (String sql : statements) {
+                    List<String> scanned = seqScans(tx, sql);
+                    explained++;
+                    if (!scanned.isEmpty()) {
+                        failures.add(name + ": Seq Scan em " + scanned + "\n    " + sql);
+                    }
+                }
+            }
+        }
+
+        assertTrue(explained > 0, "nenhuma consulta examinada");
+        assertTrue(failures.isEmpty(), "Consultas sem índice:\n" + String.join("\n", failures));
+    }
+
+    /** Chama o método (efeitos desfeitos no rollback) e devolve o SQL que ele preparou. */
+    private Set<String> capture(TransactionTemplate tx, Object repo, Method method) {
+        return tx.execute(status -> {
+            status.setRollbackOnly();
+            Capture.SQL.clear();
+            try {
+                method.invoke(repo, dummyArgs(method));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(method + " falhou com argumentos fictícios", e.getCause());
+            }
+            return new LinkedHashSet<>(Capture.SQL);
+        });
+    }
+
+    /**
+     * Relações varridas sequencialmente no plano genérico. O SQL vira um PREPARE (parâmetros como $n,
+     * tipos inferidos pelo servidor) e o EXECUTE com NULLs, forçado a plano genérico, não depende
+     * dos valores.
+     */
+    private List<String> seqScans(TransactionTemplate tx, String sql) throws Exception {
+        Matcher m = PLACEHOLDER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int n = 0;
+        while (m.find()) m.appendReplacement(numbered, "\\$" + (++n));
+        m.appendTail(numbered);
+        String nulls = n == 0 ? "" : "(" + String.join(", ", Collections.nCopies(n, "null")) + ")";
+
+        String plan = tx.execute(status -> {
+            status.setRollbackOnly();
+            jdbc.execute("set local enable_seqscan = off");
+            jdbc.execute("set local plan_cache_mode = force_generic_plan");
+            jdbc.execute("prepare plan_check as " + numbered);
+            try {
+                return jdbc.queryForObject("explain (format json) execute plan_check" + nulls, String.class);
+            } finally {
+                jdbc.execute("deallocate plan_check");
+            }
+        });
+        List<String> scanned = new ArrayList<>();
+        collectSeqScans(json.readTree(plan).get(0).get("Plan"), scanned);
+        return scanned;
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> out) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            out.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) collectSeqScans(child, out);
+    }
+
+    private static Object[] dummyArgs(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) args[i] = dummy(types[i]);
+        return args;
+    }
+
+    private static Object dummy(Type type) {
+        if (type instanceof ParameterizedType p && p.getRawType() instanceof Class<?> raw
+                && Collection.class.isAssignableFrom(raw)) {
+            return List.of(dummy(p.getActualTypeArguments()[0]));
+        }
+        Class<?> c = (Class<?>) type;
+        if (c == Long.class || c == long.class) return 1L;
+        if (c == Integer.class || c == int.class) return 10;
+        if (c == Short.class || c == short.class) return (short) 1;
+        if (c == Boolean.class || c == boolean.class) return false;
+        if (c == String.class) return "x";
+        if (c == UUID.class) return UUID.randomUUID();
+        if (c == OffsetDateTime.class) return OffsetDateTime.now();
+        if (c == Instant.class) return Instant.now();
+        if (c == LocalDate.class) return LocalDate.now();
+        if (c.isEnum()) return c.getEnumConstants()[0];
+        throw new IllegalArgumentException("Sem valor fictício para " + type + ": adicione em dummy()");
+    }
+}
@@ -0,0 +1,57 @@
+package com.quadrago.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Parser CSV da importação: aspas, quebras de linha dentro do campo e número da linha de cada registro. */
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepCommasAndEscapedQuotes() throws IOException {
+        CsvReader csv = reader("name,email\n\"Silva, Ana\",\"a\"\"b@x.com\"\n");
+        assertEquals(List.of("name", "email"), csv.next());
+        assertEquals(List.of("Silva, Ana", "a\"b@x.com"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void embeddedNewlineStaysInTheFieldAndRecordLineTracksPhysicalLines() throws IOException {
+        CsvReader csv = reader("name,email\n\"Ana\nMaria\",ana@x.com\nBia,bia@x.com\n");
+        csv.next();
+        assertEquals(1, csv.recordLine);
+
+        assertEquals(List.of("Ana\nMaria", "ana@x.com"), csv.next());
+        assertEquals(2, csv.recordLine);
+
+        assertEquals(List.of("Bia", "bia@x.com"), csv.next());
+        assertEquals(4, csv.recordLine, "o registro anterior ocupou as linhas 2 e 3");
+    }
+
+    @Test
+    void crlfBlankLinesAndMissingTrailingNewline() throws IOException {
+        CsvReader csv = reader("a,b\r\n\r\n,\r\nx,y");
+        assertEquals(List.of("a", "b"), csv.next());
+        assertEquals(List.of(""), csv.next());
+        assertEquals(2, csv.recordLine);
+        assertEquals(List.of("", ""), csv.next());
+        assertEquals(List.of("x", "y"), csv.next());
+        assertEquals(4, csv.recordLine);
+        assertNull(csv.next());
+    }
+
+    @Test
+    void quoteInsideAnUnquotedFieldIsLiteralAndUnclosedQuoteEndsAtEof() throws IOException {
+        CsvReader csv = reader("pol\"egada,\"aberto,sem fim\n");
+        assertEquals(List.of("pol\"egada", "aberto,sem fim\n"), csv.next());
+        assertNull(csv.next());
+    }
+
+    private static CsvReader reader(String text) {
+        return new CsvReader(new StringReader(text));
+    }
+}
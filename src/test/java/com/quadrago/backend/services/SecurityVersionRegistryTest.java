@@ -0,0 +1,127 @@
+package com.quadrago.backend.services;
+
+import com.quadrago.backend.support.MigratedPostgres;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Modo stateless com várias réplicas contra PostgreSQL (schema das migrações): mudança feita num nó
+ * vale nos outros após o sync e sobrevive ao restart de um nó.
+ *
+ * Precisa de Docker; sem ele o teste é pulado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SecurityVersionRegistryTest {
+
+    private static final long TTL = 60_000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbc;
+    private static DataSourceTransactionManager transactionManager;
+
+    @BeforeAll
+    static void migrate() {
+        DataSource dataSource = MigratedPostgres.migrate(POSTGRES);
+        jdbc = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("truncate security_version_floor");
+    }
+
+    private SecurityVersionRegistry node(boolean shared) {
+        var registry = new SecurityVersionRegistry(jdbc, transactionManager, TTL, shared);
+        registry.init();
+        return registry;
+    }
+
+    private static UserSecurityChangedEvent changed(long userId, long version) {
+        return new UserSecurityChangedEvent(userId, version, Set.of("u" + userId + "@quadrago.local"));
+    }
+
+    @Test
+    void changeOnOneNodeIsEnforcedOnAnotherAfterSync() {
+        var nodeA = node(true);
+        var nodeB = node(true);
+
+        nodeA.onUserSecurityChanged(changed(7L, 3));
+        assertFalse(nodeA.isCurrent(7L, 2), "nó da mudança barra na hora");
+        assertTrue(nodeB.isCurrent(7L, 2), "antes do sync o outro nó ainda não sabe");
+
+        nodeB.sync();
+        assertFalse(nodeB.isCurrent(7L, 2));
+        assertTrue(nodeB.isCurrent(7L, 3));
+        assertTrue(nodeB.isCurrent(8L, 0), "usuário sem mudança segue aceito");
+    }
+
+    @Test
+    void restartedNodeIsSeededAndLowerVersionsNeverWin() {
+        var nodeA = node(true);
+        nodeA.onUserSecurityChanged(changed(7L, 5));
+        nodeA.onUserSecurityChanged(changed(7L, 4));                        // evento atrasado
+        nodeA.onUserSecurityChanged(UserSecurityChangedEvent.deleted(9L, "x@quadrago.local"));
+        assertEquals(5L, jdbc.queryForObject("select min_version from security_version_floor where user_id = 7", Long.class));
+
+        var restarted = node(true);
+        assertFalse(restarted.isCurrent(7L, 4));
+        assertTrue(restarted.isCurrent(7L, 5));
+        assertFalse(restarted.isCurrent(9L, 1_000), "usuário removido não tem token válido");
+    }
+
+    @Test
+    void replicasPublishingTheSameUserAtOnceKeepTheHighestVersion() throws Exception {
+        var nodeA = node(true);
+        var nodeB = node(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            var node = i % 2 == 0 ? nodeA : nodeB;
+            long version = i;
+            Thread writer = new Thread(() -> node.onUserSecurityChanged(changed(7L, version)));
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) writer.join();
+
+        assertEquals(20L, jdbc.queryForObject("select min_version from security_version_floor where user_id = 7", Long.class));
+    }
+
+    @Test
+    void expiredRowsAreNeitherSeededNorKept() {
+        var nodeA = node(true);
+        long past = System.currentTimeMillis() - 1;
+        jdbc.update("insert into security_version_floor (user_id, min_version, keep_until_ms, changed_at_ms) values (?, ?, ?, ?)",
+                11L, 9L, past, past - TTL);
+
+        assertTrue(node(true).isCurrent(11L, 0), "token antigo já expirou sozinho");
+        nodeA.cleanup();
+        assertEquals(0, jdbc.queryForObject("select count(*) from security_version_floor", Integer.class));
+    }
+
+    @Test
+    void localModeDoesNotTouchTheDatabase() {
+        var local = node(false);
+        local.onUserSecurityChanged(changed(7L, 3));
+        local.sync();
+        local.cleanup();
+
+        assertFalse(local.isCurrent(7L, 2));
+        assertEquals(0, jdbc.queryForObject("select count(*) from security_version_floor", Integer.class));
+    }
+}
@@ -0,0 +1,44 @@
+package com.quadrago.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quadrago.backend.dtos.UserDtos.CreateTeacherProfileRequest;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/** Listas do NDJSON vêm do array_agg: vírgula dentro de um valor não o divide em dois. */
+class UserExportServiceTest extends IntegrationTest {
+
+    @Autowired UserExportService exports;
+    @Autowired ObjectMapper mapper;
+
+    @Test
+    void specialtyWithCommaStaysOneElement() throws Exception {
+        Long id = person("export.virgula", RoleName.TEACHER);
+        teacherProfiles.create(id, new CreateTeacherProfileRequest(null, null, Set.of("vôlei, areia", "futevôlei")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exports.exportUsers(UserExportService.Format.NDJSON, false, out);
+
+        JsonNode teacher = null;
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = mapper.readTree(line);
+            if (node.get("id").asLong() == id) teacher = node;
+        }
+        assertNotNull(teacher);
+        Set<String> specialties = new HashSet<>();
+        teacher.get("teacher").get("specialties").forEach(s -> specialties.add(s.asText()));
+        assertEquals(Set.of("vôlei, areia", "futevôlei"), specialties);
+        assertEquals("TEACHER", teacher.get("roles").get(0).asText());
+    }
+}
@@ -0,0 +1,111 @@
+package com.quadrago.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.dtos.UserDtos.ImportRowError;
+import com.quadrago.backend.dtos.UserDtos.UserImportJobResponse;
+import com.quadrago.backend.dtos.UserDtos.UserImportResult;
+import com.quadrago.backend.enums.ImportJobStatus;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.repositories.UserRepository;
+import com.quadrago.backend.services.UserExportService.Format;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Importação em lote: job em background com status e o refazer linha a linha quando um bloco viola unicidade. */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "app.import.chunk-size=3")
+class UserImportServiceTest extends IntegrationTest {
+
+    @Autowired UserImportService importService;
+    @Autowired UserRepository userRepo;
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    void chunkViolatingUniquenessIsRetriedRowByRow() throws Exception {
+        String suffix = System.nanoTime() + "@quadrago.local";
+        List<String> emails = List.of("a" + suffix, "b" + suffix, "c" + suffix, "d" + suffix);
+        StringBuilder csv = new StringBuilder("name,email,password\n");
+        emails.forEach(email -> csv.append("Aluno,").append(email).append(",segredo\n"));
+
+        UserImportService.ImportBatch batch = importService.prepare(Format.CSV, stream(csv.toString()));
+        // cadastro concorrente entre a checagem de unicidade e o insert do primeiro bloco (linhas 2 a 4)
+        users.createPersonUser(new CreatePersonUserRequest("Concorrente", null, null, null,
+                emails.get(1), "x", Set.of(RoleName.STUDENT)));
+
+        UserImportResult result = importService.complete(batch);
+
+        assertEquals(4, result.total());
+        assertEquals(3, result.created());
+        assertEquals(List.of(new ImportRowError(3, emails.get(1), "E-mail ou CPF já cadastrado")), result.errors());
+        assertTrue(userRepo.existsByEmail(emails.get(0)), "o resto do bloco é criado na repetição");
+        assertTrue(userRepo.existsByEmail(emails.get(2)));
+        assertTrue(userRepo.existsByEmail(emails.get(3)), "o bloco seguinte não é afetado");
+    }
+
+    @Test
+    void importIsAcceptedAndFinishesInBackground() throws Exception {
+        String suffix = System.nanoTime() + "@quadrago.local";
+        String csv = """
+                name,email,password,roles
+                "Souza, Carla",carla%1$s,segredo,"student;teacher"
+                Sem Senha,semsenha%1$s,,
+                Papel,papel%1$s,segredo,chef
+                """.formatted(suffix);
+
+        MvcResult accepted = mvc.perform(post("/admin/imports/users").param("format", "csv")
+                        .contentType(MediaType.TEXT_PLAIN).content(csv)
+                        .with(user("1").roles("ADMIN")))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        UserImportJobResponse job = read(accepted);
+        assertEquals("/admin/imports/users/" + job.id(), accepted.getResponse().getHeader("Location"));
+        assertEquals(3, job.total());
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (job.status() != ImportJobStatus.DONE && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            job = read(mvc.perform(get("/admin/imports/users/" + job.id()).with(user("1").roles("ADMIN")))
+                    .andExpect(status().isOk())
+                    .andReturn());
+        }
+
+        assertEquals(ImportJobStatus.DONE, job.status(), "importação não terminou: " + job);
+        assertEquals(1, job.result().created());
+        assertEquals(List.of(3, 4), job.result().errors().stream().map(ImportRowError::line).toList());
+        assertTrue(userRepo.existsByEmail("carla" + suffix));
+    }
+
+    @Test
+    void unknownImportIsNotFound() throws Exception {
+        mvc.perform(get("/admin/imports/users/nao-existe").with(user("1").roles("ADMIN")))
+                .andExpect(status().isNotFound());
+    }
+
+    private UserImportJobResponse read(MvcResult result) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8),
+                UserImportJobResponse.class);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,212 @@
+package com.quadrago.backend.services.billing;
+
+import com.quadrago.backend.dashboard.DashboardService;
+import com.quadrago.backend.dashboard.dto.RecentActivityDto;
+import com.quadrago.backend.enums.PaymentStatus;
+import com.quadrago.backend.enums.SubscriptionStatus;
+import com.quadrago.backend.models.Payment;
+import com.quadrago.backend.models.Subscription;
+import com.quadrago.backend.repositories.PaymentRepository;
+import com.quadrago.backend.repositories.StudentProfileRepository;
+import com.quadrago.backend.repositories.SubscriptionRepository;
+import com.quadrago.backend.repositories.TeacherProfileRepository;
+import com.quadrago.backend.services.billing.SubscriptionRenewalEngine.Outcome;
+import com.quadrago.backend.services.billing.SubscriptionRenewalEngine.RenewalRun;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renovação de assinaturas contra o banco (H2): cobrança do período vencido, avanço da data,
+ * períodos atrasados, idempotência, expiração, rodadas concorrentes dividindo a fila e assinatura
+ * que falha sozinha sem travar as outras.
+ */
+@TestPropertySource(properties = {
+        "app.subscriptions.renewal.chunk-size=20",
+        "app.subscriptions.renewal.workers=3"
+})
+class SubscriptionRenewalEngineTest extends IntegrationTest {
+
+    @Autowired TeacherProfileRepository teacherRepo;
+    @Autowired StudentProfileRepository studentRepo;
+    @Autowired SubscriptionRepository subscriptionRepo;
+    @Autowired PaymentRepository paymentRepo;
+    @Autowired SubscriptionRenewalEngine engine;
+    @Autowired DashboardService dashboard;
+    @Autowired JdbcTemplate jdbc;
+
+    private Long teacherId;
+    private Long studentId;
+    private OffsetDateTime now;
+
+    @BeforeEach
+    void seed() {
+        teacherId = teacher("prof");
+        studentId = student("aluno");
+        now = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    void dueSubscriptionIsBilledOnceAndAdvanced() {
+        OffsetDateTime start = now.minusMonths(1).minusHours(1);
+        Subscription due = subscription(SubscriptionStatus.ACTIVE, "120.00", start, start.plusMonths(1), null);
+        Subscription notYet = subscription(SubscriptionStatus.ACTIVE, "120.00", now, now.plusDays(1), null);
+        Subscription paused = subscription(SubscriptionStatus.PAUSED, "120.00", start, start.plusMonths(1), null);
+
+        engine.renewDue();
+
+        List<Payment> billed = paymentsOf(due);
+        assertEquals(1, billed.size());
+        assertEquals(0, new BigDecimal("120.00").compareTo(billed.get(0).getAmount()));
+        assertEquals("BRL", billed.get(0).getCurrency());
+        assertEquals(PaymentStatus.PENDING, billed.get(0).getStatus());
+        assertEquals(start.plusMonths(1).toInstant(), billed.get(0).getRenewalPeriodAt().toInstant());
+        assertEquals(start.plusMonths(2).toInstant(), reload(due).getNextRenewAt().toInstant());
+
+        assertEquals(List.of(), paymentsOf(notYet));
+        assertEquals(List.of(), paymentsOf(paused));
+        assertEquals(start.plusMonths(1).toInstant(), reload(paused).getNextRenewAt().toInstant());
+
+        engine.renewDue();
+        assertEquals(1, paymentsOf(due).size(), "segunda rodada não cobra de novo");
+        List<String> feed = dashboard.loadRecentActivities(teacherId, 10, null).items().stream()
+                .map(RecentActivityDto::activity).toList();
+        assertTrue(feed.contains("Pagamento pendente"), () -> "feed: " + feed);
+    }
+
+    @Test
+    void missedPeriodsAreBilledOneByOneUntilCaughtUp() {
+        OffsetDateTime start = now.minusMonths(7);
+        Subscription quarterly = subscription(SubscriptionStatus.ACTIVE, "300.00", start, start.plusMonths(3), null);
+        quarterly.setRenewalIntervalMonths(3);
+        subscriptionRepo.save(quarterly);
+
+        engine.renewDue();
+
+        assertEquals(List.of(start.plusMonths(3).toInstant(), start.plusMonths(6).toInstant()),
+                paymentsOf(quarterly).stream().map(p -> p.getRenewalPeriodAt().toInstant()).toList());
+        assertEquals(start.plusMonths(9).toInstant(), reload(quarterly).getNextRenewAt().toInstant());
+    }
+
+    @Test
+    void billedPeriodsFreePlansAndEndedSubscriptions() {
+        OffsetDateTime period = now.minusMinutes(5);
+        Subscription billed = subscription(SubscriptionStatus.ACTIVE, "80.00", period.minusMonths(1), period, null);
+        paymentRepo.save(Payment.builder().teacherProfile(teacherRepo.findById(teacherId).orElseThrow())
+                .studentProfile(studentRepo.findById(studentId).orElseThrow()).subscription(billed)
+                .amount(new BigDecimal("80.00")).status(PaymentStatus.SUCCESS).renewalPeriodAt(period).build());
+        Subscription free = subscription(SubscriptionStatus.ACTIVE, null, period.minusMonths(1), period, null);
+        // Terminou quando o período começaria: nada a cobrar, expira
+        Subscription ended = subscription(SubscriptionStatus.ACTIVE, "80.00", period.minusMonths(1), period, period);
+        long activeBefore = dashboard.loadOverviewForTeacher(teacherId).activeSubscriptions();
+
+        RenewalRun run = engine.renewDue();
+
+        assertTrue(run.count(Outcome.ALREADY_BILLED) >= 1 && run.count(Outcome.NOT_CHARGED) >= 1
+                && run.count(Outcome.EXPIRED) >= 1, () -> "rodada: " + run);
+        assertEquals(1, paymentsOf(billed).size(), "período já pago não gera outra cobrança");
+        assertEquals(period.plusMonths(1).toInstant(), reload(billed).getNextRenewAt().toInstant());
+        assertEquals(List.of(), paymentsOf(free));
+        assertEquals(period.plusMonths(1).toInstant(), reload(free).getNextRenewAt().toInstant());
+
+        assertEquals(List.of(), paymentsOf(ended));
+        assertEquals(SubscriptionStatus.EXPIRED, reload(ended).getStatus());
+        assertNull(reload(ended).getNextRenewAt());
+        assertEquals(activeBefore - 1, dashboard.loadOverviewForTeacher(teacherId).activeSubscriptions());
+    }
+
+    @Test
+    void concurrentRunsSplitTheQueueWithoutDoubleBilling() {
+        List<Subscription> due = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            OffsetDateTime period = now.minusMinutes(1 + i);
+            due.add(subscription(SubscriptionStatus.ACTIVE, "50.00", period.minusMonths(1), period, null));
+        }
+
+        CompletableFuture<RenewalRun> a = CompletableFuture.supplyAsync(engine::renewDue);
+        CompletableFuture<RenewalRun> b = CompletableFuture.supplyAsync(engine::renewDue);
+        long renewed = a.join().count(Outcome.RENEWED) + b.join().count(Outcome.RENEWED);
+
+        assertTrue(renewed >= due.size(), "renovadas: " + renewed);
+        for (Subscription s : due) {
+            assertEquals(1, paymentsOf(s).size(), "assinatura " + s.getId());
+            assertTrue(reload(s).getNextRenewAt().isAfter(now));
+        }
+    }
+
+    @Test
+    void failingSubscriptionIsSetAsideWithoutStallingTheQueue() {
+        List<Subscription> due = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            OffsetDateTime period = now.minusMinutes(1 + i);
+            due.add(subscription(SubscriptionStatus.ACTIVE, "50.00", period.minusMonths(1), period, null));
+        }
+        // A mais atrasada (cabeça da fila) tem um pagamento que o banco recusa
+        OffsetDateTime badPeriod = now.minusHours(2);
+        Subscription bad = subscription(SubscriptionStatus.ACTIVE, "99999.00", badPeriod.minusMonths(1), badPeriod, null);
+        jdbc.execute("alter table payment add constraint ck_renewal_test_amount check (amount < 10000)");
+        try {
+            RenewalRun run = engine.renewDue();
+
+            assertEquals(1, run.count(Outcome.FAILED), () -> "rodada: " + run);
+            for (Subscription s : due) assertEquals(1, paymentsOf(s).size(), "assinatura " + s.getId());
+            Subscription marked = reload(bad);
+            assertEquals(List.of(), paymentsOf(bad));
+            assertNotNull(marked.getRenewalFailedAt());
+            assertNotNull(marked.getRenewalFailure());
+            assertEquals(badPeriod.toInstant(), marked.getNextRenewAt().toInstant(), "período não muda");
+
+            assertEquals(0, engine.renewDue().total(), "fora da fila até o retry");
+        } finally {
+            jdbc.execute("alter table payment drop constraint if exists ck_renewal_test_amount");
+        }
+
+        jdbc.update("update subscription set renewal_failed_at = ? where id = ?", now.minusHours(2), bad.getId());
+        assertEquals(1, engine.renewDue().count(Outcome.RENEWED), "passado o retry-delay volta para a fila");
+        assertEquals(List.of(badPeriod.toInstant()),
+                paymentsOf(bad).stream().map(p -> p.getRenewalPeriodAt().toInstant()).toList());
+        assertNull(reload(bad).getRenewalFailedAt());
+    }
+
+    @Test
+    void nextPeriodKeepsTheDayOfTheAnchor() {
+        OffsetDateTime jan31 = OffsetDateTime.of(2026, 1, 31, 10, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime feb28 = SubscriptionRenewalEngine.nextPeriod(jan31, jan31, 1);
+        assertEquals(jan31.withMonth(2).withDayOfMonth(28), feb28);
+        assertEquals(jan31.withMonth(3), SubscriptionRenewalEngine.nextPeriod(jan31, feb28, 1));
+        assertEquals(jan31.plusMonths(3), SubscriptionRenewalEngine.nextPeriod(jan31, jan31.plusDays(1), 3));
+        assertEquals(jan31.plusYears(1), SubscriptionRenewalEngine.nextPeriod(jan31, jan31.plusMonths(11), 12));
+    }
+
+    private Subscription subscription(SubscriptionStatus status, String price, OffsetDateTime startAt,
+                                      OffsetDateTime nextRenewAt, OffsetDateTime endAt) {
+        return subscriptionRepo.save(Subscription.builder()
+                .teacherProfile(teacherRepo.findById(teacherId).orElseThrow())
+                .studentProfile(studentRepo.findById(studentId).orElseThrow())
+                .status(status).planName("Mensal").price(price != null ? new BigDecimal(price) : null)
+                .startAt(startAt).nextRenewAt(nextRenewAt).endAt(endAt).build());
+    }
+
+    private Subscription reload(Subscription s) {
+        return subscriptionRepo.findById(s.getId()).orElseThrow();
+    }
+
+    private List<Payment> paymentsOf(Subscription s) {
+        List<Long> ids = jdbc.queryForList("select id from payment where subscription_id = ? order by renewal_period_at",
+                Long.class, s.getId());
+        return ids.stream().map(id -> paymentRepo.findById(id).orElseThrow()).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.quadrago.backend.services.revocation;
+
+import com.quadrago.backend.support.MigratedPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Backend JDBC contra PostgreSQL (schema das migrações): dois "nós" compartilhando a mesma tabela.
+ *
+ * Precisa de Docker; sem ele o teste é pulado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class JdbcRevocationBackendTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbc;
+    private SimpleMeterRegistry meters;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = MigratedPostgres.migrate(POSTGRES);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("truncate revoked_token");
+        meters = new SimpleMeterRegistry();
+    }
+
+    private JdbcRevocationBackend node() {
+        var backend = new JdbcRevocationBackend(jdbc, meters, 1_000, 0.01, 600_000);
+        backend.init();
+        return backend;
+    }
+
+    private static TokenId randomId() {
+        UUID u = UUID.randomUUID();
+        return new TokenId(u.getMostSignificantBits(), u.getLeastSignificantBits());
+    }
+
+    @Test
+    void revokedOnOneNodeIsVisibleOnAnotherAfterSync() {
+        var nodeA = node();
+        var nodeB = node();
+        TokenId id = randomId();
+        long exp = System.currentTimeMillis() + 60_000;
+
+        nodeA.revoke(id, exp);
+        assertTrue(nodeA.isRevoked(id), "nó que revogou vê na hora");
+
+        nodeB.sync();
+        assertTrue(nodeB.isRevoked(id), "outro nó vê após o sync");
+    }
+
+    @Test
+    void notRevokedTokensAreAnsweredByTheBloomFilter() {
+        var backend = node();
+        for (int i = 0; i < 200; i++) backend.revoke(randomId(), System.currentTimeMillis() + 60_000);
+
+        int checks = 10_000;
+        for (int i = 0; i < checks; i++) assertFalse(backend.isRevoked(randomId()));
+
+        double negatives = meters.get("auth.revocation.checks").tag("result", "bloom_negative").counter().count();
+        assertTrue(negatives > checks * 0.95, "maioria resolvida sem ir ao banco: " + negatives);
+    }
+
+    @Test
+    void expiredRevocationsAreCleanedUpAndDroppedOnRebuild() {
+        var backend = node();
+        TokenId live = randomId();
+        TokenId expired = randomId();
+        backend.revoke(live, System.currentTimeMillis() + 60_000);
+        jdbc.update("insert into revoked_token (id_hi, id_lo, expires_at_ms, revoked_at_ms) values (?, ?, ?, ?)",
+                expired.hi(), expired.lo(), System.currentTimeMillis() - 1, System.currentTimeMillis() - 10);
+
+        assertFalse(backend.isRevoked(expired));
+        backend.cleanup();
+        backend.rebuild();
+
+        assertEquals(1, jdbc.queryForObject("select count(*) from revoked_token", Integer.class));
+        assertTrue(backend.isRevoked(live));
+    }
+
+    @Test
+    void revokingTwiceKeepsTheLatestExpiration() {
+        var backend = node();
+        TokenId id = randomId();
+        long now = System.currentTimeMillis();
+        backend.revoke(id, now + 10_000);
+        backend.revoke(id, now + 50_000);
+
+        Long exp = jdbc.queryForObject("select expires_at_ms from revoked_token where id_hi = ? and id_lo = ?",
+                Long.class, id.hi(), id.lo());
+        assertEquals(now + 50_000, exp);
+    }
+
+    @Test
+    void revokingAgainInsideACallerTransactionDoesNotAbortIt() {
+        var backend = node();
+        TokenId id = randomId();
+        long now = System.currentTimeMillis();
+        backend.revoke(id, now + 50_000);
+
+        // como em RefreshTokenService.rotate: revoga e segue usando a mesma transação
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            backend.revoke(id, now + 10_000);
+            backend.revoke(id, now + 90_000);
+            assertEquals(1, new JdbcTemplate(dataSource).queryForObject("select count(*) from revoked_token", Integer.class));
+        });
+
+        Long exp = jdbc.queryForObject("select expires_at_ms from revoked_token where id_hi = ? and id_lo = ?",
+                Long.class, id.hi(), id.lo());
+        assertEquals(now + 90_000, exp);
+    }
+}
@@ -0,0 +1,172 @@
+package com.quadrago.backend.services.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tabela de endereçamento aberto: remoção com backward-shift (inclusive em cluster que dá a volta
+ * no fim do array), resize nos dois sentidos, roda de expiração e leituras otimistas durante escritas.
+ */
+class RevocationStoreTest {
+
+    private static final long BUCKET = 1_000;
+    private static final long NOW = 100 * BUCKET;
+    private static final int MASK = RevocationStore.MIN_CAPACITY - 1;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void revokedUntilItExpires() {
+        RevocationStore store = new RevocationStore(BUCKET);
+        TokenId id = randomId();
+
+        store.revoke(id, NOW + 500, NOW);
+        assertTrue(store.isRevoked(id, NOW));
+        assertTrue(store.isRevoked(id, NOW + 499));
+        assertFalse(store.isRevoked(id, NOW + 500), "expira no instante exato");
+        assertFalse(store.isRevoked(randomId(), NOW));
+        assertFalse(store.isRevoked(null, NOW));
+
+        store.revoke(id, NOW + 200, NOW);
+        assertTrue(store.isRevoked(id, NOW + 400), "revogar de novo com prazo menor não encurta");
+        store.revoke(randomId(), NOW, NOW);
+        assertEquals(1, store.size(), "já expirado não entra");
+    }
+
+    @Test
+    void deletingAnyMemberOfAWrappedClusterKeepsTheOthersReachable() {
+        // 3 ids com origem no penúltimo slot, 2 no último e 2 no primeiro: o cluster dá a volta no array
+        List<TokenId> cluster = new ArrayList<>();
+        cluster.addAll(idsWithHome(MASK - 1, 3));
+        cluster.addAll(idsWithHome(MASK, 2));
+        cluster.addAll(idsWithHome(0, 2));
+
+        for (TokenId expiring : cluster) {
+            RevocationStore store = new RevocationStore(BUCKET);
+            for (TokenId id : cluster) {
+                store.revoke(id, id == expiring ? NOW + 1 : NOW + 10 * BUCKET, NOW);
+            }
+
+            assertEquals(1, store.cleanup(NOW + BUCKET));
+
+            assertEquals(cluster.size() - 1, store.size());
+            for (TokenId id : cluster) {
+                assertEquals(id != expiring, store.isRevoked(id, NOW + BUCKET),
+                        "removido " + cluster.indexOf(expiring) + ", sondado " + cluster.indexOf(id));
+            }
+        }
+    }
+
+    @Test
+    void resizeKeepsEveryEntryInBothDirections() {
+        RevocationStore store = new RevocationStore(BUCKET);
+        List<TokenId> shortLived = randomIds(5_000);
+        List<TokenId> longLived = randomIds(100);
+        shortLived.forEach(id -> store.revoke(id, NOW + 1, NOW));
+        longLived.forEach(id -> store.revoke(id, NOW + 10 * BUCKET, NOW));
+        long grown = store.memoryBytes();
+
+        assertEquals(5_100, store.size());
+        assertTrue(shortLived.stream().allMatch(id -> store.isRevoked(id, NOW)));
+        assertTrue(longLived.stream().allMatch(id -> store.isRevoked(id, NOW)));
+
+        assertEquals(5_000, store.cleanup(NOW + BUCKET));
+
+        assertEquals(100, store.size());
+        assertTrue(store.memoryBytes() < grown / 4, "tabela encolhe depois da limpeza");
+        assertTrue(longLived.stream().allMatch(id -> store.isRevoked(id, NOW + BUCKET)));
+        assertTrue(shortLived.stream().noneMatch(id -> store.isRevoked(id, NOW + BUCKET)));
+    }
+
+    @Test
+    void cleanupRemovesOnlyEntriesOfBucketsAlreadyPast() {
+        RevocationStore store = new RevocationStore(BUCKET);
+        TokenId first = randomId();
+        TokenId second = randomId();
+        TokenId extended = randomId();
+        store.revoke(first, NOW + 500, NOW);                 // bucket 100
+        store.revoke(second, NOW + BUCKET + 500, NOW);       // bucket 101
+        store.revoke(extended, NOW + 500, NOW);
+        store.revoke(extended, NOW + 3 * BUCKET, NOW);       // mudou para o bucket 103
+
+        assertEquals(0, store.cleanup(NOW + 900), "bucket 100 ainda não fechou");
+        assertEquals(1, store.cleanup(NOW + BUCKET), "sai só o first; a entrada antiga do extended é ignorada");
+        assertTrue(store.isRevoked(extended, NOW + BUCKET));
+
+        assertEquals(0, store.cleanup(NOW + BUCKET + 600), "second venceu, mas o bucket 101 está aberto");
+        assertFalse(store.isRevoked(second, NOW + BUCKET + 600), "vencido já não conta, mesmo na tabela");
+        assertEquals(2, store.size());
+
+        assertEquals(1, store.cleanup(NOW + 2 * BUCKET));
+        assertEquals(1, store.cleanup(NOW + 4 * BUCKET));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void readersNeverMissStableEntriesWhileWritersResizeAndDelete() throws Exception {
+        RevocationStore store = new RevocationStore(BUCKET);
+        List<TokenId> stable = randomIds(200);
+        List<TokenId> never = randomIds(200);
+        stable.forEach(id -> store.revoke(id, Long.MAX_VALUE, NOW));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                while (running.get() && failure.get() == null) {
+                    for (TokenId id : stable) {
+                        if (!store.isRevoked(id, NOW)) failure.compareAndSet(null, "falso negativo: " + id);
+                    }
+                    for (TokenId id : never) {
+                        if (store.isRevoked(id, NOW)) failure.compareAndSet(null, "falso positivo: " + id);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        // Cada rodada cresce a tabela algumas vezes e a limpeza a encolhe de volta (com backward-shift)
+        Random writes = new Random(7);
+        for (int round = 0; round < 20 && failure.get() == null; round++) {
+            for (int i = 0; i < 5_000; i++) {
+                store.revoke(new TokenId(writes.nextLong(), writes.nextLong()), NOW + 1, NOW);
+            }
+            store.cleanup(NOW + BUCKET);
+        }
+        running.set(false);
+        for (Thread reader : readers) reader.join(10_000);
+
+        assertNull(failure.get());
+        assertEquals(stable.size(), store.size());
+    }
+
+    /* ===================== apoio ===================== */
+
+    private List<TokenId> idsWithHome(int slot, int count) {
+        List<TokenId> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            TokenId id = randomId();
+            if (RevocationStore.home(id.hi(), id.lo(), MASK) == slot) ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<TokenId> randomIds(int count) {
+        List<TokenId> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) ids.add(randomId());
+        return ids;
+    }
+
+    private TokenId randomId() {
+        return new TokenId(random.nextLong(), random.nextLong());
+    }
+}
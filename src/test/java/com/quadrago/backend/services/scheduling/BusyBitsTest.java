@@ -0,0 +1,55 @@
+package com.quadrago.backend.services.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Baldes de 15 minutos: arredondamento para fora, divisa entre os dois longs e virada do dia. */
+class BusyBitsTest {
+
+    private static final long DAY = 20_000;
+    private static final long MIN = 60_000L;
+    private static final long DAY_START = DAY * BusyBits.DAY_MILLIS;
+
+    @Test
+    void alignedIntervalsTouchingEachOtherDoNotIntersect() {
+        BusyBits lesson = bits(17 * 60, 18 * 60);
+        assertFalse(lesson.intersects(bits(18 * 60, 20 * 60)));
+        assertTrue(lesson.intersects(bits(17 * 60 + 45, 19 * 60)));
+        assertEquals(60, lesson.minutes());
+    }
+
+    @Test
+    void unalignedIntervalsAreRoundedOutward() {
+        BusyBits lesson = bits(9 * 60 + 5, 9 * 60 + 20);
+        assertEquals(30, lesson.minutes());
+        assertTrue(lesson.intersects(bits(9 * 60 + 25, 10 * 60)), "mesmo balde: falso ocupado é aceito");
+    }
+
+    @Test
+    void bucketsAcrossTheTwoWordsAndTheDayBoundary() {
+        // Balde 63 (15:45) está em lo, 64 (16:00) em hi
+        BusyBits acrossWords = bits(15 * 60 + 45, 16 * 60 + 15);
+        assertEquals(1L << 63, acrossWords.lo());
+        assertEquals(1L, acrossWords.hi());
+        assertTrue(acrossWords.intersects(bits(16 * 60, 16 * 60 + 15)));
+
+        BusyBits lastBucket = bits(23 * 60 + 45, 25 * 60);
+        assertEquals(15, lastBucket.minutes(), "o que passa da meia-noite fica no dia seguinte");
+        assertEquals(1L << 31, lastBucket.hi());
+        assertEquals(BusyBits.EMPTY, BusyBits.of(DAY + 1, DAY_START, DAY_START + 60 * MIN));
+        assertEquals(15, BusyBits.of(DAY + 1, DAY_START + 23 * 60 * MIN, DAY_START + 24 * 60 * MIN + 15 * MIN).minutes());
+        assertTrue(bits(0, 24 * 60).intersects(bits(0, 15)));
+        assertEquals(24 * 60, bits(0, 24 * 60).minutes());
+    }
+
+    @Test
+    void emptyIntervalsMarkNothing() {
+        assertTrue(bits(10 * 60, 10 * 60).isEmpty());
+        assertTrue(BusyBits.of(DAY, DAY_START - 60 * MIN, DAY_START).isEmpty());
+    }
+
+    private static BusyBits bits(int fromMinute, int toMinute) {
+        return BusyBits.of(DAY, DAY_START + fromMinute * MIN, DAY_START + toMinute * MIN);
+    }
+}
@@ -0,0 +1,103 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.services.scheduling.LessonCalendar.Slot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Índice de intervalos contra a busca linear: mesmas respostas em agendas aleatórias (com e sem
+ * sobreposição), depois de inserções, remarcações e remoções.
+ */
+class LessonCalendarTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void adjacentLessonsDoNotConflict() {
+        LessonCalendar calendar = LessonCalendar.of(0, List.of(new Slot(1, 10 * HOUR, 11 * HOUR)));
+
+        assertEquals(-1, calendar.findConflict(11 * HOUR, 12 * HOUR, -1));
+        assertEquals(-1, calendar.findConflict(9 * HOUR, 10 * HOUR, -1));
+        assertEquals(1, calendar.findConflict(10 * HOUR + 1, 10 * HOUR + 2, -1));
+        assertEquals(1, calendar.findConflict(9 * HOUR, 12 * HOUR, -1));
+        assertEquals(-1, calendar.findConflict(9 * HOUR, 12 * HOUR, 1), "a própria aula é ignorada");
+    }
+
+    @Test
+    void longLessonEarlierInTheDayIsFoundPastShorterOnes() {
+        // A aula 1 começa antes e termina depois de todas: só o maior fim do prefixo a alcança
+        LessonCalendar calendar = LessonCalendar.of(0, List.of(
+                new Slot(1, 0, 10 * HOUR),
+                new Slot(2, 1 * HOUR, 2 * HOUR),
+                new Slot(3, 3 * HOUR, 4 * HOUR)));
+
+        assertEquals(1, calendar.findConflict(5 * HOUR, 6 * HOUR, -1));
+        assertEquals(-1, calendar.findConflict(10 * HOUR, 11 * HOUR, -1));
+    }
+
+    @Test
+    void matchesBruteForceOnRandomCalendars() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<Slot> slots = new ArrayList<>();
+            int n = random.nextInt(60);
+            for (int i = 0; i < n; i++) slots.add(randomSlot(random, i + 1));
+            LessonCalendar calendar = LessonCalendar.of(round, slots);
+
+            for (int op = 0; op < 20; op++) {
+                long id = 1 + random.nextInt(n + 5);
+                if (random.nextBoolean()) {
+                    Slot moved = randomSlot(random, id);
+                    slots.removeIf(s -> s.lessonId() == id);
+                    slots.add(moved);
+                    calendar = calendar.with(calendar.version() + 1, id, moved.start(), moved.end());
+                } else {
+                    slots.removeIf(s -> s.lessonId() == id);
+                    calendar = calendar.without(calendar.version() + 1, id);
+                }
+                assertEquals(slots.size(), calendar.size());
+
+                for (int q = 0; q < 50; q++) {
+                    Slot query = randomSlot(random, 0);
+                    long ignored = random.nextInt(4) == 0 ? 1 + random.nextInt(n + 5) : -1;
+                    long found = calendar.findConflict(query.start(), query.end(), ignored);
+                    List<Long> expected = slots.stream()
+                            .filter(s -> s.lessonId() != ignored && s.start() < query.end() && s.end() > query.start())
+                            .map(Slot::lessonId)
+                            .toList();
+                    if (expected.isEmpty()) {
+                        assertEquals(-1, found, "rodada " + round);
+                    } else {
+                        assertTrue(expected.contains(found), "rodada " + round + ": " + found + " não está em " + expected);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void writesReturnCopiesAndKeepTheOriginal() {
+        LessonCalendar original = LessonCalendar.of(3, List.of(new Slot(1, 0, HOUR)));
+        LessonCalendar added = original.with(4, 2, 2 * HOUR, 3 * HOUR);
+        LessonCalendar removed = added.without(5, 1);
+
+        assertEquals(1, original.size());
+        assertEquals(2, added.size());
+        assertEquals(1, removed.size());
+        assertEquals(-1, original.findConflict(2 * HOUR, 3 * HOUR, -1));
+        assertEquals(-1, removed.findConflict(0, HOUR, -1));
+        assertEquals(5, removed.version());
+        assertEquals(6, removed.without(6, 99).version(), "remover aula ausente só troca a versão");
+    }
+
+    /** Aulas de 0 a 4h (algumas vazias, como aula sem fim) num dia de 48 "horas". */
+    private static Slot randomSlot(Random random, long id) {
+        long start = random.nextInt(48) * HOUR / 2;
+        return new Slot(id, start, start + random.nextInt(9) * HOUR / 2);
+    }
+}
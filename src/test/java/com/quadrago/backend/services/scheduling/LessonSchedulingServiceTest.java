@@ -0,0 +1,142 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.dtos.LessonDtos.LessonResponse;
+import com.quadrago.backend.dtos.LessonDtos.RescheduleLessonRequest;
+import com.quadrago.backend.dtos.LessonDtos.ScheduleLessonRequest;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.exceptions.LessonConflictException;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agendamento contra o banco (H2): conflitos na agenda do professor e na do aluno, remarcação,
+ * cancelamento, índice em memória desatualizado e reservas simultâneas do mesmo horário.
+ */
+class LessonSchedulingServiceTest extends IntegrationTest {
+
+    @Autowired LessonSchedulingService scheduling;
+    @Autowired JdbcTemplate jdbc;
+
+    private Long teacherId;
+    private Long studentId;
+    private Long otherStudentId;
+    private OffsetDateTime tomorrow;
+
+    @BeforeEach
+    void seed() {
+        teacherId = teacher("prof");
+        studentId = student("aluno");
+        otherStudentId = student("aluno2");
+        tomorrow = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    void overlappingLessonOfTheTeacherIsRejected() {
+        LessonResponse first = book(studentId, 10, 11);
+
+        LessonConflictException e = assertThrows(LessonConflictException.class, () -> book(otherStudentId, 10, 12));
+        assertEquals("teacher", e.getParty());
+        assertEquals(first.id(), e.getConflictingLessonId());
+
+        assertEquals(LessonStatus.SCHEDULED, book(otherStudentId, 11, 12).status(), "aula encostada é aceita");
+    }
+
+    @Test
+    void overlappingLessonOfTheStudentIsRejected() {
+        Long otherTeacherId = teacher("prof2");
+        book(studentId, 10, 11);
+
+        LessonConflictException e = assertThrows(LessonConflictException.class, () -> scheduling.schedule(
+                new ScheduleLessonRequest(otherTeacherId, studentId, at(10), at(11), null)));
+        assertEquals("student", e.getParty());
+    }
+
+    @Test
+    void rescheduleIgnoresItselfAndCancelFreesTheSlot() {
+        LessonResponse lesson = book(studentId, 10, 11);
+        LessonResponse other = book(otherStudentId, 12, 13);
+
+        LessonResponse moved = scheduling.reschedule(lesson.id(), new RescheduleLessonRequest(at(10).plusMinutes(30), at(11).plusMinutes(30)));
+        assertEquals(LessonStatus.RESCHEDULED, moved.status());
+        assertThrows(LessonConflictException.class,
+                () -> scheduling.reschedule(lesson.id(), new RescheduleLessonRequest(at(12), at(13))));
+
+        scheduling.cancel(other.id());
+        assertEquals(LessonStatus.CANCELED, scheduling.cancel(other.id()).status(), "cancelar de novo não falha");
+        assertEquals(LessonStatus.RESCHEDULED,
+                scheduling.reschedule(lesson.id(), new RescheduleLessonRequest(at(12), at(13))).status());
+    }
+
+    @Test
+    void staleCalendarIsReloadedWhenTheVersionMoved() {
+        book(studentId, 10, 11);
+        // Aula gravada por fora do serviço (outra instância): só a versão avisa o cache
+        jdbc.update("""
+                insert into lesson (id, teacher_user_id, student_user_id, start_at, end_at, status, created_at, updated_at)
+                values (nextval('lesson_seq'), ?, ?, ?, ?, 'SCHEDULED', current_timestamp, current_timestamp)
+                """, teacherId, otherStudentId, at(14), at(15));
+        jdbc.update("update teacher_profile set calendar_version = calendar_version + 1 where user_id = ?", teacherId);
+
+        assertThrows(LessonConflictException.class, () -> book(studentId, 14, 15));
+    }
+
+    @Test
+    void concurrentBookingsOfTheSameSlotAdmitExactlyOne() throws Exception {
+        int threads = 8;
+        List<Long> students = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            students.add(student("concorrente" + i));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long student : students) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        book(student, 10, 11);
+                        booked.incrementAndGet();
+                    } catch (LessonConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, booked.get());
+        assertEquals(threads - 1, conflicts.get());
+    }
+
+    private LessonResponse book(Long student, int fromHour, int toHour) {
+        return scheduling.schedule(new ScheduleLessonRequest(teacherId, student, at(fromHour), at(toHour), null));
+    }
+
+    private OffsetDateTime at(int hour) {
+        return tomorrow.plusHours(hour);
+    }
+}
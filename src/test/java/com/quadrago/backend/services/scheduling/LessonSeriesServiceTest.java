@@ -0,0 +1,151 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.dashboard.DashboardService;
+import com.quadrago.backend.dashboard.dto.RecentActivityDto;
+import com.quadrago.backend.dtos.LessonDtos.CreateLessonSeriesRequest;
+import com.quadrago.backend.dtos.LessonDtos.LessonResponse;
+import com.quadrago.backend.dtos.LessonDtos.LessonSeriesResponse;
+import com.quadrago.backend.dtos.LessonDtos.RescheduleLessonRequest;
+import com.quadrago.backend.dtos.LessonDtos.ScheduleLessonRequest;
+import com.quadrago.backend.enums.LessonStatus;
+import com.quadrago.backend.exceptions.LessonConflictException;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Séries recorrentes contra o banco (H2): conflitos com ocorrências não materializadas, exceções
+ * (cancelar/remarcar uma ocorrência), agenda expandida só na janela, contagem de aulas futuras e
+ * feed de atividades.
+ */
+class LessonSeriesServiceTest extends IntegrationTest {
+
+    @Autowired LessonSchedulingService scheduling;
+    @Autowired LessonSeriesService series;
+    @Autowired LessonSeriesOccurrences occurrences;
+    @Autowired DashboardService dashboard;
+
+    private Long teacherId;
+    private Long studentId;
+    private Long otherStudentId;
+    /** Primeira aula da série: amanhã, 10h UTC. */
+    private OffsetDateTime first;
+
+    @BeforeEach
+    void seed() {
+        teacherId = teacher("prof");
+        studentId = student("aluno");
+        otherStudentId = student("aluno2");
+        first = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1).truncatedTo(ChronoUnit.DAYS).plusHours(10);
+    }
+
+    @Test
+    void everyOccurrenceBlocksTheSlotWithoutBeingALesson() {
+        LessonSeriesResponse weekly = weekly(studentId, 10);
+        assertEquals(10, weekly.occurrences());
+        assertEquals(first.plusWeeks(9).toInstant(), weekly.lastStartAt().toInstant());
+
+        LessonConflictException e = assertThrows(LessonConflictException.class,
+                () -> book(otherStudentId, first.plusWeeks(6).plusMinutes(30)));
+        assertEquals("teacher", e.getParty());
+        assertEquals(weekly.id(), e.getConflictingSeriesId());
+        assertNull(e.getConflictingLessonId());
+
+        assertEquals(LessonStatus.SCHEDULED, book(otherStudentId, first.plusDays(1)).status(), "outro dia da semana");
+        assertEquals(LessonStatus.SCHEDULED, book(otherStudentId, first.plusWeeks(10)).status(), "depois da última aula");
+        assertThrows(LessonConflictException.class, () -> weekly(otherStudentId, 3), "série sobre série");
+    }
+
+    @Test
+    void cancelingOrReschedulingAnOccurrenceMaterializesOnlyThatOne() {
+        LessonSeriesResponse weekly = weekly(studentId, 10);
+        OffsetDateTime second = first.plusWeeks(1);
+        OffsetDateTime third = first.plusWeeks(2);
+
+        LessonResponse canceled = series.cancelOccurrence(weekly.id(), second);
+        assertEquals(LessonStatus.CANCELED, canceled.status());
+        assertEquals(weekly.id(), canceled.seriesId());
+        assertEquals(LessonStatus.SCHEDULED, book(otherStudentId, second).status(), "horário liberado");
+        assertEquals(LessonStatus.CANCELED, series.cancelOccurrence(weekly.id(), second).status(), "de novo não falha");
+
+        assertThrows(LessonConflictException.class, () -> series.rescheduleOccurrence(weekly.id(), third,
+                new RescheduleLessonRequest(first.plusWeeks(3), first.plusWeeks(3).plusHours(1))), "outra ocorrência");
+        LessonResponse moved = series.rescheduleOccurrence(weekly.id(), third,
+                new RescheduleLessonRequest(third.plusMinutes(30), third.plusMinutes(90)));
+        assertEquals(LessonStatus.RESCHEDULED, moved.status());
+        assertEquals(third.toInstant(), moved.occurrenceStartAt().toInstant());
+
+        assertThrows(NoSuchElementException.class, () -> series.cancelOccurrence(weekly.id(), first.plusDays(1)));
+        assertThrows(NoSuchElementException.class, () -> series.cancelOccurrence(weekly.id(), first.plusWeeks(10)));
+    }
+
+    @Test
+    void calendarExpandsOccurrencesOnlyInsideTheWindow() {
+        LessonSeriesResponse weekly = weekly(studentId, 10);
+        series.cancelOccurrence(weekly.id(), first.plusWeeks(1));
+        series.rescheduleOccurrence(weekly.id(), first.plusWeeks(2),
+                new RescheduleLessonRequest(first.plusWeeks(2).plusHours(2), first.plusWeeks(2).plusHours(3)));
+        book(studentId, first.plusDays(2));
+
+        List<LessonResponse> calendar = series.calendar(studentId, first.minusHours(1), first.plusWeeks(4).minusHours(1));
+
+        // semanas 0 e 3 expandidas, semana 1 cancelada (fora), semana 2 remarcada (linha), aula avulsa
+        assertEquals(4, calendar.size(), () -> "agenda: " + calendar);
+        assertNull(calendar.get(0).id());
+        assertEquals(first.toInstant(), calendar.get(0).startAt().toInstant());
+        assertNull(calendar.get(1).seriesId(), "aula avulsa");
+        assertEquals(LessonStatus.RESCHEDULED, calendar.get(2).status());
+        assertEquals(first.plusWeeks(3).toInstant(), calendar.get(3).occurrenceStartAt().toInstant());
+        assertEquals(calendar, series.calendar(teacherId, first.minusHours(1), first.plusWeeks(4).minusHours(1)));
+    }
+
+    @Test
+    void futureLessonCountsAndOverviewIncludeOccurrences() {
+        LessonSeriesResponse weekly = weekly(studentId, 10);
+        book(otherStudentId, first.plusDays(1));
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        assertEquals(10, occurrences.countFutureOccurrences(teacherId, now));
+        assertEquals(11, dashboard.loadOverviewForTeacher(teacherId).scheduledLessons());
+
+        series.cancelOccurrence(weekly.id(), first.plusWeeks(1));
+        series.rescheduleOccurrence(weekly.id(), first.plusWeeks(2),
+                new RescheduleLessonRequest(first.plusWeeks(2).plusHours(2), first.plusWeeks(2).plusHours(3)));
+        assertEquals(8, occurrences.countFutureOccurrences(teacherId, now), "cancelada e remarcada viram exceções");
+        assertEquals(10, dashboard.loadOverviewForTeacher(teacherId).scheduledLessons(), "cancelada sai, remarcada continua");
+
+        series.end(weekly.id());
+        assertEquals(0, occurrences.countFutureOccurrences(teacherId, now));
+        assertEquals(2, dashboard.loadOverviewForTeacher(teacherId).scheduledLessons(), "avulsa + remarcada");
+        assertEquals(LessonStatus.SCHEDULED, book(otherStudentId, first.plusWeeks(5)).status(), "série encerrada libera");
+    }
+
+    @Test
+    void activityFeedRecordsTheSeriesAndItsExceptions() {
+        LessonSeriesResponse weekly = weekly(studentId, 10);
+        series.cancelOccurrence(weekly.id(), first.plusWeeks(1));
+        series.end(weekly.id());
+
+        List<String> feed = dashboard.loadRecentActivities(teacherId, 20, null).items().stream()
+                .map(RecentActivityDto::activity).toList();
+        assertEquals(List.of("Aulas recorrentes encerradas", "Aula cancelada", "Aulas recorrentes agendadas"), feed);
+    }
+
+    private LessonSeriesResponse weekly(Long student, int count) {
+        return series.create(new CreateLessonSeriesRequest(teacherId, student, first, 60,
+                Set.of(first.getDayOfWeek()), null, null, count, "UTC", null));
+    }
+
+    private LessonResponse book(Long student, OffsetDateTime start) {
+        return scheduling.schedule(new ScheduleLessonRequest(teacherId, student, start, start.plusHours(1), null));
+    }
+}
@@ -0,0 +1,135 @@
+package com.quadrago.backend.services.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aritmética da recorrência contra a expansão dia a dia: contagens, última ocorrência e listagem
+ * por janela batem em regras aleatórias (dias, intervalo, COUNT e UNTIL, fusos com horário de verão).
+ */
+class SeriesRuleTest {
+
+    private static final ZoneId SAO_PAULO = ZoneId.of("America/Sao_Paulo");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Test
+    void weeklyTuesdayAndThursdayWithCount() {
+        // Segunda 2026-03-02 18h: a primeira aula é terça
+        OffsetDateTime start = LocalDateTime.of(2026, 3, 2, 18, 0).atZone(SAO_PAULO).toOffsetDateTime();
+        SeriesRule rule = SeriesRule.of(start, SAO_PAULO, EnumSet.of(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY), 1,
+                null, 10, Duration.ofHours(1));
+
+        assertEquals(10, rule.total());
+        assertEquals(at(SAO_PAULO, 2026, 4, 2, 18), rule.lastStart(), "10ª aula: quinta da 5ª semana");
+        assertEquals(10, rule.countAfter(start.toInstant()));
+        assertEquals(9, rule.countAfter(at(SAO_PAULO, 2026, 3, 3, 18)), "a própria aula não conta como futura");
+        assertEquals(0, rule.countAfter(at(SAO_PAULO, 2026, 4, 2, 18)));
+        assertTrue(rule.isOccurrence(at(SAO_PAULO, 2026, 3, 5, 18)));
+        assertFalse(rule.isOccurrence(at(SAO_PAULO, 2026, 3, 5, 19)));
+        assertFalse(rule.isOccurrence(at(SAO_PAULO, 2026, 4, 7, 18)), "depois da 10ª");
+    }
+
+    @Test
+    void localTimeIsKeptAcrossDaylightSavingChanges() {
+        // Nova York muda para horário de verão em 2026-03-08
+        OffsetDateTime start = LocalDateTime.of(2026, 3, 2, 18, 0).atZone(NEW_YORK).toOffsetDateTime();
+        SeriesRule rule = SeriesRule.of(start, NEW_YORK, EnumSet.of(DayOfWeek.MONDAY), 1, null, 3, Duration.ofHours(1));
+
+        List<Instant> starts = new ArrayList<>();
+        rule.forEachOverlapping(start.toInstant().toEpochMilli(), start.plusWeeks(4).toInstant().toEpochMilli(),
+                (s, e) -> starts.add(Instant.ofEpochMilli(s)));
+        assertEquals(List.of(at(NEW_YORK, 2026, 3, 2, 18), at(NEW_YORK, 2026, 3, 9, 18), at(NEW_YORK, 2026, 3, 16, 18)), starts);
+        assertEquals(Duration.ofHours(7 * 24 - 1), Duration.between(starts.get(0), starts.get(1)));
+    }
+
+    @Test
+    void matchesDayByDayExpansionOnRandomRules() {
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            ZoneId zone = random.nextBoolean() ? SAO_PAULO : NEW_YORK;
+            LocalDate firstDate = LocalDate.of(2026, 1, 1).plusDays(random.nextInt(400));
+            OffsetDateTime start = firstDate.atTime(6 + random.nextInt(16), 15 * random.nextInt(4))
+                    .atZone(zone).toOffsetDateTime();
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            while (days.isEmpty()) {
+                for (DayOfWeek d : DayOfWeek.values()) if (random.nextInt(3) == 0) days.add(d);
+            }
+            int interval = 1 + random.nextInt(3);
+            Integer count = random.nextBoolean() ? random.nextInt(40) : null;
+            OffsetDateTime until = count == null ? start.plusDays(random.nextInt(200)).plusHours(random.nextInt(24)) : null;
+            Duration duration = Duration.ofMinutes(30 + 30L * random.nextInt(4));
+            SeriesRule rule = SeriesRule.of(start, zone, days, interval, until, count, duration);
+
+            List<Instant> expected = bruteForce(start, zone, days, interval, until, count);
+            String label = "rodada " + round;
+            assertEquals(expected.size(), rule.total(), label);
+            assertEquals(expected.isEmpty() ? null : expected.get(expected.size() - 1), rule.lastStart(), label);
+
+            for (int q = 0; q < 20; q++) {
+                Instant after = start.toInstant().plus(random.nextInt(500) - 20, ChronoUnit.DAYS)
+                        .plus(random.nextInt(24 * 4) * 15L, ChronoUnit.MINUTES);
+                assertEquals(expected.stream().filter(s -> s.isAfter(after)).count(), rule.countAfter(after), label);
+
+                long from = after.toEpochMilli();
+                long to = from + Duration.ofDays(1 + random.nextInt(30)).toMillis();
+                List<Long> listed = new ArrayList<>();
+                rule.forEachOverlapping(from, to, (s, e) -> {
+                    assertEquals(duration.toMillis(), e - s);
+                    listed.add(s);
+                });
+                List<Long> overlapping = expected.stream().map(Instant::toEpochMilli)
+                        .filter(s -> s < to && s + duration.toMillis() > from).toList();
+                assertEquals(overlapping, listed, label);
+            }
+            for (Instant s : expected) assertTrue(rule.isOccurrence(s), label);
+        }
+    }
+
+    @Test
+    void ruleNeedsExactlyOneEnd() {
+        OffsetDateTime start = OffsetDateTime.of(2026, 3, 2, 18, 0, 0, 0, ZoneOffset.UTC);
+        Set<DayOfWeek> monday = EnumSet.of(DayOfWeek.MONDAY);
+        assertThrows(IllegalArgumentException.class,
+                () -> SeriesRule.of(start, ZoneOffset.UTC, monday, 1, null, null, Duration.ofHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> SeriesRule.of(start, ZoneOffset.UTC, monday, 1, start.plusWeeks(2), 3, Duration.ofHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> SeriesRule.of(start, ZoneOffset.UTC, Set.of(), 1, null, 3, Duration.ofHours(1)));
+    }
+
+    private static List<Instant> bruteForce(OffsetDateTime start, ZoneId zone, Set<DayOfWeek> days, int interval,
+                                            OffsetDateTime until, Integer count) {
+        var local = start.atZoneSameInstant(zone).toLocalDateTime();
+        LocalDate monday = local.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        List<Instant> out = new ArrayList<>();
+        for (LocalDate d = local.toLocalDate(); ; d = d.plusDays(1)) {
+            if (count != null && out.size() == count) break;
+            Instant s = d.atTime(local.toLocalTime()).atZone(zone).toInstant();
+            if (until != null && s.isAfter(until.toInstant())) break;
+            long week = ChronoUnit.DAYS.between(monday, d) / 7;
+            if (week % interval == 0 && days.contains(d.getDayOfWeek())) out.add(s);
+        }
+        return out;
+    }
+
+    private static Instant at(ZoneId zone, int year, int month, int day, int hour) {
+        return LocalDateTime.of(year, month, day, hour, 0).atZone(zone).toInstant();
+    }
+}
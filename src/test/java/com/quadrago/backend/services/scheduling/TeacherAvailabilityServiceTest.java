@@ -0,0 +1,165 @@
+package com.quadrago.backend.services.scheduling;
+
+import com.quadrago.backend.dtos.LessonDtos.AvailabilityResponse;
+import com.quadrago.backend.dtos.LessonDtos.AvailableTeacher;
+import com.quadrago.backend.dtos.LessonDtos.ScheduleLessonRequest;
+import com.quadrago.backend.dtos.UserDtos.CreateTeacherProfileRequest;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.services.TeacherProfileChangedEvent;
+import com.quadrago.backend.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Busca de professores livres contra o banco (H2): filtro por especialidade, ocupação por dia,
+ * atualização pelas escritas do agendamento, ordem do resultado e a varredura em fork-join com
+ * milhares de candidatos.
+ */
+class TeacherAvailabilityServiceTest extends IntegrationTest {
+
+    @Autowired LessonSchedulingService scheduling;
+    @Autowired TeacherAvailabilityService availability;
+    @Autowired TeacherSpecialtyIndex specialtyIndex;
+    @Autowired JdbcTemplate jdbc;
+
+    private String specialty;
+    private Long studentId;
+
+    @BeforeEach
+    void seed() {
+        specialty = "Violão " + System.nanoTime();
+        studentId = student("aluno");
+    }
+
+    @Test
+    void busyTeachersAreLeftOutAndFreeOnesRankedByLoadThenRate() {
+        OffsetDateTime day = day(2);
+        Long busy = teacher(new BigDecimal("50.00"), specialty);
+        Long loaded = teacher(new BigDecimal("40.00"), specialty.toUpperCase());
+        Long cheap = teacher(new BigDecimal("60.00"), specialty);
+        Long expensive = teacher(new BigDecimal("90.00"), specialty);
+        teacher(new BigDecimal("10.00"), "Outra " + specialty);
+
+        book(busy, day.plusHours(18), day.plusHours(19));
+        book(loaded, day.plusHours(17), day.plusHours(18)); // encostada na janela: não conflita
+
+        AvailabilityResponse result = availability.search(" " + specialty.toLowerCase() + " ",
+                day.plusHours(18), day.plusHours(20), 10);
+
+        assertEquals(4, result.candidates());
+        assertFalse(result.partial());
+        assertEquals(List.of(cheap, expensive, loaded), ids(result));
+        assertEquals(60, result.teachers().get(2).bookedMinutes());
+    }
+
+    @Test
+    void bookingsOfThisInstanceShowUpWithoutWaitingForTheCache() {
+        OffsetDateTime day = day(3);
+        Long teacher = teacher(null, specialty);
+        assertEquals(List.of(teacher), ids(availability.search(specialty, day.plusHours(9), day.plusHours(10), 10)));
+
+        Long lesson = book(teacher, day.plusHours(9).plusMinutes(30), day.plusHours(10).plusMinutes(30));
+        assertEquals(List.of(), ids(availability.search(specialty, day.plusHours(9), day.plusHours(10), 10)));
+
+        scheduling.cancel(lesson);
+        assertEquals(List.of(teacher), ids(availability.search(specialty, day.plusHours(9), day.plusHours(10), 10)));
+    }
+
+    @Test
+    void thousandsOfCandidatesAreScannedInParallel() {
+        int teachers = 3 * TeacherAvailabilityService.CHUNK + 100;
+        OffsetDateTime day = day(4);
+        long firstId = 50_000_000L + (System.nanoTime() % 1_000_000) * 10_000;
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        List<Object[]> parties = new ArrayList<>();
+        List<Object[]> usersRows = new ArrayList<>();
+        List<Object[]> profiles = new ArrayList<>();
+        List<Object[]> specialties = new ArrayList<>();
+        List<Object[]> lessons = new ArrayList<>();
+        for (int i = 0; i < teachers; i++) {
+            long id = firstId + i;
+            parties.add(new Object[]{id, now, now});
+            usersRows.add(new Object[]{id, id, "bulk." + id + "@quadrago.local", now, now});
+            profiles.add(new Object[]{id, BigDecimal.valueOf(50 + i % 7), now, now});
+            specialties.add(new Object[]{id, specialty});
+            // Um em cada três ocupado na janela (18h–19h30); os demais com aula de manhã
+            OffsetDateTime at = i % 3 == 0 ? day.plusHours(19) : day.plusHours(8);
+            lessons.add(new Object[]{id, id, studentId, at, at.plusHours(1), now, now});
+        }
+        jdbc.batchUpdate("insert into party (id, party_type, created_at, updated_at) values (?, 'PERSON', ?, ?)", parties);
+        jdbc.batchUpdate("""
+                insert into users (id, party_id, email, password_hash, status, security_version, created_at, updated_at)
+                values (?, ?, ?, 'x', 'ACTIVE', 0, ?, ?)
+                """, usersRows);
+        jdbc.batchUpdate("""
+                insert into teacher_profile (user_id, hourly_rate, calendar_version, created_at, updated_at)
+                values (?, ?, 0, ?, ?)
+                """, profiles);
+        jdbc.batchUpdate("insert into teacher_specialties (user_id, specialty) values (?, ?)", specialties);
+        jdbc.batchUpdate("""
+                insert into lesson (id, teacher_user_id, student_user_id, start_at, end_at, status, created_at, updated_at)
+                values (?, ?, ?, ?, ?, 'SCHEDULED', ?, ?)
+                """, lessons);
+        specialtyIndex.onTeacherProfileChanged(new TeacherProfileChangedEvent(null)); // carga por fora do serviço
+
+        AvailabilityResponse result = availability.search(specialty, day.plusHours(18), day.plusHours(19).plusMinutes(30), 100);
+
+        int busy = (teachers + 2) / 3;
+        assertEquals(teachers, result.candidates());
+        assertEquals(teachers - busy, result.available());
+        assertFalse(result.partial());
+        assertEquals(100, result.teachers().size());
+        assertTrue(result.teachers().stream().allMatch(t -> (t.teacherUserId() - firstId) % 3 != 0));
+        assertTrue(result.teachers().stream().allMatch(t -> t.bookedMinutes() == 60));
+        assertEquals(new BigDecimal("50.00"), result.teachers().get(0).hourlyRate());
+
+        Duration budget = (Duration) ReflectionTestUtils.getField(availability, "budget");
+        ReflectionTestUtils.setField(availability, "budget", Duration.ZERO);
+        try {
+            assertTrue(availability.search(specialty, day.plusHours(18), day.plusHours(19), 10).partial(),
+                    "orçamento estourado devolve resultado parcial");
+        } finally {
+            ReflectionTestUtils.setField(availability, "budget", budget);
+        }
+    }
+
+    @Test
+    void windowLongerThanALessonIsRejected() {
+        OffsetDateTime day = day(5);
+        assertThrows(org.springframework.web.server.ResponseStatusException.class,
+                () -> availability.search(specialty, day, day.plusHours(9), 10));
+    }
+
+    private Long teacher(BigDecimal hourlyRate, String... specialties) {
+        Long id = person("prof", RoleName.TEACHER);
+        teacherProfiles.create(id, new CreateTeacherProfileRequest(null, hourlyRate, Set.of(specialties)));
+        return id;
+    }
+
+    private Long book(Long teacher, OffsetDateTime start, OffsetDateTime end) {
+        return scheduling.schedule(new ScheduleLessonRequest(teacher, studentId, start, end, null)).id();
+    }
+
+    private static OffsetDateTime day(int daysAhead) {
+        return OffsetDateTime.now(ZoneOffset.UTC).plusDays(daysAhead).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    private static List<Long> ids(AvailabilityResponse result) {
+        return result.teachers().stream().map(AvailableTeacher::teacherUserId).toList();
+    }
+}
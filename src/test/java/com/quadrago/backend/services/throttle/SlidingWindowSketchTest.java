@@ -0,0 +1,109 @@
+package com.quadrago.backend.services.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Janela deslizante sob carga paralela pesada: sem incrementos perdidos, sem subestimar e sem
+ * furar o limite com rajadas simultâneas.
+ */
+class SlidingWindowSketchTest {
+
+    private static final int THREADS = 64;
+    private static final long NOW = 1_000_000_000L;
+
+    @Test
+    void concurrentIncrementsOnOneKeyAreNotLost() throws Exception {
+        var sketch = new SlidingWindowSketch(60_000, 6, 4, 1024);
+        int perThread = 5_000;
+
+        runInParallel(THREADS, i -> {
+            for (int n = 0; n < perThread; n++) sketch.incrementAndEstimate("victim@x.com", NOW);
+        });
+
+        assertEquals((long) THREADS * perThread, sketch.estimate("victim@x.com", NOW));
+    }
+
+    @Test
+    void parallelBurstNeverAdmitsMoreThanTheLimit() throws Exception {
+        var sketch = new SlidingWindowSketch(60_000, 6, 4, 1024);
+        int limit = 10;
+
+        for (int round = 0; round < 50; round++) {
+            String key = "burst-" + round + "@x.com";
+            AtomicInteger admitted = new AtomicInteger();
+            runInParallel(THREADS, i -> {
+                if (sketch.incrementAndEstimate(key, NOW) <= limit) admitted.incrementAndGet();
+            });
+            assertTrue(admitted.get() <= limit, "rodada " + round + " admitiu " + admitted.get());
+            assertEquals(THREADS, sketch.estimate(key, NOW));
+        }
+    }
+
+    @Test
+    void neverUnderestimatesWhenKeysCollide() throws Exception {
+        // Sketch pequeno de propósito: muitas colisões
+        var sketch = new SlidingWindowSketch(60_000, 6, 3, 64);
+        Map<String, LongAdder> exact = new ConcurrentHashMap<>();
+
+        runInParallel(THREADS, i -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int n = 0; n < 2_000; n++) {
+                String key = "10.0." + rnd.nextInt(8) + "." + rnd.nextInt(64);
+                sketch.incrementAndEstimate(key, NOW + rnd.nextInt(30_000));
+                exact.computeIfAbsent(key, k -> new LongAdder()).increment();
+            }
+        });
+
+        for (var e : exact.entrySet()) {
+            long estimate = sketch.estimate(e.getKey(), NOW + 30_000);
+            assertTrue(estimate >= e.getValue().sum(), e.getKey() + ": " + estimate + " < " + e.getValue().sum());
+        }
+    }
+
+    @Test
+    void oldSlicesLeaveTheWindow() {
+        var sketch = new SlidingWindowSketch(60_000, 6, 4, 1024); // fatias de 10s
+        for (int i = 0; i < 5; i++) sketch.incrementAndEstimate("1.2.3.4", NOW);
+        sketch.incrementAndEstimate("1.2.3.4", NOW + 30_000);
+
+        assertEquals(6, sketch.estimate("1.2.3.4", NOW + 59_999));
+        assertEquals(1, sketch.estimate("1.2.3.4", NOW + 60_000), "fatia inicial saiu da janela");
+        assertEquals(0, sketch.estimate("1.2.3.4", NOW + 90_000));
+        assertEquals(1, sketch.incrementAndEstimate("1.2.3.4", NOW + 120_000), "fatia reaproveitada começa zerada");
+    }
+
+    private static void runInParallel(int threads, java.util.function.IntConsumer task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.accept(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.quadrago.backend.support;
+
+import com.quadrago.backend.BackendApplication;
+import com.quadrago.backend.config.TestSecurityConfig;
+import com.quadrago.backend.dtos.UserDtos.CreatePersonUserRequest;
+import com.quadrago.backend.dtos.UserDtos.CreateStudentProfileRequest;
+import com.quadrago.backend.dtos.UserDtos.CreateTeacherProfileRequest;
+import com.quadrago.backend.enums.RoleName;
+import com.quadrago.backend.services.StudentProfileService;
+import com.quadrago.backend.services.TeacherProfileService;
+import com.quadrago.backend.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+/**
+ * Base dos testes de integração (aplicação inteira contra o H2 do perfil "test").
+ * Propriedades extras por classe com {@code @TestPropertySource}; configurações extras com {@code @Import}.
+ */
+@SpringBootTest(
+        classes = BackendApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = "app.dashboard.activity.backfill-on-startup=false"
+)
+@Import(TestSecurityConfig.class)
+@ActiveProfiles("test")
+public abstract class IntegrationTest {
+
+    @Autowired protected UserService users;
+    @Autowired protected TeacherProfileService teacherProfiles;
+    @Autowired protected StudentProfileService studentProfiles;
+
+    /** Usuário pessoa com e-mail único (sem perfil). */
+    protected Long person(String name, RoleName role) {
+        return users.createPersonUser(new CreatePersonUserRequest(name, null, null, null,
+                name + "." + System.nanoTime() + "@quadrago.local", "x", Set.of(role))).id();
+    }
+
+    /** Professor com perfil vazio (sem valor-hora nem especialidades). */
+    protected Long teacher(String name) {
+        Long id = person(name, RoleName.TEACHER);
+        teacherProfiles.create(id, new CreateTeacherProfileRequest(null, null, Set.of()));
+        return id;
+    }
+
+    /** Aluno com perfil vazio. */
+    protected Long student(String name) {
+        Long id = person(name, RoleName.STUDENT);
+        studentProfiles.create(id, new CreateStudentProfileRequest(null, null));
+        return id;
+    }
+}
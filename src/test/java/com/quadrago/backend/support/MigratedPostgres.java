@@ -0,0 +1,29 @@
+package com.quadrago.backend.support;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Schema das migrações num PostgreSQL do Testcontainers, para testes de componente cujo SQL é
+ * específico do Postgres (on conflict etc.) e não roda no H2 do perfil "test".
+ */
+public final class MigratedPostgres {
+
+    private MigratedPostgres() {
+    }
+
+    /** Aplica as migrações (idempotente) e devolve um DataSource simples para o banco do container. */
+    public static DataSource migrate(PostgreSQLContainer<?> postgres) {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        return new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}